@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+
+import hu.akarnokd.rxjava3.operators.FlowableTransformers;
+import io.reactivex.Flowable;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Measures the switchFlatMap active-set management under inner churn where
+ * the inner sources emit concurrently on the computation scheduler. Run from command line as
+ * <br>
+ * gradle jmh -Pjmh='SwitchFlatMapPerf'
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class SwitchFlatMapPerf {
+
+    @Param({"1", "4", "16"})
+    public int maxActive;
+
+    @Param({"1000", "100000"})
+    public int count;
+
+    @Param({"1", "10", "100"})
+    public int range;
+
+    Flowable<Integer> sync;
+
+    Flowable<Integer> async;
+
+    @Setup
+    public void setup() {
+        Integer[] array = new Integer[count];
+        Arrays.fill(array, 777);
+        Integer[] inner = new Integer[range];
+        Arrays.fill(inner, 888);
+
+        Flowable<Integer> source = Flowable.fromArray(array);
+        final Flowable<Integer> finner = Flowable.fromArray(inner);
+
+        sync = source.compose(FlowableTransformers.switchFlatMap(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return finner;
+            }
+        }, maxActive));
+
+        async = source.compose(FlowableTransformers.switchFlatMap(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return finner.subscribeOn(Schedulers.computation());
+            }
+        }, maxActive));
+    }
+
+    @Benchmark
+    public void sync(Blackhole bh) {
+        PerfConsumer c = new PerfConsumer(bh);
+        sync.subscribe(c);
+    }
+
+    @Benchmark
+    public void async(Blackhole bh) {
+        PerfAsyncConsumer c = new PerfAsyncConsumer(bh);
+        async.subscribe(c);
+        c.await(count * range);
+    }
+}
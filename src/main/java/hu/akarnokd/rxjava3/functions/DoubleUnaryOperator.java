@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.functions;
+
+/**
+ * Maps a primitive {@code double} value into another {@code double} value.
+ * @since 3.0.0
+ */
+public interface DoubleUnaryOperator {
+
+    /**
+     * Maps the value.
+     * @param value the input value
+     * @return the output value
+     */
+    double apply(double value);
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.functions;
+
+/**
+ * Combines two primitive {@code int} values into one {@code int} value.
+ * @since 3.0.0
+ */
+public interface IntBinaryOperator {
+
+    /**
+     * Combines the values.
+     * @param left the first value, usually the accumulated value
+     * @param right the second value
+     * @return the combined value
+     */
+    int apply(int left, int right);
+}
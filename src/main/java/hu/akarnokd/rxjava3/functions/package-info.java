@@ -16,7 +16,8 @@
 
 /**
  * Functional interface definitions for {@link io.reactivex.functions.Consumer Consumer}s with
- * 3..9 arguments and {@link io.reactivex.functions.Function Function}s without the
- * {@code throws Exception} clause in their definition.
+ * 3..9 arguments, {@link io.reactivex.functions.Function Function}s without the
+ * {@code throws Exception} clause in their definition and functional interfaces
+ * working with primitive {@code int}, {@code long} and {@code double} values.
  */
 package hu.akarnokd.rxjava3.functions;
\ No newline at end of file
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import org.reactivestreams.*;
+
+import io.reactivex.internal.subscribers.DeferredScalarSubscriber;
+
+final class FlowableStatistics extends FlowableSource<Number, Statistics> {
+
+    FlowableStatistics(Publisher<Number> source) {
+        super(source);
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super Statistics> subscriber) {
+        source.subscribe(new StatisticsSubscriber(subscriber));
+    }
+
+    static final class StatisticsSubscriber extends DeferredScalarSubscriber<Number, Statistics> {
+
+        private static final long serialVersionUID = -8258924466296405225L;
+
+        final Statistics.Accumulator accumulator;
+
+        StatisticsSubscriber(Subscriber<? super Statistics> downstream) {
+            super(downstream);
+            this.accumulator = new Statistics.Accumulator();
+        }
+
+        @Override
+        public void onNext(Number value) {
+            accumulator.add(value.doubleValue());
+        }
+
+        @Override
+        public void onComplete() {
+            Statistics.Accumulator a = accumulator;
+            if (a.count() != 0L) {
+                complete(a.toStatistics());
+            } else {
+                downstream.onComplete();
+            }
+        }
+
+    }
+}
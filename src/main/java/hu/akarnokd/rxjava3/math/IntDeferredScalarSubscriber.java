@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import org.reactivestreams.*;
+
+import io.reactivex.internal.subscriptions.*;
+
+/**
+ * Base class for IntSubscribers aggregating the values into a single result
+ * emitted to a regular Subscriber when the upstream completes.
+ *
+ * @param <R> the result type
+ */
+abstract class IntDeferredScalarSubscriber<R> extends DeferredScalarSubscription<R>
+implements IntSubscriber {
+
+    private static final long serialVersionUID = -2793768302437604302L;
+
+    Subscription upstream;
+
+    boolean hasValue;
+
+    IntDeferredScalarSubscriber(Subscriber<? super R> downstream) {
+        super(downstream);
+    }
+
+    @Override
+    public final void onSubscribe(Subscription s) {
+        if (SubscriptionHelper.validate(upstream, s)) {
+            upstream = s;
+
+            downstream.onSubscribe(this);
+
+            s.request(Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public final void onError(Throwable t) {
+        downstream.onError(t);
+    }
+
+    @Override
+    public final void cancel() {
+        super.cancel();
+        upstream.cancel();
+    }
+}
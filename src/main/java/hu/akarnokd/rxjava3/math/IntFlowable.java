@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import org.reactivestreams.*;
+
+import hu.akarnokd.rxjava3.functions.*;
+import io.reactivex.Flowable;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * A backpressured sequence of primitive {@code int} values delivered to {@link IntSubscriber}s
+ * via {@link IntSubscriber#onNextInt(int)}, avoiding the allocation of a boxed {@code Integer}
+ * for each value.
+ * <p>
+ * The class is also a {@code Publisher<Integer>} so it can be consumed by regular
+ * Subscribers or turned into a Flowable via {@link #toFlowable()}, boxing each value
+ * only at that boundary.
+ * @since 3.0.0
+ */
+public abstract class IntFlowable implements Publisher<Integer> {
+
+    /**
+     * Emits a range of int values.
+     * @param start the first value
+     * @param count the number of values to emit, non-negative
+     * @return the new IntFlowable instance
+     */
+    public static IntFlowable range(int start, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count >= 0 required but it was " + count);
+        }
+        if (count > 1 && start > Integer.MAX_VALUE - count + 1) {
+            throw new IllegalArgumentException("Integer overflow");
+        }
+        return new IntFlowableRange(start, count);
+    }
+
+    /**
+     * Emits the int values of the array.
+     * <p>
+     * The array is not copied and should not be modified while subscribers consume it.
+     * @param values the values to emit
+     * @return the new IntFlowable instance
+     */
+    public static IntFlowable fromArray(int... values) {
+        ObjectHelper.requireNonNull(values, "values is null");
+        return new IntFlowableFromArray(values);
+    }
+
+    /**
+     * Converts a Publisher of Integers into an IntFlowable, unboxing the values.
+     * @param source the source Publisher
+     * @return the IntFlowable instance
+     */
+    public static IntFlowable fromPublisher(Publisher<Integer> source) {
+        if (source instanceof IntFlowable) {
+            return (IntFlowable)source;
+        }
+        ObjectHelper.requireNonNull(source, "source is null");
+        return new IntFlowableFromPublisher(source);
+    }
+
+    /**
+     * Maps each value via a function.
+     * @param mapper the function receiving a value and returning the value to emit
+     * @return the new IntFlowable instance
+     */
+    public final IntFlowable map(IntUnaryOperator mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return new IntFlowableMap(this, mapper);
+    }
+
+    /**
+     * Emits the values the predicate returns true for.
+     * @param predicate the predicate receiving a value and returning true to keep it
+     * @return the new IntFlowable instance
+     */
+    public final IntFlowable filter(IntPredicate predicate) {
+        ObjectHelper.requireNonNull(predicate, "predicate is null");
+        return new IntFlowableFilter(this, predicate);
+    }
+
+    /**
+     * Sums up the values and emits the sum when this IntFlowable completes,
+     * or completes empty if there were no values.
+     * @return the new Flowable instance
+     */
+    public final Flowable<Integer> sum() {
+        return RxJavaPlugins.onAssembly(new IntFlowableSum(this));
+    }
+
+    /**
+     * Emits the smallest value when this IntFlowable completes,
+     * or completes empty if there were no values.
+     * @return the new Flowable instance
+     */
+    public final Flowable<Integer> min() {
+        return RxJavaPlugins.onAssembly(new IntFlowableMinMax(this, false));
+    }
+
+    /**
+     * Emits the largest value when this IntFlowable completes,
+     * or completes empty if there were no values.
+     * @return the new Flowable instance
+     */
+    public final Flowable<Integer> max() {
+        return RxJavaPlugins.onAssembly(new IntFlowableMinMax(this, true));
+    }
+
+    /**
+     * Emits the average of the values when this IntFlowable completes,
+     * or completes empty if there were no values.
+     * @return the new Flowable instance
+     */
+    public final Flowable<Double> average() {
+        return RxJavaPlugins.onAssembly(new IntFlowableAverage(this));
+    }
+
+    /**
+     * Converts this IntFlowable into a Flowable, boxing each value.
+     * @return the new Flowable instance
+     */
+    public final Flowable<Integer> toFlowable() {
+        return Flowable.fromPublisher(this);
+    }
+
+    /**
+     * Subscribes with the primitive IntSubscriber.
+     * @param s the IntSubscriber, not null
+     */
+    public final void subscribe(IntSubscriber s) {
+        ObjectHelper.requireNonNull(s, "s is null");
+        subscribeActual(s);
+    }
+
+    /**
+     * Subscribes with a regular Subscriber, boxing each value.
+     * @param s the Subscriber, not null
+     */
+    @Override
+    public final void subscribe(Subscriber<? super Integer> s) {
+        ObjectHelper.requireNonNull(s, "s is null");
+        subscribeActual(new BoxingIntSubscriber(s));
+    }
+
+    /**
+     * Implement this method to handle the incoming IntSubscribers.
+     * @param s the IntSubscriber, not null
+     */
+    protected abstract void subscribeActual(IntSubscriber s);
+
+    static final class BoxingIntSubscriber implements IntSubscriber {
+
+        final Subscriber<? super Integer> downstream;
+
+        BoxingIntSubscriber(Subscriber<? super Integer> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            downstream.onSubscribe(s);
+        }
+
+        @Override
+        public void onNextInt(int value) {
+            downstream.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            downstream.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            downstream.onComplete();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import org.reactivestreams.Subscription;
+
+import hu.akarnokd.rxjava3.functions.IntPredicate;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Keeps the int values the predicate returns true for.
+ */
+final class IntFlowableFilter extends IntFlowable {
+
+    final IntFlowable source;
+
+    final IntPredicate predicate;
+
+    IntFlowableFilter(IntFlowable source, IntPredicate predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    protected void subscribeActual(IntSubscriber s) {
+        source.subscribe(new FilterSubscriber(s, predicate));
+    }
+
+    static final class FilterSubscriber implements IntConditionalSubscriber, Subscription {
+
+        final IntSubscriber downstream;
+
+        final IntConditionalSubscriber conditional;
+
+        final IntPredicate predicate;
+
+        Subscription upstream;
+
+        boolean done;
+
+        FilterSubscriber(IntSubscriber downstream, IntPredicate predicate) {
+            this.downstream = downstream;
+            this.conditional = downstream instanceof IntConditionalSubscriber ? (IntConditionalSubscriber)downstream : null;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(upstream, s)) {
+                upstream = s;
+                downstream.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNextInt(int value) {
+            if (!tryOnNextInt(value) && !done) {
+                upstream.request(1);
+            }
+        }
+
+        @Override
+        public boolean tryOnNextInt(int value) {
+            if (done) {
+                return false;
+            }
+            boolean b;
+            try {
+                b = predicate.test(value);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                upstream.cancel();
+                onError(ex);
+                return false;
+            }
+            if (b) {
+                IntConditionalSubscriber c = conditional;
+                if (c != null) {
+                    return c.tryOnNextInt(value);
+                }
+                downstream.onNextInt(value);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                RxJavaPlugins.onError(t);
+                return;
+            }
+            done = true;
+            downstream.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            downstream.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+        }
+    }
+}
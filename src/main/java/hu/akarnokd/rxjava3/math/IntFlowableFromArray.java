@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Subscription;
+
+import io.reactivex.internal.subscriptions.*;
+import io.reactivex.internal.util.BackpressureHelper;
+
+/**
+ * Emits the values of an int array.
+ */
+final class IntFlowableFromArray extends IntFlowable {
+
+    final int[] array;
+
+    IntFlowableFromArray(int[] array) {
+        this.array = array;
+    }
+
+    @Override
+    protected void subscribeActual(IntSubscriber s) {
+        if (array.length == 0) {
+            s.onSubscribe(EmptySubscription.INSTANCE);
+            s.onComplete();
+            return;
+        }
+        if (s instanceof IntConditionalSubscriber) {
+            s.onSubscribe(new ArrayConditionalSubscription((IntConditionalSubscriber)s, array));
+        } else {
+            s.onSubscribe(new ArraySubscription(s, array));
+        }
+    }
+
+    abstract static class BaseArraySubscription extends AtomicLong implements Subscription {
+
+        private static final long serialVersionUID = -1407489585215523307L;
+
+        final int[] array;
+
+        int index;
+
+        volatile boolean cancelled;
+
+        BaseArraySubscription(int[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public final void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                if (BackpressureHelper.add(this, n) == 0L) {
+                    if (n == Long.MAX_VALUE) {
+                        fastPath();
+                    } else {
+                        slowPath(n);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public final void cancel() {
+            cancelled = true;
+        }
+
+        abstract void fastPath();
+
+        abstract void slowPath(long r);
+    }
+
+    static final class ArraySubscription extends BaseArraySubscription {
+
+        private static final long serialVersionUID = 2903744627330357426L;
+
+        final IntSubscriber downstream;
+
+        ArraySubscription(IntSubscriber downstream, int[] array) {
+            super(array);
+            this.downstream = downstream;
+        }
+
+        @Override
+        void fastPath() {
+            int[] b = array;
+            int c = b.length;
+            IntSubscriber a = downstream;
+
+            for (int i = index; i != c; i++) {
+                if (cancelled) {
+                    return;
+                }
+                a.onNextInt(b[i]);
+            }
+            if (!cancelled) {
+                a.onComplete();
+            }
+        }
+
+        @Override
+        void slowPath(long r) {
+            long e = 0L;
+            int[] b = array;
+            int c = b.length;
+            int i = index;
+            IntSubscriber a = downstream;
+
+            for (;;) {
+                while (e != r && i != c) {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    a.onNextInt(b[i]);
+
+                    e++;
+                    i++;
+                }
+
+                if (i == c) {
+                    if (!cancelled) {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                r = get();
+                if (e == r) {
+                    index = i;
+                    r = addAndGet(-e);
+                    if (r == 0L) {
+                        return;
+                    }
+                    e = 0L;
+                }
+            }
+        }
+    }
+
+    static final class ArrayConditionalSubscription extends BaseArraySubscription {
+
+        private static final long serialVersionUID = -7785412108434938546L;
+
+        final IntConditionalSubscriber downstream;
+
+        ArrayConditionalSubscription(IntConditionalSubscriber downstream, int[] array) {
+            super(array);
+            this.downstream = downstream;
+        }
+
+        @Override
+        void fastPath() {
+            int[] b = array;
+            int c = b.length;
+            IntConditionalSubscriber a = downstream;
+
+            for (int i = index; i != c; i++) {
+                if (cancelled) {
+                    return;
+                }
+                a.tryOnNextInt(b[i]);
+            }
+            if (!cancelled) {
+                a.onComplete();
+            }
+        }
+
+        @Override
+        void slowPath(long r) {
+            long e = 0L;
+            int[] b = array;
+            int c = b.length;
+            int i = index;
+            IntConditionalSubscriber a = downstream;
+
+            for (;;) {
+                while (e != r && i != c) {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    if (a.tryOnNextInt(b[i])) {
+                        e++;
+                    }
+
+                    i++;
+                }
+
+                if (i == c) {
+                    if (!cancelled) {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                r = get();
+                if (e == r) {
+                    index = i;
+                    r = addAndGet(-e);
+                    if (r == 0L) {
+                        return;
+                    }
+                    e = 0L;
+                }
+            }
+        }
+    }
+}
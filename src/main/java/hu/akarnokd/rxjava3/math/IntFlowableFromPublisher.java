@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import org.reactivestreams.*;
+
+import io.reactivex.FlowableSubscriber;
+
+/**
+ * Unboxes the Integer values of a Publisher.
+ */
+final class IntFlowableFromPublisher extends IntFlowable {
+
+    final Publisher<Integer> source;
+
+    IntFlowableFromPublisher(Publisher<Integer> source) {
+        this.source = source;
+    }
+
+    @Override
+    protected void subscribeActual(IntSubscriber s) {
+        source.subscribe(new UnboxingSubscriber(s));
+    }
+
+    static final class UnboxingSubscriber implements FlowableSubscriber<Integer> {
+
+        final IntSubscriber downstream;
+
+        UnboxingSubscriber(IntSubscriber downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            downstream.onSubscribe(s);
+        }
+
+        @Override
+        public void onNext(Integer t) {
+            downstream.onNextInt(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            downstream.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            downstream.onComplete();
+        }
+    }
+}
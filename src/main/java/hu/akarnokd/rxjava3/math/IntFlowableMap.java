@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import org.reactivestreams.Subscription;
+
+import hu.akarnokd.rxjava3.functions.IntUnaryOperator;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Maps the int values via a function.
+ */
+final class IntFlowableMap extends IntFlowable {
+
+    final IntFlowable source;
+
+    final IntUnaryOperator mapper;
+
+    IntFlowableMap(IntFlowable source, IntUnaryOperator mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    protected void subscribeActual(IntSubscriber s) {
+        source.subscribe(new MapSubscriber(s, mapper));
+    }
+
+    static final class MapSubscriber implements IntConditionalSubscriber, Subscription {
+
+        final IntSubscriber downstream;
+
+        final IntConditionalSubscriber conditional;
+
+        final IntUnaryOperator mapper;
+
+        Subscription upstream;
+
+        boolean done;
+
+        MapSubscriber(IntSubscriber downstream, IntUnaryOperator mapper) {
+            this.downstream = downstream;
+            this.conditional = downstream instanceof IntConditionalSubscriber ? (IntConditionalSubscriber)downstream : null;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(upstream, s)) {
+                upstream = s;
+                downstream.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNextInt(int value) {
+            if (done) {
+                return;
+            }
+            int v;
+            try {
+                v = mapper.apply(value);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                upstream.cancel();
+                onError(ex);
+                return;
+            }
+            downstream.onNextInt(v);
+        }
+
+        @Override
+        public boolean tryOnNextInt(int value) {
+            if (done) {
+                return false;
+            }
+            int v;
+            try {
+                v = mapper.apply(value);
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                upstream.cancel();
+                onError(ex);
+                return false;
+            }
+            IntConditionalSubscriber c = conditional;
+            if (c != null) {
+                return c.tryOnNextInt(v);
+            }
+            downstream.onNextInt(v);
+            return true;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                RxJavaPlugins.onError(t);
+                return;
+            }
+            done = true;
+            downstream.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            downstream.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+        }
+    }
+}
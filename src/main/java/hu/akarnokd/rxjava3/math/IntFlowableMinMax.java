@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import org.reactivestreams.Subscriber;
+
+import io.reactivex.Flowable;
+
+final class IntFlowableMinMax extends Flowable<Integer> {
+
+    final IntFlowable source;
+
+    final boolean max;
+
+    IntFlowableMinMax(IntFlowable source, boolean max) {
+        this.source = source;
+        this.max = max;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super Integer> subscriber) {
+        source.subscribe(new MinMaxSubscriber(subscriber, max));
+    }
+
+    static final class MinMaxSubscriber extends IntDeferredScalarSubscriber<Integer> {
+
+        private static final long serialVersionUID = 8216404400236127389L;
+
+        final boolean max;
+
+        int accumulator;
+
+        MinMaxSubscriber(Subscriber<? super Integer> downstream, boolean max) {
+            super(downstream);
+            this.max = max;
+            this.accumulator = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void onNextInt(int value) {
+            hasValue = true;
+            if (max) {
+                if (value > accumulator) {
+                    accumulator = value;
+                }
+            } else {
+                if (value < accumulator) {
+                    accumulator = value;
+                }
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (hasValue) {
+                complete(accumulator);
+            } else {
+                downstream.onComplete();
+            }
+        }
+    }
+}
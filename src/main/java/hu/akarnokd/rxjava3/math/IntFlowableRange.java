@@ -0,0 +1,230 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Subscription;
+
+import io.reactivex.internal.subscriptions.*;
+import io.reactivex.internal.util.BackpressureHelper;
+
+/**
+ * Emits a range of int values.
+ */
+final class IntFlowableRange extends IntFlowable {
+
+    final int start;
+
+    final int count;
+
+    IntFlowableRange(int start, int count) {
+        this.start = start;
+        this.count = count;
+    }
+
+    @Override
+    protected void subscribeActual(IntSubscriber s) {
+        if (count == 0) {
+            s.onSubscribe(EmptySubscription.INSTANCE);
+            s.onComplete();
+            return;
+        }
+        if (s instanceof IntConditionalSubscriber) {
+            s.onSubscribe(new RangeConditionalSubscription((IntConditionalSubscriber)s, start, count));
+        } else {
+            s.onSubscribe(new RangeSubscription(s, start, count));
+        }
+    }
+
+    abstract static class BaseRangeSubscription extends AtomicLong implements Subscription {
+
+        private static final long serialVersionUID = -4159306640208282223L;
+
+        final int start;
+
+        final int count;
+
+        int index;
+
+        volatile boolean cancelled;
+
+        BaseRangeSubscription(int start, int count) {
+            this.start = start;
+            this.count = count;
+        }
+
+        @Override
+        public final void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                if (BackpressureHelper.add(this, n) == 0L) {
+                    if (n == Long.MAX_VALUE) {
+                        fastPath();
+                    } else {
+                        slowPath(n);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public final void cancel() {
+            cancelled = true;
+        }
+
+        abstract void fastPath();
+
+        abstract void slowPath(long r);
+    }
+
+    static final class RangeSubscription extends BaseRangeSubscription {
+
+        private static final long serialVersionUID = 6470096021693599960L;
+
+        final IntSubscriber downstream;
+
+        RangeSubscription(IntSubscriber downstream, int start, int count) {
+            super(start, count);
+            this.downstream = downstream;
+        }
+
+        @Override
+        void fastPath() {
+            int c = count;
+            int s = start;
+            IntSubscriber a = downstream;
+
+            for (int i = index; i != c; i++) {
+                if (cancelled) {
+                    return;
+                }
+                a.onNextInt(s + i);
+            }
+            if (!cancelled) {
+                a.onComplete();
+            }
+        }
+
+        @Override
+        void slowPath(long r) {
+            long e = 0L;
+            int c = count;
+            int s = start;
+            int i = index;
+            IntSubscriber a = downstream;
+
+            for (;;) {
+                while (e != r && i != c) {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    a.onNextInt(s + i);
+
+                    e++;
+                    i++;
+                }
+
+                if (i == c) {
+                    if (!cancelled) {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                r = get();
+                if (e == r) {
+                    index = i;
+                    r = addAndGet(-e);
+                    if (r == 0L) {
+                        return;
+                    }
+                    e = 0L;
+                }
+            }
+        }
+    }
+
+    static final class RangeConditionalSubscription extends BaseRangeSubscription {
+
+        private static final long serialVersionUID = 4287416564154734049L;
+
+        final IntConditionalSubscriber downstream;
+
+        RangeConditionalSubscription(IntConditionalSubscriber downstream, int start, int count) {
+            super(start, count);
+            this.downstream = downstream;
+        }
+
+        @Override
+        void fastPath() {
+            int c = count;
+            int s = start;
+            IntConditionalSubscriber a = downstream;
+
+            for (int i = index; i != c; i++) {
+                if (cancelled) {
+                    return;
+                }
+                a.tryOnNextInt(s + i);
+            }
+            if (!cancelled) {
+                a.onComplete();
+            }
+        }
+
+        @Override
+        void slowPath(long r) {
+            long e = 0L;
+            int c = count;
+            int s = start;
+            int i = index;
+            IntConditionalSubscriber a = downstream;
+
+            for (;;) {
+                while (e != r && i != c) {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    if (a.tryOnNextInt(s + i)) {
+                        e++;
+                    }
+
+                    i++;
+                }
+
+                if (i == c) {
+                    if (!cancelled) {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                r = get();
+                if (e == r) {
+                    index = i;
+                    r = addAndGet(-e);
+                    if (r == 0L) {
+                        return;
+                    }
+                    e = 0L;
+                }
+            }
+        }
+    }
+}
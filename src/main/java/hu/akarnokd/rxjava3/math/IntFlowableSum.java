@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import org.reactivestreams.Subscriber;
+
+import io.reactivex.Flowable;
+
+final class IntFlowableSum extends Flowable<Integer> {
+
+    final IntFlowable source;
+
+    IntFlowableSum(IntFlowable source) {
+        this.source = source;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super Integer> subscriber) {
+        source.subscribe(new SumSubscriber(subscriber));
+    }
+
+    static final class SumSubscriber extends IntDeferredScalarSubscriber<Integer> {
+
+        private static final long serialVersionUID = -4328562516366374829L;
+
+        int accumulator;
+
+        SumSubscriber(Subscriber<? super Integer> downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void onNextInt(int value) {
+            hasValue = true;
+            accumulator += value;
+        }
+
+        @Override
+        public void onComplete() {
+            if (hasValue) {
+                complete(accumulator);
+            } else {
+                downstream.onComplete();
+            }
+        }
+    }
+}
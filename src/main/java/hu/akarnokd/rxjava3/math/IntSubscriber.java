@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import org.reactivestreams.Subscription;
+
+/**
+ * Consumer of an {@link IntFlowable}, receiving the values as primitive {@code int}s
+ * while following the Reactive Streams protocol otherwise.
+ * @since 3.0.0
+ */
+public interface IntSubscriber {
+
+    /**
+     * Called once before any other method with the Subscription to request values and cancel with.
+     * @param s the Subscription, not null
+     */
+    void onSubscribe(Subscription s);
+
+    /**
+     * Called with the next value, at most as many times as requested.
+     * @param value the value
+     */
+    void onNextInt(int value);
+
+    /**
+     * Called at most once if the sequence failed.
+     * @param t the error, not null
+     */
+    void onError(Throwable t);
+
+    /**
+     * Called at most once if the sequence completed normally.
+     */
+    void onComplete();
+}
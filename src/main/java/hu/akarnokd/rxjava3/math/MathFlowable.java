@@ -77,4 +77,16 @@ public final class MathFlowable {
         return RxJavaPlugins.onAssembly(new FlowableAverageDouble((Publisher<Number>)source));
     }
 
+    /**
+     * Computes the count, sum, minimum, maximum, mean and variance of the numbers in a single pass
+     * and emits them when the source completes, or completes empty if the source had no values.
+     * @param source the source of numbers
+     * @return the new Flowable instance
+     * @since 3.0.0
+     */
+    @SuppressWarnings("unchecked")
+    public static Flowable<Statistics> stats(Publisher<? extends Number> source) {
+        return RxJavaPlugins.onAssembly(new FlowableStatistics((Publisher<Number>)source));
+    }
+
 }
@@ -75,4 +75,16 @@ public final class MathObservable {
         return RxJavaPlugins.onAssembly(new ObservableAverageDouble((ObservableSource<Number>)source));
     }
 
+    /**
+     * Computes the count, sum, minimum, maximum, mean and variance of the numbers in a single pass
+     * and emits them when the source completes, or completes empty if the source had no values.
+     * @param source the source of numbers
+     * @return the new Observable instance
+     * @since 3.0.0
+     */
+    @SuppressWarnings("unchecked")
+    public static Observable<Statistics> stats(ObservableSource<? extends Number> source) {
+        return RxJavaPlugins.onAssembly(new ObservableStatistics((ObservableSource<Number>)source));
+    }
+
 }
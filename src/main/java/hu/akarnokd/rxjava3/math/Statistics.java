@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * The count, sum, minimum, maximum, mean and variance of a sequence of numbers,
+ * computed in a single pass with Welford's algorithm.
+ * <p>
+ * Instances are immutable and can be merged via {@link #combine(Statistics)}, so
+ * partial results computed over disjoint parts of the data (such as parallel rails)
+ * give the same result as a single pass over all of it.
+ * @since 3.0.0
+ */
+public final class Statistics {
+
+    final long count;
+
+    final double sum;
+
+    final double min;
+
+    final double max;
+
+    final double mean;
+
+    final double m2;
+
+    Statistics(long count, double sum, double min, double max, double mean, double m2) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.m2 = m2;
+    }
+
+    /**
+     * Returns the number of values.
+     * @return the number of values
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the values.
+     * @return the sum of the values
+     */
+    public double sum() {
+        return sum;
+    }
+
+    /**
+     * Returns the smallest value.
+     * @return the smallest value
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * Returns the largest value.
+     * @return the largest value
+     */
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Returns the arithmetic mean of the values.
+     * @return the arithmetic mean of the values
+     */
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * Returns the population variance of the values.
+     * @return the population variance of the values
+     */
+    public double variance() {
+        return m2 / count;
+    }
+
+    /**
+     * Returns the sample variance of the values, NaN if there is only one value.
+     * @return the sample variance of the values
+     */
+    public double sampleVariance() {
+        return count > 1 ? m2 / (count - 1) : Double.NaN;
+    }
+
+    /**
+     * Returns the population standard deviation of the values.
+     * @return the population standard deviation of the values
+     */
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    /**
+     * Returns the statistics of the values of this and the other instance together.
+     * @param other the other statistics, not null
+     * @return the combined statistics
+     */
+    public Statistics combine(Statistics other) {
+        ObjectHelper.requireNonNull(other, "other is null");
+        Accumulator a = new Accumulator();
+        a.add(this);
+        a.add(other);
+        return a.toStatistics();
+    }
+
+    @Override
+    public String toString() {
+        return "Statistics[count=" + count + ", sum=" + sum + ", min=" + min + ", max=" + max
+                + ", mean=" + mean + ", variance=" + variance() + "]";
+    }
+
+    /**
+     * Mutable, single-threaded accumulator updating the statistics value by value without
+     * allocation.
+     */
+    public static final class Accumulator {
+
+        long count;
+
+        double sum;
+
+        double min = Double.POSITIVE_INFINITY;
+
+        double max = Double.NEGATIVE_INFINITY;
+
+        double mean;
+
+        double m2;
+
+        /**
+         * Adds a value.
+         * @param value the value to add
+         */
+        public void add(double value) {
+            long n = ++count;
+            sum += value;
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+            double delta = value - mean;
+            mean += delta / n;
+            m2 += delta * (value - mean);
+        }
+
+        /**
+         * Adds the values summarized by the given statistics.
+         * @param other the statistics to add, not null
+         */
+        public void add(Statistics other) {
+            long nb = other.count;
+            if (nb == 0L) {
+                return;
+            }
+            long na = count;
+            if (na == 0L) {
+                count = nb;
+                sum = other.sum;
+                min = other.min;
+                max = other.max;
+                mean = other.mean;
+                m2 = other.m2;
+                return;
+            }
+            long n = na + nb;
+            double delta = other.mean - mean;
+            count = n;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            mean += delta * nb / n;
+            m2 += other.m2 + delta * delta * ((double)na * nb / n);
+        }
+
+        /**
+         * Returns the number of values added so far.
+         * @return the number of values
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the statistics of the values added so far.
+         * @return the new Statistics instance
+         */
+        public Statistics toStatistics() {
+            return new Statistics(count, sum, min, max, mean, m2);
+        }
+    }
+}
@@ -39,6 +39,11 @@ import io.reactivex.plugins.RxJavaPlugins;
 /**
  * Subscription coordinator that merges items from a fixed set of source Publishers by
  * picking the smallest available next item from them based on a Comparator.
+ * <p>
+ * The sources with an item available are kept in a binary heap ordered by their
+ * items, so that picking the next item and re-sifting the source which emitted it
+ * or which received data takes O(log n) comparisons. Optionally, runs of items from the
+ * same source that are not larger than the runner-up are emitted with one comparison each.
  *
  * @param <T> the value type
  * @since 0.17.9
@@ -56,19 +61,51 @@ implements Subscription, InnerQueuedSubscriberSupport<T> {
 
     final boolean delayErrors;
 
+    final boolean emitRuns;
+
     final AtomicThrowable errors;
 
     final AtomicLong requested;
 
     final Object[] latest;
 
+    /** Binary min-heap of the indexes of the sources with an item available. */
+    final int[] heap;
+
+    /** The indexes of the sources with no item available that are not done yet. */
+    final int[] pending;
+
+    int heapSize;
+
+    int pendingCount;
+
+    /** Set when the drain loop signalled an error due to a failing queue or Comparator. */
+    boolean terminated;
+
     volatile boolean cancelled;
 
-    @SuppressWarnings("unchecked")
     public BasicMergeSubscription(Subscriber<? super T> downstream, Comparator<? super T> comparator, int n, int prefetch, boolean delayErrors) {
+        this(downstream, comparator, n, prefetch, delayErrors, false);
+    }
+
+    /**
+     * Constructs a BasicMergeSubscription, optionally emitting runs: once a source has the
+     * smallest item, its subsequent items are emitted right away while they are not larger
+     * than the smallest item of the other sources, with one comparison per item.
+     * @param downstream the downstream Subscriber
+     * @param comparator the comparator of the items
+     * @param n the number of sources
+     * @param prefetch the number of items to prefetch from each source
+     * @param delayErrors if true, source errors are delayed until all sources terminate
+     * @param emitRuns if true, runs of items from the same source are emitted without re-selection
+     * @since 3.0.0
+     */
+    @SuppressWarnings("unchecked")
+    public BasicMergeSubscription(Subscriber<? super T> downstream, Comparator<? super T> comparator, int n, int prefetch, boolean delayErrors, boolean emitRuns) {
         this.downstream = downstream;
         this.comparator = comparator;
         this.delayErrors = delayErrors;
+        this.emitRuns = emitRuns;
         InnerQueuedSubscriber<T>[] subs = new InnerQueuedSubscriber[n];
         for (int i = 0; i < n; i++) {
             subs[i] = new InnerQueuedSubscriber<T>(this, prefetch);
@@ -77,6 +114,13 @@ implements Subscription, InnerQueuedSubscriberSupport<T> {
         this.requested = new AtomicLong();
         this.errors = new AtomicThrowable();
         this.latest = new Object[n];
+        this.heap = new int[n];
+        int[] pend = new int[n];
+        for (int i = 0; i < n; i++) {
+            pend[i] = i;
+        }
+        this.pending = pend;
+        this.pendingCount = n;
     }
 
     public void subscribe(Publisher<T>[] sources, int n) {
@@ -170,7 +214,6 @@ implements Subscription, InnerQueuedSubscriberSupport<T> {
         drain();
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void drain() {
         if (getAndIncrement() != 0) {
@@ -182,16 +225,14 @@ implements Subscription, InnerQueuedSubscriberSupport<T> {
         Subscriber<? super T> a = downstream;
         AtomicThrowable err = errors;
         InnerQueuedSubscriber<T>[] subs = subscribers;
-        int n = subs.length;
         Object[] latest = this.latest;
-        Comparator<? super T> comp = comparator;
 
         for (;;) {
 
             long r = requested.get();
             long e = 0L;
 
-            while (e != r) {
+            for (;;) {
                 if (cancelled) {
                     clearSources();
                     return;
@@ -203,144 +244,87 @@ implements Subscription, InnerQueuedSubscriberSupport<T> {
                     return;
                 }
 
-                boolean d = true;
-                int hasValue = 0;
-                boolean empty = true;
-
-                T smallest = null;
-                int pick = -1;
-
-                for (int i = 0; i < n; i++) {
-                    InnerQueuedSubscriber<T> inner = subs[i];
-                    boolean innerDone = inner.isDone();
-                    if (!innerDone) {
-                        d = false;
-                    }
-                    Object v = latest[i];
-                    if (v == null) {
-                        SimpleQueue<T> q = inner.queue();
-                        try {
-                            v = q != null ? q.poll() : null;
-                        } catch (Throwable ex) {
-                            Exceptions.throwIfFatal(ex);
-                            err.addThrowable(ex);
-                            inner.setDone();
-                            if (!delayErrors) {
-                                cancelAndClearSources();
-                                a.onError(err.terminate());
-                                return;
-                            }
-                            v = this;
-                        }
-
-                        if (v != null) {
-                            latest[i] = v;
-                            hasValue++;
-                            empty = false;
-                        } else
-                        if (innerDone) {
-                            latest[i] = this;
-                            hasValue++;
-                        }
-                    } else {
-                        hasValue++;
-                        if (v != this) {
-                            empty = false;
-                        }
-                    }
-
-                    if (v != null && v != this) {
-                        boolean smaller;
-                        try {
-                            if (smallest != null) {
-                                smaller = comp.compare(smallest, (T)v) > 0;
-                            } else {
-                                smaller = true;
-                            }
-                        } catch (Throwable ex) {
-                            Exceptions.throwIfFatal(ex);
-                            err.addThrowable(ex);
-                            cancelAndClearSources();
-                            a.onError(err.terminate());
-                            return;
-                        }
-                        if (smaller) {
-                            smallest = (T)v;
-                            pick = i;
-                        }
-                    }
+                if (!fillPending()) {
+                    return;
                 }
 
-                if (hasValue == n && pick >= 0) {
-                    a.onNext(smallest);
-                    latest[pick] = null;
-                    subs[pick].requestOne();
-
-                    e++;
-                } else {
-                    if (d && empty) {
-                        if (err.get() != null) {
-                            a.onError(err.terminate());
-                        } else {
-                            a.onComplete();
-                        }
-                        return;
-                    }
+                if (pendingCount != 0) {
                     break;
                 }
-            }
 
-            if (e == r) {
-                if (cancelled) {
-                    clearSources();
+                if (heapSize == 0) {
+                    if (err.get() != null) {
+                        a.onError(err.terminate());
+                    } else {
+                        a.onComplete();
+                    }
                     return;
                 }
 
-                if (!delayErrors && err.get() != null) {
-                    cancelAndClearSources();
-                    a.onError(err.terminate());
-                    return;
+                if (e == r) {
+                    break;
                 }
 
-                boolean d = true;
-                boolean empty = true;
+                int pick = heap[0];
+                @SuppressWarnings("unchecked")
+                T smallest = (T)latest[pick];
+                a.onNext(smallest);
+                latest[pick] = null;
+                subs[pick].requestOne();
 
-                for (int i = 0; i < subs.length; i++) {
-                    InnerQueuedSubscriber<T> inner = subs[i];
-                    if (!inner.isDone()) {
-                        d = false;
-                        break;
+                e++;
+
+                if (emitRuns) {
+                    int runner = runnerUp();
+                    if (runner == -2) {
+                        return;
                     }
-                    Object o = latest[i];
-                    SimpleQueue<T> q = inner.queue();
-                    if (o == null && q != null) {
-                        try {
-                            o = q.poll();
-                        } catch (Throwable ex) {
-                            Exceptions.throwIfFatal(ex);
-                            err.addThrowable(ex);
-                            if (!delayErrors) {
-                                cancelAndClearSources();
-                                a.onError(ex);
+                    // the other sources don't change during the run, so the runner-up stays the same
+                    boolean resifted = false;
+                    for (;;) {
+                        if (e == r || cancelled || (!delayErrors && err.get() != null)) {
+                            break;
+                        }
+                        Object v = poll(pick);
+                        if (v == null) {
+                            if (terminated) {
                                 return;
                             }
-                            o = this;
+                            break;
                         }
+                        latest[pick] = v;
+                        if (runner >= 0) {
+                            int c;
+                            try {
+                                c = compare(pick, runner);
+                            } catch (Throwable ex) {
+                                comparatorFailed(ex);
+                                return;
+                            }
+                            if (c > 0) {
+                                if (!siftDown(0)) {
+                                    return;
+                                }
+                                resifted = true;
+                                break;
+                            }
+                        }
+                        @SuppressWarnings("unchecked")
+                        T next = (T)v;
+                        a.onNext(next);
+                        latest[pick] = null;
+                        subs[pick].requestOne();
 
-                        latest[i] = o;
+                        e++;
                     }
-                    if (o != null && o != this) {
-                        empty = false;
-                        break;
+                    if (resifted) {
+                        continue;
                     }
                 }
 
-                if (d && empty) {
-                    if (err.get() != null) {
-                        a.onError(err.terminate());
-                    } else {
-                        a.onComplete();
-                    }
+                // most of the time, the source just emitted has its next item ready
+                // so it can be re-sifted from the top instead of a remove and re-insert
+                if (!refill(pick)) {
                     return;
                 }
             }
@@ -355,4 +339,191 @@ implements Subscription, InnerQueuedSubscriberSupport<T> {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Tries to get the next item of the source at the top of the heap, which has just
+     * been emitted, and restores the heap order by sifting down only that source;
+     * if it has no item available, the source is removed from the heap.
+     * @param index the source index at the top of the heap
+     * @return false if the sequence has been terminated
+     */
+    boolean refill(int index) {
+        Object v = poll(index);
+        if (v == null) {
+            if (terminated) {
+                return false;
+            }
+            // not ready or done, remove it from the heap
+            int last = --heapSize;
+            heap[0] = heap[last];
+            if (last != 0) {
+                if (!siftDown(0)) {
+                    return false;
+                }
+            }
+            if (latest[index] == null) {
+                pending[pendingCount++] = index;
+            }
+            return true;
+        }
+        latest[index] = v;
+        return siftDown(0);
+    }
+
+    /**
+     * Polls the sources which have no item available and adds those that now
+     * have one to the heap.
+     * @return false if the sequence has been terminated
+     */
+    boolean fillPending() {
+        int[] pend = pending;
+        int c = pendingCount;
+        int k = 0;
+        for (int j = 0; j < c; j++) {
+            int index = pend[j];
+            Object v = poll(index);
+            if (v == null) {
+                if (terminated) {
+                    return false;
+                }
+                if (latest[index] == null) {
+                    pend[k++] = index;
+                }
+            } else {
+                latest[index] = v;
+                int h = heapSize++;
+                heap[h] = index;
+                if (!siftUp(h)) {
+                    return false;
+                }
+            }
+        }
+        pendingCount = k;
+        return true;
+    }
+
+    /**
+     * Polls the next item of the given source; marks the source with {@code this}
+     * if it is done and has no more items.
+     * @param index the source index
+     * @return the item or null if none available
+     */
+    Object poll(int index) {
+        InnerQueuedSubscriber<T> inner = subscribers[index];
+        boolean innerDone = inner.isDone();
+        SimpleQueue<T> q = inner.queue();
+        Object v;
+        try {
+            v = q != null ? q.poll() : null;
+        } catch (Throwable ex) {
+            Exceptions.throwIfFatal(ex);
+            errors.addThrowable(ex);
+            inner.setDone();
+            if (!delayErrors) {
+                terminated = true;
+                cancelAndClearSources();
+                downstream.onError(errors.terminate());
+                return null;
+            }
+            latest[index] = this;
+            return null;
+        }
+        if (v == null && innerDone) {
+            latest[index] = this;
+        }
+        return v;
+    }
+
+    /**
+     * Returns the source with the smallest item after the top of the heap.
+     * @return the source index, -1 if there is only one source in the heap
+     * or -2 if the Comparator failed
+     */
+    int runnerUp() {
+        int size = heapSize;
+        if (size == 1) {
+            return -1;
+        }
+        int first = heap[1];
+        if (size == 2) {
+            return first;
+        }
+        int second = heap[2];
+        try {
+            return compare(first, second) <= 0 ? first : second;
+        } catch (Throwable ex) {
+            comparatorFailed(ex);
+            return -2;
+        }
+    }
+
+    /**
+     * Compares the current items of two sources, the lower source index wins on a tie.
+     */
+    @SuppressWarnings("unchecked")
+    int compare(int i, int j) {
+        int c = comparator.compare((T)latest[i], (T)latest[j]);
+        if (c == 0) {
+            c = i < j ? -1 : 1;
+        }
+        return c;
+    }
+
+    boolean siftUp(int k) {
+        int[] h = heap;
+        int x = h[k];
+        try {
+            while (k > 0) {
+                int parent = (k - 1) >> 1;
+                int p = h[parent];
+                if (compare(x, p) >= 0) {
+                    break;
+                }
+                h[k] = p;
+                k = parent;
+            }
+        } catch (Throwable ex) {
+            h[k] = x;
+            return comparatorFailed(ex);
+        }
+        h[k] = x;
+        return true;
+    }
+
+    boolean siftDown(int k) {
+        int[] h = heap;
+        int size = heapSize;
+        int x = h[k];
+        int half = size >> 1;
+        try {
+            while (k < half) {
+                int child = (k << 1) + 1;
+                int c = h[child];
+                int right = child + 1;
+                if (right < size && compare(c, h[right]) > 0) {
+                    child = right;
+                    c = h[child];
+                }
+                if (compare(x, c) <= 0) {
+                    break;
+                }
+                h[k] = c;
+                k = child;
+            }
+        } catch (Throwable ex) {
+            h[k] = x;
+            return comparatorFailed(ex);
+        }
+        h[k] = x;
+        return true;
+    }
+
+    boolean comparatorFailed(Throwable ex) {
+        Exceptions.throwIfFatal(ex);
+        errors.addThrowable(ex);
+        terminated = true;
+        cancelAndClearSources();
+        downstream.onError(errors.terminate());
+        return false;
+    }
+}
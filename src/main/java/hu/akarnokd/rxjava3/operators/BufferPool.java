@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.reactivex.functions.Supplier;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * A bounded pool of collections that can be used as the buffer supplier of the
+ * {@link FlowableTransformers#bufferWhile(io.reactivex.functions.Predicate, Supplier) bufferWhile},
+ * {@link FlowableTransformers#bufferUntil(io.reactivex.functions.Predicate, Supplier) bufferUntil} and
+ * {@link FlowableTransformers#bufferSplit(io.reactivex.functions.Predicate, Supplier) bufferSplit}
+ * operators, allowing the consumer to hand the buffers back via {@link #release(Collection)} once
+ * it is done with them so they get reused with their capacity kept.
+ * <p>
+ * The pool is thread-safe and may be shared between flows. It holds at most the given
+ * number of released buffers and creates new ones via the supplier when it is empty.
+ * A buffer must not be used after it has been released and must not be released twice.
+ * @param <C> the collection type
+ * @since 3.0.0
+ */
+public final class BufferPool<C extends Collection<?>> implements Supplier<C> {
+
+    final Supplier<? extends C> bufferSupplier;
+
+    final AtomicReferenceArray<C> slots;
+
+    BufferPool(Supplier<? extends C> bufferSupplier, int maxPooled) {
+        this.bufferSupplier = bufferSupplier;
+        this.slots = new AtomicReferenceArray<C>(maxPooled);
+    }
+
+    /**
+     * Creates a pool holding at most the given number of released buffers
+     * and creating new buffers via the given supplier.
+     * @param <C> the collection type
+     * @param bufferSupplier the supplier of new, empty buffers
+     * @param maxPooled the maximum number of released buffers to keep, positive
+     * @return the new BufferPool instance
+     */
+    public static <C extends Collection<?>> BufferPool<C> create(Supplier<? extends C> bufferSupplier, int maxPooled) {
+        ObjectHelper.requireNonNull(bufferSupplier, "bufferSupplier is null");
+        ObjectHelper.verifyPositive(maxPooled, "maxPooled");
+        return new BufferPool<C>(bufferSupplier, maxPooled);
+    }
+
+    /**
+     * Creates a pool of ArrayLists holding at most the given number of released buffers.
+     * @param <T> the element type
+     * @param capacityHint the initial capacity of the new ArrayLists
+     * @param maxPooled the maximum number of released buffers to keep, positive
+     * @return the new BufferPool instance
+     */
+    public static <T> BufferPool<List<T>> arrayList(final int capacityHint, int maxPooled) {
+        ObjectHelper.verifyPositive(capacityHint, "capacityHint");
+        return create(new Supplier<List<T>>() {
+            @Override
+            public List<T> get() throws Throwable {
+                return new ArrayList<T>(capacityHint);
+            }
+        }, maxPooled);
+    }
+
+    /**
+     * Returns an empty buffer, a released one if available or a new one otherwise.
+     * @return the empty buffer
+     * @throws Throwable if the buffer supplier failed
+     */
+    @Override
+    public C get() throws Throwable {
+        AtomicReferenceArray<C> a = slots;
+        int n = a.length();
+        for (int i = 0; i < n; i++) {
+            if (a.get(i) != null) {
+                C c = a.getAndSet(i, null);
+                if (c != null) {
+                    return c;
+                }
+            }
+        }
+        return ObjectHelper.requireNonNull(bufferSupplier.get(), "The bufferSupplier returned a null buffer");
+    }
+
+    /**
+     * Clears the buffer and hands it back to the pool for reuse; the buffer is dropped
+     * if the pool is full.
+     * @param buffer the buffer no longer in use, not null
+     */
+    public void release(C buffer) {
+        ObjectHelper.requireNonNull(buffer, "buffer is null");
+        buffer.clear();
+        AtomicReferenceArray<C> a = slots;
+        int n = a.length();
+        for (int i = 0; i < n; i++) {
+            if (a.get(i) == null && a.compareAndSet(i, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of released buffers currently held by the pool.
+     * @return the number of pooled buffers
+     */
+    public int size() {
+        AtomicReferenceArray<C> a = slots;
+        int n = a.length();
+        int c = 0;
+        for (int i = 0; i < n; i++) {
+            if (a.get(i) != null) {
+                c++;
+            }
+        }
+        return c;
+    }
+}
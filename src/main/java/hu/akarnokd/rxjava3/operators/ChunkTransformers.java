@@ -0,0 +1,654 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+import org.reactivestreams.Publisher;
+
+import hu.akarnokd.rxjava3.functions.*;
+import io.reactivex.*;
+import io.reactivex.annotations.*;
+import io.reactivex.functions.*;
+import io.reactivex.functions.Function;
+import io.reactivex.internal.functions.*;
+
+/**
+ * Transformers working with Flowables of array chunks, such as the ones produced by the
+ * {@link FlowableTransformers#microBatch(int, long, java.util.concurrent.TimeUnit) microBatch}
+ * operators, processing the elements of a chunk in a tight loop instead of paying the
+ * per-item signal and request accounting overhead.
+ * <p>
+ * The {@code mapChunk}, {@code filterChunk} and {@code reduceChunk} operators don't modify
+ * the upstream chunks and work for {@code T[]} chunks as well as for {@code long[]},
+ * {@code int[]} and {@code double[]} chunks via the type-suffixed variants. The
+ * {@code flattenChunks} operators turn the chunks back into individual items and
+ * honor the item-level downstream demand.
+ * @since 3.0.0
+ */
+public final class ChunkTransformers {
+
+    /** The default number of chunks prefetched by the flattenChunks operators. */
+    static final int DEFAULT_PREFETCH = 4;
+
+    /** Utility class. */
+    private ChunkTransformers() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    /**
+     * Maps each element of the upstream chunks into a chunk of the given component type.
+     * @param <T> the upstream element type
+     * @param <R> the result element type
+     * @param mapper the function receiving each element and returning the mapped element
+     * @param type the component type of the result chunks
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.PASS_THROUGH)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static <T, R> FlowableTransformer<T[], R[]> mapChunk(Function<? super T, ? extends R> mapper, Class<R> type) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        ObjectHelper.requireNonNull(type, "type is null");
+        return new MapTransformer<T[], R[]>(new MapChunk<T, R>(mapper, type));
+    }
+
+    /**
+     * Keeps the elements of the upstream chunks the predicate returns true for;
+     * chunks without any such element are dropped.
+     * <p>
+     * Chunks where every element passes are emitted as is, otherwise a new, shorter chunk is created.
+     * @param <T> the element type
+     * @param predicate the predicate receiving each element and returning true to keep it
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.PASS_THROUGH)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static <T> FlowableTransformer<T[], T[]> filterChunk(Predicate<? super T> predicate) {
+        ObjectHelper.requireNonNull(predicate, "predicate is null");
+        return new FlowableMapFilter<T[], T[]>(null, new FilterChunk<T>(predicate));
+    }
+
+    /**
+     * Reduces the elements of all upstream chunks into a single value emitted when the upstream completes.
+     * @param <T> the element type
+     * @param <R> the accumulator and result type
+     * @param seedSupplier the supplier of the initial accumulator value, called for each subscriber
+     * @param reducer the function receiving the current accumulator value and element and
+     *                returning the new accumulator value
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static <T, R> FlowableTransformer<T[], R> reduceChunk(Supplier<R> seedSupplier, BiFunction<R, ? super T, R> reducer) {
+        ObjectHelper.requireNonNull(seedSupplier, "seedSupplier is null");
+        ObjectHelper.requireNonNull(reducer, "reducer is null");
+        return new ReduceTransformer<T[], R>(seedSupplier, new ReduceChunk<T, R>(reducer));
+    }
+
+    /**
+     * Emits the elements of the upstream chunks one by one, prefetching
+     * 4 chunks.
+     * @param <T> the element type
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static <T> FlowableTransformer<T[], T> flattenChunks() {
+        return flattenChunks(DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Emits the elements of the upstream chunks one by one, prefetching the given number of chunks.
+     * <p>
+     * The downstream requests are counted in elements; a new batch of chunks is requested
+     * after 75% of the prefetched chunks have been fully emitted.
+     * @param <T> the element type
+     * @param prefetch the number of chunks to prefetch and keep buffered, positive
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static <T> FlowableTransformer<T[], T> flattenChunks(int prefetch) {
+        ObjectHelper.verifyPositive(prefetch, "prefetch");
+        return new FlowableFlattenChunks<T[], T>(null, new FlowableFlattenChunks.ArrayChunkSupport<T>(), prefetch);
+    }
+
+    /**
+     * Maps each element of the upstream {@code long[]} chunks into a new {@code long[]} chunk.
+     * @param mapper the function receiving each element and returning the mapped element
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.PASS_THROUGH)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<long[], long[]> mapChunkLong(LongUnaryOperator mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return new MapTransformer<long[], long[]>(new MapChunkLong(mapper));
+    }
+
+    /**
+     * Keeps the elements of the upstream {@code long[]} chunks the predicate returns true for;
+     * chunks without any such element are dropped.
+     * <p>
+     * Chunks where every element passes are emitted as is, otherwise a new, shorter chunk is created.
+     * @param predicate the predicate receiving each element and returning true to keep it
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.PASS_THROUGH)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<long[], long[]> filterChunkLong(LongPredicate predicate) {
+        ObjectHelper.requireNonNull(predicate, "predicate is null");
+        return new FlowableMapFilter<long[], long[]>(null, new FilterChunkLong(predicate));
+    }
+
+    /**
+     * Reduces the elements of all upstream {@code long[]} chunks into a single value emitted
+     * when the upstream completes; the seed is emitted if there were no elements.
+     * @param seed the initial accumulator value
+     * @param reducer the function receiving the current accumulator value and element and
+     *                returning the new accumulator value
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<long[], Long> reduceChunkLong(long seed, LongBinaryOperator reducer) {
+        ObjectHelper.requireNonNull(reducer, "reducer is null");
+        return new ReduceTransformer<long[], Long>(Functions.justSupplier((Long)seed), new ReduceChunkLong(reducer));
+    }
+
+    /**
+     * Emits the elements of the upstream {@code long[]} chunks one by one, prefetching
+     * 4 chunks.
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<long[], Long> flattenChunksLong() {
+        return flattenChunksLong(DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Emits the elements of the upstream {@code long[]} chunks one by one, prefetching the given number of chunks.
+     * <p>
+     * The downstream requests are counted in elements; a new batch of chunks is requested
+     * after 75% of the prefetched chunks have been fully emitted.
+     * @param prefetch the number of chunks to prefetch and keep buffered, positive
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<long[], Long> flattenChunksLong(int prefetch) {
+        ObjectHelper.verifyPositive(prefetch, "prefetch");
+        return new FlowableFlattenChunks<long[], Long>(null, FlowableFlattenChunks.LongChunkSupport.INSTANCE, prefetch);
+    }
+
+    /**
+     * Maps each element of the upstream {@code int[]} chunks into a new {@code int[]} chunk.
+     * @param mapper the function receiving each element and returning the mapped element
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.PASS_THROUGH)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<int[], int[]> mapChunkInt(IntUnaryOperator mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return new MapTransformer<int[], int[]>(new MapChunkInt(mapper));
+    }
+
+    /**
+     * Keeps the elements of the upstream {@code int[]} chunks the predicate returns true for;
+     * chunks without any such element are dropped.
+     * <p>
+     * Chunks where every element passes are emitted as is, otherwise a new, shorter chunk is created.
+     * @param predicate the predicate receiving each element and returning true to keep it
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.PASS_THROUGH)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<int[], int[]> filterChunkInt(IntPredicate predicate) {
+        ObjectHelper.requireNonNull(predicate, "predicate is null");
+        return new FlowableMapFilter<int[], int[]>(null, new FilterChunkInt(predicate));
+    }
+
+    /**
+     * Reduces the elements of all upstream {@code int[]} chunks into a single value emitted
+     * when the upstream completes; the seed is emitted if there were no elements.
+     * @param seed the initial accumulator value
+     * @param reducer the function receiving the current accumulator value and element and
+     *                returning the new accumulator value
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<int[], Integer> reduceChunkInt(int seed, IntBinaryOperator reducer) {
+        ObjectHelper.requireNonNull(reducer, "reducer is null");
+        return new ReduceTransformer<int[], Integer>(Functions.justSupplier((Integer)seed), new ReduceChunkInt(reducer));
+    }
+
+    /**
+     * Emits the elements of the upstream {@code int[]} chunks one by one, prefetching
+     * 4 chunks.
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<int[], Integer> flattenChunksInt() {
+        return flattenChunksInt(DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Emits the elements of the upstream {@code int[]} chunks one by one, prefetching the given number of chunks.
+     * <p>
+     * The downstream requests are counted in elements; a new batch of chunks is requested
+     * after 75% of the prefetched chunks have been fully emitted.
+     * @param prefetch the number of chunks to prefetch and keep buffered, positive
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<int[], Integer> flattenChunksInt(int prefetch) {
+        ObjectHelper.verifyPositive(prefetch, "prefetch");
+        return new FlowableFlattenChunks<int[], Integer>(null, FlowableFlattenChunks.IntChunkSupport.INSTANCE, prefetch);
+    }
+
+    /**
+     * Maps each element of the upstream {@code double[]} chunks into a new {@code double[]} chunk.
+     * @param mapper the function receiving each element and returning the mapped element
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.PASS_THROUGH)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<double[], double[]> mapChunkDouble(DoubleUnaryOperator mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return new MapTransformer<double[], double[]>(new MapChunkDouble(mapper));
+    }
+
+    /**
+     * Keeps the elements of the upstream {@code double[]} chunks the predicate returns true for;
+     * chunks without any such element are dropped.
+     * <p>
+     * Chunks where every element passes are emitted as is, otherwise a new, shorter chunk is created.
+     * @param predicate the predicate receiving each element and returning true to keep it
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.PASS_THROUGH)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<double[], double[]> filterChunkDouble(DoublePredicate predicate) {
+        ObjectHelper.requireNonNull(predicate, "predicate is null");
+        return new FlowableMapFilter<double[], double[]>(null, new FilterChunkDouble(predicate));
+    }
+
+    /**
+     * Reduces the elements of all upstream {@code double[]} chunks into a single value emitted
+     * when the upstream completes; the seed is emitted if there were no elements.
+     * @param seed the initial accumulator value
+     * @param reducer the function receiving the current accumulator value and element and
+     *                returning the new accumulator value
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<double[], Double> reduceChunkDouble(double seed, DoubleBinaryOperator reducer) {
+        ObjectHelper.requireNonNull(reducer, "reducer is null");
+        return new ReduceTransformer<double[], Double>(Functions.justSupplier((Double)seed), new ReduceChunkDouble(reducer));
+    }
+
+    /**
+     * Emits the elements of the upstream {@code double[]} chunks one by one, prefetching
+     * 4 chunks.
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<double[], Double> flattenChunksDouble() {
+        return flattenChunksDouble(DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Emits the elements of the upstream {@code double[]} chunks one by one, prefetching the given number of chunks.
+     * <p>
+     * The downstream requests are counted in elements; a new batch of chunks is requested
+     * after 75% of the prefetched chunks have been fully emitted.
+     * @param prefetch the number of chunks to prefetch and keep buffered, positive
+     * @return the new FlowableTransformer instance
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static FlowableTransformer<double[], Double> flattenChunksDouble(int prefetch) {
+        ObjectHelper.verifyPositive(prefetch, "prefetch");
+        return new FlowableFlattenChunks<double[], Double>(null, FlowableFlattenChunks.DoubleChunkSupport.INSTANCE, prefetch);
+    }
+
+    static final class MapTransformer<T, R> implements FlowableTransformer<T, R> {
+
+        final Function<T, R> mapper;
+
+        MapTransformer(Function<T, R> mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public Publisher<R> apply(Flowable<T> upstream) {
+            return upstream.map(mapper);
+        }
+    }
+
+    static final class ReduceTransformer<C, R> implements FlowableTransformer<C, R> {
+
+        final Supplier<R> seedSupplier;
+
+        final BiFunction<R, C, R> reducer;
+
+        ReduceTransformer(Supplier<R> seedSupplier, BiFunction<R, C, R> reducer) {
+            this.seedSupplier = seedSupplier;
+            this.reducer = reducer;
+        }
+
+        @Override
+        public Publisher<R> apply(Flowable<C> upstream) {
+            return upstream.reduceWith(seedSupplier, reducer).toFlowable();
+        }
+    }
+
+    static final class MapChunk<T, R> implements Function<T[], R[]> {
+
+        final Function<? super T, ? extends R> mapper;
+
+        final Class<R> type;
+
+        MapChunk(Function<? super T, ? extends R> mapper, Class<R> type) {
+            this.mapper = mapper;
+            this.type = type;
+        }
+
+        @Override
+        public R[] apply(T[] chunk) throws Throwable {
+            int n = chunk.length;
+            @SuppressWarnings("unchecked")
+            R[] result = (R[])Array.newInstance(type, n);
+            for (int i = 0; i < n; i++) {
+                result[i] = mapper.apply(chunk[i]);
+            }
+            return result;
+        }
+    }
+
+    static final class FilterChunk<T> implements BiConsumer<T[], BasicEmitter<T[]>> {
+
+        final Predicate<? super T> predicate;
+
+        FilterChunk(Predicate<? super T> predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void accept(T[] chunk, BasicEmitter<T[]> emitter) throws Throwable {
+            int len = chunk.length;
+            T[] result = null;
+            int n = 0;
+            for (int i = 0; i < len; i++) {
+                T v = chunk[i];
+                if (predicate.test(v)) {
+                    if (result != null) {
+                        result[n] = v;
+                    }
+                    n++;
+                } else if (result == null) {
+                    // the first n elements passed, keep them and compact the rest behind
+                    result = Arrays.copyOf(chunk, len - 1);
+                }
+            }
+            if (result == null) {
+                if (len != 0) {
+                    emitter.doNext(chunk);
+                }
+            } else if (n != 0) {
+                emitter.doNext(n == result.length ? result : Arrays.copyOf(result, n));
+            }
+        }
+    }
+
+    static final class ReduceChunk<T, R> implements BiFunction<R, T[], R> {
+
+        final BiFunction<R, ? super T, R> reducer;
+
+        ReduceChunk(BiFunction<R, ? super T, R> reducer) {
+            this.reducer = reducer;
+        }
+
+        @Override
+        public R apply(R accumulator, T[] chunk) throws Throwable {
+            R acc = accumulator;
+            for (T v : chunk) {
+                acc = ObjectHelper.requireNonNull(reducer.apply(acc, v), "The reducer returned a null value");
+            }
+            return acc;
+        }
+    }
+
+    static final class MapChunkLong implements Function<long[], long[]> {
+
+        final LongUnaryOperator mapper;
+
+        MapChunkLong(LongUnaryOperator mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public long[] apply(long[] chunk) {
+            int n = chunk.length;
+            long[] result = new long[n];
+            for (int i = 0; i < n; i++) {
+                result[i] = mapper.apply(chunk[i]);
+            }
+            return result;
+        }
+    }
+
+    static final class FilterChunkLong implements BiConsumer<long[], BasicEmitter<long[]>> {
+
+        final LongPredicate predicate;
+
+        FilterChunkLong(LongPredicate predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void accept(long[] chunk, BasicEmitter<long[]> emitter) {
+            int len = chunk.length;
+            long[] result = null;
+            int n = 0;
+            for (int i = 0; i < len; i++) {
+                long v = chunk[i];
+                if (predicate.test(v)) {
+                    if (result != null) {
+                        result[n] = v;
+                    }
+                    n++;
+                } else if (result == null) {
+                    result = Arrays.copyOf(chunk, len - 1);
+                }
+            }
+            if (result == null) {
+                if (len != 0) {
+                    emitter.doNext(chunk);
+                }
+            } else if (n != 0) {
+                emitter.doNext(n == result.length ? result : Arrays.copyOf(result, n));
+            }
+        }
+    }
+
+    static final class ReduceChunkLong implements BiFunction<Long, long[], Long> {
+
+        final LongBinaryOperator reducer;
+
+        ReduceChunkLong(LongBinaryOperator reducer) {
+            this.reducer = reducer;
+        }
+
+        @Override
+        public Long apply(Long accumulator, long[] chunk) {
+            long acc = accumulator;
+            for (long v : chunk) {
+                acc = reducer.apply(acc, v);
+            }
+            return acc;
+        }
+    }
+
+    static final class MapChunkInt implements Function<int[], int[]> {
+
+        final IntUnaryOperator mapper;
+
+        MapChunkInt(IntUnaryOperator mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public int[] apply(int[] chunk) {
+            int n = chunk.length;
+            int[] result = new int[n];
+            for (int i = 0; i < n; i++) {
+                result[i] = mapper.apply(chunk[i]);
+            }
+            return result;
+        }
+    }
+
+    static final class FilterChunkInt implements BiConsumer<int[], BasicEmitter<int[]>> {
+
+        final IntPredicate predicate;
+
+        FilterChunkInt(IntPredicate predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void accept(int[] chunk, BasicEmitter<int[]> emitter) {
+            int len = chunk.length;
+            int[] result = null;
+            int n = 0;
+            for (int i = 0; i < len; i++) {
+                int v = chunk[i];
+                if (predicate.test(v)) {
+                    if (result != null) {
+                        result[n] = v;
+                    }
+                    n++;
+                } else if (result == null) {
+                    result = Arrays.copyOf(chunk, len - 1);
+                }
+            }
+            if (result == null) {
+                if (len != 0) {
+                    emitter.doNext(chunk);
+                }
+            } else if (n != 0) {
+                emitter.doNext(n == result.length ? result : Arrays.copyOf(result, n));
+            }
+        }
+    }
+
+    static final class ReduceChunkInt implements BiFunction<Integer, int[], Integer> {
+
+        final IntBinaryOperator reducer;
+
+        ReduceChunkInt(IntBinaryOperator reducer) {
+            this.reducer = reducer;
+        }
+
+        @Override
+        public Integer apply(Integer accumulator, int[] chunk) {
+            int acc = accumulator;
+            for (int v : chunk) {
+                acc = reducer.apply(acc, v);
+            }
+            return acc;
+        }
+    }
+
+    static final class MapChunkDouble implements Function<double[], double[]> {
+
+        final DoubleUnaryOperator mapper;
+
+        MapChunkDouble(DoubleUnaryOperator mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public double[] apply(double[] chunk) {
+            int n = chunk.length;
+            double[] result = new double[n];
+            for (int i = 0; i < n; i++) {
+                result[i] = mapper.apply(chunk[i]);
+            }
+            return result;
+        }
+    }
+
+    static final class FilterChunkDouble implements BiConsumer<double[], BasicEmitter<double[]>> {
+
+        final DoublePredicate predicate;
+
+        FilterChunkDouble(DoublePredicate predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void accept(double[] chunk, BasicEmitter<double[]> emitter) {
+            int len = chunk.length;
+            double[] result = null;
+            int n = 0;
+            for (int i = 0; i < len; i++) {
+                double v = chunk[i];
+                if (predicate.test(v)) {
+                    if (result != null) {
+                        result[n] = v;
+                    }
+                    n++;
+                } else if (result == null) {
+                    result = Arrays.copyOf(chunk, len - 1);
+                }
+            }
+            if (result == null) {
+                if (len != 0) {
+                    emitter.doNext(chunk);
+                }
+            } else if (n != 0) {
+                emitter.doNext(n == result.length ? result : Arrays.copyOf(result, n));
+            }
+        }
+    }
+
+    static final class ReduceChunkDouble implements BiFunction<Double, double[], Double> {
+
+        final DoubleBinaryOperator reducer;
+
+        ReduceChunkDouble(DoubleBinaryOperator reducer) {
+            this.reducer = reducer;
+        }
+
+        @Override
+        public Double apply(Double accumulator, double[] chunk) {
+            double acc = accumulator;
+            for (double v : chunk) {
+                acc = reducer.apply(acc, v);
+            }
+            return acc;
+        }
+    }
+}
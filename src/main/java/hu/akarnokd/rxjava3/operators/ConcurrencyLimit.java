@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * Adaptive concurrency limit updated from the observed completion latency of
+ * inner sources, used by {@link FlowableTransformers#flatMapAdaptive(io.reactivex.functions.Function, ConcurrencyLimit)}.
+ * <p>
+ * The current limit can be read at any time via {@link #getLimit()}, for example,
+ * to expose it as a metric. An instance may be shared by multiple flows, in which case
+ * they all adapt the same limit.
+ * @since 3.0.0
+ */
+public abstract class ConcurrencyLimit {
+
+    final int minLimit;
+
+    final int maxLimit;
+
+    volatile int limit;
+
+    /**
+     * Constructs a limit with the given initial value and bounds.
+     * @param initialLimit the initial limit, clamped into the minLimit..maxLimit range
+     * @param minLimit the minimum limit, positive
+     * @param maxLimit the maximum limit, not less than minLimit
+     */
+    protected ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        ObjectHelper.verifyPositive(minLimit, "minLimit");
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException("maxLimit < minLimit: " + maxLimit + " < " + minLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = clamp(initialLimit);
+    }
+
+    /**
+     * Returns the current limit.
+     * @return the current limit
+     */
+    public final int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the minimum limit.
+     * @return the minimum limit
+     */
+    public final int getMinLimit() {
+        return minLimit;
+    }
+
+    /**
+     * Returns the maximum limit.
+     * @return the maximum limit
+     */
+    public final int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Updates the limit with a latency sample of a completed inner source.
+     * @param rttNanos the time between subscribing to the inner source and its completion, in nanoseconds
+     * @param inFlight the number of inner sources running when the sample was taken
+     */
+    public final synchronized void onSample(long rttNanos, int inFlight) {
+        limit = clamp(computeLimit(limit, rttNanos, inFlight));
+    }
+
+    final int clamp(int value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    /**
+     * Computes the new limit from the current limit and a latency sample;
+     * called while holding this object's lock, the result is clamped into the
+     * minimum..maximum limit range.
+     * @param currentLimit the current limit
+     * @param rttNanos the time between subscribing to the inner source and its completion, in nanoseconds
+     * @param inFlight the number of inner sources running when the sample was taken
+     * @return the new limit
+     */
+    protected abstract int computeLimit(int currentLimit, long rttNanos, int inFlight);
+
+    /**
+     * Creates an additive-increase, multiplicative-decrease limit which grows by one
+     * if a sample completed within the timeout while at least half of the limit was in use,
+     * and shrinks by the backoff ratio if a sample took longer than the timeout.
+     * @param initialLimit the initial limit
+     * @param minLimit the minimum limit, positive
+     * @param maxLimit the maximum limit, not less than minLimit
+     * @param backoffRatio the multiplier applied to the limit on a slow sample, between 0.5 and 1.0 (exclusive)
+     * @param timeout the latency above which a sample counts as slow
+     * @param unit the time unit of the timeout
+     * @return the new ConcurrencyLimit instance
+     */
+    public static ConcurrencyLimit aimd(int initialLimit, int minLimit, int maxLimit,
+            double backoffRatio, long timeout, TimeUnit unit) {
+        if (backoffRatio < 0.5 || backoffRatio >= 1.0) {
+            throw new IllegalArgumentException("backoffRatio must be in [0.5, 1.0): " + backoffRatio);
+        }
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        return new AimdLimit(initialLimit, minLimit, maxLimit, backoffRatio, unit.toNanos(timeout));
+    }
+
+    /**
+     * Creates a gradient limit which compares the latency of each sample with the
+     * long-term average latency: the limit shrinks as the latency grows above the
+     * average (down to half per sample) and grows by the square root of the limit otherwise,
+     * smoothing each change.
+     * @param initialLimit the initial limit
+     * @param minLimit the minimum limit, positive
+     * @param maxLimit the maximum limit, not less than minLimit
+     * @return the new ConcurrencyLimit instance
+     */
+    public static ConcurrencyLimit gradient(int initialLimit, int minLimit, int maxLimit) {
+        return new GradientLimit(initialLimit, minLimit, maxLimit, 0.2, 600);
+    }
+
+    static final class AimdLimit extends ConcurrencyLimit {
+
+        final double backoffRatio;
+
+        final long timeoutNanos;
+
+        AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long timeoutNanos) {
+            super(initialLimit, minLimit, maxLimit);
+            this.backoffRatio = backoffRatio;
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        @Override
+        protected int computeLimit(int currentLimit, long rttNanos, int inFlight) {
+            if (rttNanos > timeoutNanos) {
+                return (int)(currentLimit * backoffRatio);
+            }
+            if (inFlight * 2 >= currentLimit) {
+                return currentLimit + 1;
+            }
+            return currentLimit;
+        }
+    }
+
+    static final class GradientLimit extends ConcurrencyLimit {
+
+        final double smoothing;
+
+        final double longAlpha;
+
+        double estimatedLimit;
+
+        double longRtt;
+
+        GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, int longWindow) {
+            super(initialLimit, minLimit, maxLimit);
+            this.smoothing = smoothing;
+            this.longAlpha = 2.0 / (longWindow + 1);
+            this.estimatedLimit = limit;
+        }
+
+        @Override
+        protected int computeLimit(int currentLimit, long rttNanos, int inFlight) {
+            double shortRtt = Math.max(1L, rttNanos);
+
+            double lr = longRtt;
+            if (lr == 0d) {
+                lr = shortRtt;
+            } else {
+                lr = lr * (1 - longAlpha) + shortRtt * longAlpha;
+                // let the average catch up faster after a latency spike has passed
+                if (lr / shortRtt > 2) {
+                    lr *= 0.95;
+                }
+            }
+            longRtt = lr;
+
+            double est = estimatedLimit;
+
+            // the flow doesn't use the current limit, the samples say nothing about it
+            if (inFlight < est / 2) {
+                return currentLimit;
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, lr / shortRtt));
+            double newLimit = est * gradient + Math.sqrt(est);
+            newLimit = est * (1 - smoothing) + newLimit * smoothing;
+
+            est = Math.max(minLimit, Math.min(maxLimit, newLimit));
+            estimatedLimit = est;
+            return (int)est;
+        }
+    }
+}
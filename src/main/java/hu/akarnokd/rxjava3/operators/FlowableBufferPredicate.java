@@ -56,12 +56,20 @@ final class FlowableBufferPredicate<T, C extends Collection<? super T>> extends
 
     final Supplier<C> bufferSupplier;
 
+    final int maxSize;
+
     FlowableBufferPredicate(Publisher<T> source, Predicate<? super T> predicate, Mode mode,
             Supplier<C> bufferSupplier) {
+        this(source, predicate, mode, bufferSupplier, Integer.MAX_VALUE);
+    }
+
+    FlowableBufferPredicate(Publisher<T> source, Predicate<? super T> predicate, Mode mode,
+            Supplier<C> bufferSupplier, int maxSize) {
         this.source = source;
         this.predicate = predicate;
         this.mode = mode;
         this.bufferSupplier = bufferSupplier;
+        this.maxSize = maxSize;
     }
 
     @Override
@@ -76,12 +84,12 @@ final class FlowableBufferPredicate<T, C extends Collection<? super T>> extends
             return;
         }
 
-        source.subscribe(new BufferPredicateSubscriber<T, C>(s, buffer, predicate, mode, bufferSupplier));
+        source.subscribe(new BufferPredicateSubscriber<T, C>(s, buffer, predicate, mode, bufferSupplier, maxSize));
     }
 
     @Override
     public Publisher<C> apply(Flowable<T> upstream) {
-        return new FlowableBufferPredicate<T, C>(upstream, predicate, mode, bufferSupplier);
+        return new FlowableBufferPredicate<T, C>(upstream, predicate, mode, bufferSupplier, maxSize);
     }
 
     static final class BufferPredicateSubscriber<T, C extends Collection<? super T>>
@@ -95,6 +103,9 @@ final class FlowableBufferPredicate<T, C extends Collection<? super T>> extends
 
         final Supplier<C> bufferSupplier;
 
+        /** The maximum number of items in a buffer, Integer.MAX_VALUE if unbounded; bounded buffers are never emitted empty. */
+        final int maxSize;
+
         C buffer;
 
         Subscription upstream;
@@ -104,12 +115,13 @@ final class FlowableBufferPredicate<T, C extends Collection<? super T>> extends
         BufferPredicateSubscriber(Subscriber<? super C> downstream,
                 C buffer,
                 Predicate<? super T> predicate, Mode mode,
-                Supplier<C> bufferSupplier) {
+                Supplier<C> bufferSupplier, int maxSize) {
             this.downstream = downstream;
             this.predicate = predicate;
             this.mode = mode;
             this.buffer = buffer;
             this.bufferSupplier = bufferSupplier;
+            this.maxSize = maxSize;
         }
 
         @Override
@@ -147,75 +159,87 @@ final class FlowableBufferPredicate<T, C extends Collection<? super T>> extends
                 switch (mode) {
                 case AFTER: {
                     buf.add(t);
-                    if (b) {
+                    if (b || ++count == maxSize) {
                         downstream.onNext(buf);
-
-                        try {
-                            buffer = bufferSupplier.get();
-                        } catch (Throwable ex) {
-                            Exceptions.throwIfFatal(ex);
-                            upstream.cancel();
-                            onError(ex);
-                            return true;
-                        }
-
-                        count = 0;
-                    } else {
-                        count++;
-                        return false;
+                        renew();
+                        return true;
                     }
-                    break;
+                    return false;
                 }
                 case BEFORE: {
-                    if (b) {
-                        buf.add(t);
-                        count++;
-                        return false;
-                    } else {
+                    boolean emitted = false;
+                    if (!b && (count != 0 || maxSize == Integer.MAX_VALUE)) {
                         downstream.onNext(buf);
-                        try {
-                            buf = bufferSupplier.get();
-                        } catch (Throwable ex) {
-                            Exceptions.throwIfFatal(ex);
-                            upstream.cancel();
-                            onError(ex);
+                        buf = renew();
+                        if (buf == null) {
                             return true;
                         }
-
-                        buf.add(t);
-                        buffer = buf;
-                        count = 1;
+                        emitted = true;
                     }
-                    break;
+                    buf.add(t);
+                    if (++count == maxSize) {
+                        downstream.onNext(buf);
+                        renew();
+                        return true;
+                    }
+                    return emitted;
                 }
                 default:
                     if (b) {
-                        downstream.onNext(buf);
-
-                        try {
-                            buffer = bufferSupplier.get();
-                        } catch (Throwable ex) {
-                            Exceptions.throwIfFatal(ex);
-                            upstream.cancel();
-                            onError(ex);
-                            return true;
+                        if (count == 0 && maxSize != Integer.MAX_VALUE) {
+                            return false;
                         }
-
-                        count = 0;
-                    } else {
-                        buf.add(t);
-                        count++;
-                        return false;
+                        downstream.onNext(buf);
+                        renew();
+                        return true;
                     }
+                    buf.add(t);
+                    if (++count == maxSize) {
+                        downstream.onNext(buf);
+                        renew();
+                        return true;
+                    }
+                    return false;
                 }
             }
             return true;
         }
 
+        /**
+         * Replaces the emitted buffer with a fresh one.
+         * @return the fresh buffer or null if the supplier failed and the sequence got terminated
+         */
+        C renew() {
+            C b;
+            try {
+                b = ObjectHelper.requireNonNull(bufferSupplier.get(), "The bufferSupplier returned a null buffer");
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                upstream.cancel();
+                // the previous buffer is owned by the downstream by now
+                buffer = null;
+                downstream.onError(ex);
+                return null;
+            }
+            buffer = b;
+            count = 0;
+            return b;
+        }
+
+        @SuppressWarnings("unchecked")
+        void recycle(C b) {
+            // the buffer never reached the downstream, hand it back if it came from a pool
+            if (bufferSupplier instanceof BufferPool) {
+                ((BufferPool<C>)bufferSupplier).release(b);
+            }
+        }
+
         @Override
         public void onError(Throwable t) {
-            if (buffer != null) {
+            C b = buffer;
+            if (b != null) {
                 buffer = null;
+                recycle(b);
                 downstream.onError(t);
             } else {
                 RxJavaPlugins.onError(t);
@@ -229,6 +253,8 @@ final class FlowableBufferPredicate<T, C extends Collection<? super T>> extends
                 buffer = null;
                 if (count != 0) {
                     downstream.onNext(b);
+                } else {
+                    recycle(b);
                 }
                 downstream.onComplete();
             }
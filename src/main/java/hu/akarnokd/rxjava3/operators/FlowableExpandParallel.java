@@ -0,0 +1,567 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import io.reactivex.*;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.Function;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.internal.queue.SpscLinkedArrayQueue;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.internal.util.*;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Emit and recursively expand elements from upstream, running multiple expansions
+ * concurrently with a bounded number of buffered items.
+ * <p>
+ * The {@code capacity} is a pool of credits: an item holds a credit from the moment
+ * it is requested from an upstream or an expansion until its expansion Publisher is created
+ * or it turns out it won't be expanded. At most {@code maxConcurrency} sources have outstanding
+ * requests at a time and an expansion is only subscribed to when it gets its first credit.
+ * The strategy determines which item is expanded next and which
+ * sources get the credits first (the newest for depth-first, the oldest for breadth-first).
+ * Should all credits be held by items waiting for their expansion, the next item is expanded
+ * regardless of {@code maxConcurrency} so that the expansion can progress; these extra
+ * expansions are paused between their items and, with the depth-first strategy, their number
+ * is proportional to the depth of the tree.
+ * <p>
+ * Optionally, items whose key was already seen are dropped without emission or expansion,
+ * and items at the maximum depth are emitted but not expanded.
+ *
+ * @param <T> the value type
+ * @since 3.0.0
+ */
+final class FlowableExpandParallel<T> extends Flowable<T> implements FlowableTransformer<T, T> {
+
+    final Publisher<T> source;
+
+    final Function<? super T, ? extends Publisher<? extends T>> expander;
+
+    final ExpandStrategy strategy;
+
+    final int maxConcurrency;
+
+    final int capacity;
+
+    final Scheduler scheduler;
+
+    final Function<? super T, ?> keySelector;
+
+    final int maxVisited;
+
+    final boolean approximate;
+
+    final int maxDepth;
+
+    FlowableExpandParallel(Publisher<T> source, Function<? super T, ? extends Publisher<? extends T>> expander,
+            ExpandStrategy strategy, int maxConcurrency, int capacity, Scheduler scheduler,
+            Function<? super T, ?> keySelector, int maxVisited, boolean approximate, int maxDepth) {
+        this.source = source;
+        this.expander = expander;
+        this.strategy = strategy;
+        this.maxConcurrency = maxConcurrency;
+        this.capacity = capacity;
+        this.scheduler = scheduler;
+        this.keySelector = keySelector;
+        this.maxVisited = maxVisited;
+        this.approximate = approximate;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public Publisher<T> apply(Flowable<T> upstream) {
+        return new FlowableExpandParallel<T>(upstream, expander, strategy, maxConcurrency, capacity, scheduler,
+                keySelector, maxVisited, approximate, maxDepth);
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super T> s) {
+        VisitedSet visited = null;
+        if (keySelector != null) {
+            visited = approximate ? new BloomVisitedSet(maxVisited) : new LruVisitedSet(maxVisited);
+        }
+        ExpandParallelSubscription<T> parent = new ExpandParallelSubscription<T>(s, expander,
+                strategy == ExpandStrategy.DEPTH_FIRST, maxConcurrency, capacity, scheduler,
+                keySelector, visited, maxDepth);
+        ExpandInnerSubscriber<T> root = parent.root();
+        s.onSubscribe(parent);
+        parent.drain();
+        source.subscribe(root);
+    }
+
+    static final class ExpandParallelSubscription<T> extends AtomicInteger implements Subscription {
+
+        private static final long serialVersionUID = -4716410925542924012L;
+
+        final Subscriber<? super T> downstream;
+
+        final Function<? super T, ? extends Publisher<? extends T>> expander;
+
+        final boolean depthFirst;
+
+        final int maxConcurrency;
+
+        final int prefetch;
+
+        final Scheduler scheduler;
+
+        final Function<? super T, ?> keySelector;
+
+        final VisitedSet visited;
+
+        final int maxDepth;
+
+        final AtomicLong requested;
+
+        final AtomicThrowable errors;
+
+        /** The subscribed and not yet finished sources in subscription order, accessed by the drain loop. */
+        final ArrayList<ExpandInnerSubscriber<T>> inners;
+
+        /** The emitted items waiting for their expansion, accessed by the drain loop. */
+        final ArrayDeque<ExpandNode<T>> pending;
+
+        volatile boolean cancelled;
+
+        /** The credits available for requesting, accessed by the drain loop. */
+        long credits;
+
+        long emitted;
+
+        ExpandParallelSubscription(Subscriber<? super T> downstream,
+                Function<? super T, ? extends Publisher<? extends T>> expander, boolean depthFirst,
+                int maxConcurrency, int capacity, Scheduler scheduler,
+                Function<? super T, ?> keySelector, VisitedSet visited, int maxDepth) {
+            this.downstream = downstream;
+            this.expander = expander;
+            this.depthFirst = depthFirst;
+            this.maxConcurrency = maxConcurrency;
+            this.prefetch = Math.max(1, capacity / maxConcurrency);
+            this.scheduler = scheduler;
+            this.keySelector = keySelector;
+            this.visited = visited;
+            this.maxDepth = maxDepth;
+            this.requested = new AtomicLong();
+            this.errors = new AtomicThrowable();
+            this.inners = new ArrayList<ExpandInnerSubscriber<T>>();
+            this.pending = new ArrayDeque<ExpandNode<T>>();
+            this.credits = capacity;
+        }
+
+        ExpandInnerSubscriber<T> root() {
+            ExpandInnerSubscriber<T> inner = new ExpandInnerSubscriber<T>(this, 0, prefetch);
+            inners.add(inner);
+            return inner;
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                drain();
+            }
+        }
+
+        void innerError(ExpandInnerSubscriber<T> inner, Throwable ex) {
+            if (errors.addThrowable(ex)) {
+                inner.done = true;
+                drain();
+            } else {
+                RxJavaPlugins.onError(ex);
+            }
+        }
+
+        void cleanup() {
+            for (ExpandInnerSubscriber<T> inner : inners) {
+                inner.cancel();
+                inner.queue.clear();
+            }
+            inners.clear();
+            pending.clear();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            Subscriber<? super T> a = downstream;
+            ArrayList<ExpandInnerSubscriber<T>> list = inners;
+            ArrayDeque<ExpandNode<T>> q = pending;
+            long e = emitted;
+
+            for (;;) {
+                if (cancelled) {
+                    cleanup();
+                    return;
+                }
+
+                if (errors.get() != null) {
+                    cancelled = true;
+                    cleanup();
+                    a.onError(errors.terminate());
+                    return;
+                }
+
+                long r = requested.get();
+                long c = credits;
+                int n = list.size();
+
+                // emit the available items, the preferred sources first, stopping at the first error
+                for (int k = 0; k < n && errors.get() == null; k++) {
+                    int i = depthFirst ? n - 1 - k : k;
+                    ExpandInnerSubscriber<T> inner = list.get(i);
+
+                    while (e != r) {
+                        T v = inner.queue.poll();
+                        if (v == null) {
+                            break;
+                        }
+                        inner.consumed++;
+
+                        int depth = inner.depth;
+                        VisitedSet vs = visited;
+                        if (vs != null) {
+                            boolean added;
+                            try {
+                                added = vs.add(ObjectHelper.requireNonNull(keySelector.apply(v), "The keySelector returned a null key"));
+                            } catch (Throwable ex) {
+                                Exceptions.throwIfFatal(ex);
+                                errors.addThrowable(ex);
+                                break;
+                            }
+                            if (!added) {
+                                c++;
+                                continue;
+                            }
+                        }
+
+                        a.onNext(v);
+                        e++;
+
+                        if (depth < maxDepth) {
+                            q.offer(new ExpandNode<T>(v, depth + 1));
+                        } else {
+                            c++;
+                        }
+                    }
+                }
+
+                if (errors.get() != null) {
+                    continue;
+                }
+
+                // retire the finished sources and reclaim their unfulfilled credits
+                for (int i = n - 1; i >= 0; i--) {
+                    ExpandInnerSubscriber<T> inner = list.get(i);
+                    if (inner.done && inner.queue.isEmpty()) {
+                        c += inner.requested - inner.consumed;
+                        list.remove(i);
+                    }
+                }
+
+                // start expansions while few sources are working or all credits wait for expansion
+                int working = 0;
+                int running = 0;
+                n = list.size();
+                for (int i = 0; i < n; i++) {
+                    ExpandInnerSubscriber<T> inner = list.get(i);
+                    if (inner.requested != inner.consumed) {
+                        running++;
+                        working++;
+                    } else if (inner.source != null) {
+                        working++;
+                    }
+                }
+
+                while (!q.isEmpty()) {
+                    if (working >= maxConcurrency && (c != 0L || running != 0)) {
+                        break;
+                    }
+
+                    ExpandNode<T> node = depthFirst ? q.pollLast() : q.pollFirst();
+                    c++;
+
+                    Publisher<? extends T> p;
+                    try {
+                        p = ObjectHelper.requireNonNull(expander.apply(node.value), "The expander returned a null Publisher");
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        errors.addThrowable(ex);
+                        break;
+                    }
+
+                    ExpandInnerSubscriber<T> inner = new ExpandInnerSubscriber<T>(this, node.depth, prefetch);
+                    inner.source = p;
+                    list.add(inner);
+                    working++;
+                }
+
+                if (errors.get() != null) {
+                    continue;
+                }
+
+                // hand out the credits, the preferred sources first: one to each idle source
+                // while there is room for running sources, starting the not yet subscribed
+                // expansions before resuming the paused ones as that drains the pending items,
+                // then top up the running ones
+                n = list.size();
+                for (int pass = 0; pass < 2; pass++) {
+                    for (int k = 0; k < n && c != 0L && running < maxConcurrency; k++) {
+                        ExpandInnerSubscriber<T> inner = list.get(depthFirst ? n - 1 - k : k);
+                        if (!inner.done && inner.requested == inner.consumed && (pass != 0 || inner.source != null)) {
+                            c--;
+                            running++;
+                            requestInner(inner, 1L);
+                        }
+                    }
+                }
+
+                for (int k = 0; k < n && c != 0L; k++) {
+                    ExpandInnerSubscriber<T> inner = list.get(depthFirst ? n - 1 - k : k);
+                    long out = inner.requested - inner.consumed;
+                    if (!inner.done && out != 0L && out <= (prefetch >> 1)) {
+                        long m = Math.min(c, prefetch - out);
+                        c -= m;
+                        requestInner(inner, m);
+                    }
+                }
+
+                credits = c;
+                emitted = e;
+
+                if (list.isEmpty() && q.isEmpty()) {
+                    if (errors.get() == null) {
+                        cancelled = true;
+                        a.onComplete();
+                        return;
+                    }
+                    continue;
+                }
+
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        void requestInner(ExpandInnerSubscriber<T> inner, long n) {
+            inner.requested += n;
+            inner.request(n);
+
+            Publisher<? extends T> p = inner.source;
+            if (p != null) {
+                inner.source = null;
+                subscribeInner(p, inner);
+            }
+        }
+
+        void subscribeInner(final Publisher<? extends T> p, final ExpandInnerSubscriber<T> inner) {
+            Scheduler sch = scheduler;
+            if (sch == null) {
+                p.subscribe(inner);
+            } else {
+                sch.scheduleDirect(new Runnable() {
+                    @Override
+                    public void run() {
+                        p.subscribe(inner);
+                    }
+                });
+            }
+        }
+    }
+
+    static final class ExpandNode<T> {
+
+        final T value;
+
+        final int depth;
+
+        ExpandNode(T value, int depth) {
+            this.value = value;
+            this.depth = depth;
+        }
+    }
+
+    static final class ExpandInnerSubscriber<T> extends AtomicReference<Subscription>
+    implements FlowableSubscriber<T> {
+
+        private static final long serialVersionUID = 2347823571387154066L;
+
+        final ExpandParallelSubscription<T> parent;
+
+        /** The depth of the items of this source. */
+        final int depth;
+
+        final SpscLinkedArrayQueue<T> queue;
+
+        final AtomicLong missedRequested;
+
+        volatile boolean done;
+
+        /** The expansion to subscribe to once this inner gets its first credit, accessed by the drain loop. */
+        Publisher<? extends T> source;
+
+        /** The number of items requested, accessed by the drain loop. */
+        long requested;
+
+        /** The number of items taken from the queue, accessed by the drain loop. */
+        long consumed;
+
+        ExpandInnerSubscriber(ExpandParallelSubscription<T> parent, int depth, int prefetch) {
+            this.parent = parent;
+            this.depth = depth;
+            this.queue = new SpscLinkedArrayQueue<T>(prefetch);
+            this.missedRequested = new AtomicLong();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            SubscriptionHelper.deferredSetOnce(this, missedRequested, s);
+        }
+
+        @Override
+        public void onNext(T t) {
+            queue.offer(t);
+            parent.drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            parent.innerError(this, t);
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            parent.drain();
+        }
+
+        void request(long n) {
+            SubscriptionHelper.deferredRequest(this, missedRequested, n);
+        }
+
+        void cancel() {
+            SubscriptionHelper.cancel(this);
+        }
+    }
+
+    /**
+     * Remembers the keys of the items seen.
+     */
+    interface VisitedSet {
+        /**
+         * Adds the key to the set.
+         * @param key the key to add
+         * @return true if the key was not in the set
+         */
+        boolean add(Object key);
+    }
+
+    /**
+     * Exact set of the most recently seen keys, evicting the least recently seen
+     * when the set is full; evicted keys may be expanded again.
+     */
+    static final class LruVisitedSet extends LinkedHashMap<Object, Boolean> implements VisitedSet {
+
+        private static final long serialVersionUID = -2493573779012460349L;
+
+        final int maxSize;
+
+        LruVisitedSet(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public boolean add(Object key) {
+            return put(key, Boolean.TRUE) == null;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Boolean> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    /**
+     * Bloom filter sized for the expected number of keys with about 1% false positive rate;
+     * false positives drop items that were not seen before.
+     */
+    static final class BloomVisitedSet implements VisitedSet {
+
+        static final int HASHES = 7;
+
+        final long[] bits;
+
+        final int mask;
+
+        BloomVisitedSet(int expectedSize) {
+            // ~9.6 bits per key for 1%, rounded up to a power of 2
+            long m = Math.max(64L, (long)expectedSize * 10L);
+            int size = 64;
+            while (size < m && size < (1 << 30)) {
+                size <<= 1;
+            }
+            this.bits = new long[size >> 6];
+            this.mask = size - 1;
+        }
+
+        static int mix(int h) {
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h;
+        }
+
+        @Override
+        public boolean add(Object key) {
+            int h1 = mix(key.hashCode());
+            int h2 = mix(h1) | 1;
+            boolean added = false;
+            long[] b = bits;
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & mask;
+                int w = bit >>> 6;
+                long m = 1L << (bit & 63);
+                if ((b[w] & m) == 0L) {
+                    b[w] |= m;
+                    added = true;
+                }
+            }
+            return added;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.reactivestreams.*;
+
+import hu.akarnokd.rxjava3.operators.FlowableFlatMapSync.*;
+import io.reactivex.*;
+import io.reactivex.functions.Function;
+
+/**
+ * FlatMap inner flows with a concurrency limit adapted at runtime from the
+ * completion latency of the inner flows, reusing the freelist-based inner management
+ * of {@link FlowableFlatMapSync}.
+ * <p>
+ * The freelist is sized for the maximum limit; the operator keeps as many
+ * upstream items requested (running or about to arrive) as the current limit
+ * allows and, when the limit shrinks, lets the running inners finish without
+ * replenishing.
+ *
+ * @param <T> the input value type
+ * @param <R> the result value type
+ *
+ * @since 3.0.0
+ */
+final class FlowableFlatMapAdaptive<T, R> extends Flowable<R> implements FlowableTransformer<T, R> {
+
+    final Publisher<T> source;
+
+    final Function<? super T, ? extends Publisher<? extends R>> mapper;
+
+    final ConcurrencyLimit limit;
+
+    final int bufferSize;
+
+    final boolean depthFirst;
+
+    FlowableFlatMapAdaptive(Publisher<T> source, Function<? super T, ? extends Publisher<? extends R>> mapper,
+            ConcurrencyLimit limit, int bufferSize, boolean depthFirst) {
+        this.source = source;
+        this.mapper = mapper;
+        this.limit = limit;
+        this.bufferSize = bufferSize;
+        this.depthFirst = depthFirst;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super R> s) {
+        source.subscribe(new AdaptiveFlatMapOuterSubscriber<T, R>(s, mapper, limit, bufferSize, depthFirst));
+    }
+
+    @Override
+    public Publisher<R> apply(Flowable<T> upstream) {
+        return new FlowableFlatMapAdaptive<T, R>(upstream, mapper, limit, bufferSize, depthFirst);
+    }
+
+    static final class AdaptiveFlatMapOuterSubscriber<T, R> extends FlatMapOuterSubscriber<T, R> {
+
+        private static final long serialVersionUID = -2350446471096098370L;
+
+        final ConcurrencyLimit limit;
+
+        /** The subscription time of the inner in each slot, indexed by inner index - 1. */
+        final long[] startTimes;
+
+        /** The number of subscribed inners not yet removed by the drain loop. */
+        final AtomicInteger running;
+
+        /** The number of upstream items requested but not yet finished, accessed by the drain loop. */
+        long outstanding;
+
+        AdaptiveFlatMapOuterSubscriber(Subscriber<? super R> downstream,
+                Function<? super T, ? extends Publisher<? extends R>> mapper, ConcurrencyLimit limit, int bufferSize,
+                boolean depthFirst) {
+            super(downstream, mapper, limit.getMaxLimit(), bufferSize, depthFirst);
+            this.limit = limit;
+            this.startTimes = new long[subscribers.length()];
+            this.running = new AtomicInteger();
+        }
+
+        @Override
+        long initialRequest() {
+            long n = limit.getLimit();
+            outstanding = n;
+            return n;
+        }
+
+        @Override
+        void innerSubscribing(FlatMapInnerSubscriber<T, R> inner) {
+            running.getAndIncrement();
+            startTimes[inner.index - 1] = System.nanoTime();
+        }
+
+        @Override
+        public void innerComplete(FlatMapInnerSubscriber<T, R> inner) {
+            // the slot is not reused before the drain loop removes this inner
+            long rtt = System.nanoTime() - startTimes[inner.index - 1];
+            limit.onSample(rtt, running.get());
+            super.innerComplete(inner);
+        }
+
+        @Override
+        void innerFinished(FlatMapInnerSubscriber<T, R> inner) {
+            running.decrementAndGet();
+            long o = outstanding - 1;
+            long n = limit.getLimit();
+            if (o < n) {
+                outstanding = n;
+                upstream.request(n - o);
+            } else {
+                outstanding = o;
+            }
+        }
+    }
+}
@@ -143,7 +143,7 @@ final class FlowableFlatMapSync<T, R> extends Flowable<R> implements FlowableTra
 
                 downstream.onSubscribe(this);
 
-                s.request(maxConcurrency);
+                s.request(initialRequest());
             }
         }
 
@@ -179,6 +179,7 @@ final class FlowableFlatMapSync<T, R> extends Flowable<R> implements FlowableTra
                 }
 
                 FlatMapInnerSubscriber<T, R> inner = new FlatMapInnerSubscriber<T, R>(this, bufferSize, idx);
+                innerSubscribing(inner);
                 s.lazySet(idx - 1, inner);
                 fl.lazySet(m + CONSUMER_INDEX, (ci + 1) & (m - 1));
 
@@ -229,6 +230,32 @@ final class FlowableFlatMapSync<T, R> extends Flowable<R> implements FlowableTra
 
         abstract void cleanupAfter();
 
+        /**
+         * Returns the number of upstream items to request initially.
+         * @return the initial request amount
+         */
+        long initialRequest() {
+            return maxConcurrency;
+        }
+
+        /**
+         * Called on the upstream thread before the inner subscriber becomes
+         * visible to the drain loop and gets subscribed.
+         * @param inner the inner subscriber about to be subscribed
+         */
+        void innerSubscribing(FlatMapInnerSubscriber<T, R> inner) {
+            // default is no-op
+        }
+
+        /**
+         * Called by the drain loop after the terminated and drained inner
+         * subscriber has been removed, replenishing the upstream.
+         * @param inner the inner subscriber removed
+         */
+        void innerFinished(FlatMapInnerSubscriber<T, R> inner) {
+            upstream.request(1);
+        }
+
         final void depthFirst() {
             int missed = 1;
             long e = emitted;
@@ -272,7 +299,7 @@ final class FlowableFlatMapSync<T, R> extends Flowable<R> implements FlowableTra
                                 remove(inner);
                                 finished++;
                                 innerEmpty++;
-                                upstream.request(1);
+                                innerFinished(inner);
                             } else
                             if (q != null) {
                                 while (e != r) {
@@ -309,7 +336,7 @@ final class FlowableFlatMapSync<T, R> extends Flowable<R> implements FlowableTra
                                         remove(inner);
                                         finished++;
                                         innerEmpty++;
-                                        upstream.request(1);
+                                        innerFinished(inner);
                                         break;
                                     }
 
@@ -425,7 +452,7 @@ final class FlowableFlatMapSync<T, R> extends Flowable<R> implements FlowableTra
                                 remove(inner);
                                 finished++;
                                 innerEmpty++;
-                                upstream.request(1);
+                                innerFinished(inner);
                             } else
                             if (q != null) {
                                 if (e != r) {
@@ -530,7 +557,7 @@ final class FlowableFlatMapSync<T, R> extends Flowable<R> implements FlowableTra
         }
     }
 
-    static final class FlatMapOuterSubscriber<T, R> extends BaseFlatMapOuterSubscriber<T, R> {
+    static class FlatMapOuterSubscriber<T, R> extends BaseFlatMapOuterSubscriber<T, R> {
         private static final long serialVersionUID = -5109342841608286301L;
 
         FlatMapOuterSubscriber(Subscriber<? super R> downstream,
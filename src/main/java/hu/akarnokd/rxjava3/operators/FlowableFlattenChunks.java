@@ -0,0 +1,350 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import io.reactivex.*;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.internal.queue.SpscArrayQueue;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.internal.util.BackpressureHelper;
+
+/**
+ * Emits the elements of the upstream array chunks one by one, honoring the
+ * item-level downstream demand while prefetching a fixed number of chunks.
+ *
+ * @param <C> the chunk type
+ * @param <T> the element type
+ * @since 3.0.0
+ */
+final class FlowableFlattenChunks<C, T> extends Flowable<T> implements FlowableTransformer<C, T> {
+
+    final Publisher<C> source;
+
+    final ChunkSupport<C, T> support;
+
+    final int prefetch;
+
+    FlowableFlattenChunks(Publisher<C> source, ChunkSupport<C, T> support, int prefetch) {
+        this.source = source;
+        this.support = support;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public Publisher<T> apply(Flowable<C> upstream) {
+        return new FlowableFlattenChunks<C, T>(upstream, support, prefetch);
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super T> s) {
+        source.subscribe(new FlattenChunksSubscriber<C, T>(s, support, prefetch));
+    }
+
+    /**
+     * Provides indexed access to the elements of a chunk.
+     * @param <C> the chunk type
+     * @param <T> the element type
+     */
+    interface ChunkSupport<C, T> {
+
+        /**
+         * Returns the number of elements in the chunk.
+         * @param chunk the chunk
+         * @return the number of elements
+         */
+        int length(C chunk);
+
+        /**
+         * Returns the element at the given index of the chunk.
+         * @param chunk the chunk
+         * @param index the element index
+         * @return the element
+         */
+        T get(C chunk, int index);
+    }
+
+    static final class ArrayChunkSupport<T> implements ChunkSupport<T[], T> {
+
+        @Override
+        public int length(T[] chunk) {
+            return chunk.length;
+        }
+
+        @Override
+        public T get(T[] chunk, int index) {
+            return chunk[index];
+        }
+    }
+
+    enum LongChunkSupport implements ChunkSupport<long[], Long> {
+        INSTANCE;
+
+        @Override
+        public int length(long[] chunk) {
+            return chunk.length;
+        }
+
+        @Override
+        public Long get(long[] chunk, int index) {
+            return chunk[index];
+        }
+    }
+
+    enum IntChunkSupport implements ChunkSupport<int[], Integer> {
+        INSTANCE;
+
+        @Override
+        public int length(int[] chunk) {
+            return chunk.length;
+        }
+
+        @Override
+        public Integer get(int[] chunk, int index) {
+            return chunk[index];
+        }
+    }
+
+    enum DoubleChunkSupport implements ChunkSupport<double[], Double> {
+        INSTANCE;
+
+        @Override
+        public int length(double[] chunk) {
+            return chunk.length;
+        }
+
+        @Override
+        public Double get(double[] chunk, int index) {
+            return chunk[index];
+        }
+    }
+
+    static final class FlattenChunksSubscriber<C, T> extends AtomicInteger
+    implements FlowableSubscriber<C>, Subscription {
+
+        private static final long serialVersionUID = 2597591627716932439L;
+
+        final Subscriber<? super T> downstream;
+
+        final ChunkSupport<C, T> support;
+
+        final int prefetch;
+
+        final int limit;
+
+        final SpscArrayQueue<C> queue;
+
+        final AtomicLong requested;
+
+        Subscription upstream;
+
+        Throwable error;
+
+        volatile boolean done;
+
+        volatile boolean cancelled;
+
+        C current;
+
+        int index;
+
+        int consumed;
+
+        long emitted;
+
+        FlattenChunksSubscriber(Subscriber<? super T> downstream, ChunkSupport<C, T> support, int prefetch) {
+            this.downstream = downstream;
+            this.support = support;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.queue = new SpscArrayQueue<C>(prefetch);
+            this.requested = new AtomicLong();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(upstream, s)) {
+                upstream = s;
+
+                downstream.onSubscribe(this);
+
+                s.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(C t) {
+            if (!queue.offer(t)) {
+                upstream.cancel();
+                onError(new MissingBackpressureException("Queue is full?!"));
+                return;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                upstream.cancel();
+                if (getAndIncrement() == 0) {
+                    current = null;
+                    queue.clear();
+                }
+            }
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            Subscriber<? super T> a = downstream;
+            ChunkSupport<C, T> cs = support;
+            SpscArrayQueue<C> q = queue;
+            long e = emitted;
+
+            for (;;) {
+                long r = requested.get();
+
+                while (e != r) {
+                    if (cancelled) {
+                        current = null;
+                        q.clear();
+                        return;
+                    }
+
+                    C c = current;
+
+                    if (c == null) {
+                        boolean d = done;
+
+                        if (d && error != null) {
+                            q.clear();
+                            a.onError(error);
+                            return;
+                        }
+
+                        c = q.poll();
+                        boolean empty = c == null;
+
+                        if (d && empty) {
+                            a.onComplete();
+                            return;
+                        }
+
+                        if (empty) {
+                            break;
+                        }
+
+                        int k = consumed + 1;
+                        if (k == limit) {
+                            consumed = 0;
+                            upstream.request(k);
+                        } else {
+                            consumed = k;
+                        }
+
+                        current = c;
+                        index = 0;
+                    }
+
+                    int i = index;
+                    int n = cs.length(c);
+
+                    while (i != n && e != r) {
+                        if (cancelled) {
+                            current = null;
+                            q.clear();
+                            return;
+                        }
+
+                        a.onNext(cs.get(c, i));
+
+                        i++;
+                        e++;
+                    }
+
+                    if (i == n) {
+                        current = null;
+                    } else {
+                        index = i;
+                    }
+                }
+
+                if (e == r) {
+                    if (cancelled) {
+                        current = null;
+                        q.clear();
+                        return;
+                    }
+
+                    if (current == null && done) {
+                        Throwable ex = error;
+                        if (ex != null) {
+                            q.clear();
+                            a.onError(ex);
+                            return;
+                        }
+                        // empty chunks don't need requests, skip them so completion isn't held up
+                        C c;
+                        while ((c = q.poll()) != null && cs.length(c) == 0) { }
+
+                        if (c == null) {
+                            a.onComplete();
+                            return;
+                        }
+
+                        current = c;
+                        index = 0;
+                    }
+                }
+
+                emitted = e;
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+    }
+}
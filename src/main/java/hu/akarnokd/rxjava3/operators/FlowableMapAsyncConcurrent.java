@@ -0,0 +1,401 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import io.reactivex.*;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.*;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.internal.queue.SpscArrayQueue;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.internal.util.*;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Maps each upstream value into a single value provided by a generated Publisher for that
+ * input value, running up to a given number of these Publishers at once, and emits
+ * the combination of the original and generated single value in the upstream order.
+ * <p>Only the first item emitted by the inner Publisher's are considered. If
+ * the inner Publisher is empty, no resulting item is generated for that input value.
+ * In filter mode, the inner Publishers emit a Boolean and the original value is emitted
+ * if it was true.
+ * <p>The inner results wait in their in-flight slot until the results of the preceding
+ * values have been emitted; new inner Publishers are started only when a slot frees up,
+ * so the reorder buffer is bounded by the maximum concurrency.
+ * @param <T> the input value type
+ * @param <U> the intermediate value type
+ * @param <R> the result value type
+ *
+ * @since 3.0.0
+ */
+final class FlowableMapAsyncConcurrent<T, U, R> extends Flowable<R> implements FlowableTransformer<T, R> {
+
+    final Flowable<T> source;
+
+    final Function<? super T, ? extends Publisher<? extends U>> mapper;
+
+    /** The combiner or null in filter mode. */
+    final BiFunction<? super T, ? super U, ? extends R> combiner;
+
+    final int maxConcurrency;
+
+    final int bufferSize;
+
+    FlowableMapAsyncConcurrent(Flowable<T> source, Function<? super T, ? extends Publisher<? extends U>> mapper,
+            BiFunction<? super T, ? super U, ? extends R> combiner, int maxConcurrency, int bufferSize) {
+        this.source = source;
+        this.mapper = mapper;
+        this.combiner = combiner;
+        this.maxConcurrency = maxConcurrency;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public Publisher<R> apply(Flowable<T> upstream) {
+        return new FlowableMapAsyncConcurrent<T, U, R>(upstream, mapper, combiner, maxConcurrency, bufferSize);
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super R> s) {
+        source.subscribe(new MapAsyncConcurrentSubscriber<T, U, R>(s, mapper, combiner, maxConcurrency, bufferSize));
+    }
+
+    static final class MapAsyncConcurrentSubscriber<T, U, R>
+    extends AtomicInteger
+    implements FlowableSubscriber<T>, Subscription {
+
+        private static final long serialVersionUID = -2716611556645396485L;
+
+        final Subscriber<? super R> downstream;
+
+        final Function<? super T, ? extends Publisher<? extends U>> mapper;
+
+        final BiFunction<? super T, ? super U, ? extends R> combiner;
+
+        final int maxConcurrency;
+
+        final int bufferSize;
+
+        final int limit;
+
+        final SpscArrayQueue<T> queue;
+
+        final AtomicThrowable error;
+
+        final AtomicLong requested;
+
+        /** The in-flight inner Publishers in upstream order, accessed by the drain loop only. */
+        final ArrayDeque<InnerSubscriber<T, U>> active;
+
+        Subscription upstream;
+
+        volatile boolean done;
+
+        volatile boolean cancelled;
+
+        long emitted;
+
+        int consumed;
+
+        MapAsyncConcurrentSubscriber(Subscriber<? super R> downstream,
+                Function<? super T, ? extends Publisher<? extends U>> mapper,
+                BiFunction<? super T, ? super U, ? extends R> combiner, int maxConcurrency, int bufferSize) {
+            this.downstream = downstream;
+            this.mapper = mapper;
+            this.combiner = combiner;
+            this.maxConcurrency = maxConcurrency;
+            this.bufferSize = bufferSize;
+            this.limit = bufferSize - (bufferSize >> 2);
+            this.queue = new SpscArrayQueue<T>(bufferSize);
+            this.error = new AtomicThrowable();
+            this.requested = new AtomicLong();
+            this.active = new ArrayDeque<InnerSubscriber<T, U>>();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(upstream, s)) {
+                upstream = s;
+
+                downstream.onSubscribe(this);
+
+                s.request(bufferSize);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            queue.offer(t);
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error.addThrowable(t);
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                upstream.cancel();
+                if (getAndIncrement() == 0) {
+                    clear();
+                }
+            }
+        }
+
+        void clear() {
+            InnerSubscriber<T, U> inner;
+            while ((inner = active.poll()) != null) {
+                inner.cancel();
+            }
+            queue.clear();
+        }
+
+        void innerDone() {
+            drain();
+        }
+
+        void innerError(InnerSubscriber<T, U> inner, Throwable ex) {
+            // the error has to be visible before the slot is seen as done
+            if (!error.addThrowable(ex)) {
+                RxJavaPlugins.onError(ex);
+            }
+            inner.state = InnerSubscriber.STATE_DONE;
+            drain();
+        }
+
+        /**
+         * Starts inner Publishers for the queued upstream values while there are free slots.
+         */
+        void startInners() {
+            ArrayDeque<InnerSubscriber<T, U>> act = active;
+            while (act.size() < maxConcurrency) {
+                T t = queue.poll();
+                if (t == null) {
+                    break;
+                }
+
+                if (++consumed == limit) {
+                    consumed = 0;
+                    upstream.request(limit);
+                }
+
+                Publisher<? extends U> p;
+
+                try {
+                    p = ObjectHelper.requireNonNull(mapper.apply(t), "The mapper returned a null value");
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    error.addThrowable(ex);
+                    continue;
+                }
+
+                InnerSubscriber<T, U> inner = new InnerSubscriber<T, U>(this, t);
+                act.offer(inner);
+
+                if (p instanceof Supplier) {
+                    U u;
+                    try {
+                        @SuppressWarnings("unchecked")
+                        U v = ((Supplier<U>)p).get();
+                        u = v;
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        error.addThrowable(ex);
+                        u = null;
+                    }
+                    inner.value = u;
+                    inner.state = InnerSubscriber.STATE_DONE;
+                } else {
+                    p.subscribe(inner);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            long e = emitted;
+            Subscriber<? super R> a = downstream;
+            ArrayDeque<InnerSubscriber<T, U>> act = active;
+
+            for (;;) {
+                long r = requested.get();
+
+                for (;;) {
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+
+                    startInners();
+
+                    InnerSubscriber<T, U> inner = act.peek();
+
+                    if (inner == null) {
+                        if (done && queue.isEmpty()) {
+                            Throwable ex = error.terminate();
+                            if (ex == null) {
+                                a.onComplete();
+                            } else {
+                                a.onError(ex);
+                            }
+                            return;
+                        }
+                        break;
+                    }
+
+                    if (inner.state != InnerSubscriber.STATE_DONE) {
+                        break;
+                    }
+
+                    U u = inner.value;
+
+                    if (u != null) {
+                        if (e == r) {
+                            break;
+                        }
+
+                        R v;
+
+                        try {
+                            if (combiner == null) {
+                                v = (Boolean)u ? (R)inner.item : null;
+                            } else {
+                                v = ObjectHelper.requireNonNull(combiner.apply(inner.item, u), "The combiner returned a null value");
+                            }
+                        } catch (Throwable ex) {
+                            Exceptions.throwIfFatal(ex);
+                            error.addThrowable(ex);
+                            v = null;
+                        }
+
+                        if (v != null) {
+                            a.onNext(v);
+                            e++;
+                        }
+                    }
+
+                    act.poll();
+                }
+
+                int w = get();
+                if (missed == w) {
+                    emitted = e;
+                    missed = addAndGet(-missed);
+                    if (missed == 0) {
+                        break;
+                    }
+                } else {
+                    missed = w;
+                }
+            }
+        }
+
+        static final class InnerSubscriber<T, U> extends AtomicReference<Subscription> implements Subscriber<U> {
+
+            private static final long serialVersionUID = 6183599025853285224L;
+
+            static final int STATE_RUNNING = 0;
+            static final int STATE_DONE = 1;
+
+            final MapAsyncConcurrentSubscriber<T, U, ?> parent;
+
+            final T item;
+
+            /** The first inner value or null if there was none; read after state became STATE_DONE. */
+            U value;
+
+            volatile int state;
+
+            boolean done;
+
+            InnerSubscriber(MapAsyncConcurrentSubscriber<T, U, ?> parent, T item) {
+                this.parent = parent;
+                this.item = item;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                if (SubscriptionHelper.setOnce(this, s)) {
+                    s.request(Long.MAX_VALUE);
+                }
+            }
+
+            @Override
+            public void onNext(U t) {
+                if (!done) {
+                    get().cancel();
+                    done = true;
+                    value = t;
+                    state = STATE_DONE;
+                    parent.innerDone();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (!done) {
+                    done = true;
+                    parent.innerError(this, t);
+                } else {
+                    RxJavaPlugins.onError(t);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                if (!done) {
+                    done = true;
+                    state = STATE_DONE;
+                    parent.innerDone();
+                }
+            }
+
+            void cancel() {
+                SubscriptionHelper.cancel(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import io.reactivex.*;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.queue.SpscLinkedArrayQueue;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.internal.util.BackpressureHelper;
+
+/**
+ * Collects upstream items into batches and emits a batch when it reaches the maximum
+ * size or when the maximum latency elapsed since the first item of the batch arrived,
+ * whichever happens first.
+ * <p>
+ * The batches are built via a {@link BatchSupport} so that primitive arrays
+ * can be filled directly without an intermediate, boxed collection.
+ *
+ * @param <T> the upstream value type
+ * @param <B> the batch type
+ * @since 3.0.0
+ */
+final class FlowableMicroBatch<T, B> extends Flowable<B> implements FlowableTransformer<T, B> {
+
+    final Publisher<T> source;
+
+    final int maxSize;
+
+    final long maxLatency;
+
+    final TimeUnit unit;
+
+    final Scheduler scheduler;
+
+    final BatchSupport<T, B> support;
+
+    FlowableMicroBatch(Publisher<T> source, int maxSize, long maxLatency, TimeUnit unit,
+            Scheduler scheduler, BatchSupport<T, B> support) {
+        this.source = source;
+        this.maxSize = maxSize;
+        this.maxLatency = maxLatency;
+        this.unit = unit;
+        this.scheduler = scheduler;
+        this.support = support;
+    }
+
+    @Override
+    public Publisher<B> apply(Flowable<T> upstream) {
+        return new FlowableMicroBatch<T, B>(upstream, maxSize, maxLatency, unit, scheduler, support);
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super B> s) {
+        source.subscribe(new MicroBatchSubscriber<T, B>(s, maxSize, maxLatency, unit, scheduler.createWorker(), support));
+    }
+
+    /**
+     * Creates and fills the batches of the operator.
+     * @param <T> the upstream value type
+     * @param <B> the batch type
+     */
+    interface BatchSupport<T, B> {
+
+        /**
+         * Creates a new, empty batch.
+         * @param maxSize the maximum number of items the batch will hold
+         * @return the new batch
+         */
+        B create(int maxSize);
+
+        /**
+         * Stores an item in the batch.
+         * @param batch the batch to store into
+         * @param index the index of the item in the batch
+         * @param item the item to store
+         */
+        void set(B batch, int index, T item);
+
+        /**
+         * Returns a batch holding only the items stored so far, called for
+         * batches emitted before they got full.
+         * @param batch the batch to trim
+         * @param size the number of items in the batch
+         * @return the trimmed batch
+         */
+        B trim(B batch, int size);
+    }
+
+    static final class ListBatchSupport<T> implements BatchSupport<T, List<T>> {
+
+        @Override
+        public List<T> create(int maxSize) {
+            // large batches may never fill up before the latency expires
+            return new ArrayList<T>(Math.min(maxSize, 1024));
+        }
+
+        @Override
+        public void set(List<T> batch, int index, T item) {
+            batch.add(item);
+        }
+
+        @Override
+        public List<T> trim(List<T> batch, int size) {
+            return batch;
+        }
+    }
+
+    enum LongBatchSupport implements BatchSupport<Long, long[]> {
+        INSTANCE;
+
+        @Override
+        public long[] create(int maxSize) {
+            return new long[maxSize];
+        }
+
+        @Override
+        public void set(long[] batch, int index, Long item) {
+            batch[index] = item;
+        }
+
+        @Override
+        public long[] trim(long[] batch, int size) {
+            return Arrays.copyOf(batch, size);
+        }
+    }
+
+    enum IntBatchSupport implements BatchSupport<Integer, int[]> {
+        INSTANCE;
+
+        @Override
+        public int[] create(int maxSize) {
+            return new int[maxSize];
+        }
+
+        @Override
+        public void set(int[] batch, int index, Integer item) {
+            batch[index] = item;
+        }
+
+        @Override
+        public int[] trim(int[] batch, int size) {
+            return Arrays.copyOf(batch, size);
+        }
+    }
+
+    enum DoubleBatchSupport implements BatchSupport<Double, double[]> {
+        INSTANCE;
+
+        @Override
+        public double[] create(int maxSize) {
+            return new double[maxSize];
+        }
+
+        @Override
+        public void set(double[] batch, int index, Double item) {
+            batch[index] = item;
+        }
+
+        @Override
+        public double[] trim(double[] batch, int size) {
+            return Arrays.copyOf(batch, size);
+        }
+    }
+
+    static final class MicroBatchSubscriber<T, B> extends AtomicInteger
+    implements FlowableSubscriber<T>, Subscription {
+
+        private static final long serialVersionUID = -3466408916838963011L;
+
+        final Subscriber<? super B> downstream;
+
+        final int maxSize;
+
+        final long maxLatency;
+
+        final TimeUnit unit;
+
+        final Scheduler.Worker worker;
+
+        final BatchSupport<T, B> support;
+
+        final SpscLinkedArrayQueue<B> queue;
+
+        final AtomicLong requested;
+
+        Subscription upstream;
+
+        // batch, size, index and timer are accessed while holding this
+        B batch;
+
+        int size;
+
+        long index;
+
+        Disposable timer;
+
+        Throwable error;
+
+        volatile boolean done;
+
+        volatile boolean cancelled;
+
+        long emitted;
+
+        MicroBatchSubscriber(Subscriber<? super B> downstream, int maxSize, long maxLatency, TimeUnit unit,
+                Scheduler.Worker worker, BatchSupport<T, B> support) {
+            this.downstream = downstream;
+            this.maxSize = maxSize;
+            this.maxLatency = maxLatency;
+            this.unit = unit;
+            this.worker = worker;
+            this.support = support;
+            this.queue = new SpscLinkedArrayQueue<B>(Flowable.bufferSize());
+            this.requested = new AtomicLong();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(upstream, s)) {
+                upstream = s;
+
+                downstream.onSubscribe(this);
+
+                s.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            synchronized (this) {
+                B b = batch;
+                if (b == null) {
+                    b = support.create(maxSize);
+                    batch = b;
+                    timer = worker.schedule(new FlushTask(this, ++index), maxLatency, unit);
+                }
+                int s = size;
+                support.set(b, s, t);
+                if (++s != maxSize) {
+                    size = s;
+                    return;
+                }
+                batch = null;
+                size = 0;
+                timer.dispose();
+                timer = null;
+                queue.offer(b);
+            }
+            drain();
+        }
+
+        void flush(long idx) {
+            synchronized (this) {
+                B b = batch;
+                if (idx != index || b == null) {
+                    return;
+                }
+                batch = null;
+                timer = null;
+                queue.offer(support.trim(b, size));
+                size = 0;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            synchronized (this) {
+                batch = null;
+                size = 0;
+            }
+            worker.dispose();
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this) {
+                B b = batch;
+                if (b != null) {
+                    batch = null;
+                    queue.offer(support.trim(b, size));
+                    size = 0;
+                }
+            }
+            worker.dispose();
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                upstream.cancel();
+                worker.dispose();
+                if (getAndIncrement() == 0) {
+                    queue.clear();
+                }
+            }
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            Subscriber<? super B> a = downstream;
+            SpscLinkedArrayQueue<B> q = queue;
+            long e = emitted;
+
+            for (;;) {
+                long r = requested.get();
+
+                while (e != r) {
+                    if (cancelled) {
+                        q.clear();
+                        return;
+                    }
+
+                    boolean d = done;
+
+                    if (d) {
+                        Throwable ex = error;
+                        if (ex != null) {
+                            q.clear();
+                            a.onError(ex);
+                            return;
+                        }
+                    }
+
+                    B v = q.poll();
+                    boolean empty = v == null;
+
+                    if (d && empty) {
+                        a.onComplete();
+                        return;
+                    }
+
+                    if (empty) {
+                        break;
+                    }
+
+                    a.onNext(v);
+
+                    e++;
+                }
+
+                if (e == r) {
+                    if (cancelled) {
+                        q.clear();
+                        return;
+                    }
+
+                    if (done) {
+                        Throwable ex = error;
+                        if (ex != null) {
+                            q.clear();
+                            a.onError(ex);
+                            return;
+                        }
+                        if (q.isEmpty()) {
+                            a.onComplete();
+                            return;
+                        }
+                    }
+                }
+
+                emitted = e;
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        static final class FlushTask implements Runnable {
+
+            final MicroBatchSubscriber<?, ?> parent;
+
+            final long index;
+
+            FlushTask(MicroBatchSubscriber<?, ?> parent, long index) {
+                this.parent = parent;
+                this.index = index;
+            }
+
+            @Override
+            public void run() {
+                parent.flush(index);
+            }
+        }
+    }
+}
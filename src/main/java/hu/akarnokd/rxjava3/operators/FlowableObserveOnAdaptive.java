@@ -0,0 +1,285 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import io.reactivex.*;
+import io.reactivex.Scheduler.Worker;
+import io.reactivex.internal.queue.SpscLinkedArrayQueue;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.internal.util.BackpressureHelper;
+
+/**
+ * Emits the upstream items on the given {@link Scheduler} while adapting the
+ * number of items requested ahead from the upstream between a minimum and maximum prefetch.
+ * <p>
+ * The drain loop compares the consumption and production side through the
+ * occupancy of the buffer: finding the buffer empty while the downstream has
+ * demand means the upstream round trip is longer than what the current prefetch
+ * covers at the current drain rate, thus the prefetch is doubled (at most once per
+ * replenishment). Running out of downstream demand while items are still buffered
+ * means the consumer is the slower side and the items requested ahead only
+ * occupy memory, thus the prefetch is halved at the next replenishment.
+ * The buffer is an unbounded linked-array queue so its memory follows the occupancy
+ * and not the maximum prefetch.
+ *
+ * @param <T> the item type
+ * @since 3.0.0
+ */
+final class FlowableObserveOnAdaptive<T> extends Flowable<T> implements FlowableTransformer<T, T> {
+
+    final Publisher<T> source;
+
+    final Scheduler scheduler;
+
+    final int minPrefetch;
+
+    final int maxPrefetch;
+
+    FlowableObserveOnAdaptive(Publisher<T> source, Scheduler scheduler, int minPrefetch, int maxPrefetch) {
+        this.source = source;
+        this.scheduler = scheduler;
+        this.minPrefetch = minPrefetch;
+        this.maxPrefetch = maxPrefetch;
+    }
+
+    @Override
+    public Publisher<T> apply(Flowable<T> upstream) {
+        return new FlowableObserveOnAdaptive<T>(upstream, scheduler, minPrefetch, maxPrefetch);
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super T> s) {
+        source.subscribe(new ObserveOnAdaptiveSubscriber<T>(s, scheduler.createWorker(), minPrefetch, maxPrefetch));
+    }
+
+    static final class ObserveOnAdaptiveSubscriber<T> extends AtomicInteger
+    implements FlowableSubscriber<T>, Subscription, Runnable {
+
+        private static final long serialVersionUID = -6264409264932404431L;
+
+        final Subscriber<? super T> downstream;
+
+        final Worker worker;
+
+        final int minPrefetch;
+
+        final int maxPrefetch;
+
+        final SpscLinkedArrayQueue<T> queue;
+
+        final AtomicLong requested;
+
+        Subscription upstream;
+
+        volatile boolean done;
+        Throwable error;
+
+        volatile boolean cancelled;
+
+        long emitted;
+
+        /** The current prefetch amount, accessed by the drain loop. */
+        int prefetch;
+
+        /** The number of items consumed since the last replenishment. */
+        int consumed;
+
+        /** The number of items requested but not yet consumed. */
+        long window;
+
+        /** Set if the prefetch was grown since the last replenishment. */
+        boolean grown;
+
+        /** Set if the downstream demand ran out with items buffered since the last replenishment. */
+        boolean backlogged;
+
+        ObserveOnAdaptiveSubscriber(Subscriber<? super T> downstream, Worker worker, int minPrefetch, int maxPrefetch) {
+            this.downstream = downstream;
+            this.worker = worker;
+            this.minPrefetch = minPrefetch;
+            this.maxPrefetch = maxPrefetch;
+            this.queue = new SpscLinkedArrayQueue<T>(minPrefetch);
+            this.requested = new AtomicLong();
+            this.prefetch = minPrefetch;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(upstream, s)) {
+                upstream = s;
+                window = minPrefetch;
+
+                downstream.onSubscribe(this);
+
+                s.request(minPrefetch);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            queue.offer(t);
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                schedule();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                upstream.cancel();
+                worker.dispose();
+
+                if (getAndIncrement() == 0) {
+                    queue.clear();
+                }
+            }
+        }
+
+        void schedule() {
+            if (getAndIncrement() == 0) {
+                worker.schedule(this);
+            }
+        }
+
+        /**
+         * Tops up the requested amount to the current prefetch.
+         */
+        void replenish() {
+            long n = prefetch - window;
+            consumed = 0;
+            grown = false;
+            backlogged = false;
+            if (n > 0L) {
+                window += n;
+                upstream.request(n);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            Subscriber<? super T> a = downstream;
+            SpscLinkedArrayQueue<T> q = queue;
+            long e = emitted;
+
+            for (;;) {
+                long r = requested.get();
+
+                while (e != r) {
+                    if (cancelled) {
+                        q.clear();
+                        return;
+                    }
+
+                    boolean d = done;
+                    T v = q.poll();
+                    boolean empty = v == null;
+
+                    if (d && empty) {
+                        terminate(a);
+                        return;
+                    }
+
+                    if (empty) {
+                        // starving: the prefetch doesn't cover the upstream round trip
+                        if (!d && !grown && prefetch < maxPrefetch) {
+                            prefetch = Math.min(maxPrefetch, prefetch << 1);
+                            replenish();
+                            grown = true;
+                        }
+                        break;
+                    }
+
+                    a.onNext(v);
+
+                    e++;
+                    window--;
+
+                    int c = consumed + 1;
+                    int p = prefetch;
+                    if (c >= p - (p >> 2)) {
+                        // the consumer is slower, the buffered items only take up memory
+                        if (backlogged && !grown && p > minPrefetch) {
+                            prefetch = Math.max(minPrefetch, p >> 1);
+                        }
+                        replenish();
+                    } else {
+                        consumed = c;
+                    }
+                }
+
+                if (e == r) {
+                    if (cancelled) {
+                        q.clear();
+                        return;
+                    }
+
+                    boolean empty = q.isEmpty();
+
+                    if (done && empty) {
+                        terminate(a);
+                        return;
+                    }
+
+                    if (!empty) {
+                        backlogged = true;
+                    }
+                }
+
+                emitted = e;
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        void terminate(Subscriber<? super T> a) {
+            Throwable ex = error;
+            if (ex != null) {
+                a.onError(ex);
+            } else {
+                a.onComplete();
+            }
+            worker.dispose();
+        }
+    }
+}
@@ -26,6 +26,7 @@ import io.reactivex.*;
 import io.reactivex.Scheduler.Worker;
 import io.reactivex.exceptions.Exceptions;
 import io.reactivex.functions.Consumer;
+import io.reactivex.internal.queue.SpscLinkedArrayQueue;
 import io.reactivex.internal.subscriptions.SubscriptionHelper;
 import io.reactivex.internal.util.BackpressureHelper;
 import io.reactivex.plugins.RxJavaPlugins;
@@ -33,6 +34,17 @@ import io.reactivex.plugins.RxJavaPlugins;
 /**
  * If the downstream doesn't request, it buffers events and times out
  * old elements from the front of the buffer.
+ * <p>
+ * The elements are queued together with their arrival time in a lock-free
+ * single-producer single-consumer queue. Each element is claimed exactly once,
+ * via an atomic swap, either by the drain loop, which emits it or evicts it as
+ * expired, or by the producer, which evicts the oldest element when the buffer
+ * is at its maximum size. Instead of one timer task per element,
+ * a single timer is kept armed for the deadline of the oldest element while
+ * the buffer is not empty; when it fires, the drain loop sweeps every expired
+ * element in one batch and re-arms the timer for the new oldest element.
+ * Expired elements are only swept while the downstream has no outstanding requests,
+ * therefore an element requested before the timer got to it is still emitted.
  * @param <T> the input and output element type
  */
 final class FlowableOnBackpressureTimeout<T> extends Flowable<T>
@@ -80,7 +92,7 @@ implements FlowableTransformer<T, T> {
 
         final AtomicLong requested;
 
-        final int maxSizeDouble;
+        final int maxSize;
 
         final long timeout;
 
@@ -90,25 +102,40 @@ implements FlowableTransformer<T, T> {
 
         final Consumer<? super T> onEvict;
 
-        Subscription upstream;
+        final SpscLinkedArrayQueue<TimedNode<T>> queue;
+
+        /**
+         * The nodes not yet known to be claimed, in arrival order, accessed by the producer only
+         * and null if the buffer is unbounded.
+         */
+        final ArrayDeque<TimedNode<T>> nodes;
 
-        final ArrayDeque<Object> queue;
+        Subscription upstream;
 
         volatile boolean done;
         Throwable error;
 
         volatile boolean cancelled;
 
+        /** Set by the timer, consumed by the drain loop. */
+        volatile boolean timerFired;
+
+        /** Accessed by the drain loop only. */
+        boolean timerArmed;
+
+        long emitted;
+
         OnBackpressureTimeoutSubscriber(Subscriber<? super T> downstream, int maxSize, long timeout, TimeUnit unit,
                 Worker worker, Consumer<? super T> onEvict) {
             this.downstream = downstream;
-            this.maxSizeDouble = maxSize << 1;
+            this.maxSize = maxSize;
             this.timeout = timeout;
             this.unit = unit;
             this.worker = worker;
             this.onEvict = onEvict;
             this.requested = new AtomicLong();
-            this.queue = new ArrayDeque<Object>();
+            this.queue = new SpscLinkedArrayQueue<TimedNode<T>>(Flowable.bufferSize());
+            this.nodes = maxSize != Integer.MAX_VALUE ? new ArrayDeque<TimedNode<T>>() : null;
         }
 
         @Override
@@ -124,26 +151,14 @@ implements FlowableTransformer<T, T> {
             cancelled = true;
             upstream.cancel();
             worker.dispose();
-
-            if (getAndIncrement() == 0) {
-                clearQueue();
-            }
+            drain();
         }
 
-        @SuppressWarnings("unchecked")
         void clearQueue() {
-            for (;;) {
-                T evicted;
-                synchronized (this) {
-                    if (queue.isEmpty()) {
-                        break;
-                    }
-
-                    queue.poll();
-                    evicted = (T)queue.poll();
-                }
-
-                evict(evicted);
+            SpscLinkedArrayQueue<TimedNode<T>> q = queue;
+            TimedNode<T> node;
+            while ((node = q.poll()) != null) {
+                evict(node.getAndSet(null));
             }
         }
 
@@ -158,20 +173,22 @@ implements FlowableTransformer<T, T> {
             }
         }
 
-        @SuppressWarnings("unchecked")
         @Override
         public void onNext(T t) {
-            T evicted = null;
-            synchronized (this) {
-                if (queue.size() == maxSizeDouble) {
-                    queue.poll();
-                    evicted = (T)queue.poll();
+            TimedNode<T> node = new TimedNode<T>(worker.now(unit), t);
+            ArrayDeque<TimedNode<T>> ns = nodes;
+            if (ns != null) {
+                // the nodes are claimed in arrival order so the claimed ones are always at the front
+                TimedNode<T> head;
+                while ((head = ns.peek()) != null && head.get() == null) {
+                    ns.poll();
                 }
-                queue.offer(worker.now(unit));
-                queue.offer(t);
+                if (ns.size() == maxSize) {
+                    evict(ns.poll().getAndSet(null));
+                }
+                ns.offer(node);
             }
-            evict(evicted);
-            worker.schedule(this, timeout, unit);
+            queue.offer(node);
             drain();
         }
 
@@ -188,40 +205,10 @@ implements FlowableTransformer<T, T> {
             drain();
         }
 
-        @SuppressWarnings("unchecked")
         @Override
         public void run() {
-            for (;;) {
-                if (cancelled) {
-                    break;
-                }
-
-                boolean d = done;
-                boolean empty;
-                T evicted = null;
-
-                synchronized (this) {
-                    Long ts = (Long)queue.peek();
-                    empty = ts == null;
-                    if (!empty) {
-                        if (ts.longValue() <= worker.now(unit) - timeout) {
-                            queue.poll();
-                            evicted = (T)queue.poll();
-                        } else {
-                            break;
-                        }
-                    }
-                }
-
-                evict(evicted);
-
-                if (empty) {
-                    if (d) {
-                        drain();
-                    }
-                    break;
-                }
-            }
+            timerFired = true;
+            drain();
         }
 
         void evict(T evicted) {
@@ -235,43 +222,36 @@ implements FlowableTransformer<T, T> {
             }
         }
 
-        @SuppressWarnings("unchecked")
         void drain() {
             if (getAndIncrement() != 0) {
                 return;
             }
 
             int missed = 1;
+            Subscriber<? super T> a = downstream;
+            SpscLinkedArrayQueue<TimedNode<T>> q = queue;
+            long e = emitted;
 
             for (;;) {
                 long r = requested.get();
-                long e = 0;
+                long now = worker.now(unit);
 
-                while (e != r) {
+                for (;;) {
                     if (cancelled) {
                         clearQueue();
-                        return;
+                        break;
                     }
 
                     boolean d = done;
-                    T v;
-
-                    synchronized (this) {
-                        if (queue.poll() != null) {
-                            v = (T)queue.poll();
-                        } else {
-                            v = null;
-                        }
-                    }
-
-                    boolean empty = v == null;
+                    TimedNode<T> node = q.peek();
+                    boolean empty = node == null;
 
                     if (d && empty) {
                         Throwable ex = error;
                         if (ex != null) {
-                            downstream.onError(ex);
+                            a.onError(ex);
                         } else {
-                            downstream.onComplete();
+                            a.onComplete();
                         }
 
                         worker.dispose();
@@ -282,36 +262,47 @@ implements FlowableTransformer<T, T> {
                         break;
                     }
 
-                    downstream.onNext(v);
+                    if (e == r) {
+                        if (node.get() == null) {
+                            // evicted by the producer, don't let it linger until it expires
+                            q.poll();
+                            continue;
+                        }
+                        if (node.time <= now - timeout) {
+                            q.poll();
+                            evict(node.getAndSet(null));
+                            continue;
+                        }
+                        break;
+                    }
+
+                    q.poll();
+                    T v = node.getAndSet(null);
+                    if (v == null) {
+                        // evicted by the producer
+                        continue;
+                    }
+
+                    a.onNext(v);
 
                     e++;
                 }
 
-                if (e == r) {
-                    if (cancelled) {
-                        clearQueue();
-                        return;
-                    }
-
-                    boolean d = done;
-                    boolean empty;
-                    synchronized (this) {
-                        empty = queue.isEmpty();
+                if (!cancelled) {
+                    if (timerFired) {
+                        timerFired = false;
+                        timerArmed = false;
                     }
-
-                    if (d && empty) {
-                        Throwable ex = error;
-                        if (ex != null) {
-                            downstream.onError(ex);
-                        } else {
-                            downstream.onComplete();
+                    if (!timerArmed) {
+                        TimedNode<T> node = q.peek();
+                        if (node != null) {
+                            timerArmed = true;
+                            worker.schedule(this, node.time + timeout - now, unit);
                         }
-
-                        worker.dispose();
-                        return;
                     }
                 }
 
+                emitted = e;
                 missed = addAndGet(-missed);
                 if (missed == 0) {
                     break;
@@ -319,4 +310,21 @@ implements FlowableTransformer<T, T> {
             }
         }
     }
+
+    /**
+     * Holds an element and its arrival time; the element is taken out of it
+     * by whoever claims it first.
+     * @param <T> the element type
+     */
+    static final class TimedNode<T> extends AtomicReference<T> {
+
+        private static final long serialVersionUID = -2734520870460542958L;
+
+        final long time;
+
+        TimedNode(long time, T value) {
+            super(value);
+            this.time = time;
+        }
+    }
 }
@@ -47,14 +47,23 @@ final class FlowableOrderedMerge<T> extends Flowable<T> {
 
     final int prefetch;
 
+    final boolean emitRuns;
+
     FlowableOrderedMerge(Publisher<T>[] sources, Iterable<? extends Publisher<T>> sourcesIterable,
             Comparator<? super T> comparator,
             boolean delayErrors, int prefetch) {
+        this(sources, sourcesIterable, comparator, delayErrors, prefetch, false);
+    }
+
+    FlowableOrderedMerge(Publisher<T>[] sources, Iterable<? extends Publisher<T>> sourcesIterable,
+            Comparator<? super T> comparator,
+            boolean delayErrors, int prefetch, boolean emitRuns) {
         this.sources = sources;
         this.sourcesIterable = sourcesIterable;
         this.comparator = comparator;
         this.delayErrors = delayErrors;
         this.prefetch = prefetch;
+        this.emitRuns = emitRuns;
     }
 
     @SuppressWarnings("unchecked")
@@ -92,7 +101,7 @@ final class FlowableOrderedMerge<T> extends Flowable<T> {
             return;
         }
 
-        BasicMergeSubscription<T> parent = new BasicMergeSubscription<T>(s, comparator, n, prefetch, delayErrors);
+        BasicMergeSubscription<T> parent = new BasicMergeSubscription<T>(s, comparator, n, prefetch, delayErrors, emitRuns);
         s.onSubscribe(parent);
         parent.subscribe(array, n);
     }
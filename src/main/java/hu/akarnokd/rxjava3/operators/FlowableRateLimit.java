@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import io.reactivex.*;
+import io.reactivex.Scheduler.Worker;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.internal.util.BackpressureHelper;
+
+/**
+ * Limits the rate of the upstream via a token bucket: the bucket holds at most
+ * {@code burst} tokens, starts out full and gets {@code permits} new tokens each
+ * {@code period}; each item emitted takes one token.
+ * <p>
+ * The operator requests from the upstream only as many items as there are tokens
+ * and downstream demand, thus items are never buffered. Tokens are reserved when
+ * requested so the items arriving late always find a token, and
+ * tokens that piled up are requested, and likely emitted, in one batch.
+ * The refill happens via one periodic task per subscriber.
+ *
+ * @param <T> the value type
+ * @since 3.0.0
+ */
+final class FlowableRateLimit<T> extends Flowable<T> implements FlowableTransformer<T, T> {
+
+    final Publisher<T> source;
+
+    final long permits;
+
+    final long period;
+
+    final TimeUnit unit;
+
+    final long burst;
+
+    final Scheduler scheduler;
+
+    FlowableRateLimit(Publisher<T> source, long permits, long period, TimeUnit unit, long burst, Scheduler scheduler) {
+        this.source = source;
+        this.permits = permits;
+        this.period = period;
+        this.unit = unit;
+        this.burst = burst;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Publisher<T> apply(Flowable<T> upstream) {
+        return new FlowableRateLimit<T>(upstream, permits, period, unit, burst, scheduler);
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super T> s) {
+        source.subscribe(new RateLimitSubscriber<T>(s, permits, period, unit, burst, scheduler.createWorker()));
+    }
+
+    static final class RateLimitSubscriber<T> extends AtomicInteger
+    implements FlowableSubscriber<T>, Subscription, Runnable {
+
+        private static final long serialVersionUID = -3512487237587934127L;
+
+        final Subscriber<? super T> downstream;
+
+        final long permits;
+
+        final long period;
+
+        final TimeUnit unit;
+
+        final long burst;
+
+        final Worker worker;
+
+        /** The downstream demand not yet forwarded to the upstream. */
+        final AtomicLong requested;
+
+        /** The items requested from the upstream but not yet received, each holding a token. */
+        final AtomicLong outstanding;
+
+        /** The refill ticks not yet accounted for by the drain loop. */
+        final AtomicLong ticks;
+
+        Subscription upstream;
+
+        /** The unreserved tokens in the bucket, accessed by the drain loop only. */
+        long tokens;
+
+        volatile boolean cancelled;
+
+        RateLimitSubscriber(Subscriber<? super T> downstream, long permits, long period, TimeUnit unit,
+                long burst, Worker worker) {
+            this.downstream = downstream;
+            this.permits = permits;
+            this.period = period;
+            this.unit = unit;
+            this.burst = burst;
+            this.worker = worker;
+            this.requested = new AtomicLong();
+            this.outstanding = new AtomicLong();
+            this.ticks = new AtomicLong();
+            this.tokens = burst;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(upstream, s)) {
+                upstream = s;
+
+                downstream.onSubscribe(this);
+
+                worker.schedulePeriodically(this, period, period, unit);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            outstanding.decrementAndGet();
+            downstream.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            worker.dispose();
+            downstream.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            worker.dispose();
+            downstream.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            worker.dispose();
+            upstream.cancel();
+        }
+
+        @Override
+        public void run() {
+            ticks.getAndIncrement();
+            drain();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+
+            for (;;) {
+                if (cancelled) {
+                    return;
+                }
+
+                long tk = ticks.getAndSet(0L);
+                long t = tokens;
+
+                if (tk != 0L) {
+                    // the reserved tokens still count towards the bucket size
+                    long free = burst - outstanding.get();
+                    long added = tk >= burst / permits + 1 ? burst : tk * permits;
+                    t = Math.max(0L, Math.min(free, t + added));
+                }
+
+                long r = requested.get();
+                long n = Math.min(t, r);
+
+                if (n != 0L) {
+                    t -= n;
+                    if (r != Long.MAX_VALUE) {
+                        requested.addAndGet(-n);
+                    }
+                    outstanding.getAndAdd(n);
+                    tokens = t;
+                    upstream.request(n);
+                } else {
+                    tokens = t;
+                }
+
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+    }
+}
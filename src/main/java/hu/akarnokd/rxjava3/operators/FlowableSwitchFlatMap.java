@@ -16,7 +16,7 @@
 
 package hu.akarnokd.rxjava3.operators;
 
-import java.util.*;
+import java.util.Arrays;
 import java.util.concurrent.atomic.*;
 
 import org.reactivestreams.*;
@@ -75,7 +75,11 @@ implements FlowableTransformer<T, R> {
 
         final int bufferSize;
 
-        final ArrayDeque<SfmInnerSubscriber<T, R>> active;
+        /**
+         * The slots of the active inner subscribers; an inner is added by CASing it into a free slot
+         * or over the oldest active inner, and removed by CASing its slot back to null.
+         */
+        final AtomicReferenceArray<SfmInnerSubscriber<T, R>> active;
 
         final AtomicLong requested;
 
@@ -87,11 +91,16 @@ implements FlowableTransformer<T, R> {
 
         volatile boolean cancelled;
 
-        volatile long version;
+        /** Incremented after each change to the active slots. */
+        final AtomicLong version;
 
+        /** The active inners ordered from oldest to newest, accessed by the drain loop only. */
         final SfmInnerSubscriber<T, R>[] activeCache;
         long versionCache;
 
+        /** The arrival index of the next inner, accessed by onNext only. */
+        long index;
+
         @SuppressWarnings("unchecked")
         SwitchFlatMapSubscriber(Subscriber<? super R> downstream,
                 Function<? super T, ? extends Publisher<? extends R>> mapper, int maxActive,
@@ -100,7 +109,8 @@ implements FlowableTransformer<T, R> {
             this.mapper = mapper;
             this.maxActive = maxActive;
             this.bufferSize = bufferSize;
-            this.active = new ArrayDeque<SfmInnerSubscriber<T, R>>();
+            this.active = new AtomicReferenceArray<SfmInnerSubscriber<T, R>>(maxActive);
+            this.version = new AtomicLong();
             this.requested = new AtomicLong();
             this.error = new AtomicThrowable();
             this.activeCache = new SfmInnerSubscriber[maxActive];
@@ -129,36 +139,65 @@ implements FlowableTransformer<T, R> {
                 return;
             }
 
-            SfmInnerSubscriber<T, R> inner = new SfmInnerSubscriber<T, R>(this, bufferSize);
+            SfmInnerSubscriber<T, R> inner = new SfmInnerSubscriber<T, R>(this, bufferSize, index++);
             if (add(inner)) {
                 p.subscribe(inner);
             }
         }
 
         boolean add(SfmInnerSubscriber<T, R> inner) {
-            SfmInnerSubscriber<T, R> evicted = null;
-            synchronized (this) {
+            AtomicReferenceArray<SfmInnerSubscriber<T, R>> a = active;
+            int n = maxActive;
+
+            for (;;) {
                 if (cancelled) {
                     return false;
                 }
 
-                if (active.size() == maxActive) {
-                    evicted = active.poll();
+                int free = -1;
+                int oldestSlot = -1;
+                SfmInnerSubscriber<T, R> oldest = null;
+
+                for (int i = 0; i < n; i++) {
+                    SfmInnerSubscriber<T, R> s = a.get(i);
+                    if (s == null) {
+                        free = i;
+                        break;
+                    }
+                    if (oldest == null || s.index < oldest.index) {
+                        oldest = s;
+                        oldestSlot = i;
+                    }
+                }
+
+                if (free >= 0) {
+                    inner.slot = free;
+                    if (a.compareAndSet(free, null, inner)) {
+                        break;
+                    }
+                } else {
+                    inner.slot = oldestSlot;
+                    // fails if the oldest completed in the meantime, retry with its now free slot
+                    if (a.compareAndSet(oldestSlot, oldest, inner)) {
+                        oldest.cancel();
+                        break;
+                    }
                 }
-                active.offer(inner);
-                version++;
             }
 
-            if (evicted != null) {
-                evicted.cancel();
+            version.incrementAndGet();
+
+            if (cancelled) {
+                // cancelInners may have missed this inner
+                inner.cancel();
+                return false;
             }
             return true;
         }
 
         void remove(SfmInnerSubscriber<T, R> inner) {
-            synchronized (this) {
-                active.remove(inner);
-                version++;
+            if (active.compareAndSet(inner.slot, inner, null)) {
+                version.incrementAndGet();
             }
         }
 
@@ -204,14 +243,14 @@ implements FlowableTransformer<T, R> {
         }
 
         void cancelInners() {
-            List<SfmInnerSubscriber<T, R>> subscribers = new ArrayList<SfmInnerSubscriber<T, R>>();
-            synchronized (this) {
-                subscribers.addAll(active);
-                active.clear();
-            }
-            for (SfmInnerSubscriber<T, R> inner : subscribers) {
-                inner.cancel();
+            AtomicReferenceArray<SfmInnerSubscriber<T, R>> a = active;
+            for (int i = 0; i < maxActive; i++) {
+                SfmInnerSubscriber<T, R> inner = a.getAndSet(i, null);
+                if (inner != null) {
+                    inner.cancel();
+                }
             }
+            version.incrementAndGet();
         }
 
         void innerError(Throwable t) {
@@ -226,19 +265,28 @@ implements FlowableTransformer<T, R> {
         }
 
         void updateInners() {
-            SfmInnerSubscriber<T, R>[] a = activeCache;
-            if (versionCache != version) {
-                synchronized (this) {
-                    int i = 0;
-                    Iterator<SfmInnerSubscriber<T, R>> it = active.iterator();
-                    while (it.hasNext()) {
-                        a[i++] = it.next();
-                    }
-                    for (int j = i; j < a.length; j++) {
-                        a[j] = null;
+            long ver = version.get();
+            if (versionCache != ver) {
+                SfmInnerSubscriber<T, R>[] a = activeCache;
+                AtomicReferenceArray<SfmInnerSubscriber<T, R>> slots = active;
+                int n = 0;
+                // a concurrent change increments the version again and the drain loop retries
+                for (int i = 0; i < a.length; i++) {
+                    SfmInnerSubscriber<T, R> inner = slots.get(i);
+                    if (inner != null) {
+                        // insertion sort by arrival index, oldest first
+                        int j = n++;
+                        while (j > 0 && a[j - 1].index > inner.index) {
+                            a[j] = a[j - 1];
+                            j--;
+                        }
+                        a[j] = inner;
                     }
-                    versionCache = version;
                 }
+                for (int j = n; j < a.length; j++) {
+                    a[j] = null;
+                }
+                versionCache = ver;
             }
         }
 
@@ -268,7 +316,10 @@ implements FlowableTransformer<T, R> {
                         if (d) {
                             Throwable ex = err.get();
                             if (ex != null) {
+                                // makes add() cancel the inners arriving after this point
+                                cancelled = true;
                                 clearCache();
+                                cancelInners();
 
                                 a.onError(err.terminate());
                                 return;
@@ -292,7 +343,7 @@ implements FlowableTransformer<T, R> {
                             if (inner == null) {
                                 break;
                             }
-                            if (ver != version) {
+                            if (ver != version.get()) {
                                 if (e != 0) {
                                     BackpressureHelper.produced(requested, e);
                                 }
@@ -313,13 +364,15 @@ implements FlowableTransformer<T, R> {
 
                                 Throwable ex = err.get();
                                 if (ex != null) {
+                                    cancelled = true;
                                     clearCache();
+                                    cancelInners();
 
                                     a.onError(err.terminate());
                                     return;
                                 }
 
-                                if (ver != version) {
+                                if (ver != version.get()) {
                                     if (e != 0) {
                                         BackpressureHelper.produced(requested, e);
                                     }
@@ -390,13 +443,20 @@ implements FlowableTransformer<T, R> {
 
             final SimplePlainQueue<R> queue;
 
+            /** The arrival index, lower is older. */
+            final long index;
+
+            /** The slot in the parent's active array, written before the slot is CASed. */
+            int slot;
+
             long produced;
 
             volatile boolean done;
 
-            SfmInnerSubscriber(SwitchFlatMapSubscriber<T, R> parent, int bufferSize) {
+            SfmInnerSubscriber(SwitchFlatMapSubscriber<T, R> parent, int bufferSize, long index) {
                 this.parent = parent;
                 this.bufferSize = bufferSize;
+                this.index = index;
                 this.limit = bufferSize - (bufferSize >> 2);
                 this.queue = new SpscArrayQueue<R>(bufferSize);
             }
@@ -152,6 +152,33 @@ public final class FlowableTransformers {
         return new FlowableBufferPredicate<T, C>(null, predicate, FlowableBufferPredicate.Mode.BEFORE, bufferSupplier);
     }
 
+    /**
+     * Buffers elements into a custom collection while the given predicate returns true and the
+     * collection has less than {@code maxSize} elements; if the
+     * predicate returns false for an item, a new collection is created with the specified item,
+     * if the collection reaches {@code maxSize} elements, it is emitted and a new collection is started.
+     * <p>
+     * Empty collections are not emitted. Use a {@link BufferPool} as the supplier to reuse
+     * the collections released by the downstream.
+     * @param <T> the source value type
+     * @param <C> the collection type
+     * @param predicate the predicate receiving the current value and if returns false,
+     *                  a new collection is created with the specified item
+     * @param maxSize the maximum number of elements in a collection, positive
+     * @param bufferSupplier the supplier that returns a fresh collection
+     * @return the new FlowableTransformer instance
+     *
+     * @since 3.0.0
+     */
+    @SchedulerSupport(SchedulerSupport.NONE)
+    @BackpressureSupport(BackpressureKind.FULL)
+    public static <T, C extends Collection<? super T>> FlowableTransformer<T, C> bufferWhile(Predicate<? super T> predicate, int maxSize, Supplier<C> bufferSupplier) {
+        ObjectHelper.requireNonNull(predicate, "predicate is null");
+        ObjectHelper.verifyPositive(maxSize, "maxSize");
+        ObjectHelper.requireNonNull(bufferSupplier, "bufferSupplier is null");
+        return new FlowableBufferPredicate<T, C>(null, predicate, FlowableBufferPredicate.Mode.BEFORE, bufferSupplier, maxSize);
+    }
+
     /**
      * Buffers elements into a List until the given predicate returns true at which
      * point a new empty buffer is started.
@@ -186,6 +213,30 @@ public final class FlowableTransformers {
         return new FlowableBufferPredicate<T, C>(null, predicate, FlowableBufferPredicate.Mode.AFTER, bufferSupplier);
     }
 
+    /**
+     * Buffers elements into a custom collection until the given predicate returns true or the collection
+     * reaches {@code maxSize} elements at which point a new empty custom collection is started.
+     * <p>
+     * Use a {@link BufferPool} as the supplier to reuse the collections released by the downstream.
+     * @param <T> the source value type
+     * @param <C> the collection type
+     * @param predicate the predicate receiving the current item and if returns true,
+     *                  the current collection is emitted and a fresh empty collection is created
+     * @param maxSize the maximum number of elements in a collection, positive
+     * @param bufferSupplier the supplier that returns a fresh collection
+     * @return the new FlowableTransformer instance
+     *
+     * @since 3.0.0
+     */
+    @SchedulerSupport(SchedulerSupport.NONE)
+    @BackpressureSupport(BackpressureKind.FULL)
+    public static <T, C extends Collection<? super T>> FlowableTransformer<T, C> bufferUntil(Predicate<? super T> predicate, int maxSize, Supplier<C> bufferSupplier) {
+        ObjectHelper.requireNonNull(predicate, "predicate is null");
+        ObjectHelper.verifyPositive(maxSize, "maxSize");
+        ObjectHelper.requireNonNull(bufferSupplier, "bufferSupplier is null");
+        return new FlowableBufferPredicate<T, C>(null, predicate, FlowableBufferPredicate.Mode.AFTER, bufferSupplier, maxSize);
+    }
+
     /**
      * Buffers elements into a List until the given predicate returns true at which
      * point a new empty buffer is started; the particular item will be dropped.
@@ -220,6 +271,32 @@ public final class FlowableTransformers {
         return new FlowableBufferPredicate<T, C>(null, predicate, FlowableBufferPredicate.Mode.SPLIT, bufferSupplier);
     }
 
+    /**
+     * Buffers elements into a custom collection until the given predicate returns true or the collection
+     * reaches {@code maxSize} elements at which point a new empty custom collection is started;
+     * the item the predicate returned true for will be dropped.
+     * <p>
+     * Empty collections are not emitted. Use a {@link BufferPool} as the supplier to reuse
+     * the collections released by the downstream.
+     * @param <T> the source value type
+     * @param <C> the collection type
+     * @param predicate the predicate receiving the current item and if returns true,
+     *                  the current collection is emitted and a fresh empty collection is created
+     * @param maxSize the maximum number of elements in a collection, positive
+     * @param bufferSupplier the Supplier that returns a fresh collection
+     * @return the new FlowableTransformer instance
+     *
+     * @since 3.0.0
+     */
+    @SchedulerSupport(SchedulerSupport.NONE)
+    @BackpressureSupport(BackpressureKind.FULL)
+    public static <T, C extends Collection<? super T>> FlowableTransformer<T, C> bufferSplit(Predicate<? super T> predicate, int maxSize, Supplier<C> bufferSupplier) {
+        ObjectHelper.requireNonNull(predicate, "predicate is null");
+        ObjectHelper.verifyPositive(maxSize, "maxSize");
+        ObjectHelper.requireNonNull(bufferSupplier, "bufferSupplier is null");
+        return new FlowableBufferPredicate<T, C>(null, predicate, FlowableBufferPredicate.Mode.SPLIT, bufferSupplier, maxSize);
+    }
+
     /**
      * Inserts a time delay between emissions from the upstream source.
      * <dl>
@@ -821,6 +898,54 @@ public final class FlowableTransformers {
         return new FlowableFlatMapAsync<T, R>(null, mapper, maxConcurrency, bufferSize, depthFirst, scheduler);
     }
 
+    /**
+     * Maps the upstream values into Publisher and merges at most as many of them at once
+     * as the current value of the adaptive concurrency limit, which is updated from the
+     * observed latency between subscribing to and the completion of each inner Publisher.
+     * <p>Inner Publishers that complete synchronously while being subscribed to
+     * don't contribute latency samples.
+     * @param <T> the input value type
+     * @param <R> the result value type
+     * @param mapper the function mapping from a value into a Publisher
+     * @param limit the adaptive concurrency limit, its current value can be read
+     *              at any time via {@link ConcurrencyLimit#getLimit()}
+     * @return the new FlowableTransformer instance
+     * @see ConcurrencyLimit#aimd(int, int, int, double, long, TimeUnit)
+     * @see ConcurrencyLimit#gradient(int, int, int)
+     *
+     * @since 3.0.0
+     */
+    public static <T, R> FlowableTransformer<T, R> flatMapAdaptive(Function<? super T, ? extends Publisher<? extends R>> mapper, ConcurrencyLimit limit) {
+        return flatMapAdaptive(mapper, limit, Flowable.bufferSize(), true);
+    }
+
+    /**
+     * Maps the upstream values into Publisher and merges at most as many of them at once
+     * as the current value of the adaptive concurrency limit, which is updated from the
+     * observed latency between subscribing to and the completion of each inner Publisher.
+     * <p>Inner Publishers that complete synchronously while being subscribed to
+     * don't contribute latency samples.
+     * @param <T> the input value type
+     * @param <R> the result value type
+     * @param mapper the function mapping from a value into a Publisher
+     * @param limit the adaptive concurrency limit, its current value can be read
+     *              at any time via {@link ConcurrencyLimit#getLimit()}
+     * @param bufferSize the prefetch on each inner source
+     * @param depthFirst if true, the inner sources are drained as much as possible
+     *                   if false, the inner sources are consumed in a round-robin fashion
+     * @return the new FlowableTransformer instance
+     * @see ConcurrencyLimit#aimd(int, int, int, double, long, TimeUnit)
+     * @see ConcurrencyLimit#gradient(int, int, int)
+     *
+     * @since 3.0.0
+     */
+    public static <T, R> FlowableTransformer<T, R> flatMapAdaptive(Function<? super T, ? extends Publisher<? extends R>> mapper, ConcurrencyLimit limit, int bufferSize, boolean depthFirst) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        ObjectHelper.requireNonNull(limit, "limit is null");
+        ObjectHelper.verifyPositive(bufferSize, "bufferSize");
+        return new FlowableFlatMapAdaptive<T, R>(null, mapper, limit, bufferSize, depthFirst);
+    }
+
     /**
      * If the upstream turns out to be empty, it keeps switching to the alternative sources until
      * one of them is non-empty or there are no more alternatives remaining.
@@ -952,6 +1077,129 @@ public final class FlowableTransformers {
         return new FlowableExpand<T>(null, expander, strategy, capacityHint, true);
     }
 
+    /**
+     * Emits elements from the source and then expands them into another layer of Publishers, emitting
+     * those items recursively until all Publishers become empty, running up to the given number of
+     * expansions concurrently while keeping the number of buffered items bounded.
+     * <p>
+     * The items from the concurrently running expansions may interleave; the strategy determines
+     * which item gets expanded next and which expansions get to request more items first.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors the backpressure of the downstream. The items requested from the
+     *  source and the expansions, not yet emitted or emitted but not yet expanded, are limited
+     *  by the {@code capacity}; the expansions are not requested from when this is reached.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator doesn't run on any particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <T> the value type
+     * @param expander the function that converts an element into a Publisher to be expanded
+     * @param strategy the expansion strategy; depth-first expands the most recent item first and prefers
+     *                 requesting from the most recent expansions, breadth-first expands the oldest item first
+     *                 and prefers requesting from the oldest expansions
+     * @param maxConcurrency the maximum number of expansions with outstanding requests at a time, positive
+     * @param capacity the maximum number of items requested but not yet expanded, positive
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    @SchedulerSupport(SchedulerSupport.NONE)
+    @BackpressureSupport(BackpressureKind.FULL)
+    public static <T> FlowableTransformer<T, T> expandParallel(Function<? super T, ? extends Publisher<? extends T>> expander,
+            ExpandStrategy strategy, int maxConcurrency, int capacity) {
+        ObjectHelper.requireNonNull(expander, "expander is null");
+        ObjectHelper.requireNonNull(strategy, "strategy is null");
+        ObjectHelper.verifyPositive(maxConcurrency, "maxConcurrency");
+        ObjectHelper.verifyPositive(capacity, "capacity");
+        return new FlowableExpandParallel<T>(null, expander, strategy, maxConcurrency, capacity, null,
+                null, 0, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Emits elements from the source and then expands them into another layer of Publishers, emitting
+     * those items recursively until all Publishers become empty, running up to the given number of
+     * expansions concurrently, each subscribed to on the given {@link Scheduler},
+     * while keeping the number of buffered items bounded.
+     * <p>
+     * The items from the concurrently running expansions may interleave; the strategy determines
+     * which item gets expanded next and which expansions get to request more items first.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors the backpressure of the downstream. The items requested from the
+     *  source and the expansions, not yet emitted or emitted but not yet expanded, are limited
+     *  by the {@code capacity}; the expansions are not requested from when this is reached.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The expansion Publishers are subscribed to on the specified {@link Scheduler}, thus
+     *  synchronous expansions (for example, listing a directory) run in parallel.</dd>
+     * </dl>
+     * @param <T> the value type
+     * @param expander the function that converts an element into a Publisher to be expanded
+     * @param strategy the expansion strategy; depth-first expands the most recent item first and prefers
+     *                 requesting from the most recent expansions, breadth-first expands the oldest item first
+     *                 and prefers requesting from the oldest expansions
+     * @param maxConcurrency the maximum number of expansions with outstanding requests at a time, positive
+     * @param capacity the maximum number of items requested but not yet expanded, positive
+     * @param scheduler the scheduler to subscribe to the expansion Publishers on
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    @BackpressureSupport(BackpressureKind.FULL)
+    public static <T> FlowableTransformer<T, T> expandParallel(Function<? super T, ? extends Publisher<? extends T>> expander,
+            ExpandStrategy strategy, int maxConcurrency, int capacity, Scheduler scheduler) {
+        ObjectHelper.requireNonNull(expander, "expander is null");
+        ObjectHelper.requireNonNull(strategy, "strategy is null");
+        ObjectHelper.verifyPositive(maxConcurrency, "maxConcurrency");
+        ObjectHelper.verifyPositive(capacity, "capacity");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return new FlowableExpandParallel<T>(null, expander, strategy, maxConcurrency, capacity, scheduler,
+                null, 0, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Emits elements from the source and then expands them into another layer of Publishers, emitting
+     * those items recursively, but skipping the items whose key has been seen before and not expanding
+     * the items at the maximum depth, making it suitable for traversing graphs with shared nodes and cycles.
+     * <p>
+     * The seen keys are kept in a set of at most {@code maxVisited} entries: in exact mode, the least recently
+     * seen keys are evicted when the set is full and their items may be emitted and expanded again; in approximate
+     * mode, a Bloom filter sized for {@code maxVisited} keys is used, which never re-expands an item but may,
+     * with about 1% probability once {@code maxVisited} keys have been seen, skip an item not seen before.
+     * The {@code maxDepth} guarantees termination on cyclic graphs even if keys got evicted.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors the backpressure of the downstream and keeps at most {@link Flowable#bufferSize()}
+     *  items requested but not yet expanded.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator doesn't run on any particular {@link Scheduler}.</dd>
+     * </dl>
+     * @param <T> the value type
+     * @param expander the function that converts an element into a Publisher to be expanded
+     * @param keySelector the function that returns the key identifying an item
+     * @param strategy the expansion strategy; depth-first expands the most recent item first,
+     *                 breadth-first expands the oldest item first
+     * @param maxDepth the maximum depth of expansion, the items of the source are at depth 0 and the
+     *                 items at {@code maxDepth} are emitted but not expanded, non-negative
+     * @param maxVisited the maximum number of keys to remember exactly or the expected number of keys in
+     *                   approximate mode, positive
+     * @param approximate if true, the seen keys are tracked via a Bloom filter instead of an exact set
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    @SchedulerSupport(SchedulerSupport.NONE)
+    @BackpressureSupport(BackpressureKind.FULL)
+    public static <T> FlowableTransformer<T, T> expandDistinct(Function<? super T, ? extends Publisher<? extends T>> expander,
+            Function<? super T, ?> keySelector, ExpandStrategy strategy, int maxDepth, int maxVisited, boolean approximate) {
+        ObjectHelper.requireNonNull(expander, "expander is null");
+        ObjectHelper.requireNonNull(keySelector, "keySelector is null");
+        ObjectHelper.requireNonNull(strategy, "strategy is null");
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth >= 0 required but it was " + maxDepth);
+        }
+        ObjectHelper.verifyPositive(maxVisited, "maxVisited");
+        return new FlowableExpandParallel<T>(null, expander, strategy, 1, Flowable.bufferSize(), null,
+                keySelector, maxVisited, approximate, maxDepth);
+    }
+
     /**
      * Maps each upstream value into a single value provided by a generated Publisher for that
      * input value to be emitted to downstream.
@@ -1037,6 +1285,60 @@ public final class FlowableTransformers {
         return new FlowableMapAsync<T, U, R>(null, mapper, combiner, bufferSize);
     }
 
+    /**
+     * Maps each upstream value into a single value provided by a generated Publisher for that
+     * input value, running up to the given number of Publishers at once, and emits the results
+     * in the upstream order.
+     * <p>Only the first item emitted by the inner Publisher's are considered. If
+     * the inner Publisher is empty, no resulting item is generated for that input value.
+     * <p>The results of the inner Publishers that finish early wait in their slot until the
+     * preceding results have been emitted; a new inner Publisher is started only when a slot frees up.
+     * @param <T> the input value type
+     * @param <R> the result value type
+     * @param mapper the function that receives the upstream value and returns a Publisher
+     * that should emit a single value to be emitted.
+     * @param maxConcurrency the maximum number of inner Publishers running at once, which also
+     * bounds the number of results waiting to be reordered
+     * @param bufferSize the internal buffer size and prefetch amount to buffer items from
+     * upstream until their turn comes up
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    public static <T, R> FlowableTransformer<T, R> mapAsync(Function<? super T, ? extends Publisher<? extends R>> mapper, int maxConcurrency, int bufferSize) {
+        return mapAsync(mapper, BiFunctionSecondIdentity.<T, R>instance(), maxConcurrency, bufferSize);
+    }
+
+    /**
+     * Maps each upstream value into a single value provided by a generated Publisher for that
+     * input value, running up to the given number of Publishers at once, and emits the
+     * combination of the original and generated single value in the upstream order.
+     * <p>Only the first item emitted by the inner Publisher's are considered. If
+     * the inner Publisher is empty, no resulting item is generated for that input value.
+     * <p>The results of the inner Publishers that finish early wait in their slot until the
+     * preceding results have been emitted; a new inner Publisher is started only when a slot frees up.
+     * @param <T> the input value type
+     * @param <U> the intermediate value type
+     * @param <R> the result value type
+     * @param mapper the function that receives the upstream value and returns a Publisher
+     * that should emit a single value to be emitted.
+     * @param combiner the bi-function that receives the original upstream value and the
+     * single value emitted by the Publisher and returns a result value to be emitted to
+     * downstream.
+     * @param maxConcurrency the maximum number of inner Publishers running at once, which also
+     * bounds the number of results waiting to be reordered
+     * @param bufferSize the internal buffer size and prefetch amount to buffer items from
+     * upstream until their turn comes up
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    public static <T, U, R> FlowableTransformer<T, R> mapAsync(Function<? super T, ? extends Publisher<? extends U>> mapper, BiFunction<? super T, ? super U, ? extends R> combiner, int maxConcurrency, int bufferSize) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        ObjectHelper.requireNonNull(combiner, "combiner is null");
+        ObjectHelper.verifyPositive(maxConcurrency, "maxConcurrency");
+        ObjectHelper.verifyPositive(bufferSize, "bufferSize");
+        return new FlowableMapAsyncConcurrent<T, U, R>(null, mapper, combiner, maxConcurrency, bufferSize);
+    }
+
     /**
      * Maps each upstream value into a single {@code true} or {@code false} value provided by a generated Publisher for that
      * input value and emits the input value if the inner Publisher returned {@code true}.
@@ -1073,6 +1375,31 @@ public final class FlowableTransformers {
         return new FlowableFilterAsync<T>(null, asyncPredicate, bufferSize);
     }
 
+    /**
+     * Maps each upstream value into a single {@code true} or {@code false} value provided by a generated Publisher for that
+     * input value, running up to the given number of Publishers at once, and emits the input values for which
+     * the inner Publisher returned {@code true}, in the upstream order.
+     * <p>Only the first item emitted by the inner Publisher's are considered. If
+     * the inner Publisher is empty, no resulting item is generated for that input value.
+     * <p>The results of the inner Publishers that finish early wait in their slot until the
+     * preceding results have been emitted; a new inner Publisher is started only when a slot frees up.
+     * @param <T> the input and output value type
+     * @param asyncPredicate the function that receives the upstream value and returns
+     * a Publisher that should emit a single true to indicate the original value should pass.
+     * @param maxConcurrency the maximum number of inner Publishers running at once, which also
+     * bounds the number of results waiting to be reordered
+     * @param bufferSize the internal buffer size and prefetch amount to buffer items from
+     * upstream until their turn comes up
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    public static <T> FlowableTransformer<T, T> filterAsync(Function<? super T, ? extends Publisher<Boolean>> asyncPredicate, int maxConcurrency, int bufferSize) {
+        ObjectHelper.requireNonNull(asyncPredicate, "asyncPredicate is null");
+        ObjectHelper.verifyPositive(maxConcurrency, "maxConcurrency");
+        ObjectHelper.verifyPositive(bufferSize, "bufferSize");
+        return new FlowableMapAsyncConcurrent<T, Boolean, T>(null, asyncPredicate, null, maxConcurrency, bufferSize);
+    }
+
     /**
      * Coalesces items from upstream into a container via a consumer and emits the container if
      * there is a downstream demand, otherwise it keeps coalescing into the same container.
@@ -1105,6 +1432,226 @@ public final class FlowableTransformers {
         return new FlowableCoalesce<T, R>(null, containerSupplier, coalescer, bufferSize);
     }
 
+    /**
+     * Collects upstream items into Lists and emits a batch when it reaches {@code maxSize} items
+     * or when {@code maxLatency} elapsed since the first item of the batch arrived, whichever
+     * happens first. Empty batches are not emitted.
+     * <p>
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the upstream in an unbounded manner and buffers
+     *  the batches the downstream has not requested yet.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator runs the latency timer on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     * @param <T> the value type
+     * @param maxSize the maximum number of items in a batch, positive
+     * @param maxLatency the maximum time an item waits in a batch before the batch is emitted, positive
+     * @param unit the time unit of the maxLatency
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public static <T> FlowableTransformer<T, List<T>> microBatch(int maxSize, long maxLatency, TimeUnit unit) {
+        return microBatch(maxSize, maxLatency, unit, Schedulers.computation());
+    }
+
+    /**
+     * Collects upstream items into Lists and emits a batch when it reaches {@code maxSize} items
+     * or when {@code maxLatency} elapsed since the first item of the batch arrived, whichever
+     * happens first. Empty batches are not emitted.
+     * <p>
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the upstream in an unbounded manner and buffers
+     *  the batches the downstream has not requested yet.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator runs the latency timer on the {@link Scheduler} you provide.</dd>
+     * </dl>
+     * @param <T> the value type
+     * @param maxSize the maximum number of items in a batch, positive
+     * @param maxLatency the maximum time an item waits in a batch before the batch is emitted, positive
+     * @param unit the time unit of the maxLatency
+     * @param scheduler the scheduler to run the latency timer on
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public static <T> FlowableTransformer<T, List<T>> microBatch(int maxSize, long maxLatency, TimeUnit unit, Scheduler scheduler) {
+        ObjectHelper.verifyPositive(maxSize, "maxSize");
+        ObjectHelper.verifyPositive(maxLatency, "maxLatency");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return new FlowableMicroBatch<T, List<T>>(null, maxSize, maxLatency, unit, scheduler, new FlowableMicroBatch.ListBatchSupport<T>());
+    }
+
+    /**
+     * Collects upstream items into {@code long[]} arrays, without boxing them into a collection first and emits a batch when it reaches {@code maxSize} items
+     * or when {@code maxLatency} elapsed since the first item of the batch arrived, whichever
+     * happens first. Empty batches are not emitted.
+     * <p>
+     * Partial batches are emitted as arrays trimmed to the number of items they hold.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the upstream in an unbounded manner and buffers
+     *  the batches the downstream has not requested yet.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator runs the latency timer on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     * @param maxSize the maximum number of items in a batch, positive
+     * @param maxLatency the maximum time an item waits in a batch before the batch is emitted, positive
+     * @param unit the time unit of the maxLatency
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public static FlowableTransformer<Long, long[]> microBatchLong(int maxSize, long maxLatency, TimeUnit unit) {
+        return microBatchLong(maxSize, maxLatency, unit, Schedulers.computation());
+    }
+
+    /**
+     * Collects upstream items into {@code long[]} arrays, without boxing them into a collection first and emits a batch when it reaches {@code maxSize} items
+     * or when {@code maxLatency} elapsed since the first item of the batch arrived, whichever
+     * happens first. Empty batches are not emitted.
+     * <p>
+     * Partial batches are emitted as arrays trimmed to the number of items they hold.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the upstream in an unbounded manner and buffers
+     *  the batches the downstream has not requested yet.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator runs the latency timer on the {@link Scheduler} you provide.</dd>
+     * </dl>
+     * @param maxSize the maximum number of items in a batch, positive
+     * @param maxLatency the maximum time an item waits in a batch before the batch is emitted, positive
+     * @param unit the time unit of the maxLatency
+     * @param scheduler the scheduler to run the latency timer on
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public static FlowableTransformer<Long, long[]> microBatchLong(int maxSize, long maxLatency, TimeUnit unit, Scheduler scheduler) {
+        ObjectHelper.verifyPositive(maxSize, "maxSize");
+        ObjectHelper.verifyPositive(maxLatency, "maxLatency");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return new FlowableMicroBatch<Long, long[]>(null, maxSize, maxLatency, unit, scheduler, FlowableMicroBatch.LongBatchSupport.INSTANCE);
+    }
+
+    /**
+     * Collects upstream items into {@code int[]} arrays, without boxing them into a collection first and emits a batch when it reaches {@code maxSize} items
+     * or when {@code maxLatency} elapsed since the first item of the batch arrived, whichever
+     * happens first. Empty batches are not emitted.
+     * <p>
+     * Partial batches are emitted as arrays trimmed to the number of items they hold.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the upstream in an unbounded manner and buffers
+     *  the batches the downstream has not requested yet.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator runs the latency timer on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     * @param maxSize the maximum number of items in a batch, positive
+     * @param maxLatency the maximum time an item waits in a batch before the batch is emitted, positive
+     * @param unit the time unit of the maxLatency
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public static FlowableTransformer<Integer, int[]> microBatchInt(int maxSize, long maxLatency, TimeUnit unit) {
+        return microBatchInt(maxSize, maxLatency, unit, Schedulers.computation());
+    }
+
+    /**
+     * Collects upstream items into {@code int[]} arrays, without boxing them into a collection first and emits a batch when it reaches {@code maxSize} items
+     * or when {@code maxLatency} elapsed since the first item of the batch arrived, whichever
+     * happens first. Empty batches are not emitted.
+     * <p>
+     * Partial batches are emitted as arrays trimmed to the number of items they hold.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the upstream in an unbounded manner and buffers
+     *  the batches the downstream has not requested yet.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator runs the latency timer on the {@link Scheduler} you provide.</dd>
+     * </dl>
+     * @param maxSize the maximum number of items in a batch, positive
+     * @param maxLatency the maximum time an item waits in a batch before the batch is emitted, positive
+     * @param unit the time unit of the maxLatency
+     * @param scheduler the scheduler to run the latency timer on
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public static FlowableTransformer<Integer, int[]> microBatchInt(int maxSize, long maxLatency, TimeUnit unit, Scheduler scheduler) {
+        ObjectHelper.verifyPositive(maxSize, "maxSize");
+        ObjectHelper.verifyPositive(maxLatency, "maxLatency");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return new FlowableMicroBatch<Integer, int[]>(null, maxSize, maxLatency, unit, scheduler, FlowableMicroBatch.IntBatchSupport.INSTANCE);
+    }
+
+    /**
+     * Collects upstream items into {@code double[]} arrays, without boxing them into a collection first and emits a batch when it reaches {@code maxSize} items
+     * or when {@code maxLatency} elapsed since the first item of the batch arrived, whichever
+     * happens first. Empty batches are not emitted.
+     * <p>
+     * Partial batches are emitted as arrays trimmed to the number of items they hold.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the upstream in an unbounded manner and buffers
+     *  the batches the downstream has not requested yet.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator runs the latency timer on the {@code computation} {@link Scheduler}.</dd>
+     * </dl>
+     * @param maxSize the maximum number of items in a batch, positive
+     * @param maxLatency the maximum time an item waits in a batch before the batch is emitted, positive
+     * @param unit the time unit of the maxLatency
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public static FlowableTransformer<Double, double[]> microBatchDouble(int maxSize, long maxLatency, TimeUnit unit) {
+        return microBatchDouble(maxSize, maxLatency, unit, Schedulers.computation());
+    }
+
+    /**
+     * Collects upstream items into {@code double[]} arrays, without boxing them into a collection first and emits a batch when it reaches {@code maxSize} items
+     * or when {@code maxLatency} elapsed since the first item of the batch arrived, whichever
+     * happens first. Empty batches are not emitted.
+     * <p>
+     * Partial batches are emitted as arrays trimmed to the number of items they hold.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator consumes the upstream in an unbounded manner and buffers
+     *  the batches the downstream has not requested yet.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator runs the latency timer on the {@link Scheduler} you provide.</dd>
+     * </dl>
+     * @param maxSize the maximum number of items in a batch, positive
+     * @param maxLatency the maximum time an item waits in a batch before the batch is emitted, positive
+     * @param unit the time unit of the maxLatency
+     * @param scheduler the scheduler to run the latency timer on
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public static FlowableTransformer<Double, double[]> microBatchDouble(int maxSize, long maxLatency, TimeUnit unit, Scheduler scheduler) {
+        ObjectHelper.verifyPositive(maxSize, "maxSize");
+        ObjectHelper.verifyPositive(maxLatency, "maxLatency");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return new FlowableMicroBatch<Double, double[]>(null, maxSize, maxLatency, unit, scheduler, FlowableMicroBatch.DoubleBatchSupport.INSTANCE);
+    }
+
     /**
      * Emits elements into a Flowable window while the given predicate returns true. If the
      * predicate returns false, a new Flowable window is emitted.
@@ -1250,6 +1797,61 @@ public final class FlowableTransformers {
         return new FlowableRequestObserveOn<T>(null, ObjectHelper.requireNonNull(scheduler, "scheduler == null"));
     }
 
+    /**
+     * Emits the upstream items on the specified {@link Scheduler} while adapting the number
+     * of items requested ahead from the upstream between 16 and {@link Flowable#bufferSize()} items.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator starts with requesting 16 items and doubles this prefetch amount whenever
+     *  the downstream finds its buffer empty, or halves it when the downstream ran out of demand with
+     *  items still buffered; the downstream backpressure is honored.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>You specify the {@link Scheduler} this operator should use.</dd>
+     * </dl>
+     * @param <T> the item type
+     * @param scheduler the scheduler to emit the items on and to request more from
+     * @return the new FlowableTransformer instance
+     * @since 3.0.0
+     * @see #observeOnAdaptive(Scheduler, int, int)
+     */
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    @BackpressureSupport(BackpressureKind.FULL)
+    public static <T> FlowableTransformer<T, T> observeOnAdaptive(Scheduler scheduler) {
+        return observeOnAdaptive(scheduler, Math.min(16, Flowable.bufferSize()), Flowable.bufferSize());
+    }
+
+    /**
+     * Emits the upstream items on the specified {@link Scheduler} while adapting the number
+     * of items requested ahead from the upstream between the given minimum and maximum prefetch.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator starts with requesting {@code minPrefetch} items and doubles this prefetch amount
+     *  (up to {@code maxPrefetch}) whenever the downstream finds its buffer empty, or halves it
+     *  (down to {@code minPrefetch}) when the downstream ran out of demand with items still buffered;
+     *  the downstream backpressure is honored.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>You specify the {@link Scheduler} this operator should use.</dd>
+     * </dl>
+     * @param <T> the item type
+     * @param scheduler the scheduler to emit the items on and to request more from
+     * @param minPrefetch the minimum and initial number of items to request ahead, positive
+     * @param maxPrefetch the maximum number of items to request ahead, at least {@code minPrefetch}
+     * @return the new FlowableTransformer instance
+     * @throws IllegalArgumentException if {@code minPrefetch} is non-positive or {@code maxPrefetch} is
+     *                                  less than {@code minPrefetch}
+     * @since 3.0.0
+     */
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    @BackpressureSupport(BackpressureKind.FULL)
+    public static <T> FlowableTransformer<T, T> observeOnAdaptive(Scheduler scheduler, int minPrefetch, int maxPrefetch) {
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        ObjectHelper.verifyPositive(minPrefetch, "minPrefetch");
+        if (maxPrefetch < minPrefetch) {
+            throw new IllegalArgumentException("maxPrefetch < minPrefetch: " + maxPrefetch + " < " + minPrefetch);
+        }
+        return new FlowableObserveOnAdaptive<T>(null, scheduler, minPrefetch, maxPrefetch);
+    }
+
     /**
      * Issues a {@code request(1)} to the upstream repeatedly after the given period time elapses (including
      * the very first {@code request(1)}).
@@ -1396,4 +1998,72 @@ public final class FlowableTransformers {
         ObjectHelper.requireNonNull(selector, "selector");
         return new FlowableSwitchOnFirst<T>(null, predicate, selector);
     }
+
+    /**
+     * Limits the rate of the upstream via a token bucket which holds at most {@code burst}
+     * tokens, starts out full and gets {@code permits} new tokens each {@code period};
+     * each item emitted takes one token.
+     * <p>Tokens that piled up while the upstream was idle allow emitting up to {@code burst}
+     * items at once, after that, the rate is {@code permits} items per {@code period}.
+     * Items requested from the upstream but not yet received hold on to their tokens,
+     * therefore an upstream lagging behind the requests lowers the rate accordingly.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator requests from the upstream only as many items as there are tokens
+     *  and downstream demand, thus it never buffers items.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator uses the computation {@link Scheduler} to refill the bucket, one task per period.</dd>
+     * </dl>
+     * @param <T> the value type
+     * @param permits the number of tokens added to the bucket each period, positive
+     * @param period the refill period, positive
+     * @param unit the time unit of the period
+     * @param burst the maximum number of tokens in the bucket, at least {@code permits}
+     * @return the new FlowableTransformer instance
+     *
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public static <T> FlowableTransformer<T, T> rateLimit(long permits, long period, TimeUnit unit, long burst) {
+        return rateLimit(permits, period, unit, burst, Schedulers.computation());
+    }
+
+    /**
+     * Limits the rate of the upstream via a token bucket which holds at most {@code burst}
+     * tokens, starts out full and gets {@code permits} new tokens each {@code period};
+     * each item emitted takes one token.
+     * <p>Tokens that piled up while the upstream was idle allow emitting up to {@code burst}
+     * items at once, after that, the rate is {@code permits} items per {@code period}.
+     * Items requested from the upstream but not yet received hold on to their tokens,
+     * therefore an upstream lagging behind the requests lowers the rate accordingly.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator requests from the upstream only as many items as there are tokens
+     *  and downstream demand, thus it never buffers items.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator uses a custom {@link Scheduler} you provide to refill the bucket, one task per period.</dd>
+     * </dl>
+     * @param <T> the value type
+     * @param permits the number of tokens added to the bucket each period, positive
+     * @param period the refill period, positive
+     * @param unit the time unit of the period
+     * @param burst the maximum number of tokens in the bucket, at least {@code permits}
+     * @param scheduler the scheduler to refill the bucket on
+     * @return the new FlowableTransformer instance
+     *
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public static <T> FlowableTransformer<T, T> rateLimit(long permits, long period, TimeUnit unit, long burst, Scheduler scheduler) {
+        ObjectHelper.verifyPositive(permits, "permits");
+        ObjectHelper.verifyPositive(period, "period");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        if (burst < permits) {
+            throw new IllegalArgumentException("burst >= permits required but it was " + burst);
+        }
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return new FlowableRateLimit<T>(null, permits, period, unit, burst, scheduler);
+    }
 }
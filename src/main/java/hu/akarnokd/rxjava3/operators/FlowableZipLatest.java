@@ -39,6 +39,10 @@ import io.reactivex.plugins.RxJavaPlugins;
  * of the downstream.
  * <p>
  * This operator is lossy; non-consumed items from sources are overwrittern with newer values.
+ * <p>
+ * The readiness of the sources is tracked in a bitmask, one bit per source set when its slot
+ * gets filled, so a round only compares a word per 64 sources. In snapshot mode, the values
+ * of a round are copied into a reused array exposed to the combiner via {@link LatestSnapshot}.
  * @param <T> the element type of the sources
  * @param <R> the result type
  * @since 0.17.3
@@ -51,15 +55,26 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
 
     final Function<? super Object[], ? extends R> combiner;
 
+    final Function<? super LatestSnapshot<T>, ? extends R> snapshotCombiner;
+
     final Scheduler scheduler;
 
     FlowableZipLatest(Publisher<? extends T>[] sources,
             Iterable<? extends Publisher<? extends T>> sourcesIterable,
             Function<? super Object[], ? extends R> combiner,
             Scheduler scheduler) {
+        this(sources, sourcesIterable, combiner, null, scheduler);
+    }
+
+    FlowableZipLatest(Publisher<? extends T>[] sources,
+            Iterable<? extends Publisher<? extends T>> sourcesIterable,
+            Function<? super Object[], ? extends R> combiner,
+            Function<? super LatestSnapshot<T>, ? extends R> snapshotCombiner,
+            Scheduler scheduler) {
         this.sources = sources;
         this.sourcesIterable = sourcesIterable;
         this.combiner = combiner;
+        this.snapshotCombiner = snapshotCombiner;
         this.scheduler = scheduler;
     }
 
@@ -84,7 +99,7 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
         if (n == 0) {
             Flowable.<R>empty().observeOn(scheduler).subscribe(s);
         } else {
-            ZipLatestCoordinator<T, R> zc = new ZipLatestCoordinator<T, R>(s, n, scheduler.createWorker(), combiner);
+            ZipLatestCoordinator<T, R> zc = new ZipLatestCoordinator<T, R>(s, n, scheduler.createWorker(), combiner, snapshotCombiner);
             s.onSubscribe(zc);
 
             zc.subscribe(srcs, n);
@@ -109,12 +124,28 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
 
         final Function<? super Object[], ? extends R> combiner;
 
+        final Function<? super LatestSnapshot<T>, ? extends R> snapshotCombiner;
+
+        /** The reused view of the round values in snapshot mode, null otherwise. */
+        final Snapshot<T> snapshot;
+
+        /** One bit per source, set if its slot holds a value. */
+        final AtomicLongArray ready;
+
+        /** The value of each {@link #ready} word when all of its sources have a value. */
+        final long[] readyMasks;
+
+        /** The number of sources that terminated. */
+        final AtomicInteger terminated;
+
         volatile boolean cancelled;
 
         long emitted;
 
         @SuppressWarnings("unchecked")
-        ZipLatestCoordinator(Subscriber<? super R> downstream, int n, Worker worker, Function<? super Object[], ? extends R> combiner) {
+        ZipLatestCoordinator(Subscriber<? super R> downstream, int n, Worker worker,
+                Function<? super Object[], ? extends R> combiner,
+                Function<? super LatestSnapshot<T>, ? extends R> snapshotCombiner) {
             super(n);
             this.downstream = downstream;
             this.subscribers = new InnerSubscriber[n];
@@ -126,6 +157,17 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
                 subscribers[i] = new InnerSubscriber<T>(this, i);
             }
             this.combiner = combiner;
+            this.snapshotCombiner = snapshotCombiner;
+            this.snapshot = snapshotCombiner != null ? new Snapshot<T>(n) : null;
+            int words = (n + 63) >> 6;
+            this.ready = new AtomicLongArray(words);
+            this.readyMasks = new long[words];
+            for (int i = 0; i < words - 1; i++) {
+                readyMasks[i] = -1L;
+            }
+            int rem = n & 63;
+            readyMasks[words - 1] = rem == 0 ? -1L : (1L << rem) - 1;
+            this.terminated = new AtomicInteger();
         }
 
         @Override
@@ -156,6 +198,10 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
             for (int i = 0; i < n; i++) {
                 lazySet(i, null);
             }
+            Snapshot<T> sn = snapshot;
+            if (sn != null) {
+                Arrays.fill(sn.values, null);
+            }
         }
 
         void drain() {
@@ -164,6 +210,55 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
             }
         }
 
+        void markReady(int index) {
+            int w = index >> 6;
+            long bit = 1L << (index & 63);
+            for (;;) {
+                long c = ready.get(w);
+                long u = c | bit;
+                if (c == u || ready.compareAndSet(w, c, u)) {
+                    return;
+                }
+            }
+        }
+
+        boolean isReady(int index) {
+            return (ready.get(index >> 6) & (1L << (index & 63))) != 0L;
+        }
+
+        boolean allReady() {
+            long[] masks = readyMasks;
+            for (int i = 0; i < masks.length; i++) {
+                if (ready.get(i) != masks[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean checkTerminated(InnerSubscriber<T>[] subs, Subscriber<? super R> a) {
+            if (terminated.get() == 0) {
+                return false;
+            }
+            for (int i = 0; i < subs.length; i++) {
+                boolean d = subs[i].done;
+                if (d && !isReady(i)) {
+                    cancelled = true;
+                    cancelAll();
+                    clear();
+                    Throwable ex = errors.terminate();
+                    if (ex == null) {
+                        a.onComplete();
+                    } else {
+                        a.onError(ex);
+                    }
+                    worker.dispose();
+                    return true;
+                }
+            }
+            return false;
+        }
+
         @Override
         public void run() {
             int missed = 1;
@@ -171,6 +266,7 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
             InnerSubscriber<T>[] subs = subscribers;
             int n = subs.length;
             Subscriber<? super R> a = downstream;
+            Snapshot<T> sn = snapshot;
 
             for (;;) {
 
@@ -181,40 +277,36 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
                         clear();
                         return;
                     }
-                    boolean someEmpty = false;
-                    for (int i = 0; i < n; i++) {
-                        boolean d = subs[i].done;
-                        Object o = get(i);
-                        if (d && o == null) {
-                            cancelled = true;
-                            cancelAll();
-                            clear();
-                            Throwable ex = errors.terminate();
-                            if (ex == null) {
-                                a.onComplete();
-                            } else {
-                                a.onError(ex);
-                            }
-                            worker.dispose();
-                            return;
-                        }
-                        if (o == null) {
-                            someEmpty = true;
-                        }
+
+                    if (checkTerminated(subs, a)) {
+                        return;
                     }
 
-                    if (someEmpty) {
+                    if (!allReady()) {
                         break;
                     }
-                    Object[] array = new Object[n];
-                    for (int i = 0; i < n; i++) {
-                        array[i] = getAndSet(i, null);
+
+                    // no source can set its bit until its slot is taken below
+                    for (int i = 0; i < readyMasks.length; i++) {
+                        ready.set(i, 0L);
                     }
 
                     R v;
 
                     try {
-                        v = ObjectHelper.requireNonNull(combiner.apply(array), "The combiner returned a null value");
+                        if (sn != null) {
+                            Object[] values = sn.values;
+                            for (int i = 0; i < n; i++) {
+                                values[i] = getAndSet(i, null);
+                            }
+                            v = ObjectHelper.requireNonNull(snapshotCombiner.apply(sn), "The combiner returned a null value");
+                        } else {
+                            Object[] array = new Object[n];
+                            for (int i = 0; i < n; i++) {
+                                array[i] = getAndSet(i, null);
+                            }
+                            v = ObjectHelper.requireNonNull(combiner.apply(array), "The combiner returned a null value");
+                        }
                     } catch (Throwable ex) {
                         Exceptions.throwIfFatal(ex);
                         errors.addThrowable(ex);
@@ -237,20 +329,8 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
                         return;
                     }
 
-                    for (int i = 0; i < n; i++) {
-                        if (subs[i].done && get(i) == null) {
-                            cancelled = true;
-                            cancelAll();
-                            clear();
-                            Throwable ex = errors.terminate();
-                            if (ex == null) {
-                                a.onComplete();
-                            } else {
-                                a.onError(ex);
-                            }
-                            worker.dispose();
-                            return;
-                        }
+                    if (checkTerminated(subs, a)) {
+                        return;
                     }
                 }
 
@@ -271,6 +351,26 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
             }
         }
 
+        static final class Snapshot<T> implements LatestSnapshot<T> {
+
+            final Object[] values;
+
+            Snapshot(int n) {
+                this.values = new Object[n];
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public T get(int index) {
+                return (T)values[index];
+            }
+        }
+
         static final class InnerSubscriber<T> extends AtomicReference<Subscription> implements FlowableSubscriber<T> {
 
             private static final long serialVersionUID = -5384962852497888461L;
@@ -296,7 +396,9 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
             @Override
             public void onNext(T t) {
                 ZipLatestCoordinator<T, ?> p = parent;
-                p.lazySet(index, t);
+                if (p.getAndSet(index, t) == null) {
+                    p.markReady(index);
+                }
                 p.drain();
             }
 
@@ -306,6 +408,7 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
                 if (p.errors.addThrowable(t)) {
                     lazySet(SubscriptionHelper.CANCELLED);
                     done = true;
+                    p.terminated.getAndIncrement();
                     p.drain();
                 } else {
                     RxJavaPlugins.onError(t);
@@ -316,7 +419,9 @@ final class FlowableZipLatest<T, R> extends Flowable<R> {
             public void onComplete() {
                 lazySet(SubscriptionHelper.CANCELLED);
                 done = true;
-                parent.drain();
+                ZipLatestCoordinator<T, ?> p = parent;
+                p.terminated.getAndIncrement();
+                p.drain();
             }
 
             void cancel() {
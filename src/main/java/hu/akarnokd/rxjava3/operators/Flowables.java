@@ -87,13 +87,43 @@ public final class Flowables {
         return orderedMerge(Functions.naturalOrder(), delayErrors, prefetch, sources);
     }
 
+    /**
+     * Merges the source Publishers in an ordered fashion picking the smallest of the available value from
+     * them (determined by the Comparator), optionally emitting runs of items from the same source.
+     * <p>
+     * With {@code emitRuns} true, once a source has the smallest item, its subsequent items are emitted
+     * right away while they are not larger than the smallest item of the other sources, using one comparison
+     * per item; this suits mostly pre-partitioned sources, such as shards split by time range.
+     * The output is the same in both modes.
+     * @param <T> the value type of all sources
+     * @param comparator the comparator to use for comparing items;
+     *                   it is called with the current items of any two sources, in either argument
+     *                   position, thus it should impose a consistent total order
+     * @param delayErrors if true, source errors are delayed until all sources terminate in some way
+     * @param prefetch the number of items to prefetch from the sources
+     * @param emitRuns if true, runs of items from the same source are emitted without re-selecting the smallest
+     * @param sources the array of sources
+     * @return the new Flowable instance
+     *
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static <T> Flowable<T> orderedMerge(Comparator<? super T> comparator, boolean delayErrors, int prefetch, boolean emitRuns, Publisher<T>... sources) {
+        ObjectHelper.requireNonNull(comparator, "comparator is null");
+        ObjectHelper.requireNonNull(sources, "sources is null");
+        ObjectHelper.verifyPositive(prefetch, "prefetch");
+        return RxJavaPlugins.onAssembly(new FlowableOrderedMerge<T>(sources, null, comparator, delayErrors, prefetch, emitRuns));
+    }
+
     /**
      * Merges the source Publishers in an ordered fashion picking the smallest of the available value from
      * them (determined by the Comparator).
      * @param <T> the value type of all sources
      * @param sources the iterable sequence of sources
      * @param comparator the comparator to use for comparing items;
-     *                   it is called with the last known smallest in its first argument
+     *                   it is called with the current items of any two sources, in either argument
+     *                   position, thus it should impose a consistent total order
      * @return the new Flowable instance
      * 
      * @since 0.8.0
@@ -110,7 +140,8 @@ public final class Flowables {
      * @param <T> the value type of all sources
      * @param sources the iterable sequence of sources
      * @param comparator the comparator to use for comparing items;
-     *                   it is called with the last known smallest in its first argument
+     *                   it is called with the current items of any two sources, in either argument
+     *                   position, thus it should impose a consistent total order
      * @param delayErrors if true, source errors are delayed until all sources terminate in some way
      * @return the new Flowable instance
      * 
@@ -129,7 +160,8 @@ public final class Flowables {
      * @param <T> the value type of all sources
      * @param sources the iterable sequence of sources
      * @param comparator the comparator to use for comparing items;
-     *                   it is called with the last known smallest in its first argument
+     *                   it is called with the current items of any two sources, in either argument
+     *                   position, thus it should impose a consistent total order
      * @param delayErrors if true, source errors are delayed until all sources terminate in some way
      * @param prefetch the number of items to prefetch from the sources
      * @return the new Flowable instance
@@ -151,7 +183,8 @@ public final class Flowables {
      * @param <T> the value type of all sources
      * @param sources the iterable sequence of sources
      * @param comparator the comparator to use for comparing items;
-     *                   it is called with the last known smallest in its first argument
+     *                   it is called with the current items of any two sources, in either argument
+     *                   position, thus it should impose a consistent total order
      * @return the new Flowable instance
      * 
      * @since 0.8.0
@@ -168,7 +201,8 @@ public final class Flowables {
      * @param <T> the value type of all sources
      * @param sources the iterable sequence of sources
      * @param comparator the comparator to use for comparing items;
-     *                   it is called with the last known smallest in its first argument
+     *                   it is called with the current items of any two sources, in either argument
+     *                   position, thus it should impose a consistent total order
      * @param delayErrors if true, source errors are delayed until all sources terminate in some way
      * @return the new Flowable instance
      * 
@@ -187,7 +221,8 @@ public final class Flowables {
      * @param <T> the value type of all sources
      * @param sources the iterable sequence of sources
      * @param comparator the comparator to use for comparing items;
-     *                   it is called with the last known smallest in its first argument
+     *                   it is called with the current items of any two sources, in either argument
+     *                   position, thus it should impose a consistent total order
      * @param delayErrors if true, source errors are delayed until all sources terminate in some way
      * @param prefetch the number of items to prefetch from the sources
      * @return the new Flowable instance
@@ -203,6 +238,35 @@ public final class Flowables {
         return RxJavaPlugins.onAssembly(new FlowableOrderedMerge<T>(null, sources, comparator, delayErrors, prefetch));
     }
 
+    /**
+     * Merges the source Publishers in an ordered fashion picking the smallest of the available value from
+     * them (determined by the Comparator), optionally emitting runs of items from the same source.
+     * <p>
+     * With {@code emitRuns} true, once a source has the smallest item, its subsequent items are emitted
+     * right away while they are not larger than the smallest item of the other sources, using one comparison
+     * per item; this suits mostly pre-partitioned sources, such as shards split by time range.
+     * The output is the same in both modes.
+     * @param <T> the value type of all sources
+     * @param sources the iterable sequence of sources
+     * @param comparator the comparator to use for comparing items;
+     *                   it is called with the current items of any two sources, in either argument
+     *                   position, thus it should impose a consistent total order
+     * @param delayErrors if true, source errors are delayed until all sources terminate in some way
+     * @param prefetch the number of items to prefetch from the sources
+     * @param emitRuns if true, runs of items from the same source are emitted without re-selecting the smallest
+     * @return the new Flowable instance
+     *
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.FULL)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static <T> Flowable<T> orderedMerge(Iterable<? extends Publisher<T>> sources, Comparator<? super T> comparator, boolean delayErrors, int prefetch, boolean emitRuns) {
+        ObjectHelper.requireNonNull(comparator, "comparator is null");
+        ObjectHelper.requireNonNull(sources, "sources is null");
+        ObjectHelper.verifyPositive(prefetch, "prefetch");
+        return RxJavaPlugins.onAssembly(new FlowableOrderedMerge<T>(null, sources, comparator, delayErrors, prefetch, emitRuns));
+    }
+
     /**
      * Merges the source Publishers in an ordered fashion picking the smallest of the available value from
      * them (determined by their natural order).
@@ -536,6 +600,148 @@ public final class Flowables {
         return RxJavaPlugins.onAssembly(new FlowableZipLatest<T, R>(null, sources, combiner, scheduler));
     }
 
+    /**
+     * Zips the latest available values of the source Publishers via a combiner function receiving
+     * a reused, read-only snapshot of the values where the
+     * emission rate is determined by the slowest Publisher and the downstream consumption rate.
+     * <p>
+     * Non-consumed source values are overwritten by newer values. Unlike {@code combineLatest}, source
+     * values are not reused to form new combinations. Unlike
+     * {@link #zipLatest(Function, Publisher...) zipLatest}, no array is allocated per combination:
+     * the {@link LatestSnapshot} is only valid during the combiner call and should not be retained.
+     * <p>
+     * If any of the sources runs out of items, the other sources are cancelled and the sequence completes.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors the backpressure of the downstream and consumes
+     *  the source Publishers in an unbounded manner, keeping only their latest values temporarily.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator doesn't run on any particular {@link Scheduler}
+     *  and the combined item emission happens on the thread that won the internal emission-right race.</dd>
+     * </dl>
+     *
+     * @param <T> the common source value type
+     * @param <R> the result type
+     * @param combiner the function receiving the snapshot of the latest values of the sources and returns a value
+     *                 to be emitted to the downstream.
+     * @param sources the array of source Publishers to zip/combine
+     * @return the new Flowable instance.
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static <T, R> Flowable<R> zipLatestSnapshot(Function<? super LatestSnapshot<T>, ? extends R> combiner, Publisher<? extends T>... sources) {
+        return zipLatestSnapshot(combiner, ImmediateThinScheduler.INSTANCE, sources);
+    }
+
+    /**
+     * Zips the latest available values of the source Publishers via a combiner function receiving
+     * a reused, read-only snapshot of the values where the
+     * emission rate is determined by the slowest Publisher and the downstream consumption rate.
+     * <p>
+     * Non-consumed source values are overwritten by newer values. Unlike {@code combineLatest}, source
+     * values are not reused to form new combinations. Unlike
+     * {@link #zipLatest(Function, Publisher...) zipLatest}, no array is allocated per combination:
+     * the {@link LatestSnapshot} is only valid during the combiner call and should not be retained.
+     * <p>
+     * If any of the sources runs out of items, the other sources are cancelled and the sequence completes.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors the backpressure of the downstream and consumes
+     *  the source Publishers in an unbounded manner, keeping only their latest values temporarily.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator emits the combined items on the {@link Scheduler} provided.</dd>
+     * </dl>
+     *
+     * @param <T> the common source value type
+     * @param <R> the result type
+     * @param combiner the function receiving the snapshot of the latest values of the sources and returns a value
+     *                 to be emitted to the downstream.
+     * @param scheduler the Scheduler to use for emitting items and/or terminal signals
+     * @param sources the array of source Publishers to zip/combine
+     * @return the new Flowable instance.
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public static <T, R> Flowable<R> zipLatestSnapshot(Function<? super LatestSnapshot<T>, ? extends R> combiner, Scheduler scheduler, Publisher<? extends T>... sources) {
+        ObjectHelper.requireNonNull(combiner, "combiner is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        ObjectHelper.requireNonNull(sources, "sources is null");
+        return RxJavaPlugins.onAssembly(new FlowableZipLatest<T, R>(sources, null, null, combiner, scheduler));
+    }
+
+    /**
+     * Zips the latest available values of the source Publishers via a combiner function receiving
+     * a reused, read-only snapshot of the values where the
+     * emission rate is determined by the slowest Publisher and the downstream consumption rate.
+     * <p>
+     * Non-consumed source values are overwritten by newer values. Unlike {@code combineLatest}, source
+     * values are not reused to form new combinations. Unlike
+     * {@link #zipLatest(Function, Publisher...) zipLatest}, no array is allocated per combination:
+     * the {@link LatestSnapshot} is only valid during the combiner call and should not be retained.
+     * <p>
+     * If any of the sources runs out of items, the other sources are cancelled and the sequence completes.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors the backpressure of the downstream and consumes
+     *  the source Publishers in an unbounded manner, keeping only their latest values temporarily.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator doesn't run on any particular {@link Scheduler}
+     *  and the combined item emission happens on the thread that won the internal emission-right race.</dd>
+     * </dl>
+     *
+     * @param <T> the common source value type
+     * @param <R> the result type
+     * @param sources the Iterable of source Publishers to zip/combine
+     * @param combiner the function receiving the snapshot of the latest values of the sources and returns a value
+     *                 to be emitted to the downstream.
+     * @return the new Flowable instance.
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.NONE)
+    public static <T, R> Flowable<R> zipLatestSnapshot(Iterable<? extends Publisher<? extends T>> sources, Function<? super LatestSnapshot<T>, ? extends R> combiner) {
+        return zipLatestSnapshot(sources, combiner, ImmediateThinScheduler.INSTANCE);
+    }
+
+    /**
+     * Zips the latest available values of the source Publishers via a combiner function receiving
+     * a reused, read-only snapshot of the values where the
+     * emission rate is determined by the slowest Publisher and the downstream consumption rate.
+     * <p>
+     * Non-consumed source values are overwritten by newer values. Unlike {@code combineLatest}, source
+     * values are not reused to form new combinations. Unlike
+     * {@link #zipLatest(Function, Publisher...) zipLatest}, no array is allocated per combination:
+     * the {@link LatestSnapshot} is only valid during the combiner call and should not be retained.
+     * <p>
+     * If any of the sources runs out of items, the other sources are cancelled and the sequence completes.
+     * <dl>
+     *  <dt><b>Backpressure:</b></dt>
+     *  <dd>The operator honors the backpressure of the downstream and consumes
+     *  the source Publishers in an unbounded manner, keeping only their latest values temporarily.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator emits the combined items on the {@link Scheduler} provided.</dd>
+     * </dl>
+     *
+     * @param <T> the common source value type
+     * @param <R> the result type
+     * @param sources the Iterable of source Publishers to zip/combine
+     * @param combiner the function receiving the snapshot of the latest values of the sources and returns a value
+     *                 to be emitted to the downstream.
+     * @param scheduler the Scheduler to use for emitting items and/or terminal signals
+     * @return the new Flowable instance.
+     * @since 3.0.0
+     */
+    @BackpressureSupport(BackpressureKind.UNBOUNDED_IN)
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public static <T, R> Flowable<R> zipLatestSnapshot(Iterable<? extends Publisher<? extends T>> sources, Function<? super LatestSnapshot<T>, ? extends R> combiner, Scheduler scheduler) {
+        ObjectHelper.requireNonNull(sources, "sources is null");
+        ObjectHelper.requireNonNull(combiner, "combiner is null");
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return RxJavaPlugins.onAssembly(new FlowableZipLatest<T, R>(null, sources, null, combiner, scheduler));
+    }
+
     /**
      * Zips the latest available values of the source Publishers via a combiner function where the
      * emission rate is determined by the slowest Publisher and the downstream consumption rate.
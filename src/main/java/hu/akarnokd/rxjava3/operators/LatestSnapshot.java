@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+/**
+ * Read-only view of the values taking part in one combination round of the
+ * {@link Flowables#zipLatestSnapshot(io.reactivex.functions.Function, org.reactivestreams.Publisher...) zipLatestSnapshot}
+ * operators.
+ * <p>
+ * The view is reused between rounds and is valid only during the combiner call;
+ * the combiner should read the values it needs and not retain the view itself.
+ * @param <T> the common value type of the sources
+ * @since 3.0.0
+ */
+public interface LatestSnapshot<T> {
+
+    /**
+     * The number of values in this snapshot, equal to the number of sources.
+     * @return the number of values
+     */
+    int size();
+
+    /**
+     * Returns the value of the source at the given index.
+     * @param index the source index, less than {@link #size()}
+     * @return the value, never null
+     */
+    T get(int index);
+}
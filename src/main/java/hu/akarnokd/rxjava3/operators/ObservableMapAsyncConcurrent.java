@@ -0,0 +1,358 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.*;
+
+import io.reactivex.*;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.*;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.internal.queue.SpscLinkedArrayQueue;
+import io.reactivex.internal.util.AtomicThrowable;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Maps each upstream element into the single result of an inner Observable, running up to
+ * a given number of inner Observables at once, and emits the combination of the original
+ * and inner item in the upstream order.
+ * <p>
+ * In filter mode, the inner Observables emit a Boolean and the original value is emitted
+ * if it was true. The inner results wait in their in-flight slot until the results of the
+ * preceding values have been emitted, so the reorder buffer is bounded by the maximum concurrency.
+ *
+ * @param <T> the upstream value type
+ * @param <U> the inner Observable's element type
+ * @param <R> the result element type
+ * @since 3.0.0
+ */
+final class ObservableMapAsyncConcurrent<T, U, R> extends Observable<R>
+implements ObservableTransformer<T, R> {
+
+    final ObservableSource<T> source;
+
+    final Function<? super T, ? extends ObservableSource<? extends U>> mapper;
+
+    /** The combiner or null in filter mode. */
+    final BiFunction<? super T, ? super U, ? extends R> combiner;
+
+    final int maxConcurrency;
+
+    final int capacityHint;
+
+    ObservableMapAsyncConcurrent(ObservableSource<T> source,
+            Function<? super T, ? extends ObservableSource<? extends U>> mapper,
+            BiFunction<? super T, ? super U, ? extends R> combiner,
+            int maxConcurrency, int capacityHint) {
+        this.source = source;
+        this.mapper = mapper;
+        this.combiner = combiner;
+        this.maxConcurrency = maxConcurrency;
+        this.capacityHint = capacityHint;
+    }
+
+    @Override
+    public ObservableSource<R> apply(Observable<T> upstream) {
+        return new ObservableMapAsyncConcurrent<T, U, R>(upstream, mapper, combiner, maxConcurrency, capacityHint);
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super R> observer) {
+        source.subscribe(new MapAsyncConcurrentObserver<T, U, R>(observer, mapper, combiner, maxConcurrency, capacityHint));
+    }
+
+    static final class MapAsyncConcurrentObserver<T, U, R> extends AtomicInteger implements Observer<T>, Disposable {
+
+        private static final long serialVersionUID = 2305426349345549327L;
+
+        final Observer<? super R> downstream;
+
+        final Function<? super T, ? extends ObservableSource<? extends U>> mapper;
+
+        final BiFunction<? super T, ? super U, ? extends R> combiner;
+
+        final int maxConcurrency;
+
+        final SpscLinkedArrayQueue<T> queue;
+
+        final AtomicThrowable errors;
+
+        /** The in-flight inner Observables in upstream order, accessed by the drain loop only. */
+        final ArrayDeque<InnerObserver<T, U>> active;
+
+        Disposable upstream;
+
+        volatile boolean done;
+        volatile boolean disposed;
+
+        MapAsyncConcurrentObserver(
+                Observer<? super R> downstream,
+                Function<? super T, ? extends ObservableSource<? extends U>> mapper,
+                BiFunction<? super T, ? super U, ? extends R> combiner,
+                int maxConcurrency, int capacityHint) {
+            this.downstream = downstream;
+            this.mapper = mapper;
+            this.combiner = combiner;
+            this.maxConcurrency = maxConcurrency;
+            this.queue = new SpscLinkedArrayQueue<T>(capacityHint);
+            this.errors = new AtomicThrowable();
+            this.active = new ArrayDeque<InnerObserver<T, U>>();
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+            upstream.dispose();
+            drain();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(upstream, d)) {
+                this.upstream = d;
+                downstream.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            queue.offer(t);
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (errors.addThrowable(e)) {
+                done = true;
+                drain();
+            } else {
+                RxJavaPlugins.onError(e);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        void clear() {
+            InnerObserver<T, U> inner;
+            while ((inner = active.poll()) != null) {
+                inner.dispose();
+            }
+            queue.clear();
+        }
+
+        void innerError(InnerObserver<T, U> inner, Throwable ex) {
+            // the error has to be visible before the slot is seen as empty
+            if (errors.addThrowable(ex)) {
+                inner.state = InnerObserver.STATE_EMPTY;
+                upstream.dispose();
+                drain();
+            } else {
+                inner.state = InnerObserver.STATE_EMPTY;
+                RxJavaPlugins.onError(ex);
+            }
+        }
+
+        void fail(Throwable ex) {
+            Exceptions.throwIfFatal(ex);
+            upstream.dispose();
+            errors.addThrowable(ex);
+        }
+
+        /**
+         * Starts inner Observables for the queued upstream values while there are free slots.
+         */
+        void startInners() {
+            ArrayDeque<InnerObserver<T, U>> act = active;
+            while (act.size() < maxConcurrency) {
+                T t = queue.poll();
+                if (t == null) {
+                    break;
+                }
+
+                ObservableSource<? extends U> innerSource;
+
+                try {
+                    innerSource = ObjectHelper.requireNonNull(mapper.apply(t), "The mapper returned a null ObservableSource");
+                } catch (Throwable ex) {
+                    fail(ex);
+                    return;
+                }
+
+                InnerObserver<T, U> inner = new InnerObserver<T, U>(this, t);
+                act.offer(inner);
+                innerSource.subscribe(inner);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            Observer<? super R> a = downstream;
+            ArrayDeque<InnerObserver<T, U>> act = active;
+
+            for (;;) {
+                for (;;) {
+                    if (disposed) {
+                        clear();
+                        break;
+                    }
+
+                    if (errors.get() != null) {
+                        Throwable ex = errors.terminate();
+                        disposed = true;
+                        clear();
+                        a.onError(ex);
+                        break;
+                    }
+
+                    startInners();
+
+                    if (errors.get() != null) {
+                        continue;
+                    }
+
+                    InnerObserver<T, U> inner = act.peek();
+
+                    if (inner == null) {
+                        if (done && queue.isEmpty()) {
+                            disposed = true;
+                            a.onComplete();
+                        }
+                        break;
+                    }
+
+                    int s = inner.state;
+                    if (s == InnerObserver.STATE_RUNNING) {
+                        break;
+                    }
+
+                    act.poll();
+
+                    if (s == InnerObserver.STATE_SUCCESS) {
+                        U u = inner.value;
+                        R result;
+                        try {
+                            if (combiner == null) {
+                                result = (Boolean)u ? (R)inner.item : null;
+                            } else {
+                                result = ObjectHelper.requireNonNull(combiner.apply(inner.item, u), "The combiner returned a null value");
+                            }
+                        } catch (Throwable ex) {
+                            fail(ex);
+                            continue;
+                        }
+
+                        if (result != null) {
+                            a.onNext(result);
+                        }
+                    }
+                }
+
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        static final class InnerObserver<T, U> extends AtomicReference<Disposable> implements Observer<U>, Disposable {
+
+            private static final long serialVersionUID = -2645318462405937373L;
+
+            static final int STATE_RUNNING = 0;
+            static final int STATE_SUCCESS = 1;
+            static final int STATE_EMPTY = 2;
+
+            final MapAsyncConcurrentObserver<T, U, ?> parent;
+
+            final T item;
+
+            /** The first inner value, read after state became STATE_SUCCESS. */
+            U value;
+
+            volatile int state;
+
+            boolean once;
+
+            InnerObserver(MapAsyncConcurrentObserver<T, U, ?> parent, T item) {
+                this.parent = parent;
+                this.item = item;
+            }
+
+            @Override
+            public void onSubscribe(Disposable d) {
+                DisposableHelper.setOnce(this, d);
+            }
+
+            @Override
+            public void onNext(U t) {
+                if (!once) {
+                    once = true;
+                    get().dispose();
+                    value = t;
+                    state = STATE_SUCCESS;
+                    parent.drain();
+                }
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                if (!once) {
+                    once = true;
+                    parent.innerError(this, e);
+                } else {
+                    RxJavaPlugins.onError(e);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                if (!once) {
+                    once = true;
+                    state = STATE_EMPTY;
+                    parent.drain();
+                }
+            }
+
+            @Override
+            public void dispose() {
+                DisposableHelper.dispose(this);
+            }
+
+            @Override
+            public boolean isDisposed() {
+                return DisposableHelper.isDisposed(get());
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+
+import io.reactivex.*;
+import io.reactivex.Scheduler.Worker;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.queue.SpscLinkedArrayQueue;
+
+/**
+ * Limits the rate of the upstream via a token bucket: the bucket holds at most
+ * {@code burst} tokens, starts out full and gets {@code permits} new tokens each
+ * {@code period}; each item emitted takes one token.
+ * <p>
+ * Items arriving without a token are buffered and emitted in a batch when
+ * the next refill tick adds tokens. The terminal events are emitted after
+ * the buffered items.
+ *
+ * @param <T> the value type
+ * @since 3.0.0
+ */
+final class ObservableRateLimit<T> extends Observable<T> implements ObservableTransformer<T, T> {
+
+    final ObservableSource<T> source;
+
+    final long permits;
+
+    final long period;
+
+    final TimeUnit unit;
+
+    final long burst;
+
+    final Scheduler scheduler;
+
+    ObservableRateLimit(ObservableSource<T> source, long permits, long period, TimeUnit unit, long burst, Scheduler scheduler) {
+        this.source = source;
+        this.permits = permits;
+        this.period = period;
+        this.unit = unit;
+        this.burst = burst;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public ObservableSource<T> apply(Observable<T> upstream) {
+        return new ObservableRateLimit<T>(upstream, permits, period, unit, burst, scheduler);
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super T> observer) {
+        source.subscribe(new RateLimitObserver<T>(observer, permits, period, unit, burst, scheduler.createWorker()));
+    }
+
+    static final class RateLimitObserver<T> extends AtomicInteger
+    implements Observer<T>, Disposable, Runnable {
+
+        private static final long serialVersionUID = 6079470361524012513L;
+
+        final Observer<? super T> downstream;
+
+        final long permits;
+
+        final long period;
+
+        final TimeUnit unit;
+
+        final long burst;
+
+        final Worker worker;
+
+        final SpscLinkedArrayQueue<T> queue;
+
+        /** The refill ticks not yet accounted for by the drain loop. */
+        final AtomicLong ticks;
+
+        Disposable upstream;
+
+        volatile boolean done;
+        Throwable error;
+
+        volatile boolean disposed;
+
+        /** The tokens in the bucket, accessed by the drain loop only. */
+        long tokens;
+
+        RateLimitObserver(Observer<? super T> downstream, long permits, long period, TimeUnit unit,
+                long burst, Worker worker) {
+            this.downstream = downstream;
+            this.permits = permits;
+            this.period = period;
+            this.unit = unit;
+            this.burst = burst;
+            this.worker = worker;
+            this.queue = new SpscLinkedArrayQueue<T>(bufferSize());
+            this.ticks = new AtomicLong();
+            this.tokens = burst;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(upstream, d)) {
+                upstream = d;
+
+                downstream.onSubscribe(this);
+
+                worker.schedulePeriodically(this, period, period, unit);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            queue.offer(t);
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+            worker.dispose();
+            upstream.dispose();
+            if (getAndIncrement() == 0) {
+                queue.clear();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public void run() {
+            ticks.getAndIncrement();
+            drain();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            Observer<? super T> a = downstream;
+            SpscLinkedArrayQueue<T> q = queue;
+
+            for (;;) {
+                long tk = ticks.getAndSet(0L);
+                long t = tokens;
+
+                if (tk != 0L) {
+                    long added = tk >= burst / permits + 1 ? burst : tk * permits;
+                    t = Math.min(burst, t + added);
+                }
+
+                for (;;) {
+                    if (disposed) {
+                        q.clear();
+                        return;
+                    }
+
+                    boolean d = done;
+                    boolean empty = q.isEmpty();
+
+                    if (d && empty) {
+                        worker.dispose();
+                        Throwable ex = error;
+                        if (ex != null) {
+                            a.onError(ex);
+                        } else {
+                            a.onComplete();
+                        }
+                        return;
+                    }
+
+                    if (empty || t == 0L) {
+                        break;
+                    }
+
+                    t--;
+                    a.onNext(q.poll());
+                }
+
+                tokens = t;
+
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+    }
+}
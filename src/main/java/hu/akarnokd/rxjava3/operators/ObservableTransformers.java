@@ -16,11 +16,14 @@
 
 package hu.akarnokd.rxjava3.operators;
 
+import java.util.concurrent.TimeUnit;
+
 import hu.akarnokd.rxjava3.util.BiFunctionSecondIdentity;
 import io.reactivex.*;
 import io.reactivex.annotations.*;
 import io.reactivex.functions.*;
 import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * Additional operators in the form of {@link ObservableTransformer},
@@ -303,6 +306,60 @@ public final class ObservableTransformers {
         return new ObservableMapAsync<T, U, R>(null, mapper, combiner, capacityHint);
     }
 
+    /**
+     * Maps each upstream value into a single value provided by a generated ObservableSource for that
+     * input value, running up to the given number of ObservableSources at once, and emits the results
+     * in the upstream order.
+     * <p>Only the first item emitted by the inner ObservableSource are considered. If
+     * the inner ObservableSource is empty, no resulting item is generated for that input value.
+     * <p>The results of the inner ObservableSources that finish early wait in their slot until the
+     * preceding results have been emitted; a new inner ObservableSource is started only when a slot frees up.
+     * @param <T> the input value type
+     * @param <R> the result value type
+     * @param mapper the function that receives the upstream value and returns a ObservableSource
+     * that should emit a single value to be emitted.
+     * @param maxConcurrency the maximum number of inner ObservableSources running at once, which also
+     * bounds the number of results waiting to be reordered
+     * @param capacityHint the number of items expected from the upstream to be buffered while
+     * the inner ObservableSources are executing.
+     * @return the new ObservableTransformer instance
+     * @since 3.0.0
+     */
+    public static <T, R> ObservableTransformer<T, R> mapAsync(Function<? super T, ? extends ObservableSource<? extends R>> mapper, int maxConcurrency, int capacityHint) {
+        return mapAsync(mapper, BiFunctionSecondIdentity.<T, R>instance(), maxConcurrency, capacityHint);
+    }
+
+    /**
+     * Maps each upstream value into a single value provided by a generated ObservableSource for that
+     * input value, running up to the given number of ObservableSources at once, and emits the
+     * combination of the original and generated single value in the upstream order.
+     * <p>Only the first item emitted by the inner ObservableSource are considered. If
+     * the inner ObservableSource is empty, no resulting item is generated for that input value.
+     * <p>The results of the inner ObservableSources that finish early wait in their slot until the
+     * preceding results have been emitted; a new inner ObservableSource is started only when a slot frees up.
+     * @param <T> the input value type
+     * @param <U> the intermediate value type
+     * @param <R> the result value type
+     * @param mapper the function that receives the upstream value and returns a ObservableSource
+     * that should emit a single value to be emitted.
+     * @param combiner the bi-function that receives the original upstream value and the
+     * single value emitted by the ObservableSource and returns a result value to be emitted to
+     * downstream.
+     * @param maxConcurrency the maximum number of inner ObservableSources running at once, which also
+     * bounds the number of results waiting to be reordered
+     * @param capacityHint the number of items expected from the upstream to be buffered while
+     * the inner ObservableSources are executing.
+     * @return the new ObservableTransformer instance
+     * @since 3.0.0
+     */
+    public static <T, U, R> ObservableTransformer<T, R> mapAsync(Function<? super T, ? extends ObservableSource<? extends U>> mapper, BiFunction<? super T, ? super U, ? extends R> combiner, int maxConcurrency, int capacityHint) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        ObjectHelper.requireNonNull(combiner, "combiner is null");
+        ObjectHelper.verifyPositive(maxConcurrency, "maxConcurrency");
+        ObjectHelper.verifyPositive(capacityHint, "capacityHint");
+        return new ObservableMapAsyncConcurrent<T, U, R>(null, mapper, combiner, maxConcurrency, capacityHint);
+    }
+
     /**
      * Maps each upstream value into a single {@code true} or {@code false} value provided by a generated ObservableSource for that
      * input value and emits the input value if the inner ObservableSource returned {@code true}.
@@ -338,4 +395,91 @@ public final class ObservableTransformers {
         ObjectHelper.verifyPositive(bufferSize, "capacityHint");
         return new ObservableFilterAsync<T>(null, asyncPredicate, bufferSize);
     }
+
+    /**
+     * Maps each upstream value into a single {@code true} or {@code false} value provided by a generated ObservableSource for that
+     * input value, running up to the given number of ObservableSources at once, and emits the input values for which
+     * the inner ObservableSource returned {@code true}, in the upstream order.
+     * <p>Only the first item emitted by the inner ObservableSource's are considered. If
+     * the inner ObservableSource is empty, no resulting item is generated for that input value.
+     * <p>The results of the inner ObservableSources that finish early wait in their slot until the
+     * preceding results have been emitted; a new inner ObservableSource is started only when a slot frees up.
+     * @param <T> the input and output value type
+     * @param asyncPredicate the function that receives the upstream value and returns
+     * a ObservableSource that should emit a single true to indicate the original value should pass.
+     * @param maxConcurrency the maximum number of inner ObservableSources running at once, which also
+     * bounds the number of results waiting to be reordered
+     * @param capacityHint the number of items expected from the upstream to be buffered while
+     * the inner ObservableSources are executing.
+     * @return the new ObservableTransformer instance
+     * @since 3.0.0
+     */
+    public static <T> ObservableTransformer<T, T> filterAsync(Function<? super T, ? extends ObservableSource<Boolean>> asyncPredicate, int maxConcurrency, int capacityHint) {
+        ObjectHelper.requireNonNull(asyncPredicate, "asyncPredicate is null");
+        ObjectHelper.verifyPositive(maxConcurrency, "maxConcurrency");
+        ObjectHelper.verifyPositive(capacityHint, "capacityHint");
+        return new ObservableMapAsyncConcurrent<T, Boolean, T>(null, asyncPredicate, null, maxConcurrency, capacityHint);
+    }
+
+    /**
+     * Limits the rate of the upstream via a token bucket which holds at most {@code burst}
+     * tokens, starts out full and gets {@code permits} new tokens each {@code period};
+     * each item emitted takes one token.
+     * <p>Tokens that piled up while the upstream was idle allow emitting up to {@code burst}
+     * items at once, after that, the rate is {@code permits} items per {@code period}.
+     * <dl>
+     *  <dt><b>Buffering:</b></dt>
+     *  <dd>Items arriving when there are no tokens are buffered until the next refill;
+     *  the terminal events are emitted after the buffered items.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator uses the computation {@link Scheduler} to refill the bucket, one task per period.</dd>
+     * </dl>
+     * @param <T> the value type
+     * @param permits the number of tokens added to the bucket each period, positive
+     * @param period the refill period, positive
+     * @param unit the time unit of the period
+     * @param burst the maximum number of tokens in the bucket, at least {@code permits}
+     * @return the new ObservableTransformer instance
+     *
+     * @since 3.0.0
+     */
+    @SchedulerSupport(SchedulerSupport.COMPUTATION)
+    public static <T> ObservableTransformer<T, T> rateLimit(long permits, long period, TimeUnit unit, long burst) {
+        return rateLimit(permits, period, unit, burst, Schedulers.computation());
+    }
+
+    /**
+     * Limits the rate of the upstream via a token bucket which holds at most {@code burst}
+     * tokens, starts out full and gets {@code permits} new tokens each {@code period};
+     * each item emitted takes one token.
+     * <p>Tokens that piled up while the upstream was idle allow emitting up to {@code burst}
+     * items at once, after that, the rate is {@code permits} items per {@code period}.
+     * <dl>
+     *  <dt><b>Buffering:</b></dt>
+     *  <dd>Items arriving when there are no tokens are buffered until the next refill;
+     *  the terminal events are emitted after the buffered items.</dd>
+     *  <dt><b>Scheduler:</b></dt>
+     *  <dd>The operator uses a custom {@link Scheduler} you provide to refill the bucket, one task per period.</dd>
+     * </dl>
+     * @param <T> the value type
+     * @param permits the number of tokens added to the bucket each period, positive
+     * @param period the refill period, positive
+     * @param unit the time unit of the period
+     * @param burst the maximum number of tokens in the bucket, at least {@code permits}
+     * @param scheduler the scheduler to refill the bucket on
+     * @return the new ObservableTransformer instance
+     *
+     * @since 3.0.0
+     */
+    @SchedulerSupport(SchedulerSupport.CUSTOM)
+    public static <T> ObservableTransformer<T, T> rateLimit(long permits, long period, TimeUnit unit, long burst, Scheduler scheduler) {
+        ObjectHelper.verifyPositive(permits, "permits");
+        ObjectHelper.verifyPositive(period, "period");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        if (burst < permits) {
+            throw new IllegalArgumentException("burst >= permits required but it was " + burst);
+        }
+        ObjectHelper.requireNonNull(scheduler, "scheduler is null");
+        return new ObservableRateLimit<T>(null, permits, period, unit, burst, scheduler);
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.parallel;
+
+import org.reactivestreams.*;
+
+import hu.akarnokd.rxjava3.math.Statistics;
+import io.reactivex.FlowableSubscriber;
+import io.reactivex.internal.subscriptions.*;
+import io.reactivex.parallel.ParallelFlowable;
+import io.reactivex.parallel.ParallelTransformer;
+
+/**
+ * Computes the statistics of the numbers on each parallel rail, or empty if the rail doesn't produce any data.
+ * @param <T> the input element type extending Number
+ * @since 3.0.0
+ */
+final class ParallelStatistics<T extends Number> extends ParallelFlowable<Statistics> implements ParallelTransformer<T, Statistics> {
+
+    final ParallelFlowable<? extends Number> source;
+
+    ParallelStatistics(ParallelFlowable<? extends Number> source) {
+        this.source = source;
+    }
+
+    @Override
+    public ParallelFlowable<Statistics> apply(ParallelFlowable<T> t) {
+        return new ParallelStatistics<T>(t);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Statistics>[] subscribers) {
+        if (!validate(subscribers)) {
+            return;
+        }
+
+        int n = subscribers.length;
+        @SuppressWarnings("unchecked")
+        Subscriber<Number>[] parents = new Subscriber[n];
+        for (int i = 0; i < n; i++) {
+            parents[i] = new StatisticsSubscriber(subscribers[i]);
+        }
+
+        source.subscribe(parents);
+    }
+
+    @Override
+    public int parallelism() {
+        return source.parallelism();
+    }
+
+    static final class StatisticsSubscriber extends DeferredScalarSubscription<Statistics>
+    implements FlowableSubscriber<Number> {
+        private static final long serialVersionUID = 2236289355765413409L;
+
+        final Statistics.Accumulator accumulator;
+
+        Subscription upstream;
+
+        StatisticsSubscriber(Subscriber<? super Statistics> downstream) {
+            super(downstream);
+            this.accumulator = new Statistics.Accumulator();
+        }
+
+        @Override
+        public void onNext(Number t) {
+            accumulator.add(t.doubleValue());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            downstream.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            Statistics.Accumulator a = accumulator;
+            if (a.count() != 0L) {
+                complete(a.toStatistics());
+            } else {
+                downstream.onComplete();
+            }
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(upstream, s)) {
+                upstream = s;
+
+                downstream.onSubscribe(this);
+
+                s.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            super.cancel();
+            upstream.cancel();
+        }
+    }
+
+}
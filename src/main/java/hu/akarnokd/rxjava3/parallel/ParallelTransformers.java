@@ -18,7 +18,9 @@ package hu.akarnokd.rxjava3.parallel;
 
 import java.util.Comparator;
 
+import hu.akarnokd.rxjava3.math.Statistics;
 import io.reactivex.Flowable;
+import io.reactivex.functions.BiFunction;
 import io.reactivex.internal.functions.Functions;
 import io.reactivex.internal.functions.ObjectHelper;
 import io.reactivex.parallel.ParallelFlowable;
@@ -153,4 +155,37 @@ public final class ParallelTransformers {
     public static <T extends Number> ParallelTransformer<T, Double> sumDouble() {
         return new ParallelSumDouble<T>(null);
     }
+
+    /**
+     * Computes the count, sum, minimum, maximum, mean and variance of the numbers on each rail
+     * in a single pass; rails without values stay empty.
+     * @param <T> the numerical type of the input values
+     * @return the new ParallelTransformer type
+     * @since 3.0.0
+     */
+    public static <T extends Number> ParallelTransformer<T, Statistics> stats() {
+        return new ParallelStatistics<T>(null);
+    }
+
+    /**
+     * Computes the count, sum, minimum, maximum, mean and variance of the numbers on each rail
+     * in a single pass and emits the combination of the per-rail results when all rails completed,
+     * or completes empty if there were no values at all.
+     * @param source the source ParallelFlowable of numbers
+     * @return the new Flowable instance
+     * @since 3.0.0
+     */
+    public static Flowable<Statistics> stats(ParallelFlowable<? extends Number> source) {
+        ObjectHelper.requireNonNull(source, "source is null");
+        return new ParallelStatistics<Number>(source).reduce(CombineStatistics.INSTANCE);
+    }
+
+    enum CombineStatistics implements BiFunction<Statistics, Statistics, Statistics> {
+        INSTANCE;
+
+        @Override
+        public Statistics apply(Statistics a, Statistics b) {
+            return a.combine(b);
+        }
+    }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.util.List;
+
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Implemented by {@link io.reactivex.Scheduler.Worker Worker}s that can submit
+ * several tasks as one unit, with one queue entry and one wakeup.
+ * <p>
+ * The tasks of a batch run one after the other in the given order and in FIFO
+ * order relative to the other tasks of the Worker. Disposing the returned
+ * Disposable or the Worker itself skips the tasks of the batch that haven't
+ * started yet. Individual tasks can be cancelled by submitting {@code Runnable}s
+ * that also implement {@link Disposable}: those already disposed when their turn
+ * comes are skipped.
+ * <pre><code>
+ * Worker w = parallelScheduler.createWorker();
+ *
+ * Disposable d = ((BatchWorker)w).scheduleBatch(task1, task2, task3);
+ * </code></pre>
+ * The Workers of {@link ParallelScheduler} implement this interface.
+ * @since 3.0.0
+ */
+public interface BatchWorker {
+
+    /**
+     * Schedules the given tasks as one unit.
+     * @param tasks the tasks to run in order, not null and no null elements
+     * @return the Disposable that allows skipping the tasks that haven't started yet
+     */
+    Disposable scheduleBatch(Runnable... tasks);
+
+    /**
+     * Schedules the given tasks as one unit.
+     * @param tasks the tasks to run in order, not null and no null elements
+     * @return the Disposable that allows skipping the tasks that haven't started yet
+     */
+    Disposable scheduleBatch(List<? extends Runnable> tasks);
+}
@@ -16,10 +16,12 @@
 
 package hu.akarnokd.rxjava3.schedulers;
 
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 import java.util.concurrent.locks.*;
 
+import hu.akarnokd.rxjava3.util.MpscArrayQueue;
 import io.reactivex.Scheduler;
 import io.reactivex.disposables.*;
 import io.reactivex.functions.Action;
@@ -52,6 +54,14 @@ import io.reactivex.schedulers.Schedulers;
  * 
  * In the example code above, {@code observeOn(scheduler)} will execute
  * on the main thread of the Java application.
+ * <p>
+ * The {@link #BlockingScheduler(int, WaitStrategy)} constructor creates a
+ * low-latency variant which uses a bounded array queue instead of a linked one,
+ * drains it in batches, waits for more work with the given {@link WaitStrategy}
+ * and runs its delayed tasks from its own timer queue on the event-loop thread.
+ * <p>
+ * With a {@link SchedulerInstrumentation}, the scheduler records how long its
+ * tasks wait and run into the instrumentation's lane 0.
  * 
  * @since 0.15.1
  */
@@ -66,8 +76,33 @@ public final class BlockingScheduler extends Scheduler {
 
     static final int SPIN_LIMIT = 64;
 
+    /** The maximum number of actions the low-latency loop runs before checking its timers. */
+    static final int DRAIN_BATCH = 128;
+
     final ConcurrentLinkedQueue<Action> queue;
 
+    /** The bounded queue of the low-latency mode, null otherwise. */
+    final MpscArrayQueue<Action> fastQueue;
+
+    final WaitStrategy waitStrategy;
+
+    /**
+     * Holds the tasks of the low-latency mode submitted before the event loop started,
+     * so they are not limited by the capacity; null otherwise.
+     */
+    final ConcurrentLinkedQueue<Action> pending;
+
+    /** Accessed by the event-loop thread only. */
+    final ArrayDeque<Action> overflow;
+
+    /** Accessed by the event-loop thread only. */
+    final PriorityQueue<TimedAction> timers;
+
+    /** Accessed by the event-loop thread only. */
+    long timerSequence;
+
+    volatile boolean waiting;
+
     final AtomicLong wip;
 
     final Lock lock;
@@ -80,9 +115,23 @@ public final class BlockingScheduler extends Scheduler {
 
     final Scheduler timedHelper;
 
+    /** The instrumentation of the event loop, null if disabled. */
+    final SchedulerInstrumentation.LaneRecorder stats;
+
     volatile Thread thread;
 
     public BlockingScheduler() {
+        this((SchedulerInstrumentation)null);
+    }
+
+    /**
+     * Constructs a BlockingScheduler which records the queue wait and run times
+     * as well as the rejections of its tasks into the optional instrumentation.
+     * @param instrumentation if not null, the statistics are recorded into its lane 0
+     * @since 3.0.0
+     */
+    public BlockingScheduler(SchedulerInstrumentation instrumentation) {
+        this.stats = instrumentation != null ? instrumentation.lane(0) : null;
         this.queue = new ConcurrentLinkedQueue<Action>();
         this.lock = new ReentrantLock();
         this.condition = this.lock.newCondition();
@@ -90,6 +139,52 @@ public final class BlockingScheduler extends Scheduler {
         this.shutdown = new AtomicBoolean();
         this.wip = new AtomicLong();
         this.timedHelper = Schedulers.single();
+        this.fastQueue = null;
+        this.pending = null;
+        this.waitStrategy = null;
+        this.overflow = null;
+        this.timers = null;
+    }
+
+    /**
+     * Constructs a low-latency BlockingScheduler with a bounded task queue
+     * and the given wait strategy for the idle event-loop thread.
+     * <p>
+     * Other threads trying to submit tasks while the queue is full will
+     * yield until there is room again.
+     * @param capacity the task queue capacity, rounded up to the next power of 2
+     * @param waitStrategy the strategy for waiting on new tasks
+     * @since 3.0.0
+     */
+    public BlockingScheduler(int capacity, WaitStrategy waitStrategy) {
+        this(capacity, waitStrategy, null);
+    }
+
+    /**
+     * Constructs a low-latency BlockingScheduler with a bounded task queue,
+     * the given wait strategy for the idle event-loop thread and an optional
+     * instrumentation.
+     * @param capacity the task queue capacity, rounded up to the next power of 2
+     * @param waitStrategy the strategy for waiting on new tasks
+     * @param instrumentation if not null, the queue wait and run times as well as
+     *                        the rejections are recorded into its lane 0
+     * @since 3.0.0
+     */
+    public BlockingScheduler(int capacity, WaitStrategy waitStrategy, SchedulerInstrumentation instrumentation) {
+        ObjectHelper.requireNonNull(waitStrategy, "waitStrategy is null");
+        this.stats = instrumentation != null ? instrumentation.lane(0) : null;
+        this.queue = null;
+        this.lock = null;
+        this.condition = null;
+        this.running = new AtomicBoolean();
+        this.shutdown = new AtomicBoolean();
+        this.wip = null;
+        this.timedHelper = null;
+        this.fastQueue = new MpscArrayQueue<Action>(capacity);
+        this.pending = new ConcurrentLinkedQueue<Action>();
+        this.waitStrategy = waitStrategy;
+        this.overflow = new ArrayDeque<Action>();
+        this.timers = new PriorityQueue<TimedAction>();
     }
 
     /**
@@ -113,12 +208,130 @@ public final class BlockingScheduler extends Scheduler {
         ObjectHelper.requireNonNull(action, "action is null");
         if (!running.get() && running.compareAndSet(false, true)) {
             thread = Thread.currentThread();
+            if (fastQueue != null) {
+                pending.offer(action);
+                fastDrainLoop();
+                return;
+            }
             queue.offer(action);
             wip.getAndIncrement();
             drainLoop();
         }
     }
 
+    void fastDrainLoop() {
+        final AtomicBoolean stop = shutdown;
+        final WaitStrategy ws = waitStrategy;
+        int round = 0;
+
+        for (;;) {
+            if (stop.get()) {
+                cancelAllFast();
+                return;
+            }
+
+            boolean worked = false;
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Action a = pollFast();
+                if (a == null) {
+                    break;
+                }
+                worked = true;
+                try {
+                    a.run();
+                } catch (Throwable ex) {
+                    RxJavaPlugins.onError(ex);
+                }
+            }
+
+            if (runDueTimers()) {
+                worked = true;
+            }
+
+            if (worked) {
+                round = 0;
+                continue;
+            }
+
+            waiting = true;
+            if (fastQueue.isEmpty() && overflow.isEmpty() && pending.isEmpty() && !stop.get()) {
+                long wait = nextTimerDelay();
+                if (wait > 0L) {
+                    ws.idle(round, wait);
+                    // a pending interrupt would make every subsequent park return immediately
+                    Thread.interrupted();
+                    if (round != Integer.MAX_VALUE) {
+                        round++;
+                    }
+                }
+            }
+            waiting = false;
+        }
+    }
+
+    Action pollFast() {
+        Action a = overflow.poll();
+        if (a == null) {
+            // a producer may still be adding a task it submitted before the start
+            a = pending.poll();
+            if (a == null) {
+                a = fastQueue.poll();
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Runs a batch of the timed actions that are due.
+     * @return true if at least one timed action was run
+     */
+    boolean runDueTimers() {
+        final PriorityQueue<TimedAction> q = timers;
+        TimedAction t = q.peek();
+        if (t == null) {
+            return false;
+        }
+        long now = System.nanoTime();
+        int i = 0;
+        while (i < DRAIN_BATCH && t != null && t.deadline - now <= 0L) {
+            q.poll();
+            try {
+                t.task.run();
+            } catch (Throwable ex) {
+                RxJavaPlugins.onError(ex);
+            }
+            i++;
+            t = q.peek();
+        }
+        return i != 0;
+    }
+
+    long nextTimerDelay() {
+        TimedAction t = timers.peek();
+        if (t == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0L, t.deadline - System.nanoTime());
+    }
+
+    void cancelAllFast() {
+        Action a;
+
+        while ((a = pollFast()) != null) {
+            if (a instanceof Disposable) {
+                ((Disposable)a).dispose();
+            } else
+            if (a instanceof TimedAction) {
+                ((TimedAction)a).dispose();
+            }
+        }
+
+        TimedAction t;
+        while ((t = timers.poll()) != null) {
+            t.dispose();
+        }
+    }
+
     void drainLoop() {
         final AtomicBoolean stop = shutdown;
         final AtomicLong wip = this.wip;
@@ -173,16 +386,21 @@ public final class BlockingScheduler extends Scheduler {
         ObjectHelper.requireNonNull(run, "run is null");
         ObjectHelper.requireNonNull(unit, "unit is null");
         if (shutdown.get()) {
-            return Disposables.disposed();
+            return rejected();
         }
 
-        final BlockingDirectTask task = new BlockingDirectTask(run);
+        final BlockingDirectTask task = new BlockingDirectTask(run, readyAt(delay, unit));
 
         if (delay == 0L) {
             enqueue(task);
             return task;
         }
 
+        if (fastQueue != null) {
+            enqueueTimed(task, delay, unit);
+            return task;
+        }
+
         SequentialDisposable inner = new SequentialDisposable();
         final SequentialDisposable outer = new SequentialDisposable(inner);
 
@@ -203,14 +421,47 @@ public final class BlockingScheduler extends Scheduler {
         return outer;
     }
 
+    Disposable rejected() {
+        SchedulerInstrumentation.LaneRecorder st = stats;
+        if (st != null) {
+            st.rejected();
+        }
+        return Disposables.disposed();
+    }
+
+    /**
+     * Returns the time the task becomes ready to run if the instrumentation is enabled.
+     * @param delay the delay of the task
+     * @param unit the delay time unit
+     * @return the nanoTime the task becomes ready to run, 0 if the instrumentation is disabled
+     */
+    long readyAt(long delay, TimeUnit unit) {
+        if (stats == null) {
+            return 0L;
+        }
+        long now = System.nanoTime();
+        return delay > 0L ? now + unit.toNanos(delay) : now;
+    }
+
     @Override
     public void shutdown() {
         if (shutdown.compareAndSet(false, true)) {
+            if (fastQueue != null) {
+                Thread t = thread;
+                if (t != null) {
+                    LockSupport.unpark(t);
+                }
+                return;
+            }
             enqueue(SHUTDOWN);
         }
     }
 
     void enqueue(Action action) {
+        if (fastQueue != null) {
+            enqueueFast(action);
+            return;
+        }
         queue.offer(action);
         if (wip.getAndIncrement() == 0L) {
             lock.lock();
@@ -222,6 +473,91 @@ public final class BlockingScheduler extends Scheduler {
         }
     }
 
+    void enqueueFast(Action action) {
+        final MpscArrayQueue<Action> q = fastQueue;
+        Thread t = thread;
+        if (t == null) {
+            // nobody makes room in the ring before the event loop starts
+            pending.offer(action);
+        } else
+        if (Thread.currentThread() == t) {
+            // the loop thread can't wait for itself to make room
+            if (!overflow.isEmpty() || !q.offer(action)) {
+                // keep FIFO order by moving the queued actions ahead of the new one
+                Action a;
+                while ((a = pending.poll()) != null) {
+                    overflow.offer(a);
+                }
+                while ((a = q.poll()) != null) {
+                    overflow.offer(a);
+                }
+                overflow.offer(action);
+            }
+            return;
+        } else {
+            while (!q.offer(action)) {
+                if (shutdown.get()) {
+                    return;
+                }
+                Thread.yield();
+            }
+        }
+        if (waiting) {
+            t = thread;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+    }
+
+    void enqueueTimed(Action task, long delay, TimeUnit unit) {
+        TimedAction ta = new TimedAction(task, System.nanoTime() + unit.toNanos(delay));
+        if (Thread.currentThread() == thread) {
+            ta.run();
+        } else {
+            enqueueFast(ta);
+        }
+    }
+
+    /**
+     * Travels through the task queue to the event-loop thread which
+     * then puts it into its timer queue.
+     */
+    final class TimedAction implements Action, Comparable<TimedAction> {
+
+        final Action task;
+
+        final long deadline;
+
+        long sequence;
+
+        TimedAction(Action task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            sequence = timerSequence++;
+            timers.offer(this);
+        }
+
+        void dispose() {
+            if (task instanceof Disposable) {
+                ((Disposable)task).dispose();
+            }
+        }
+
+        @Override
+        public int compareTo(TimedAction o) {
+            long d = deadline - o.deadline;
+            if (d == 0L) {
+                d = sequence - o.sequence;
+            }
+            return d < 0L ? -1 : (d > 0L ? 1 : 0);
+        }
+    }
+
     @Override
     public Worker createWorker() {
         return new BlockingWorker();
@@ -241,18 +577,30 @@ public final class BlockingScheduler extends Scheduler {
         private static final long serialVersionUID = -9165914884456950194L;
         final Runnable task;
 
-        BlockingDirectTask(Runnable task) {
+        final long readyAt;
+
+        BlockingDirectTask(Runnable task, long readyAt) {
             this.task = task;
+            this.readyAt = readyAt;
         }
 
         @Override
         public void run() throws Exception {
             try {
                 if (compareAndSet(READY, RUNNING)) {
+                    SchedulerInstrumentation.LaneRecorder st = stats;
+                    long start = 0L;
+                    if (st != null) {
+                        start = System.nanoTime();
+                        st.queueWait.record(start - readyAt);
+                    }
                     try {
                         task.run();
                     } finally {
                         compareAndSet(RUNNING, FINISHED);
+                        if (st != null) {
+                            st.runTime.record(System.nanoTime() - start);
+                        }
                     }
                 }
             } finally {
@@ -315,11 +663,14 @@ public final class BlockingScheduler extends Scheduler {
             ObjectHelper.requireNonNull(run, "run is null");
             ObjectHelper.requireNonNull(unit, "unit is null");
 
-            if (shutdown.get() || isDisposed()) {
+            if (isDisposed()) {
                 return Disposables.disposed();
             }
+            if (shutdown.get()) {
+                return rejected();
+            }
 
-            final BlockingTask task = new BlockingTask(run);
+            final BlockingTask task = new BlockingTask(run, readyAt(delay, unit));
             tasks.add(task);
 
             if (delay == 0L) {
@@ -327,6 +678,11 @@ public final class BlockingScheduler extends Scheduler {
                 return task;
             }
 
+            if (fastQueue != null) {
+                enqueueTimed(task, delay, unit);
+                return task;
+            }
+
             SequentialDisposable inner = new SequentialDisposable();
             final SequentialDisposable outer = new SequentialDisposable(inner);
 
@@ -355,19 +711,31 @@ public final class BlockingScheduler extends Scheduler {
 
             final Runnable task;
 
-            BlockingTask(Runnable task) {
+            final long readyAt;
+
+            BlockingTask(Runnable task, long readyAt) {
                 this.task = task;
+                this.readyAt = readyAt;
             }
 
             @Override
             public void run() throws Exception {
                 try {
                     if (compareAndSet(READY, RUNNING)) {
+                        SchedulerInstrumentation.LaneRecorder st = stats;
+                        long start = 0L;
+                        if (st != null) {
+                            start = System.nanoTime();
+                            st.queueWait.record(start - readyAt);
+                        }
                         try {
                             task.run();
                         } finally {
                             compareAndSet(RUNNING, FINISHED);
                             tasks.remove(this);
+                            if (st != null) {
+                                st.runTime.record(System.nanoTime() - start);
+                            }
                         }
                     }
                 } finally {
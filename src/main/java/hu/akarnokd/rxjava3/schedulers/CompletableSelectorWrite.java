@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.reactivestreams.*;
+
+import hu.akarnokd.rxjava3.schedulers.SelectorScheduler.*;
+import io.reactivex.*;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.internal.disposables.EmptyDisposable;
+import io.reactivex.internal.queue.SpscArrayQueue;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+
+/**
+ * Writes the ByteBuffers of a Publisher into a channel, expressing interest
+ * in writing only while a buffer couldn't be written fully and requesting more
+ * buffers as the prefetched ones get written.
+ */
+final class CompletableSelectorWrite extends Completable {
+
+    final SelectorScheduler scheduler;
+
+    final SocketChannel channel;
+
+    final Publisher<? extends ByteBuffer> data;
+
+    final int prefetch;
+
+    CompletableSelectorWrite(SelectorScheduler scheduler, SocketChannel channel,
+            Publisher<? extends ByteBuffer> data, int prefetch) {
+        this.scheduler = scheduler;
+        this.channel = channel;
+        this.data = data;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    protected void subscribeActual(CompletableObserver observer) {
+        SelectorLoop loop = scheduler.loopFor(channel);
+        if (loop == null) {
+            EmptyDisposable.error(SelectorScheduler.shutdownError(), observer);
+            return;
+        }
+        WriteSubscriber parent = new WriteSubscriber(observer, loop, channel, prefetch);
+        observer.onSubscribe(parent);
+        parent.schedule();
+        data.subscribe(parent);
+    }
+
+    static final class WriteSubscriber extends ChannelHandler implements FlowableSubscriber<ByteBuffer>, Disposable {
+
+        private static final long serialVersionUID = 3127226932316325016L;
+
+        final CompletableObserver downstream;
+
+        final SocketChannel target;
+
+        final int prefetch;
+
+        final int limit;
+
+        final SpscArrayQueue<ByteBuffer> queue;
+
+        final AtomicReference<Subscription> upstream;
+
+        volatile boolean done;
+        Throwable error;
+
+        volatile boolean disposed;
+
+        /** The buffer being written, accessed by the event-loop thread only. */
+        ByteBuffer current;
+
+        int consumed;
+
+        WriteSubscriber(CompletableObserver downstream, SelectorLoop loop, SocketChannel target, int prefetch) {
+            super(loop, target, SelectionKey.OP_WRITE);
+            this.downstream = downstream;
+            this.target = target;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.queue = new SpscArrayQueue<ByteBuffer>(prefetch);
+            this.upstream = new AtomicReference<Subscription>();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.setOnce(upstream, s)) {
+                s.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(ByteBuffer t) {
+            if (!queue.offer(t)) {
+                SubscriptionHelper.cancel(upstream);
+                onError(new MissingBackpressureException("Queue is full?!"));
+                return;
+            }
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+            SubscriptionHelper.cancel(upstream);
+            schedule();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        void work() {
+            drain();
+        }
+
+        @Override
+        void ready() {
+            drain();
+        }
+
+        void clear() {
+            current = null;
+            queue.clear();
+            unregister();
+        }
+
+        void drain() {
+            for (;;) {
+                if (disposed) {
+                    clear();
+                    return;
+                }
+
+                ByteBuffer b = current;
+                if (b == null) {
+                    boolean d = done;
+                    if (d) {
+                        Throwable ex = error;
+                        if (ex != null) {
+                            clear();
+                            fail(ex);
+                            return;
+                        }
+                    }
+                    b = queue.poll();
+                    if (b == null) {
+                        if (d) {
+                            clear();
+                            if (tryTerminate()) {
+                                downstream.onComplete();
+                            }
+                        } else {
+                            interest(false);
+                        }
+                        return;
+                    }
+                    current = b;
+                    if (++consumed == limit) {
+                        consumed = 0;
+                        upstream.get().request(limit);
+                    }
+                }
+
+                try {
+                    target.write(b);
+                } catch (IOException ex) {
+                    SubscriptionHelper.cancel(upstream);
+                    clear();
+                    fail(ex);
+                    return;
+                }
+
+                if (b.hasRemaining()) {
+                    interest(true);
+                    return;
+                }
+                current = null;
+            }
+        }
+
+        @Override
+        void onFailure(Throwable ex) {
+            SubscriptionHelper.cancel(upstream);
+            downstream.onError(ex);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import hu.akarnokd.rxjava3.schedulers.ParallelScheduler.*;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.*;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.internal.schedulers.RxThreadFactory;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Scheduler with single-threaded lanes, similar to {@link ParallelScheduler}, whose
+ * number of lanes grows and shrinks with the load.
+ * <p>
+ * A monitor thread periodically submits a probe to each lane and measures how long it
+ * waits in the lane's queue; when the average queue delay of the lanes exceeds the
+ * threshold, a new lane is added (up to the maximum). Lanes which stayed idle for the
+ * keep-alive period are retired (down to the minimum), unless a {@link Worker} is still
+ * pinned to them: a Worker runs all of its tasks on the same lane until it is disposed.
+ * <p>
+ * New Workers and direct tasks go to the lane with the fewest queued and running tasks.
+ * <pre><code>
+ * Scheduler s = new ElasticParallelScheduler(2, 16, 5, 60_000, TimeUnit.MILLISECONDS);
+ * </code></pre>
+ * @since 3.0.0
+ */
+public final class ElasticParallelScheduler extends Scheduler {
+
+    static final ElasticLane[] SHUTDOWN = new ElasticLane[0];
+
+    final int minLanes;
+
+    final int maxLanes;
+
+    final long delayThresholdNanos;
+
+    final long keepAliveNanos;
+
+    final ThreadFactory factory;
+
+    final boolean tracking;
+
+    final AtomicReference<ElasticLane[]> lanes;
+
+    final AtomicReference<ScheduledExecutorService> monitor;
+
+    /**
+     * Constructs an ElasticParallelScheduler with the given lane limits, queue delay
+     * threshold and keep-alive period, daemon threads and task tracking.
+     * @param minLanes the minimum number of lanes, positive
+     * @param maxLanes the maximum number of lanes, at least minLanes
+     * @param queueDelayThreshold the average queue delay above which a lane is added, positive
+     * @param keepAlive the time after which an idle lane is retired, positive
+     * @param unit the time unit of the threshold and keep-alive
+     */
+    public ElasticParallelScheduler(int minLanes, int maxLanes, long queueDelayThreshold, long keepAlive, TimeUnit unit) {
+        this(minLanes, maxLanes, queueDelayThreshold, keepAlive, unit, new RxThreadFactory("RxElasticParallelScheduler"), true);
+    }
+
+    /**
+     * Constructs an ElasticParallelScheduler with the given lane limits, queue delay
+     * threshold, keep-alive period, thread factory and task tracking mode.
+     * @param minLanes the minimum number of lanes, positive
+     * @param maxLanes the maximum number of lanes, at least minLanes
+     * @param queueDelayThreshold the average queue delay above which a lane is added, positive
+     * @param keepAlive the time after which an idle lane is retired, positive
+     * @param unit the time unit of the threshold and keep-alive
+     * @param factory the thread factory for the lanes and the monitor thread
+     * @param tracking if true, disposing a Worker cancels its outstanding delayed tasks as well
+     */
+    public ElasticParallelScheduler(int minLanes, int maxLanes, long queueDelayThreshold, long keepAlive, TimeUnit unit,
+            ThreadFactory factory, boolean tracking) {
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(factory, "factory is null");
+        if (minLanes <= 0) {
+            throw new IllegalArgumentException("minLanes > 0 required but it was " + minLanes);
+        }
+        if (maxLanes < minLanes) {
+            throw new IllegalArgumentException("maxLanes >= minLanes required but it was " + maxLanes);
+        }
+        if (queueDelayThreshold <= 0L) {
+            throw new IllegalArgumentException("queueDelayThreshold > 0 required but it was " + queueDelayThreshold);
+        }
+        if (keepAlive <= 0L) {
+            throw new IllegalArgumentException("keepAlive > 0 required but it was " + keepAlive);
+        }
+        this.minLanes = minLanes;
+        this.maxLanes = maxLanes;
+        this.delayThresholdNanos = unit.toNanos(queueDelayThreshold);
+        this.keepAliveNanos = unit.toNanos(keepAlive);
+        this.factory = factory;
+        this.tracking = tracking;
+        this.lanes = new AtomicReference<ElasticLane[]>(SHUTDOWN);
+        this.monitor = new AtomicReference<ScheduledExecutorService>();
+        start();
+    }
+
+    @Override
+    public void start() {
+        for (;;) {
+            ElasticLane[] current = lanes.get();
+            if (current != SHUTDOWN) {
+                return;
+            }
+            ElasticLane[] next = new ElasticLane[minLanes];
+            for (int i = 0; i < next.length; i++) {
+                next[i] = new ElasticLane(factory, i);
+            }
+            if (lanes.compareAndSet(current, next)) {
+                ScheduledExecutorService m = Executors.newSingleThreadScheduledExecutor(factory);
+                long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), delayThresholdNanos);
+                m.scheduleAtFixedRate(new Monitor(), period, period, TimeUnit.NANOSECONDS);
+                ScheduledExecutorService old = monitor.getAndSet(m);
+                if (old != null) {
+                    old.shutdownNow();
+                }
+                return;
+            }
+            for (ElasticLane lane : next) {
+                lane.exec.shutdownNow();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        ElasticLane[] current = lanes.getAndSet(SHUTDOWN);
+        if (current != SHUTDOWN) {
+            ScheduledExecutorService m = monitor.getAndSet(null);
+            if (m != null) {
+                m.shutdownNow();
+            }
+            for (ElasticLane lane : current) {
+                lane.exec.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Returns the current number of lanes, zero if this scheduler has been shut down.
+     * @return the current number of lanes
+     */
+    public int laneCount() {
+        return lanes.get().length;
+    }
+
+    /**
+     * Returns the lane with the fewest queued and running tasks,
+     * preferring the one with fewer Workers on a tie.
+     * @param current the current lanes, non-empty
+     * @return the lane picked
+     */
+    static ElasticLane pick(ElasticLane[] current) {
+        ElasticLane best = current[0];
+        long bestLoad = best.exec.load();
+        for (int i = 1; i < current.length; i++) {
+            ElasticLane lane = current[i];
+            long load = lane.exec.load();
+            if (load < bestLoad || (load == bestLoad && lane.workers.get() < best.workers.get())) {
+                best = lane;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public Worker createWorker() {
+        for (;;) {
+            ElasticLane[] current = lanes.get();
+            if (current == SHUTDOWN) {
+                return new NonTrackingParallelWorker(ParallelScheduler.REJECTING, null);
+            }
+            ElasticLane lane = pick(current);
+            if (lane.pin()) {
+                Worker w = tracking ? new TrackingParallelWorker(lane.exec, null) : new NonTrackingParallelWorker(lane.exec, null);
+                return new ElasticWorker(w, lane);
+            }
+            // the lane is being retired, try again
+        }
+    }
+
+    @Override
+    public Disposable scheduleDirect(Runnable run) {
+        ObjectHelper.requireNonNull(run, "run is null");
+        for (;;) {
+            ElasticLane[] current = lanes.get();
+            if (current == SHUTDOWN) {
+                return Disposables.disposed();
+            }
+            ParallelLane exec = pick(current).exec;
+            DirectTask task = new DirectTask(RxJavaPlugins.onSchedule(run), exec);
+            exec.enqueued();
+            try {
+                task.future = exec.submit(task);
+                return task;
+            } catch (RejectedExecutionException ex) {
+                // the lane has been retired, try again
+                exec.dequeued();
+            }
+        }
+    }
+
+    @Override
+    public Disposable scheduleDirect(Runnable run, long delay, TimeUnit unit) {
+        ObjectHelper.requireNonNull(run, "run is null");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        for (;;) {
+            ElasticLane[] current = lanes.get();
+            if (current == SHUTDOWN) {
+                return Disposables.disposed();
+            }
+            try {
+                return Disposables.fromFuture(pick(current).exec.schedule(RxJavaPlugins.onSchedule(run), delay, unit));
+            } catch (RejectedExecutionException ex) {
+                // the lane has been retired, try again
+            }
+        }
+    }
+
+    @Override
+    public Disposable schedulePeriodicallyDirect(Runnable run, long initialDelay, long period, TimeUnit unit) {
+        ObjectHelper.requireNonNull(run, "run is null");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        for (;;) {
+            ElasticLane[] current = lanes.get();
+            if (current == SHUTDOWN) {
+                return Disposables.disposed();
+            }
+            try {
+                return Disposables.fromFuture(pick(current).exec.scheduleAtFixedRate(RxJavaPlugins.onSchedule(run), initialDelay, period, unit));
+            } catch (RejectedExecutionException ex) {
+                // the lane has been retired, try again
+            }
+        }
+    }
+
+    /**
+     * Probes the queue delay of the lanes, adds a lane if they are overloaded
+     * or retires one which stayed idle long enough.
+     */
+    final class Monitor implements Runnable {
+
+        @Override
+        public void run() {
+            ElasticLane[] current = lanes.get();
+            if (current == SHUTDOWN) {
+                return;
+            }
+            long now = System.nanoTime();
+            long sum = 0L;
+            ElasticLane idle = null;
+            for (ElasticLane lane : current) {
+                boolean isIdle = lane.isIdle();
+                sum += lane.probe(now);
+                if (isIdle) {
+                    if (lane.idleSince == 0L) {
+                        lane.idleSince = now;
+                    } else
+                    if (now - lane.idleSince >= keepAliveNanos) {
+                        idle = lane;
+                    }
+                } else {
+                    lane.idleSince = 0L;
+                }
+            }
+
+            int n = current.length;
+            if (sum / n > delayThresholdNanos) {
+                if (n < maxLanes) {
+                    grow(current);
+                }
+            } else
+            if (idle != null && n > minLanes) {
+                retire(current, idle);
+            }
+        }
+
+        void grow(ElasticLane[] current) {
+            ElasticLane[] next = new ElasticLane[current.length + 1];
+            System.arraycopy(current, 0, next, 0, current.length);
+            ElasticLane lane = new ElasticLane(factory, current.length);
+            next[current.length] = lane;
+            if (!lanes.compareAndSet(current, next)) {
+                lane.exec.shutdownNow();
+            }
+        }
+
+        void retire(ElasticLane[] current, ElasticLane idle) {
+            if (!idle.retire()) {
+                return;
+            }
+            ElasticLane[] next = new ElasticLane[current.length - 1];
+            int j = 0;
+            for (ElasticLane lane : current) {
+                if (lane != idle) {
+                    next[j++] = lane;
+                }
+            }
+            lanes.compareAndSet(current, next);
+            // let the direct tasks that still slipped in run
+            idle.exec.setContinueExistingPeriodicTasksAfterShutdownPolicy(true);
+            idle.exec.shutdown();
+        }
+    }
+
+    /**
+     * A lane with the number of Workers pinned to it and the state of its queue delay probe;
+     * the probe runs as the lane itself.
+     */
+    static final class ElasticLane implements Runnable {
+
+        final ParallelLane exec;
+
+        /** The number of Workers pinned, -1 if the lane has been retired. */
+        final AtomicInteger workers;
+
+        volatile boolean probing;
+
+        volatile long probeStart;
+
+        volatile long lastDelay;
+
+        /** Accessed by the monitor thread only. */
+        long idleSince;
+
+        ElasticLane(ThreadFactory factory, int index) {
+            this.exec = new ParallelLane(factory, index, null, null);
+            this.workers = new AtomicInteger();
+        }
+
+        boolean pin() {
+            for (;;) {
+                int c = workers.get();
+                if (c < 0) {
+                    return false;
+                }
+                if (workers.compareAndSet(c, c + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void unpin() {
+            workers.getAndDecrement();
+        }
+
+        boolean retire() {
+            return workers.compareAndSet(0, -1);
+        }
+
+        boolean isIdle() {
+            return !probing && workers.get() == 0 && exec.load() == 0L && exec.getQueue().isEmpty();
+        }
+
+        /**
+         * Returns the queue delay measured by the last probe, or the time the current
+         * probe is already waiting, and submits a new probe if none is pending.
+         * @param now the current nanoTime
+         * @return the queue delay estimate in nanoseconds
+         */
+        long probe(long now) {
+            if (probing) {
+                return Math.max(lastDelay, now - probeStart);
+            }
+            long d = lastDelay;
+            probeStart = now;
+            probing = true;
+            try {
+                exec.execute(this);
+            } catch (RejectedExecutionException ex) {
+                probing = false;
+            }
+            return d;
+        }
+
+        @Override
+        public void run() {
+            lastDelay = System.nanoTime() - probeStart;
+            probing = false;
+        }
+    }
+
+    /**
+     * Keeps its lane from being retired until disposed.
+     */
+    static final class ElasticWorker extends Worker {
+
+        final Worker actual;
+
+        final ElasticLane lane;
+
+        final AtomicBoolean once;
+
+        ElasticWorker(Worker actual, ElasticLane lane) {
+            this.actual = actual;
+            this.lane = lane;
+            this.once = new AtomicBoolean();
+        }
+
+        @Override
+        public Disposable schedule(Runnable run) {
+            return actual.schedule(run);
+        }
+
+        @Override
+        public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
+            return actual.schedule(run, delay, unit);
+        }
+
+        @Override
+        public void dispose() {
+            if (once.compareAndSet(false, true)) {
+                actual.dispose();
+                lane.unpin();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return once.get();
+        }
+    }
+}
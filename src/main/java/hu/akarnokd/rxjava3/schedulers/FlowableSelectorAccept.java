@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.io.IOException;
+import java.nio.channels.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.*;
+
+import hu.akarnokd.rxjava3.schedulers.SelectorScheduler.*;
+import io.reactivex.Flowable;
+import io.reactivex.internal.subscriptions.*;
+import io.reactivex.internal.util.BackpressureHelper;
+
+/**
+ * Emits the connections accepted by a server channel, expressing interest
+ * in accepting only while there are outstanding requests.
+ */
+final class FlowableSelectorAccept extends Flowable<SocketChannel> {
+
+    final SelectorScheduler scheduler;
+
+    final ServerSocketChannel server;
+
+    FlowableSelectorAccept(SelectorScheduler scheduler, ServerSocketChannel server) {
+        this.scheduler = scheduler;
+        this.server = server;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super SocketChannel> s) {
+        SelectorLoop loop = scheduler.loopFor(server);
+        if (loop == null) {
+            EmptySubscription.error(SelectorScheduler.shutdownError(), s);
+            return;
+        }
+        AcceptSubscription parent = new AcceptSubscription(s, loop, server);
+        s.onSubscribe(parent);
+        parent.schedule();
+    }
+
+    static final class AcceptSubscription extends ChannelHandler implements Subscription {
+
+        private static final long serialVersionUID = 6873416394437186375L;
+
+        final Subscriber<? super SocketChannel> downstream;
+
+        final ServerSocketChannel server;
+
+        final AtomicLong requested;
+
+        volatile boolean cancelled;
+
+        long emitted;
+
+        AcceptSubscription(Subscriber<? super SocketChannel> downstream, SelectorLoop loop, ServerSocketChannel server) {
+            super(loop, server, SelectionKey.OP_ACCEPT);
+            this.downstream = downstream;
+            this.server = server;
+            this.requested = new AtomicLong();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                schedule();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        @Override
+        void work() {
+            if (cancelled) {
+                unregister();
+                return;
+            }
+            drain();
+        }
+
+        @Override
+        void ready() {
+            drain();
+        }
+
+        void drain() {
+            long e = emitted;
+            for (;;) {
+                if (cancelled) {
+                    unregister();
+                    return;
+                }
+                if (e == requested.get()) {
+                    break;
+                }
+                SocketChannel ch;
+                try {
+                    ch = server.accept();
+                } catch (IOException ex) {
+                    unregister();
+                    fail(ex);
+                    return;
+                }
+                if (ch == null) {
+                    emitted = e;
+                    interest(true);
+                    return;
+                }
+                e++;
+                downstream.onNext(ch);
+            }
+            emitted = e;
+            interest(false);
+        }
+
+        @Override
+        void onFailure(Throwable ex) {
+            downstream.onError(ex);
+        }
+    }
+}
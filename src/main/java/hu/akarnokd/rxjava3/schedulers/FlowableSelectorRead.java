@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.*;
+
+import hu.akarnokd.rxjava3.schedulers.SelectorScheduler.*;
+import io.reactivex.Flowable;
+import io.reactivex.internal.subscriptions.*;
+import io.reactivex.internal.util.BackpressureHelper;
+
+/**
+ * Emits the data read from a channel in ByteBuffers, expressing interest
+ * in reading only while there are outstanding requests.
+ */
+final class FlowableSelectorRead extends Flowable<ByteBuffer> {
+
+    final SelectorScheduler scheduler;
+
+    final SocketChannel channel;
+
+    final int bufferSize;
+
+    FlowableSelectorRead(SelectorScheduler scheduler, SocketChannel channel, int bufferSize) {
+        this.scheduler = scheduler;
+        this.channel = channel;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super ByteBuffer> s) {
+        SelectorLoop loop = scheduler.loopFor(channel);
+        if (loop == null) {
+            EmptySubscription.error(SelectorScheduler.shutdownError(), s);
+            return;
+        }
+        ReadSubscription parent = new ReadSubscription(s, loop, channel, bufferSize);
+        s.onSubscribe(parent);
+        parent.schedule();
+    }
+
+    static final class ReadSubscription extends ChannelHandler implements Subscription {
+
+        private static final long serialVersionUID = -2279452577236410565L;
+
+        final Subscriber<? super ByteBuffer> downstream;
+
+        final SocketChannel source;
+
+        final int bufferSize;
+
+        final AtomicLong requested;
+
+        volatile boolean cancelled;
+
+        long emitted;
+
+        /** An empty buffer left over by a read attempt that found no data. */
+        ByteBuffer buffer;
+
+        ReadSubscription(Subscriber<? super ByteBuffer> downstream, SelectorLoop loop, SocketChannel source, int bufferSize) {
+            super(loop, source, SelectionKey.OP_READ);
+            this.downstream = downstream;
+            this.source = source;
+            this.bufferSize = bufferSize;
+            this.requested = new AtomicLong();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(requested, n);
+                schedule();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        @Override
+        void work() {
+            if (cancelled) {
+                buffer = null;
+                unregister();
+                return;
+            }
+            drain();
+        }
+
+        @Override
+        void ready() {
+            drain();
+        }
+
+        void drain() {
+            long e = emitted;
+            for (;;) {
+                if (cancelled) {
+                    buffer = null;
+                    unregister();
+                    return;
+                }
+                if (e == requested.get()) {
+                    break;
+                }
+                ByteBuffer b = buffer;
+                if (b == null) {
+                    b = ByteBuffer.allocate(bufferSize);
+                }
+                int n;
+                try {
+                    n = source.read(b);
+                } catch (IOException ex) {
+                    buffer = null;
+                    unregister();
+                    fail(ex);
+                    return;
+                }
+                if (n < 0) {
+                    buffer = null;
+                    unregister();
+                    if (tryTerminate()) {
+                        downstream.onComplete();
+                    }
+                    return;
+                }
+                if (n == 0) {
+                    buffer = b;
+                    emitted = e;
+                    interest(true);
+                    return;
+                }
+                buffer = null;
+                b.flip();
+                e++;
+                downstream.onNext(b);
+            }
+            emitted = e;
+            interest(false);
+        }
+
+        @Override
+        void onFailure(Throwable ex) {
+            downstream.onError(ex);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.util.concurrent.*;
+
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.internal.schedulers.RxThreadFactory;
+
+/**
+ * Scheduler with a fixed set of single-threaded lanes where the lane of a
+ * {@link Worker} or a direct task is chosen by the hash of a key.
+ * <p>
+ * Every task submitted for the same key runs on the same thread and in
+ * submission order, while different keys spread across the lanes. Unlike
+ * {@code groupBy} plus {@code observeOn}, which needs a Worker and a queue per
+ * group, the lanes are shared between all keys:
+ * <pre><code>
+ * KeyedScheduler scheduler = new KeyedScheduler(4);
+ *
+ * orders.subscribe(order -&gt; scheduler.scheduleDirect(order.account(), () -&gt; route(order)));
+ * </code></pre>
+ * The key-less {@link #createWorker()} and {@code scheduleDirect} methods pick
+ * the lanes in a round-robin fashion.
+ * @since 3.0.0
+ */
+public final class KeyedScheduler extends Scheduler {
+
+    final ParallelScheduler lanes;
+
+    public KeyedScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public KeyedScheduler(int parallelism) {
+        this(parallelism, new RxThreadFactory("RxKeyedScheduler"));
+    }
+
+    public KeyedScheduler(int parallelism, ThreadFactory factory) {
+        this(parallelism, factory, true);
+    }
+
+    /**
+     * Constructs a KeyedScheduler with the given number of lanes,
+     * thread factory and task tracking mode.
+     * @param parallelism the number of lanes, positive
+     * @param factory the thread factory for the lanes
+     * @param tracking if true, disposing a Worker cancels its outstanding tasks
+     */
+    public KeyedScheduler(int parallelism, ThreadFactory factory, boolean tracking) {
+        this.lanes = new ParallelScheduler(parallelism, factory, tracking, false);
+    }
+
+    @Override
+    public void start() {
+        lanes.start();
+    }
+
+    @Override
+    public void shutdown() {
+        lanes.shutdown();
+    }
+
+    @Override
+    public Worker createWorker() {
+        return lanes.createWorker();
+    }
+
+    /**
+     * Creates a Worker bound to the lane the given key hashes to.
+     * @param key the key, not null
+     * @return the new Worker instance
+     */
+    public Worker createWorker(Object key) {
+        ObjectHelper.requireNonNull(key, "key is null");
+        return lanes.createWorker(lanes.lane(key));
+    }
+
+    @Override
+    public Disposable scheduleDirect(Runnable run) {
+        return lanes.scheduleDirect(run);
+    }
+
+    @Override
+    public Disposable scheduleDirect(Runnable run, long delay, TimeUnit unit) {
+        return lanes.scheduleDirect(run, delay, unit);
+    }
+
+    @Override
+    public Disposable schedulePeriodicallyDirect(Runnable run, long initialDelay, long period, TimeUnit unit) {
+        return lanes.schedulePeriodicallyDirect(run, initialDelay, period, unit);
+    }
+
+    /**
+     * Schedules a task on the lane the given key hashes to; tasks
+     * of the same key run in submission order on the same thread.
+     * @param key the key, not null
+     * @param run the task to run, not null
+     * @return the Disposable that allows cancelling the task
+     */
+    public Disposable scheduleDirect(Object key, Runnable run) {
+        ObjectHelper.requireNonNull(key, "key is null");
+        ObjectHelper.requireNonNull(run, "run is null");
+        return lanes.scheduleDirect(lanes.lane(key), run);
+    }
+
+    /**
+     * Schedules a task with a delay on the lane the given key hashes to.
+     * @param key the key, not null
+     * @param run the task to run, not null
+     * @param delay the delay amount
+     * @param unit the delay time unit, not null
+     * @return the Disposable that allows cancelling the task
+     */
+    public Disposable scheduleDirect(Object key, Runnable run, long delay, TimeUnit unit) {
+        ObjectHelper.requireNonNull(key, "key is null");
+        ObjectHelper.requireNonNull(run, "run is null");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        return lanes.scheduleDirect(lanes.lane(key), run, delay, unit);
+    }
+}
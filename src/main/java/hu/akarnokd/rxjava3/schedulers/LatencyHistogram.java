@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * A lock-free histogram of nanosecond durations with power-of-two sized buckets.
+ * <p>
+ * Bucket 0 counts the non-positive durations, bucket {@code i} counts the
+ * durations in {@code [2^(i-1), 2^i)}. Recording is a couple of atomic increments
+ * and never allocates; {@link #snapshot()} copies the counters, which may be
+ * slightly inconsistent with each other if recording happens concurrently.
+ * @since 3.0.0
+ */
+public final class LatencyHistogram {
+
+    static final int BUCKETS = 65;
+
+    final AtomicLongArray buckets;
+
+    final AtomicLong sum;
+
+    final AtomicLong max;
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.sum = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    static int bucket(long nanos) {
+        return nanos <= 0L ? 0 : 64 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * Records a duration.
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        buckets.getAndIncrement(bucket(nanos));
+        if (nanos > 0L) {
+            sum.getAndAdd(nanos);
+            AtomicLong m = max;
+            long c = m.get();
+            while (nanos > c && !m.compareAndSet(c, nanos)) {
+                c = m.get();
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the current counters.
+     * @return the new snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = buckets.get(i);
+            counts[i] = c;
+            count += c;
+        }
+        return new Snapshot(counts, count, sum.get(), max.get());
+    }
+
+    /**
+     * An immutable copy of the counters of a {@link LatencyHistogram}.
+     */
+    public static final class Snapshot {
+
+        final long[] counts;
+
+        final long count;
+
+        final long sum;
+
+        final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Returns the number of recorded durations.
+         * @return the number of recorded durations
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the largest recorded duration in nanoseconds, 0 if none.
+         * @return the largest recorded duration
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * Returns the average of the recorded durations in nanoseconds, 0 if none.
+         * @return the average duration
+         */
+        public double mean() {
+            return count == 0L ? 0d : (double)sum / count;
+        }
+
+        /**
+         * Returns the number of durations recorded into the given bucket.
+         * @param index the bucket index, 0..64
+         * @return the number of durations in the bucket
+         */
+        public long bucketCount(int index) {
+            return counts[index];
+        }
+
+        /**
+         * Returns an upper estimate of the duration below which the given
+         * fraction of the recorded durations fall.
+         * @param fraction the fraction, between 0 and 1
+         * @return the estimated duration in nanoseconds, never above {@link #max()}
+         */
+        public long percentile(double fraction) {
+            if (fraction < 0d || fraction > 1d) {
+                throw new IllegalArgumentException("fraction in [0, 1] required but it was " + fraction);
+            }
+            if (count == 0L) {
+                return 0L;
+            }
+            long target = (long)Math.ceil(fraction * count);
+            long c = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                c += counts[i];
+                if (c >= target && c != 0L) {
+                    if (i == 0) {
+                        return 0L;
+                    }
+                    long upper = i == 64 ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.min(upper, max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Combines this snapshot with another one.
+         * @param other the other snapshot
+         * @return the new combined snapshot
+         */
+        public Snapshot merge(Snapshot other) {
+            long[] c = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                c[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(c, count + other.count, sum + other.sum, Math.max(max, other.max));
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot[count=" + count + ", mean=" + (long)mean() + ", p50=" + percentile(0.5)
+                    + ", p99=" + percentile(0.99) + ", max=" + max + "]";
+        }
+    }
+}
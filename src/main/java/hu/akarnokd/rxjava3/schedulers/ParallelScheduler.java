@@ -16,19 +16,36 @@
 
 package hu.akarnokd.rxjava3.schedulers;
 
+import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.*;
 
 import io.reactivex.Scheduler;
 import io.reactivex.disposables.*;
 import io.reactivex.exceptions.Exceptions;
 import io.reactivex.internal.disposables.*;
-import io.reactivex.internal.functions.Functions;
+import io.reactivex.internal.functions.*;
 import io.reactivex.internal.schedulers.RxThreadFactory;
 import io.reactivex.plugins.RxJavaPlugins;
 
 /**
  * Scheduler with a configurable fixed amount of thread-pools.
+ * <p>
+ * In the optional work-stealing mode, the immediate tasks of a {@link Worker} are
+ * queued up on the worker itself and the worker is handed to its lane as one unit.
+ * Lanes that run out of work steal such units from their busier siblings; since
+ * a unit is only ever run by one lane at a time, the tasks of the same worker still
+ * execute in a FIFO order and non-overlapping.
+ * <p>
+ * By default, new Workers and direct tasks are assigned to the lanes in a round-robin
+ * fashion. In the optional least-loaded mode, two random lanes are sampled and the
+ * one with fewer queued and running tasks wins ("power of two choices"). The per-lane
+ * counters are available via {@link #laneMetrics()} in both modes.
+ * <p>
+ * With a {@link SchedulerInstrumentation}, each lane records how long its tasks wait
+ * and run; in work-stealing mode, a Worker's batch of tasks counts as one task.
+ * <p>
+ * The Workers implement {@link BatchWorker} to submit several tasks as one unit.
  */
 public final class ParallelScheduler extends Scheduler {
 
@@ -42,10 +59,20 @@ public final class ParallelScheduler extends Scheduler {
 
     final boolean tracking;
 
+    final boolean workStealing;
+
+    final TimingWheel timer;
+
+    final boolean leastLoaded;
+
+    final SchedulerInstrumentation instrumentation;
+
     final AtomicReference<ScheduledExecutorService[]> pool;
 
     int n;
 
+    int seed;
+
     static {
         SHUTDOWN = new ScheduledExecutorService[0];
 
@@ -89,12 +116,84 @@ public final class ParallelScheduler extends Scheduler {
     }
 
     public ParallelScheduler(int parallelism, ThreadFactory factory, boolean tracking) {
+        this(parallelism, factory, tracking, false);
+    }
+
+    /**
+     * Constructs a ParallelScheduler with the given parallelism, thread factory,
+     * task tracking and work-stealing mode.
+     * @param parallelism the number of single-threaded lanes, positive
+     * @param factory the thread factory for the lanes
+     * @param tracking if true, disposing a Worker cancels its outstanding delayed tasks as well
+     * @param workStealing if true, idle lanes steal Worker task batches from busy lanes
+     * @since 3.0.0
+     */
+    public ParallelScheduler(int parallelism, ThreadFactory factory, boolean tracking, boolean workStealing) {
+        this(parallelism, factory, tracking, workStealing, null);
+    }
+
+    /**
+     * Constructs a ParallelScheduler with the given parallelism, thread factory,
+     * task tracking, work-stealing mode and an optional timing wheel for the delayed
+     * and periodic tasks.
+     * @param parallelism the number of single-threaded lanes, positive
+     * @param factory the thread factory for the lanes
+     * @param tracking if true, disposing a Worker cancels its outstanding delayed tasks as well
+     * @param workStealing if true, idle lanes steal Worker task batches from busy lanes
+     * @param timer if not null, the delayed and periodic tasks wait on this wheel instead
+     *              of the timed queue of the lanes
+     * @since 3.0.0
+     */
+    public ParallelScheduler(int parallelism, ThreadFactory factory, boolean tracking, boolean workStealing, TimingWheel timer) {
+        this(parallelism, factory, tracking, workStealing, timer, false);
+    }
+
+    /**
+     * Constructs a ParallelScheduler with the given parallelism, thread factory,
+     * task tracking, work-stealing mode, optional timing wheel and lane selection mode.
+     * @param parallelism the number of single-threaded lanes, positive
+     * @param factory the thread factory for the lanes
+     * @param tracking if true, disposing a Worker cancels its outstanding delayed tasks as well
+     * @param workStealing if true, idle lanes steal Worker task batches from busy lanes
+     * @param timer if not null, the delayed and periodic tasks wait on this wheel instead
+     *              of the timed queue of the lanes
+     * @param leastLoaded if true, new Workers and direct tasks go to the less loaded of two
+     *                    randomly chosen lanes instead of the next lane in a round-robin order
+     * @since 3.0.0
+     */
+    public ParallelScheduler(int parallelism, ThreadFactory factory, boolean tracking, boolean workStealing, TimingWheel timer, boolean leastLoaded) {
+        this(parallelism, factory, tracking, workStealing, timer, leastLoaded, null);
+    }
+
+    /**
+     * Constructs a ParallelScheduler with the given parallelism, thread factory,
+     * task tracking, work-stealing mode, optional timing wheel, lane selection mode
+     * and optional instrumentation.
+     * @param parallelism the number of single-threaded lanes, positive
+     * @param factory the thread factory for the lanes
+     * @param tracking if true, disposing a Worker cancels its outstanding delayed tasks as well
+     * @param workStealing if true, idle lanes steal Worker task batches from busy lanes
+     * @param timer if not null, the delayed and periodic tasks wait on this wheel instead
+     *              of the timed queue of the lanes
+     * @param leastLoaded if true, new Workers and direct tasks go to the less loaded of two
+     *                    randomly chosen lanes instead of the next lane in a round-robin order
+     * @param instrumentation if not null, the lanes record their queue wait and run times
+     *                        as well as their rejections into it
+     * @since 3.0.0
+     */
+    public ParallelScheduler(int parallelism, ThreadFactory factory, boolean tracking, boolean workStealing, TimingWheel timer,
+            boolean leastLoaded, SchedulerInstrumentation instrumentation) {
         if (parallelism <= 0) {
             throw new IllegalArgumentException("parallelism > 0 required but it was " + parallelism);
         }
         this.parallelism = parallelism;
         this.factory = factory;
         this.tracking = tracking;
+        this.workStealing = workStealing;
+        this.timer = timer;
+        this.leastLoaded = leastLoaded;
+        this.instrumentation = instrumentation;
+        this.seed = System.identityHashCode(this) | 1;
         this.pool = new AtomicReference<ScheduledExecutorService[]>(SHUTDOWN);
         start();
     }
@@ -113,10 +212,11 @@ public final class ParallelScheduler extends Scheduler {
                 return;
             }
             if (next == null) {
-                next = new ScheduledExecutorService[parallelism];
-                for (int i = 0; i < next.length; i++) {
-                    next[i] = Executors.newSingleThreadScheduledExecutor(factory);
+                ParallelLane[] lanes = new ParallelLane[parallelism];
+                for (int i = 0; i < lanes.length; i++) {
+                    lanes[i] = new ParallelLane(factory, i, lanes, instrumentation != null ? instrumentation.lane(i) : null);
                 }
+                next = lanes;
             }
 
             if (pool.compareAndSet(current, next)) {
@@ -145,6 +245,9 @@ public final class ParallelScheduler extends Scheduler {
         if (current.length == 0) {
             return REJECTING;
         }
+        if (leastLoaded && current.length > 1) {
+            return pickLeastLoaded(current);
+        }
         int idx = this.n;
         if (idx >= parallelism) {
             idx = 0;
@@ -153,61 +256,170 @@ public final class ParallelScheduler extends Scheduler {
         return current[idx];
     }
 
+    ScheduledExecutorService pickLeastLoaded(ScheduledExecutorService[] current) {
+        // xorshift, may race, we don't care
+        int r = seed;
+        r ^= r << 13;
+        r ^= r >>> 17;
+        r ^= r << 5;
+        seed = r;
+
+        int len = current.length;
+        int i = (r & Integer.MAX_VALUE) % len;
+        int j = ((r >>> 16) & Integer.MAX_VALUE) % (len - 1);
+        if (j >= i) {
+            j++;
+        }
+        ParallelLane a = (ParallelLane)current[i];
+        ParallelLane b = (ParallelLane)current[j];
+        return b.load() < a.load() ? b : a;
+    }
+
+    /**
+     * Returns a snapshot of the queued and running task counts of each lane,
+     * or an empty list if this scheduler has been shut down.
+     * @return the list of per-lane metrics, in lane order
+     * @since 3.0.0
+     */
+    public List<LaneMetrics> laneMetrics() {
+        ScheduledExecutorService[] current = pool.get();
+        List<LaneMetrics> list = new ArrayList<LaneMetrics>(current.length);
+        for (ScheduledExecutorService exec : current) {
+            ParallelLane lane = (ParallelLane)exec;
+            list.add(new LaneMetrics(lane.index, lane.queued.get(), lane.running.get()));
+        }
+        return list;
+    }
+
+    /**
+     * Returns the lane the given key hashes to, or the rejecting executor
+     * if this scheduler has been shut down.
+     * @param key the key to hash
+     * @return the lane executor
+     */
+    ScheduledExecutorService lane(Object key) {
+        ScheduledExecutorService[] current = pool.get();
+        if (current.length == 0) {
+            return REJECTING;
+        }
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return current[(h & Integer.MAX_VALUE) % current.length];
+    }
+
     @Override
     public Worker createWorker() {
+        return createWorker(pick());
+    }
+
+    Worker createWorker(ScheduledExecutorService exec) {
+        if (workStealing && exec != REJECTING) {
+            return new WorkStealingWorker((ParallelLane)exec, tracking, timer);
+        }
         if (tracking) {
-            return new TrackingParallelWorker(pick());
+            return new TrackingParallelWorker(exec, timer);
         }
-        return new NonTrackingParallelWorker(pick());
+        return new NonTrackingParallelWorker(exec, timer);
     }
 
     @Override
     public Disposable scheduleDirect(Runnable run) {
-        ScheduledExecutorService exec = pick();
+        return scheduleDirect(pick(), run);
+    }
+
+    Disposable scheduleDirect(ScheduledExecutorService exec, Runnable run) {
         if (exec == REJECTING) {
+            return rejected();
+        }
+        ParallelLane lane = (ParallelLane)exec;
+        if (lane.isShutdown()) {
+            lane.rejected();
             return Disposables.disposed();
         }
+        DirectTask task = new DirectTask(RxJavaPlugins.onSchedule(run), lane);
+        lane.enqueued();
         try {
-            return Disposables.fromFuture(exec.submit(RxJavaPlugins.onSchedule(run)));
+            if (workStealing) {
+                lane.offerReady(task);
+            } else {
+                task.future = lane.submit(task);
+            }
+            return task;
         } catch (RejectedExecutionException ex) {
+            lane.dequeued();
+            lane.rejected();
             return Disposables.disposed();
         }
     }
 
     @Override
     public Disposable scheduleDirect(Runnable run, long delay, TimeUnit unit) {
-        ScheduledExecutorService exec = pick();
+        return scheduleDirect(pick(), run, delay, unit);
+    }
+
+    Disposable scheduleDirect(ScheduledExecutorService exec, Runnable run, long delay, TimeUnit unit) {
         if (exec == REJECTING) {
-            return Disposables.disposed();
+            return rejected();
+        }
+        TimingWheel tw = timer;
+        if (tw != null && delay > 0L) {
+            return new TimingWheel.TimedHandoff(run, this, exec).arm(tw, delay, unit);
         }
         try {
             return Disposables.fromFuture(exec.schedule(RxJavaPlugins.onSchedule(run), delay, unit));
         } catch (RejectedExecutionException ex) {
+            ((ParallelLane)exec).rejected();
             return Disposables.disposed();
         }
     }
 
     @Override
     public Disposable schedulePeriodicallyDirect(Runnable run, long initialDelay, long period, TimeUnit unit) {
+        if (timer != null) {
+            // the worker's delayed schedule re-arms the wheel for each period
+            return super.schedulePeriodicallyDirect(run, initialDelay, period, unit);
+        }
         ScheduledExecutorService exec = pick();
         if (exec == REJECTING) {
-            return Disposables.disposed();
+            return rejected();
         }
         try {
             return Disposables.fromFuture(exec.scheduleAtFixedRate(RxJavaPlugins.onSchedule(run), initialDelay, period, unit));
         } catch (RejectedExecutionException ex) {
+            ((ParallelLane)exec).rejected();
             return Disposables.disposed();
         }
     }
 
-    static final class NonTrackingParallelWorker extends Worker {
+    Disposable rejected() {
+        SchedulerInstrumentation si = instrumentation;
+        if (si != null) {
+            si.rejected();
+        }
+        return Disposables.disposed();
+    }
+
+    static Runnable[] batchOf(List<? extends Runnable> list) {
+        ObjectHelper.requireNonNull(list, "tasks is null");
+        Runnable[] batch = new Runnable[list.size()];
+        int i = 0;
+        for (Runnable r : list) {
+            batch[i++] = RxJavaPlugins.onSchedule(ObjectHelper.requireNonNull(r, "A task is null"));
+        }
+        return batch;
+    }
+
+    static final class NonTrackingParallelWorker extends Worker implements BatchWorker {
 
         final ScheduledExecutorService exec;
 
+        final TimingWheel timer;
+
         volatile boolean shutdown;
 
-        NonTrackingParallelWorker(ScheduledExecutorService exec) {
+        NonTrackingParallelWorker(ScheduledExecutorService exec, TimingWheel timer) {
             this.exec = exec;
+            this.timer = timer;
         }
 
         @Override
@@ -223,12 +435,19 @@ public final class ParallelScheduler extends Scheduler {
         @Override
         public Disposable schedule(Runnable run) {
             if (!shutdown) {
+                ParallelLane lane = ParallelLane.of(exec);
+                NonTrackingTask ntt = new NonTrackingTask(RxJavaPlugins.onSchedule(run), lane);
+                if (lane != null) {
+                    lane.enqueued();
+                }
                 try {
-                    NonTrackingTask ntt = new NonTrackingTask(RxJavaPlugins.onSchedule(run));
                     exec.submit(ntt);
                     return ntt;
                 } catch (RejectedExecutionException ex) {
-                    // just let it fall through
+                    if (lane != null) {
+                        lane.dequeued();
+                        lane.rejected();
+                    }
                 }
             }
             return Disposables.disposed();
@@ -237,12 +456,44 @@ public final class ParallelScheduler extends Scheduler {
         @Override
         public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
             if (!shutdown) {
+                TimingWheel tw = timer;
+                if (tw != null && delay > 0L) {
+                    return new TimingWheel.TimedHandoff(run, this, null).arm(tw, delay, unit);
+                }
                 try {
-                    NonTrackingTask ntt = new NonTrackingTask(RxJavaPlugins.onSchedule(run));
+                    NonTrackingTask ntt = new NonTrackingTask(RxJavaPlugins.onSchedule(run), null);
                     exec.schedule(ntt, delay, unit);
                     return ntt;
                 } catch (RejectedExecutionException ex) {
-                    // just let it fall through
+                    ParallelLane.rejected(exec);
+                }
+            }
+            return Disposables.disposed();
+        }
+
+        @Override
+        public Disposable scheduleBatch(Runnable... tasks) {
+            ObjectHelper.requireNonNull(tasks, "tasks is null");
+            return scheduleBatch(Arrays.asList(tasks));
+        }
+
+        @Override
+        public Disposable scheduleBatch(List<? extends Runnable> tasks) {
+            Runnable[] batch = batchOf(tasks);
+            if (!shutdown && batch.length != 0) {
+                ParallelLane lane = ParallelLane.of(exec);
+                BatchTask bt = new BatchTask(batch, this, lane, null);
+                if (lane != null) {
+                    lane.enqueued();
+                }
+                try {
+                    bt.future = exec.submit((Callable<Object>)bt);
+                    return bt;
+                } catch (RejectedExecutionException ex) {
+                    if (lane != null) {
+                        lane.dequeued();
+                        lane.rejected();
+                    }
                 }
             }
             return Disposables.disposed();
@@ -254,14 +505,21 @@ public final class ParallelScheduler extends Scheduler {
 
             final Runnable actual;
 
+            /** The lane whose queued counter this task occupies until it starts, null for delayed tasks. */
+            final ParallelLane lane;
+
             volatile boolean disposed;
 
-            NonTrackingTask(Runnable actual) {
+            NonTrackingTask(Runnable actual, ParallelLane lane) {
                 this.actual = actual;
+                this.lane = lane;
             }
 
             @Override
             public Object call() throws Exception {
+                if (lane != null) {
+                    lane.dequeued();
+                }
                 if (!disposed && !shutdown) {
                     try {
                         actual.run();
@@ -285,14 +543,17 @@ public final class ParallelScheduler extends Scheduler {
         }
     }
 
-    static final class TrackingParallelWorker extends Worker {
+    static final class TrackingParallelWorker extends Worker implements BatchWorker {
 
         final ScheduledExecutorService exec;
 
+        final TimingWheel timer;
+
         final CompositeDisposable tasks;
 
-        TrackingParallelWorker(ScheduledExecutorService exec) {
+        TrackingParallelWorker(ScheduledExecutorService exec, TimingWheel timer) {
             this.exec = exec;
+            this.timer = timer;
             this.tasks = new CompositeDisposable();
         }
 
@@ -311,12 +572,20 @@ public final class ParallelScheduler extends Scheduler {
             if (!isDisposed()) {
                 TrackedAction ta = new TrackedAction(RxJavaPlugins.onSchedule(run), tasks);
                 if (tasks.add(ta)) {
+                    ParallelLane lane = ParallelLane.of(exec);
+                    if (lane != null) {
+                        ta.lane = lane;
+                        lane.enqueued();
+                    }
                     try {
                         Future<?> f = exec.submit(ta);
                         ta.setFuture(f);
                         return ta;
                     } catch (RejectedExecutionException ex) {
-                        // let it fall through
+                        if (lane != null) {
+                            lane.dequeued();
+                            lane.rejected();
+                        }
                     }
                 }
             }
@@ -326,6 +595,14 @@ public final class ParallelScheduler extends Scheduler {
         @Override
         public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
             if (!isDisposed()) {
+                TimingWheel tw = timer;
+                if (tw != null && delay > 0L) {
+                    TimingWheel.TimedHandoff th = new TimingWheel.TimedHandoff(run, this, tasks);
+                    if (tasks.add(th)) {
+                        return th.arm(tw, delay, unit);
+                    }
+                    return Disposables.disposed();
+                }
                 TrackedAction ta = new TrackedAction(RxJavaPlugins.onSchedule(run), tasks);
                 if (tasks.add(ta)) {
                     try {
@@ -333,7 +610,38 @@ public final class ParallelScheduler extends Scheduler {
                         ta.setFuture(f);
                         return ta;
                     } catch (RejectedExecutionException ex) {
-                        // let it fall through
+                        ParallelLane.rejected(exec);
+                    }
+                }
+            }
+            return Disposables.disposed();
+        }
+
+        @Override
+        public Disposable scheduleBatch(Runnable... list) {
+            ObjectHelper.requireNonNull(list, "tasks is null");
+            return scheduleBatch(Arrays.asList(list));
+        }
+
+        @Override
+        public Disposable scheduleBatch(List<? extends Runnable> list) {
+            Runnable[] batch = batchOf(list);
+            if (!isDisposed() && batch.length != 0) {
+                ParallelLane lane = ParallelLane.of(exec);
+                BatchTask bt = new BatchTask(batch, this, lane, tasks);
+                if (tasks.add(bt)) {
+                    if (lane != null) {
+                        lane.enqueued();
+                    }
+                    try {
+                        bt.future = exec.submit((Callable<Object>)bt);
+                        return bt;
+                    } catch (RejectedExecutionException ex) {
+                        tasks.delete(bt);
+                        if (lane != null) {
+                            lane.dequeued();
+                            lane.rejected();
+                        }
                     }
                 }
             }
@@ -361,6 +669,14 @@ public final class ParallelScheduler extends Scheduler {
 
             final Runnable actual;
 
+            /**
+             * The lane whose queued counter an immediate task occupies until it starts;
+             * such tasks are not cancelled before they start so the counter is always released.
+             */
+            ParallelLane lane;
+
+            volatile boolean started;
+
             TrackedAction(Runnable actual, DisposableContainer parent) {
                 this.actual = actual;
                 this.lazySet(parent);
@@ -369,6 +685,15 @@ public final class ParallelScheduler extends Scheduler {
 
             @Override
             public Object call() {
+                ParallelLane l = lane;
+                if (l != null) {
+                    l.dequeued();
+                    started = true;
+                    if (get() == null) {
+                        complete();
+                        return null;
+                    }
+                }
                 try {
                     actual.run();
                 } catch (Throwable ex) {
@@ -402,7 +727,7 @@ public final class ParallelScheduler extends Scheduler {
                 if (f != FINISHED && f != DISPOSED) {
                     f = future.getAndSet(DISPOSED);
                     if (f != null && f != FINISHED && f != DISPOSED) {
-                        f.cancel(true);
+                        cancelFuture(f);
                     }
                 }
             }
@@ -416,16 +741,623 @@ public final class ParallelScheduler extends Scheduler {
                 Future<?> f = future.get();
                 if (f != FINISHED) {
                     if (f == DISPOSED) {
-                        d.cancel(true);
+                        cancelFuture(d);
                     } else
                     if (!future.compareAndSet(f, d)) {
                         f = future.get();
                         if (f == DISPOSED) {
-                            d.cancel(true);
+                            cancelFuture(d);
+                        }
+                    }
+                }
+            }
+
+            void cancelFuture(Future<?> d) {
+                if (lane == null || started) {
+                    d.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * The number of units a lane or a work-stealing worker runs in one go
+     * before giving way to other tasks of the same thread.
+     */
+    static final int LANE_BATCH = 128;
+
+    /**
+     * A single-threaded lane which, in work-stealing mode, also hosts a queue of
+     * ready units its idle siblings can steal from.
+     */
+    static final class ParallelLane extends ScheduledThreadPoolExecutor implements Runnable {
+
+        final int index;
+
+        final ParallelLane[] lanes;
+
+        final ConcurrentLinkedQueue<Runnable> ready;
+
+        final AtomicInteger wip;
+
+        /** The number of immediate tasks submitted to this lane that haven't started yet. */
+        final AtomicLong queued;
+
+        /** The number of tasks this lane's thread is currently running, 0 or 1. */
+        final AtomicInteger running;
+
+        /** The instrumentation of this lane, null if disabled. */
+        final SchedulerInstrumentation.LaneRecorder stats;
+
+        /** Accessed by the lane's thread only. */
+        long runStart;
+
+        ParallelLane(ThreadFactory factory, int index, ParallelLane[] lanes, SchedulerInstrumentation.LaneRecorder stats) {
+            super(1, factory);
+            this.index = index;
+            this.lanes = lanes;
+            this.stats = stats;
+            this.ready = new ConcurrentLinkedQueue<Runnable>();
+            this.wip = new AtomicInteger();
+            this.queued = new AtomicLong();
+            this.running = new AtomicInteger();
+        }
+
+        static ParallelLane of(ScheduledExecutorService exec) {
+            return exec instanceof ParallelLane ? (ParallelLane)exec : null;
+        }
+
+        static void rejected(ScheduledExecutorService exec) {
+            ParallelLane lane = of(exec);
+            if (lane != null) {
+                lane.rejected();
+            }
+        }
+
+        void rejected() {
+            SchedulerInstrumentation.LaneRecorder st = stats;
+            if (st != null) {
+                st.rejected();
+            }
+        }
+
+        void enqueued() {
+            queued.getAndIncrement();
+        }
+
+        void dequeued() {
+            queued.getAndDecrement();
+        }
+
+        long load() {
+            return queued.get() + running.get();
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            running.getAndIncrement();
+            SchedulerInstrumentation.LaneRecorder st = stats;
+            if (st != null) {
+                runStart = System.nanoTime();
+                // the lane's tasks are all ScheduledFutures whose delay went negative the moment they became ready
+                st.queueWait.record(-((Delayed)r).getDelay(TimeUnit.NANOSECONDS));
+            }
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            SchedulerInstrumentation.LaneRecorder st = stats;
+            if (st != null) {
+                st.runTime.record(System.nanoTime() - runStart);
+            }
+            running.getAndDecrement();
+        }
+
+        /**
+         * Queue up a unit of work and make sure either this lane
+         * or an idle sibling lane will pick it up.
+         * @param unit the unit to run
+         * @throws RejectedExecutionException if this lane has been shut down
+         */
+        void offerReady(Runnable unit) {
+            ready.offer(unit);
+            if (wip.getAndIncrement() == 0) {
+                execute(this);
+            } else {
+                wakeIdleSibling();
+            }
+        }
+
+        void wakeIdleSibling() {
+            ParallelLane[] all = lanes;
+            int n = all.length;
+            for (int i = 1; i < n; i++) {
+                int j = index + i;
+                if (j >= n) {
+                    j -= n;
+                }
+                ParallelLane lane = all[j];
+                if (lane.wip.get() == 0 && lane.wip.compareAndSet(0, 1)) {
+                    try {
+                        lane.execute(lane);
+                    } catch (RejectedExecutionException ex) {
+                        // the sibling lane has been shut down
+                    }
+                    return;
+                }
+            }
+        }
+
+        Runnable pollReady() {
+            Runnable r = ready.poll();
+            if (r == null) {
+                ParallelLane[] all = lanes;
+                int n = all.length;
+                for (int i = 1; i < n; i++) {
+                    int j = index + i;
+                    if (j >= n) {
+                        j -= n;
+                    }
+                    r = all[j].ready.poll();
+                    if (r != null) {
+                        break;
+                    }
+                }
+            }
+            return r;
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            int consumed = 0;
+            for (;;) {
+                Runnable r;
+                while ((r = pollReady()) != null) {
+                    r.run();
+                    if (++consumed == LANE_BATCH) {
+                        // let the timed tasks of this lane run
+                        try {
+                            execute(this);
+                        } catch (RejectedExecutionException ex) {
+                            // this lane has been shut down
+                        }
+                        return;
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a batch of tasks of a Worker in order as one unit, skipping the rest of them
+     * once disposed or the Worker got disposed.
+     * <p>
+     * Like the immediate {@link TrackingParallelWorker.TrackedAction}s, it is not cancelled
+     * before it starts so the queued counter of its lane is always released.
+     */
+    static final class BatchTask implements Callable<Object>, Runnable, Disposable {
+
+        final Runnable[] tasks;
+
+        final Disposable worker;
+
+        /** The lane whose queued counter this batch occupies until it starts, null if not counted. */
+        final ParallelLane lane;
+
+        final DisposableContainer parent;
+
+        /** Set when submitted to a lane directly to be able to interrupt the running batch. */
+        volatile Future<?> future;
+
+        volatile boolean started;
+
+        volatile boolean disposed;
+
+        BatchTask(Runnable[] tasks, Disposable worker, ParallelLane lane, DisposableContainer parent) {
+            this.tasks = tasks;
+            this.worker = worker;
+            this.lane = lane;
+            this.parent = parent;
+        }
+
+        @Override
+        public Object call() {
+            run();
+            return null;
+        }
+
+        @Override
+        public void run() {
+            if (lane != null) {
+                lane.dequeued();
+            }
+            started = true;
+            Runnable[] ts = tasks;
+            for (int i = 0; i < ts.length; i++) {
+                if (disposed || worker.isDisposed()) {
+                    break;
+                }
+                Runnable r = ts[i];
+                ts[i] = null;
+                if (r instanceof Disposable && ((Disposable)r).isDisposed()) {
+                    continue;
+                }
+                try {
+                    r.run();
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    RxJavaPlugins.onError(ex);
+                }
+            }
+            if (parent != null) {
+                parent.delete(this);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                if (parent != null) {
+                    parent.delete(this);
+                }
+                if (started) {
+                    Future<?> f = future;
+                    if (f != null) {
+                        f.cancel(true);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+
+    /**
+     * An immediate direct task which occupies its lane's queued counter until it starts;
+     * disposing it before that only marks it so the counter is always released.
+     */
+    static final class DirectTask implements Runnable, Disposable {
+
+        final Runnable actual;
+
+        final ParallelLane lane;
+
+        /** Set in the non-stealing mode to be able to interrupt the running task. */
+        volatile Future<?> future;
+
+        volatile boolean started;
+
+        volatile boolean disposed;
+
+        DirectTask(Runnable actual, ParallelLane lane) {
+            this.actual = actual;
+            this.lane = lane;
+        }
+
+        @Override
+        public void run() {
+            lane.dequeued();
+            started = true;
+            if (!disposed) {
+                try {
+                    actual.run();
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    RxJavaPlugins.onError(ex);
+                }
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                if (started) {
+                    Future<?> f = future;
+                    if (f != null) {
+                        f.cancel(true);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+
+    /**
+     * Queues up its tasks and offers itself as one unit to its home lane,
+     * from which other lanes may steal it when they have nothing else to do.
+     */
+    static final class WorkStealingWorker extends Worker implements Runnable, BatchWorker {
+
+        final ParallelLane lane;
+
+        final boolean tracking;
+
+        final TimingWheel timer;
+
+        final ConcurrentLinkedQueue<StealingTask> queue;
+
+        final AtomicInteger wip;
+
+        final CompositeDisposable tasks;
+
+        volatile boolean disposed;
+
+        WorkStealingWorker(ParallelLane lane, boolean tracking, TimingWheel timer) {
+            this.lane = lane;
+            this.tracking = tracking;
+            this.timer = timer;
+            this.queue = new ConcurrentLinkedQueue<StealingTask>();
+            this.wip = new AtomicInteger();
+            this.tasks = new CompositeDisposable();
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                tasks.dispose();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public Disposable schedule(Runnable run) {
+            if (!disposed && !lane.isShutdown()) {
+                StealingTask task = new StealingTask(RxJavaPlugins.onSchedule(run), null);
+                if (enqueue(task)) {
+                    return task;
+                }
+            }
+            return Disposables.disposed();
+        }
+
+        @Override
+        public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
+            if (delay <= 0L) {
+                return schedule(run);
+            }
+            if (!disposed && !lane.isShutdown()) {
+                TimingWheel tw = timer;
+                if (tw != null) {
+                    TimingWheel.TimedHandoff th = new TimingWheel.TimedHandoff(run, this, tracking ? tasks : null);
+                    if (!tracking || tasks.add(th)) {
+                        return th.arm(tw, delay, unit);
+                    }
+                    return Disposables.disposed();
+                }
+                StealingTask task = new StealingTask(RxJavaPlugins.onSchedule(run), tracking ? tasks : null);
+                if (!tracking || tasks.add(task)) {
+                    try {
+                        Future<?> f = lane.schedule((Callable<Object>)task, delay, unit);
+                        task.setFuture(f);
+                        return task;
+                    } catch (RejectedExecutionException ex) {
+                        lane.rejected();
+                    }
+                }
+            }
+            return Disposables.disposed();
+        }
+
+        @Override
+        public Disposable scheduleBatch(Runnable... list) {
+            ObjectHelper.requireNonNull(list, "tasks is null");
+            return scheduleBatch(Arrays.asList(list));
+        }
+
+        @Override
+        public Disposable scheduleBatch(List<? extends Runnable> list) {
+            Runnable[] batch = batchOf(list);
+            if (!disposed && !lane.isShutdown() && batch.length != 0) {
+                // the batch travels as one task through the worker's queue and thus is stolen as a whole
+                BatchTask bt = new BatchTask(batch, this, null, tracking ? tasks : null);
+                if (!tracking || tasks.add(bt)) {
+                    if (enqueue(new StealingTask(bt, null))) {
+                        return bt;
+                    }
+                    if (tracking) {
+                        tasks.delete(bt);
+                    }
+                }
+            }
+            return Disposables.disposed();
+        }
+
+        boolean enqueue(StealingTask task) {
+            if (disposed) {
+                return false;
+            }
+            lane.enqueued();
+            queue.offer(task);
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    lane.offerReady(this);
+                } catch (RejectedExecutionException ex) {
+                    clear();
+                    lane.rejected();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void clear() {
+            ParallelLane ln = lane;
+            while (queue.poll() != null) {
+                ln.dequeued();
+            }
+        }
+
+        @Override
+        public void run() {
+            final ConcurrentLinkedQueue<StealingTask> q = queue;
+            int missed = 1;
+            int consumed = 0;
+            for (;;) {
+                for (;;) {
+                    if (disposed) {
+                        clear();
+                        return;
+                    }
+                    StealingTask t = q.poll();
+                    if (t == null) {
+                        break;
+                    }
+                    lane.dequeued();
+                    t.run();
+                    if (++consumed == LANE_BATCH) {
+                        // give other units a chance and let the rest be stolen
+                        try {
+                            lane.offerReady(this);
+                        } catch (RejectedExecutionException ex) {
+                            clear();
                         }
+                        return;
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        final class StealingTask
+        extends AtomicReference<Future<?>>
+        implements Runnable, Callable<Object>, Disposable {
+
+            private static final long serialVersionUID = -2963478232442961837L;
+
+            final Runnable actual;
+
+            final DisposableContainer parent;
+
+            volatile boolean cancelled;
+
+            StealingTask(Runnable actual, DisposableContainer parent) {
+                this.actual = actual;
+                this.parent = parent;
+            }
+
+            @Override
+            public Object call() {
+                // the delay is up, join the worker's queue
+                if (!cancelled) {
+                    enqueue(this);
+                }
+                return null;
+            }
+
+            @Override
+            public void run() {
+                if (!cancelled) {
+                    try {
+                        actual.run();
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        RxJavaPlugins.onError(ex);
+                    }
+                }
+                lazySet(TrackingParallelWorker.TrackedAction.FINISHED);
+                if (parent != null) {
+                    parent.delete(this);
+                }
+            }
+
+            void setFuture(Future<?> f) {
+                if (!compareAndSet(null, f)) {
+                    if (get() == TrackingParallelWorker.TrackedAction.DISPOSED) {
+                        f.cancel(false);
                     }
                 }
             }
+
+            @Override
+            public void dispose() {
+                if (!cancelled) {
+                    cancelled = true;
+                    Future<?> f = getAndSet(TrackingParallelWorker.TrackedAction.DISPOSED);
+                    if (f != null && f != TrackingParallelWorker.TrackedAction.FINISHED
+                            && f != TrackingParallelWorker.TrackedAction.DISPOSED) {
+                        f.cancel(false);
+                    }
+                    if (parent != null) {
+                        parent.delete(this);
+                    }
+                }
+            }
+
+            @Override
+            public boolean isDisposed() {
+                return cancelled;
+            }
+        }
+    }
+
+    /**
+     * A snapshot of the task counters of a lane of a {@link ParallelScheduler}.
+     * @since 3.0.0
+     */
+    public static final class LaneMetrics {
+
+        final int index;
+
+        final long queued;
+
+        final int running;
+
+        LaneMetrics(int index, long queued, int running) {
+            this.index = index;
+            this.queued = queued;
+            this.running = running;
+        }
+
+        /**
+         * Returns the zero-based index of the lane.
+         * @return the index of the lane
+         */
+        public int index() {
+            return index;
+        }
+
+        /**
+         * Returns the number of immediate tasks submitted to the lane
+         * which haven't started yet.
+         * @return the number of queued tasks
+         */
+        public long queued() {
+            return queued;
+        }
+
+        /**
+         * Returns the number of tasks the lane is running, 0 or 1.
+         * @return the number of running tasks
+         */
+        public int running() {
+            return running;
+        }
+
+        @Override
+        public String toString() {
+            return "LaneMetrics[index=" + index + ", queued=" + queued + ", running=" + running + "]";
         }
     }
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Collects the queue wait time, run time and rejection statistics of the
+ * lanes of a scheduler.
+ * <p>
+ * Pass an instance to the constructor of {@link ParallelScheduler}, {@link SharedScheduler}
+ * or {@link BlockingScheduler} to enable the instrumentation; the latter two have
+ * a single lane. The queue wait is measured from the time a task becomes ready to run,
+ * i.e., when it was submitted or when its delay elapsed, until it starts running.
+ * <pre><code>
+ * SchedulerInstrumentation stats = new SchedulerInstrumentation();
+ * Scheduler s = new ParallelScheduler(4, Executors.defaultThreadFactory(), true, false, null, false, stats);
+ *
+ * // later on
+ * for (SchedulerInstrumentation.LaneSnapshot lane : stats.snapshot()) {
+ *     System.out.println(lane);
+ * }
+ * </code></pre>
+ * @since 3.0.0
+ */
+public final class SchedulerInstrumentation {
+
+    static final LaneRecorder[] EMPTY = new LaneRecorder[0];
+
+    final AtomicReference<LaneRecorder[]> lanes;
+
+    /** Rejections which couldn't be attributed to a lane as the scheduler was shut down. */
+    final AtomicLong rejections;
+
+    /**
+     * Constructs an empty SchedulerInstrumentation.
+     */
+    public SchedulerInstrumentation() {
+        this.lanes = new AtomicReference<LaneRecorder[]>(EMPTY);
+        this.rejections = new AtomicLong();
+    }
+
+    /**
+     * Returns the recorder of the given lane, creating it if necessary;
+     * the recorders survive restarting the scheduler.
+     * @param index the lane index, non-negative
+     * @return the recorder of the lane
+     */
+    LaneRecorder lane(int index) {
+        for (;;) {
+            LaneRecorder[] current = lanes.get();
+            if (index < current.length) {
+                return current[index];
+            }
+            LaneRecorder[] next = Arrays.copyOf(current, index + 1);
+            for (int i = current.length; i <= index; i++) {
+                next[i] = new LaneRecorder(i);
+            }
+            if (lanes.compareAndSet(current, next)) {
+                return next[index];
+            }
+        }
+    }
+
+    void rejected() {
+        rejections.getAndIncrement();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of each lane, in lane order.
+     * @return the list of lane snapshots
+     */
+    public List<LaneSnapshot> snapshot() {
+        LaneRecorder[] current = lanes.get();
+        List<LaneSnapshot> list = new ArrayList<LaneSnapshot>(current.length);
+        for (LaneRecorder lane : current) {
+            list.add(lane.snapshot());
+        }
+        return list;
+    }
+
+    /**
+     * Returns the statistics of all lanes combined; its {@link LaneSnapshot#index()} is -1
+     * and its rejections include those that happened while the scheduler was shut down.
+     * @return the combined snapshot
+     */
+    public LaneSnapshot aggregate() {
+        LatencyHistogram.Snapshot queueWait = new LatencyHistogram().snapshot();
+        LatencyHistogram.Snapshot runTime = queueWait;
+        long rejected = rejections.get();
+        for (LaneRecorder lane : lanes.get()) {
+            queueWait = queueWait.merge(lane.queueWait.snapshot());
+            runTime = runTime.merge(lane.runTime.snapshot());
+            rejected += lane.rejections.get();
+        }
+        return new LaneSnapshot(-1, queueWait, runTime, rejected);
+    }
+
+    /**
+     * The live counters of a lane.
+     */
+    static final class LaneRecorder {
+
+        final int index;
+
+        final LatencyHistogram queueWait;
+
+        final LatencyHistogram runTime;
+
+        final AtomicLong rejections;
+
+        LaneRecorder(int index) {
+            this.index = index;
+            this.queueWait = new LatencyHistogram();
+            this.runTime = new LatencyHistogram();
+            this.rejections = new AtomicLong();
+        }
+
+        void rejected() {
+            rejections.getAndIncrement();
+        }
+
+        LaneSnapshot snapshot() {
+            return new LaneSnapshot(index, queueWait.snapshot(), runTime.snapshot(), rejections.get());
+        }
+    }
+
+    /**
+     * Wraps the task to record its queue wait and run time if the instrumentation is enabled.
+     * @param run the task to wrap
+     * @param lane the lane recorder, null if the instrumentation is disabled
+     * @param delay the delay after which the task becomes ready
+     * @param unit the delay time unit
+     * @return the original task if lane is null, the wrapped task otherwise
+     */
+    static Runnable wrap(Runnable run, LaneRecorder lane, long delay, TimeUnit unit) {
+        if (lane == null) {
+            return run;
+        }
+        long readyAt = System.nanoTime();
+        if (delay > 0L) {
+            readyAt += unit.toNanos(delay);
+        }
+        return new InstrumentedTask(run, lane, readyAt);
+    }
+
+    /**
+     * Wraps a task to record its queue wait and run time, used by the schedulers
+     * whose task objects are not their own.
+     */
+    static final class InstrumentedTask implements Runnable {
+
+        final Runnable actual;
+
+        final LaneRecorder lane;
+
+        final long readyAt;
+
+        InstrumentedTask(Runnable actual, LaneRecorder lane, long readyAt) {
+            this.actual = actual;
+            this.lane = lane;
+            this.readyAt = readyAt;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            lane.queueWait.record(start - readyAt);
+            try {
+                actual.run();
+            } finally {
+                lane.runTime.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * An immutable copy of the statistics of a lane.
+     */
+    public static final class LaneSnapshot {
+
+        final int index;
+
+        final LatencyHistogram.Snapshot queueWait;
+
+        final LatencyHistogram.Snapshot runTime;
+
+        final long rejections;
+
+        LaneSnapshot(int index, LatencyHistogram.Snapshot queueWait, LatencyHistogram.Snapshot runTime, long rejections) {
+            this.index = index;
+            this.queueWait = queueWait;
+            this.runTime = runTime;
+            this.rejections = rejections;
+        }
+
+        /**
+         * Returns the zero-based index of the lane, -1 for the aggregate.
+         * @return the index of the lane
+         */
+        public int index() {
+            return index;
+        }
+
+        /**
+         * Returns the histogram of the time the tasks waited in the queue before starting.
+         * @return the queue wait histogram
+         */
+        public LatencyHistogram.Snapshot queueWait() {
+            return queueWait;
+        }
+
+        /**
+         * Returns the histogram of the time the tasks were running.
+         * @return the run time histogram
+         */
+        public LatencyHistogram.Snapshot runTime() {
+            return runTime;
+        }
+
+        /**
+         * Returns the number of tasks the lane rejected because it was shut down.
+         * @return the number of rejected tasks
+         */
+        public long rejections() {
+            return rejections;
+        }
+
+        @Override
+        public String toString() {
+            return "LaneSnapshot[index=" + index + ", queueWait=" + queueWait + ", runTime=" + runTime
+                    + ", rejections=" + rejections + "]";
+        }
+    }
+}
@@ -0,0 +1,754 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.Publisher;
+
+import io.reactivex.*;
+import io.reactivex.disposables.*;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.internal.schedulers.RxThreadFactory;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Scheduler whose event-loop threads run both the scheduled tasks and a
+ * {@link Selector} loop, along with {@link Flowable} sources and sinks of
+ * non-blocking socket channels served by the same threads.
+ * <p>
+ * The channel operators only express interest in the readiness of their channel
+ * while the downstream has outstanding requests ({@link #accept(ServerSocketChannel)},
+ * {@link #read(SocketChannel, int)}) or there is data to be written
+ * ({@link #write(SocketChannel, Publisher)}), and they signal their consumers on the
+ * event-loop thread of the channel, which is always the same for a given channel.
+ * Therefore, the network I/O and the processing of the data can run on the same
+ * few threads without any hand-offs:
+ * <pre><code>
+ * SelectorScheduler s = new SelectorScheduler(2);
+ *
+ * s.accept(serverChannel)
+ * .flatMapCompletable(ch -&gt; s.write(ch, s.read(ch, 8192).map(this::process)))
+ * .subscribe();
+ * </code></pre>
+ * The operators switch the channels into non-blocking mode but don't close them.
+ * @since 3.0.0
+ */
+public final class SelectorScheduler extends Scheduler {
+
+    static final SelectorLoop[] SHUTDOWN = new SelectorLoop[0];
+
+    /** The number of buffers the write sink prefetches. */
+    static final int WRITE_PREFETCH = 16;
+
+    final int parallelism;
+
+    final ThreadFactory factory;
+
+    final AtomicReference<SelectorLoop[]> loops;
+
+    int n;
+
+    public SelectorScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public SelectorScheduler(int parallelism) {
+        this(parallelism, new RxThreadFactory("RxSelectorScheduler"));
+    }
+
+    /**
+     * Constructs a SelectorScheduler with the given number of event-loop
+     * threads and thread factory.
+     * @param parallelism the number of event-loop threads, positive
+     * @param factory the thread factory for the event-loop threads
+     */
+    public SelectorScheduler(int parallelism, ThreadFactory factory) {
+        ObjectHelper.requireNonNull(factory, "factory is null");
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism > 0 required but it was " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.factory = factory;
+        this.loops = new AtomicReference<SelectorLoop[]>(SHUTDOWN);
+        start();
+    }
+
+    /**
+     * Starts the event-loop threads if not already running.
+     * @throws IllegalStateException if a Selector couldn't be opened
+     */
+    @Override
+    public void start() {
+        for (;;) {
+            SelectorLoop[] current = loops.get();
+            if (current != SHUTDOWN) {
+                return;
+            }
+            SelectorLoop[] next = new SelectorLoop[parallelism];
+            try {
+                for (int i = 0; i < next.length; i++) {
+                    next[i] = new SelectorLoop(Selector.open());
+                }
+            } catch (IOException ex) {
+                for (SelectorLoop loop : next) {
+                    if (loop != null) {
+                        loop.closeSelector();
+                    }
+                }
+                throw new IllegalStateException("Unable to open a Selector", ex);
+            }
+            if (loops.compareAndSet(current, next)) {
+                for (SelectorLoop loop : next) {
+                    Thread t = factory.newThread(loop);
+                    loop.thread = t;
+                    t.start();
+                }
+                return;
+            }
+            for (SelectorLoop loop : next) {
+                loop.closeSelector();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        SelectorLoop[] current = loops.getAndSet(SHUTDOWN);
+        for (SelectorLoop loop : current) {
+            loop.stop();
+        }
+    }
+
+    SelectorLoop pick() {
+        SelectorLoop[] current = loops.get();
+        if (current.length == 0) {
+            return null;
+        }
+        int idx = this.n;
+        if (idx >= current.length) {
+            idx = 0;
+        }
+        this.n = idx + 1; // may race, we don't care
+        return current[idx];
+    }
+
+    /**
+     * Returns the event loop serving the given channel, so the operators of the
+     * same channel share the same Selector.
+     * @param channel the channel
+     * @return the event loop or null if this scheduler has been shut down
+     */
+    SelectorLoop loopFor(SelectableChannel channel) {
+        SelectorLoop[] current = loops.get();
+        if (current.length == 0) {
+            return null;
+        }
+        int h = System.identityHashCode(channel);
+        h ^= h >>> 16;
+        return current[(h & Integer.MAX_VALUE) % current.length];
+    }
+
+    @Override
+    public Disposable scheduleDirect(Runnable run, long delay, TimeUnit unit) {
+        ObjectHelper.requireNonNull(run, "run is null");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        SelectorLoop loop = pick();
+        if (loop != null) {
+            SelectorTask task = new SelectorTask(RxJavaPlugins.onSchedule(run), null, SpinningScheduler.deadline(delay, unit));
+            if (loop.execute(task)) {
+                return task;
+            }
+        }
+        return Disposables.disposed();
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new SelectorWorker(pick());
+    }
+
+    /**
+     * Emits the connections accepted by the given server channel, accepting only
+     * as many as the downstream requested.
+     * @param server the server channel, switched into non-blocking mode
+     * @return the new Flowable instance
+     */
+    public Flowable<SocketChannel> accept(ServerSocketChannel server) {
+        ObjectHelper.requireNonNull(server, "server is null");
+        return RxJavaPlugins.onAssembly(new FlowableSelectorAccept(this, server));
+    }
+
+    /**
+     * Emits the data read from the given channel, reading only while the downstream
+     * has outstanding requests, and completes when the channel reaches its end.
+     * @param channel the channel to read, switched into non-blocking mode
+     * @param bufferSize the maximum size of each emitted ByteBuffer, positive
+     * @return the new Flowable instance
+     */
+    public Flowable<ByteBuffer> read(SocketChannel channel, int bufferSize) {
+        ObjectHelper.requireNonNull(channel, "channel is null");
+        ObjectHelper.verifyPositive(bufferSize, "bufferSize");
+        return RxJavaPlugins.onAssembly(new FlowableSelectorRead(this, channel, bufferSize));
+    }
+
+    /**
+     * Writes the ByteBuffers of the given Publisher into the channel, requesting
+     * more of them only when the previous ones have been written fully.
+     * @param channel the channel to write, switched into non-blocking mode
+     * @param data the Publisher of the data to write
+     * @return the Completable that completes when all data has been written
+     */
+    public Completable write(SocketChannel channel, Publisher<? extends ByteBuffer> data) {
+        ObjectHelper.requireNonNull(channel, "channel is null");
+        ObjectHelper.requireNonNull(data, "data is null");
+        return RxJavaPlugins.onAssembly(new CompletableSelectorWrite(this, channel, data, WRITE_PREFETCH));
+    }
+
+    static RejectedExecutionException shutdownError() {
+        return new RejectedExecutionException("The SelectorScheduler has been shut down");
+    }
+
+    /**
+     * An event-loop thread running its queued and timed tasks and
+     * dispatching the readiness events of its Selector.
+     */
+    static final class SelectorLoop implements Runnable {
+
+        final Selector selector;
+
+        final ConcurrentLinkedQueue<Runnable> queue;
+
+        /** Accessed by the event-loop thread only. */
+        final PriorityQueue<SelectorTask> timers;
+
+        /** Accessed by the event-loop thread only. */
+        long timerSequence;
+
+        volatile Thread thread;
+
+        volatile boolean stopped;
+
+        volatile boolean waiting;
+
+        SelectorLoop(Selector selector) {
+            this.selector = selector;
+            this.queue = new ConcurrentLinkedQueue<Runnable>();
+            this.timers = new PriorityQueue<SelectorTask>();
+        }
+
+        boolean inLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        /**
+         * Queues up a task to be run on the event-loop thread.
+         * @param task the task
+         * @return false if the loop has been stopped
+         */
+        boolean execute(Runnable task) {
+            if (stopped) {
+                return false;
+            }
+            queue.offer(task);
+            if (waiting) {
+                selector.wakeup();
+            }
+            return true;
+        }
+
+        void stop() {
+            stopped = true;
+            selector.wakeup();
+        }
+
+        void closeSelector() {
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                RxJavaPlugins.onError(ex);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (;;) {
+                    if (stopped) {
+                        break;
+                    }
+
+                    runTasks();
+
+                    runDueTimers();
+
+                    if (stopped) {
+                        break;
+                    }
+
+                    if (!queue.isEmpty()) {
+                        selector.selectNow();
+                    } else {
+                        waiting = true;
+                        if (queue.isEmpty() && !stopped) {
+                            long wait = nextTimerDelay();
+                            if (wait == Long.MAX_VALUE) {
+                                selector.select();
+                            } else {
+                                long ms = TimeUnit.NANOSECONDS.toMillis(wait);
+                                if (ms == 0L) {
+                                    selector.selectNow();
+                                } else {
+                                    selector.select(ms);
+                                }
+                            }
+                        }
+                        waiting = false;
+                    }
+
+                    dispatchSelected();
+                }
+            } catch (IOException ex) {
+                stopped = true;
+                RxJavaPlugins.onError(ex);
+            } finally {
+                terminate();
+            }
+        }
+
+        void runTasks() {
+            Runnable r;
+            while ((r = queue.poll()) != null) {
+                if (r instanceof SelectorTask) {
+                    SelectorTask t = (SelectorTask)r;
+                    if (t.deadline != 0L) {
+                        t.sequence = timerSequence++;
+                        timers.offer(t);
+                        continue;
+                    }
+                }
+                try {
+                    r.run();
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    RxJavaPlugins.onError(ex);
+                }
+            }
+        }
+
+        void runDueTimers() {
+            final PriorityQueue<SelectorTask> q = timers;
+            SelectorTask t = q.peek();
+            if (t != null) {
+                long now = System.nanoTime();
+                while (t != null && t.deadline - now <= 0L) {
+                    q.poll();
+                    t.run();
+                    t = q.peek();
+                }
+            }
+        }
+
+        long nextTimerDelay() {
+            SelectorTask t = timers.peek();
+            if (t == null) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0L, t.deadline - System.nanoTime());
+        }
+
+        void dispatchSelected() {
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                if (key.isValid()) {
+                    try {
+                        ((ChannelRegistration)key.attachment()).ready(key);
+                    } catch (CancelledKeyException ignored) {
+                        // the channel has been closed
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        RxJavaPlugins.onError(ex);
+                    }
+                }
+            }
+        }
+
+        void terminate() {
+            RejectedExecutionException ex = shutdownError();
+            try {
+                for (SelectionKey key : selector.keys()) {
+                    ((ChannelRegistration)key.attachment()).shutdown(ex);
+                }
+            } catch (ClosedSelectorException ignored) {
+                // nothing to fail
+            }
+            closeSelector();
+            Runnable r;
+            while ((r = queue.poll()) != null) {
+                if (r instanceof SelectorTask) {
+                    ((SelectorTask)r).dispose();
+                } else
+                if (r instanceof ChannelHandler) {
+                    ((ChannelHandler)r).shutdown(ex);
+                }
+            }
+            timers.clear();
+        }
+    }
+
+    /**
+     * A task which doesn't run if it or its worker has been disposed;
+     * delayed tasks wait in the timer queue of their loop.
+     */
+    static final class SelectorTask implements Runnable, Disposable, Comparable<SelectorTask> {
+
+        final Runnable actual;
+
+        final SelectorWorker worker;
+
+        /** The due time of a delayed task, 0 for an immediate task. */
+        final long deadline;
+
+        /** Accessed by the event-loop thread only. */
+        long sequence;
+
+        volatile boolean disposed;
+
+        SelectorTask(Runnable actual, SelectorWorker worker, long deadline) {
+            this.actual = actual;
+            this.worker = worker;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            if (!disposed && (worker == null || !worker.disposed)) {
+                try {
+                    actual.run();
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    RxJavaPlugins.onError(ex);
+                }
+            }
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public int compareTo(SelectorTask o) {
+            long d = deadline - o.deadline;
+            if (d == 0L) {
+                d = sequence - o.sequence;
+            }
+            return d < 0L ? -1 : (d > 0L ? 1 : 0);
+        }
+    }
+
+    /**
+     * Submits its tasks to the same loop; disposing it turns its
+     * outstanding tasks into no-ops.
+     */
+    static final class SelectorWorker extends Worker {
+
+        final SelectorLoop loop;
+
+        volatile boolean disposed;
+
+        SelectorWorker(SelectorLoop loop) {
+            this.loop = loop;
+        }
+
+        @Override
+        public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
+            ObjectHelper.requireNonNull(run, "run is null");
+            ObjectHelper.requireNonNull(unit, "unit is null");
+            SelectorLoop lp = loop;
+            if (!disposed && lp != null) {
+                SelectorTask task = new SelectorTask(RxJavaPlugins.onSchedule(run), this, SpinningScheduler.deadline(delay, unit));
+                if (lp.execute(task)) {
+                    return task;
+                }
+            }
+            return Disposables.disposed();
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+
+    /**
+     * The attachment of a channel's SelectionKey, multiplexing the readiness
+     * events to the accepting, reading and writing handlers of the channel.
+     */
+    static final class ChannelRegistration {
+
+        SelectionKey key;
+
+        ChannelHandler acceptor;
+
+        ChannelHandler reader;
+
+        ChannelHandler writer;
+
+        ChannelHandler get(int op) {
+            switch (op) {
+            case SelectionKey.OP_ACCEPT:
+                return acceptor;
+            case SelectionKey.OP_READ:
+                return reader;
+            default:
+                return writer;
+            }
+        }
+
+        void set(int op, ChannelHandler handler) {
+            switch (op) {
+            case SelectionKey.OP_ACCEPT:
+                acceptor = handler;
+                break;
+            case SelectionKey.OP_READ:
+                reader = handler;
+                break;
+            default:
+                writer = handler;
+            }
+        }
+
+        void update() {
+            if (acceptor == null && reader == null && writer == null) {
+                key.cancel();
+                return;
+            }
+            int ops = 0;
+            if (acceptor != null && acceptor.interested) {
+                ops |= SelectionKey.OP_ACCEPT;
+            }
+            if (reader != null && reader.interested) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if (writer != null && writer.interested) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            if (key.isValid()) {
+                key.interestOps(ops);
+            }
+        }
+
+        void ready(SelectionKey key) {
+            int ops = key.readyOps();
+            if ((ops & SelectionKey.OP_ACCEPT) != 0 && acceptor != null) {
+                acceptor.ready();
+            }
+            if ((ops & SelectionKey.OP_READ) != 0 && reader != null) {
+                reader.ready();
+            }
+            if ((ops & SelectionKey.OP_WRITE) != 0 && writer != null) {
+                writer.ready();
+            }
+        }
+
+        void shutdown(Throwable ex) {
+            if (acceptor != null) {
+                acceptor.shutdown(ex);
+            }
+            if (reader != null) {
+                reader.shutdown(ex);
+            }
+            if (writer != null) {
+                writer.shutdown(ex);
+            }
+        }
+    }
+
+    /**
+     * Base class of the channel operators: registers the channel with the Selector of
+     * its loop, runs the operator's work on the loop and tracks the interest in the
+     * readiness events; the operators are signalled from the loop thread only.
+     */
+    abstract static class ChannelHandler extends AtomicInteger implements Runnable {
+
+        private static final long serialVersionUID = -4542218340815862158L;
+
+        final SelectorLoop loop;
+
+        final SelectableChannel channel;
+
+        final int op;
+
+        final AtomicBoolean terminated;
+
+        /** The rest of the fields are accessed by the event-loop thread only. */
+        ChannelRegistration registration;
+
+        boolean registered;
+
+        boolean interested;
+
+        ChannelHandler(SelectorLoop loop, SelectableChannel channel, int op) {
+            this.loop = loop;
+            this.channel = channel;
+            this.op = op;
+            this.terminated = new AtomicBoolean();
+        }
+
+        /**
+         * Makes sure {@link #work()} runs on the loop thread, registering the channel first if necessary.
+         */
+        final void schedule() {
+            if (getAndIncrement() == 0) {
+                if (!loop.execute(this)) {
+                    shutdown(shutdownError());
+                }
+            }
+        }
+
+        @Override
+        public final void run() {
+            int missed = 1;
+            for (;;) {
+                if (!registered) {
+                    registered = true;
+                    register();
+                }
+                if (registration != null) {
+                    work();
+                }
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        final void register() {
+            if (terminated.get()) {
+                return;
+            }
+            try {
+                channel.configureBlocking(false);
+                Selector selector = loop.selector;
+                SelectionKey key = channel.keyFor(selector);
+                if (key != null && !key.isValid()) {
+                    // flush the cancelled key of a previous registration
+                    selector.selectNow();
+                    key = null;
+                }
+                ChannelRegistration reg;
+                if (key == null) {
+                    reg = new ChannelRegistration();
+                    reg.key = channel.register(selector, 0, reg);
+                } else {
+                    reg = (ChannelRegistration)key.attachment();
+                    if (reg.get(op) != null) {
+                        throw new IllegalStateException("The channel is already being served by another operator of the same kind");
+                    }
+                }
+                reg.set(op, this);
+                registration = reg;
+            } catch (Throwable ex) {
+                Exceptions.throwIfFatal(ex);
+                fail(ex);
+            }
+        }
+
+        final void interest(boolean on) {
+            ChannelRegistration reg = registration;
+            if (interested != on && reg != null) {
+                interested = on;
+                reg.update();
+            }
+        }
+
+        final void unregister() {
+            ChannelRegistration reg = registration;
+            if (reg != null) {
+                registration = null;
+                interested = false;
+                if (reg.get(op) == this) {
+                    reg.set(op, null);
+                    reg.update();
+                }
+            }
+        }
+
+        /**
+         * Atomically marks this handler terminated.
+         * @return true if this call did it, false if the handler was already terminated
+         */
+        final boolean tryTerminate() {
+            return !terminated.get() && terminated.compareAndSet(false, true);
+        }
+
+        /**
+         * Terminates the handler with the given error unless it has already terminated.
+         * @param ex the error
+         */
+        final void shutdown(Throwable ex) {
+            if (tryTerminate()) {
+                onFailure(ex);
+            }
+        }
+
+        /**
+         * Terminates the handler with the given error; the first terminal call wins.
+         * @param ex the error
+         */
+        final void fail(Throwable ex) {
+            if (tryTerminate()) {
+                onFailure(ex);
+            } else {
+                RxJavaPlugins.onError(ex);
+            }
+        }
+
+        /** Called on the loop thread after the registration or when there was a schedule() call. */
+        abstract void work();
+
+        /** Called on the loop thread when the channel is ready for the operation. */
+        abstract void ready();
+
+        /**
+         * Called at most once when the operator fails, the loop stopped or
+         * the scheduler was shut down before the registration.
+         * @param ex the error to signal
+         */
+        abstract void onFailure(Throwable ex);
+    }
+}
@@ -39,12 +39,17 @@ public final class SharedScheduler extends Scheduler {
 
     final Worker worker;
 
+    final TimingWheel timer;
+
+    /** The instrumentation of the single lane, null if disabled. */
+    final SchedulerInstrumentation.LaneRecorder stats;
+
     /**
      * Constructs a SharedScheduler and asks for a Worker from the provided other Scheduler.
      * @param other the other Scheduler instance, not null
      */
     public SharedScheduler(Scheduler other) {
-        this.worker = other.createWorker();
+        this(other.createWorker());
     }
 
     /**
@@ -52,7 +57,63 @@ public final class SharedScheduler extends Scheduler {
      * @param worker the worker to use, not null
      */
     public SharedScheduler(Worker worker) {
+        this(worker, null);
+    }
+
+    /**
+     * Constructs a SharedScheduler, asks for a Worker from the provided other Scheduler
+     * and waits for the delayed tasks on the given timing wheel.
+     * @param other the other Scheduler instance, not null
+     * @param timer if not null, the delayed and periodic tasks wait on this wheel
+     *              instead of being scheduled with a delay on the shared worker
+     * @since 3.0.0
+     */
+    public SharedScheduler(Scheduler other, TimingWheel timer) {
+        this(other.createWorker(), timer);
+    }
+
+    /**
+     * Constructs a SharedScheduler, uses the Worker instance provided
+     * and waits for the delayed tasks on the given timing wheel.
+     * @param worker the worker to use, not null
+     * @param timer if not null, the delayed and periodic tasks wait on this wheel
+     *              instead of being scheduled with a delay on the shared worker
+     * @since 3.0.0
+     */
+    public SharedScheduler(Worker worker, TimingWheel timer) {
+        this(worker, timer, null);
+    }
+
+    /**
+     * Constructs a SharedScheduler, asks for a Worker from the provided other Scheduler,
+     * waits for the delayed tasks on the optional timing wheel and records the
+     * task statistics into the optional instrumentation.
+     * @param other the other Scheduler instance, not null
+     * @param timer if not null, the delayed and periodic tasks wait on this wheel
+     *              instead of being scheduled with a delay on the shared worker
+     * @param instrumentation if not null, the queue wait and run times as well as the
+     *                        rejections are recorded into its lane 0
+     * @since 3.0.0
+     */
+    public SharedScheduler(Scheduler other, TimingWheel timer, SchedulerInstrumentation instrumentation) {
+        this(other.createWorker(), timer, instrumentation);
+    }
+
+    /**
+     * Constructs a SharedScheduler, uses the Worker instance provided, waits for the
+     * delayed tasks on the optional timing wheel and records the task statistics into
+     * the optional instrumentation.
+     * @param worker the worker to use, not null
+     * @param timer if not null, the delayed and periodic tasks wait on this wheel
+     *              instead of being scheduled with a delay on the shared worker
+     * @param instrumentation if not null, the queue wait and run times as well as the
+     *                        rejections are recorded into its lane 0
+     * @since 3.0.0
+     */
+    public SharedScheduler(Worker worker, TimingWheel timer, SchedulerInstrumentation instrumentation) {
         this.worker = worker;
+        this.timer = timer;
+        this.stats = instrumentation != null ? instrumentation.lane(0) : null;
     }
 
     @Override
@@ -62,16 +123,43 @@ public final class SharedScheduler extends Scheduler {
 
     @Override
     public Disposable scheduleDirect(Runnable run) {
+        SchedulerInstrumentation.LaneRecorder st = stats;
+        if (st != null) {
+            if (worker.isDisposed()) {
+                st.rejected();
+                return Disposables.disposed();
+            }
+            run = SchedulerInstrumentation.wrap(run, st, 0L, TimeUnit.NANOSECONDS);
+        }
         return worker.schedule(run);
     }
 
     @Override
     public Disposable scheduleDirect(Runnable run, long delay, TimeUnit unit) {
+        SchedulerInstrumentation.LaneRecorder st = stats;
+        if (st != null) {
+            if (worker.isDisposed()) {
+                st.rejected();
+                return Disposables.disposed();
+            }
+            run = SchedulerInstrumentation.wrap(run, st, delay, unit);
+        }
+        TimingWheel tw = timer;
+        if (tw != null && delay > 0L) {
+            if (worker.isDisposed()) {
+                return Disposables.disposed();
+            }
+            return new TimingWheel.TimedHandoff(run, worker, null).arm(tw, delay, unit);
+        }
         return worker.schedule(run, delay, unit);
     }
 
     @Override
     public Disposable schedulePeriodicallyDirect(Runnable run, long initialDelay, long period, TimeUnit unit) {
+        if (timer != null) {
+            // the SharedWorker's delayed schedule re-arms the wheel for each period
+            return super.schedulePeriodicallyDirect(run, initialDelay, period, unit);
+        }
         return worker.schedulePeriodically(run, initialDelay, period, unit);
     }
 
@@ -82,17 +170,23 @@ public final class SharedScheduler extends Scheduler {
 
     @Override
     public Worker createWorker() {
-        return new SharedWorker(worker);
+        return new SharedWorker(worker, timer, stats);
     }
 
     static final class SharedWorker extends Worker {
 
         final Worker worker;
 
+        final TimingWheel timer;
+
+        final SchedulerInstrumentation.LaneRecorder stats;
+
         final CompositeDisposable tasks;
 
-        SharedWorker(Worker worker) {
+        SharedWorker(Worker worker, TimingWheel timer, SchedulerInstrumentation.LaneRecorder stats) {
             this.worker = worker;
+            this.timer = timer;
+            this.stats = stats;
             this.tasks = new CompositeDisposable();
         }
 
@@ -108,17 +202,29 @@ public final class SharedScheduler extends Scheduler {
 
         @Override
         public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
-            if (isDisposed() || worker.isDisposed()) {
+            if (isDisposed()) {
                 return Disposables.disposed();
             }
-            SharedAction sa = new SharedAction(run, tasks);
+            SchedulerInstrumentation.LaneRecorder st = stats;
+            if (worker.isDisposed()) {
+                if (st != null) {
+                    st.rejected();
+                }
+                return Disposables.disposed();
+            }
+            SharedAction sa = new SharedAction(SchedulerInstrumentation.wrap(run, st, delay, unit), tasks);
             tasks.add(sa);
 
             Disposable task;
             if (delay <= 0L) {
                 task = worker.schedule(sa);
             } else {
-                task = worker.schedule(sa, delay, unit);
+                TimingWheel tw = timer;
+                if (tw != null) {
+                    task = new TimingWheel.TimedHandoff(sa, worker, null).arm(tw, delay, unit);
+                } else {
+                    task = worker.schedule(sa, delay, unit);
+                }
             }
             sa.setFuture(task);
 
@@ -0,0 +1,447 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import hu.akarnokd.rxjava3.util.MpscArrayQueue;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.*;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.internal.schedulers.RxThreadFactory;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Scheduler with a fixed set of dedicated event-loop threads, each draining a
+ * bounded lock-free ring buffer and waiting for more work with a configurable
+ * {@link WaitStrategy}.
+ * <p>
+ * With {@link WaitStrategy#busySpin()} or {@link WaitStrategy#yielding()}, a task
+ * submitted from another thread is picked up without any park/unpark round trip,
+ * at the cost of keeping a core busy per thread; the parking strategies trade
+ * some of that latency for idle CPU time. Delayed tasks travel through the ring
+ * buffer as well and wait in a timer queue of the event-loop thread.
+ * <p>
+ * Other threads submitting tasks while a ring buffer is full spin until there is
+ * room again; tasks submitted from the event-loop thread itself never wait.
+ * <pre><code>
+ * Scheduler s = new SpinningScheduler(2, 1024, WaitStrategy.busySpin());
+ *
+ * marketData.observeOn(s).map(this::normalize).observeOn(s).subscribe(this::publish);
+ * </code></pre>
+ * @since 3.0.0
+ */
+public final class SpinningScheduler extends Scheduler {
+
+    static final SpinLane[] SHUTDOWN = new SpinLane[0];
+
+    /** The maximum number of tasks a lane runs before checking its timers. */
+    static final int DRAIN_BATCH = 128;
+
+    final int parallelism;
+
+    final int capacity;
+
+    final WaitStrategy waitStrategy;
+
+    final ThreadFactory factory;
+
+    final AtomicReference<SpinLane[]> lanes;
+
+    int n;
+
+    /**
+     * Constructs a SpinningScheduler with the given number of threads, ring buffer
+     * capacity per thread and wait strategy, using daemon threads.
+     * @param parallelism the number of event-loop threads, positive
+     * @param capacity the ring buffer capacity per thread, rounded up to the next power of 2
+     * @param waitStrategy the strategy of the idle event-loop threads
+     */
+    public SpinningScheduler(int parallelism, int capacity, WaitStrategy waitStrategy) {
+        this(parallelism, capacity, waitStrategy, new RxThreadFactory("RxSpinningScheduler"));
+    }
+
+    /**
+     * Constructs a SpinningScheduler with the given number of threads, ring buffer
+     * capacity per thread, wait strategy and thread factory.
+     * @param parallelism the number of event-loop threads, positive
+     * @param capacity the ring buffer capacity per thread, rounded up to the next power of 2
+     * @param waitStrategy the strategy of the idle event-loop threads
+     * @param factory the thread factory for the event-loop threads
+     */
+    public SpinningScheduler(int parallelism, int capacity, WaitStrategy waitStrategy, ThreadFactory factory) {
+        ObjectHelper.requireNonNull(waitStrategy, "waitStrategy is null");
+        ObjectHelper.requireNonNull(factory, "factory is null");
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism > 0 required but it was " + parallelism);
+        }
+        // fail fast on an invalid capacity
+        new MpscArrayQueue<Object>(capacity);
+        this.parallelism = parallelism;
+        this.capacity = capacity;
+        this.waitStrategy = waitStrategy;
+        this.factory = factory;
+        this.lanes = new AtomicReference<SpinLane[]>(SHUTDOWN);
+        start();
+    }
+
+    @Override
+    public void start() {
+        for (;;) {
+            SpinLane[] current = lanes.get();
+            if (current != SHUTDOWN) {
+                return;
+            }
+            SpinLane[] next = new SpinLane[parallelism];
+            for (int i = 0; i < next.length; i++) {
+                next[i] = new SpinLane(capacity, waitStrategy);
+            }
+            if (lanes.compareAndSet(current, next)) {
+                for (SpinLane lane : next) {
+                    Thread t = factory.newThread(lane);
+                    lane.thread = t;
+                    t.start();
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        SpinLane[] current = lanes.getAndSet(SHUTDOWN);
+        for (SpinLane lane : current) {
+            lane.stop();
+        }
+    }
+
+    SpinLane pick() {
+        SpinLane[] current = lanes.get();
+        if (current.length == 0) {
+            return null;
+        }
+        int idx = this.n;
+        if (idx >= current.length) {
+            idx = 0;
+        }
+        this.n = idx + 1; // may race, we don't care
+        return current[idx];
+    }
+
+    @Override
+    public Disposable scheduleDirect(Runnable run, long delay, TimeUnit unit) {
+        ObjectHelper.requireNonNull(run, "run is null");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        SpinLane lane = pick();
+        if (lane == null) {
+            return Disposables.disposed();
+        }
+        SpinTask task = new SpinTask(RxJavaPlugins.onSchedule(run), null, deadline(delay, unit));
+        if (lane.offer(task)) {
+            return task;
+        }
+        return Disposables.disposed();
+    }
+
+    static long deadline(long delay, TimeUnit unit) {
+        if (delay <= 0L) {
+            return 0L;
+        }
+        long d = System.nanoTime() + unit.toNanos(delay);
+        // 0 marks the immediate tasks
+        return d == 0L ? 1L : d;
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new SpinWorker(pick());
+    }
+
+    /**
+     * An event-loop thread with its ring buffer and timer queue.
+     */
+    static final class SpinLane implements Runnable {
+
+        final MpscArrayQueue<SpinTask> queue;
+
+        final WaitStrategy waitStrategy;
+
+        /** Accessed by the event-loop thread only. */
+        final ArrayDeque<SpinTask> overflow;
+
+        /** Accessed by the event-loop thread only. */
+        final PriorityQueue<SpinTask> timers;
+
+        /** Accessed by the event-loop thread only. */
+        long timerSequence;
+
+        volatile Thread thread;
+
+        volatile boolean stopped;
+
+        volatile boolean waiting;
+
+        SpinLane(int capacity, WaitStrategy waitStrategy) {
+            this.queue = new MpscArrayQueue<SpinTask>(capacity);
+            this.waitStrategy = waitStrategy;
+            this.overflow = new ArrayDeque<SpinTask>();
+            this.timers = new PriorityQueue<SpinTask>();
+        }
+
+        /**
+         * Submits a task to this lane.
+         * @param task the task to submit
+         * @return false if the lane has been stopped
+         */
+        boolean offer(SpinTask task) {
+            if (stopped) {
+                return false;
+            }
+            if (Thread.currentThread() == thread) {
+                // the loop thread can't wait for itself to make room
+                if (task.deadline != 0L) {
+                    schedule(task);
+                } else
+                if (!overflow.isEmpty() || !queue.offer(task)) {
+                    // keep FIFO order by moving the queued tasks ahead of the new one
+                    SpinTask t;
+                    while ((t = queue.poll()) != null) {
+                        overflow.offer(t);
+                    }
+                    overflow.offer(task);
+                }
+                return true;
+            }
+            while (!queue.offer(task)) {
+                if (stopped) {
+                    return false;
+                }
+                // give the loop thread a chance to make room
+                Thread.yield();
+            }
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+            return true;
+        }
+
+        void stop() {
+            stopped = true;
+            Thread t = thread;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+
+        void schedule(SpinTask task) {
+            task.sequence = timerSequence++;
+            timers.offer(task);
+        }
+
+        SpinTask poll() {
+            SpinTask t = overflow.poll();
+            if (t == null) {
+                t = queue.poll();
+            }
+            return t;
+        }
+
+        @Override
+        public void run() {
+            final WaitStrategy ws = waitStrategy;
+            int round = 0;
+
+            for (;;) {
+                if (stopped) {
+                    clear();
+                    return;
+                }
+
+                boolean worked = false;
+                for (int i = 0; i < DRAIN_BATCH; i++) {
+                    SpinTask t = poll();
+                    if (t == null) {
+                        break;
+                    }
+                    worked = true;
+                    if (t.deadline != 0L) {
+                        schedule(t);
+                    } else {
+                        t.run();
+                    }
+                }
+
+                if (runDueTimers()) {
+                    worked = true;
+                }
+
+                if (worked) {
+                    round = 0;
+                    continue;
+                }
+
+                waiting = true;
+                if (queue.isEmpty() && overflow.isEmpty() && !stopped) {
+                    long wait = nextTimerDelay();
+                    if (wait > 0L) {
+                        ws.idle(round, wait);
+                        // a pending interrupt would make every subsequent park return immediately
+                        Thread.interrupted();
+                        if (round != Integer.MAX_VALUE) {
+                            round++;
+                        }
+                    }
+                }
+                waiting = false;
+            }
+        }
+
+        boolean runDueTimers() {
+            final PriorityQueue<SpinTask> q = timers;
+            SpinTask t = q.peek();
+            if (t == null) {
+                return false;
+            }
+            long now = System.nanoTime();
+            int i = 0;
+            while (i < DRAIN_BATCH && t != null && t.deadline - now <= 0L) {
+                q.poll();
+                t.run();
+                i++;
+                t = q.peek();
+            }
+            return i != 0;
+        }
+
+        long nextTimerDelay() {
+            SpinTask t = timers.peek();
+            if (t == null) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0L, t.deadline - System.nanoTime());
+        }
+
+        void clear() {
+            SpinTask t;
+            while ((t = poll()) != null) {
+                t.dispose();
+            }
+            while ((t = timers.poll()) != null) {
+                t.dispose();
+            }
+        }
+    }
+
+    /**
+     * A task pinned to a lane which doesn't run if it or its worker has been disposed;
+     * delayed tasks wait in the timer queue of their lane.
+     */
+    static final class SpinTask implements Runnable, Disposable, Comparable<SpinTask> {
+
+        final Runnable actual;
+
+        final SpinWorker worker;
+
+        /** The due time of a delayed task, 0 for an immediate task. */
+        final long deadline;
+
+        /** Accessed by the event-loop thread only. */
+        long sequence;
+
+        volatile boolean disposed;
+
+        SpinTask(Runnable actual, SpinWorker worker, long deadline) {
+            this.actual = actual;
+            this.worker = worker;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            if (!disposed && (worker == null || !worker.disposed)) {
+                try {
+                    actual.run();
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    RxJavaPlugins.onError(ex);
+                }
+            }
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+
+        @Override
+        public int compareTo(SpinTask o) {
+            long d = deadline - o.deadline;
+            if (d == 0L) {
+                d = sequence - o.sequence;
+            }
+            return d < 0L ? -1 : (d > 0L ? 1 : 0);
+        }
+    }
+
+    /**
+     * Submits its tasks to the same lane; disposing it turns its
+     * outstanding tasks into no-ops.
+     */
+    static final class SpinWorker extends Worker {
+
+        final SpinLane lane;
+
+        volatile boolean disposed;
+
+        SpinWorker(SpinLane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
+            ObjectHelper.requireNonNull(run, "run is null");
+            ObjectHelper.requireNonNull(unit, "unit is null");
+            SpinLane ln = lane;
+            if (!disposed && ln != null) {
+                SpinTask task = new SpinTask(RxJavaPlugins.onSchedule(run), this, deadline(delay, unit));
+                if (ln.offer(task)) {
+                    return task;
+                }
+            }
+            return Disposables.disposed();
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
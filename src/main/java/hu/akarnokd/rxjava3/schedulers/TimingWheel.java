@@ -0,0 +1,446 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+
+import io.reactivex.Scheduler.Worker;
+import io.reactivex.disposables.*;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.internal.disposables.*;
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.internal.schedulers.RxThreadFactory;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * A hashed timing wheel with a single ticker thread that arms and cancels
+ * timeouts in O(1) time with the precision of the configured tick duration.
+ * <p>
+ * Arming a timeout pushes it onto a lock-free stack the ticker thread
+ * moves into the wheel's buckets; cancelling a timeout just marks it
+ * and releases its task, the ticker unlinks it the next time it visits
+ * its bucket. Expired timeouts run on the ticker thread, therefore they
+ * should only hand off the real work to some other thread.
+ * <p>
+ * The wheel can be plugged into {@link ParallelScheduler} and {@link SharedScheduler}
+ * to serve their delayed and periodic tasks, which is beneficial when lots of short
+ * timeouts are armed and most of them get cancelled before they fire.
+ * <pre><code>
+ * TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+ *
+ * Scheduler s = new ParallelScheduler(4, Executors.defaultThreadFactory(), true, false, wheel);
+ * </code></pre>
+ * @since 3.0.0
+ */
+public final class TimingWheel {
+
+    static final int DEFAULT_WHEEL_SIZE = 512;
+
+    final long tickNanos;
+
+    final int wheelSize;
+
+    final ThreadFactory factory;
+
+    final AtomicReference<Ticker> ticker;
+
+    /**
+     * Constructs a TimingWheel with the given tick duration, 512 buckets
+     * and a daemon ticker thread.
+     * @param tickDuration the tick duration, positive
+     * @param unit the tick duration's time unit
+     */
+    public TimingWheel(long tickDuration, TimeUnit unit) {
+        this(tickDuration, unit, DEFAULT_WHEEL_SIZE, new RxThreadFactory("RxTimingWheel"));
+    }
+
+    /**
+     * Constructs a TimingWheel with the given tick duration, number of buckets
+     * and ticker thread factory.
+     * @param tickDuration the tick duration, positive
+     * @param unit the tick duration's time unit
+     * @param wheelSize the number of buckets, rounded up to the next power of 2
+     * @param factory the thread factory for the ticker thread
+     */
+    public TimingWheel(long tickDuration, TimeUnit unit, int wheelSize, ThreadFactory factory) {
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        ObjectHelper.requireNonNull(factory, "factory is null");
+        if (tickDuration <= 0L) {
+            throw new IllegalArgumentException("tickDuration > 0 required but it was " + tickDuration);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize in (0, 2^30] required but it was " + wheelSize);
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheelSize = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        this.factory = factory;
+        this.ticker = new AtomicReference<Ticker>();
+        start();
+    }
+
+    /**
+     * Starts the ticker thread if it is not already running.
+     */
+    public void start() {
+        for (;;) {
+            if (ticker.get() != null) {
+                return;
+            }
+            Ticker t = new Ticker(tickNanos, wheelSize);
+            if (ticker.compareAndSet(null, t)) {
+                Thread thread = factory.newThread(t);
+                t.thread = thread;
+                thread.start();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops the ticker thread and drops all armed timeouts.
+     */
+    public void shutdown() {
+        Ticker t = ticker.getAndSet(null);
+        if (t != null) {
+            t.stop();
+        }
+    }
+
+    /**
+     * Arms a timeout which runs the given task on the ticker thread
+     * once the given delay elapsed.
+     * @param task the task to run, should not block
+     * @param delay the delay
+     * @param unit the delay's time unit
+     * @return the Disposable that allows cancelling the timeout in O(1) time
+     */
+    public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+        ObjectHelper.requireNonNull(task, "task is null");
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        Ticker t = ticker.get();
+        if (t == null) {
+            return Disposables.disposed();
+        }
+        WheelTimeout timeout = new WheelTimeout(task, System.nanoTime() + unit.toNanos(Math.max(0L, delay)));
+        t.arm(timeout);
+        if (t.stopped) {
+            timeout.dispose();
+        }
+        return timeout;
+    }
+
+    static final int ARMED = 0;
+    static final int CANCELLED = 1;
+    static final int EXPIRED = 2;
+
+    static final class WheelTimeout extends AtomicInteger implements Disposable {
+
+        private static final long serialVersionUID = -2964812386458498547L;
+
+        final long deadline;
+
+        Runnable task;
+
+        /** The rest of the fields are only accessed by the ticker thread. */
+        long rounds;
+
+        WheelTimeout prev;
+
+        WheelTimeout next;
+
+        WheelTimeout pendingNext;
+
+        WheelTimeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void dispose() {
+            if (get() == ARMED && compareAndSet(ARMED, CANCELLED)) {
+                task = null;
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return get() != ARMED;
+        }
+
+        void expire() {
+            if (compareAndSet(ARMED, EXPIRED)) {
+                Runnable r = task;
+                task = null;
+                try {
+                    r.run();
+                } catch (Throwable ex) {
+                    Exceptions.throwIfFatal(ex);
+                    RxJavaPlugins.onError(ex);
+                }
+            }
+        }
+    }
+
+    static final class Ticker implements Runnable {
+
+        final long tickNanos;
+
+        final WheelTimeout[] heads;
+
+        final WheelTimeout[] tails;
+
+        final int mask;
+
+        final AtomicReference<WheelTimeout> pending;
+
+        final long startTime;
+
+        volatile boolean stopped;
+
+        volatile Thread thread;
+
+        long tick;
+
+        Ticker(long tickNanos, int wheelSize) {
+            this.tickNanos = tickNanos;
+            this.heads = new WheelTimeout[wheelSize];
+            this.tails = new WheelTimeout[wheelSize];
+            this.mask = wheelSize - 1;
+            this.pending = new AtomicReference<WheelTimeout>();
+            this.startTime = System.nanoTime();
+        }
+
+        void arm(WheelTimeout timeout) {
+            AtomicReference<WheelTimeout> p = pending;
+            for (;;) {
+                WheelTimeout h = p.get();
+                timeout.pendingNext = h;
+                if (p.compareAndSet(h, timeout)) {
+                    break;
+                }
+            }
+        }
+
+        void stop() {
+            stopped = true;
+            Thread t = thread;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+
+        @Override
+        public void run() {
+            for (;;) {
+                long deadline = startTime + (tick + 1) * tickNanos;
+                for (;;) {
+                    if (stopped) {
+                        clear();
+                        return;
+                    }
+                    long delay = deadline - System.nanoTime();
+                    if (delay <= 0L) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, delay);
+                }
+
+                transferPending();
+
+                expireBucket((int)(tick & mask));
+
+                tick++;
+            }
+        }
+
+        void transferPending() {
+            WheelTimeout t = pending.getAndSet(null);
+            // restore the arming order so timeouts of the same tick fire in FIFO order
+            WheelTimeout r = null;
+            while (t != null) {
+                WheelTimeout n = t.pendingNext;
+                t.pendingNext = r;
+                r = t;
+                t = n;
+            }
+            t = r;
+            while (t != null) {
+                WheelTimeout n = t.pendingNext;
+                t.pendingNext = null;
+                if (t.get() == ARMED) {
+                    long calculated = (t.deadline - startTime) / tickNanos;
+                    long current = tick;
+                    t.rounds = (calculated - current) / heads.length;
+                    int idx = (int)(Math.max(calculated, current) & mask);
+
+                    WheelTimeout tail = tails[idx];
+                    t.prev = tail;
+                    if (tail == null) {
+                        heads[idx] = t;
+                    } else {
+                        tail.next = t;
+                    }
+                    tails[idx] = t;
+                }
+                t = n;
+            }
+        }
+
+        void expireBucket(int idx) {
+            WheelTimeout t = heads[idx];
+            while (t != null) {
+                WheelTimeout n = t.next;
+                if (t.get() != ARMED) {
+                    unlink(idx, t);
+                } else
+                if (t.rounds <= 0L) {
+                    unlink(idx, t);
+                    t.expire();
+                } else {
+                    t.rounds--;
+                }
+                t = n;
+            }
+        }
+
+        void unlink(int idx, WheelTimeout t) {
+            WheelTimeout p = t.prev;
+            WheelTimeout n = t.next;
+            if (p == null) {
+                heads[idx] = n;
+            } else {
+                p.next = n;
+            }
+            if (n == null) {
+                tails[idx] = p;
+            } else {
+                n.prev = p;
+            }
+            t.prev = null;
+            t.next = null;
+        }
+
+        void clear() {
+            transferPending();
+            for (int i = 0; i < heads.length; i++) {
+                WheelTimeout t = heads[i];
+                while (t != null) {
+                    WheelTimeout n = t.next;
+                    t.dispose();
+                    t.prev = null;
+                    t.next = null;
+                    t = n;
+                }
+                heads[i] = null;
+                tails[i] = null;
+            }
+            WheelTimeout t = pending.getAndSet(null);
+            while (t != null) {
+                t.dispose();
+                t = t.pendingNext;
+            }
+        }
+    }
+
+    /**
+     * Waits on a TimingWheel and once the timeout fires, schedules the actual
+     * task on a Worker or a lane of a ParallelScheduler without delay.
+     */
+    static final class TimedHandoff extends AtomicReference<Disposable> implements Runnable, Disposable {
+
+        private static final long serialVersionUID = 5412538127435209712L;
+
+        final Runnable actual;
+
+        final Worker worker;
+
+        final ParallelScheduler scheduler;
+
+        final ScheduledExecutorService lane;
+
+        final DisposableContainer parent;
+
+        TimedHandoff(Runnable actual, Worker worker, DisposableContainer parent) {
+            this.actual = actual;
+            this.worker = worker;
+            this.scheduler = null;
+            this.lane = null;
+            this.parent = parent;
+        }
+
+        TimedHandoff(Runnable actual, ParallelScheduler scheduler, ScheduledExecutorService lane) {
+            this.actual = actual;
+            this.worker = null;
+            this.scheduler = scheduler;
+            this.lane = lane;
+            this.parent = null;
+        }
+
+        /**
+         * Arms the timeout for this handoff.
+         * @param wheel the wheel to use
+         * @param delay the delay amount
+         * @param unit the delay time unit
+         * @return this, or the disposed instance if the wheel was shut down
+         */
+        Disposable arm(TimingWheel wheel, long delay, TimeUnit unit) {
+            Disposable d = wheel.schedule(this, delay, unit);
+            if (d == Disposables.disposed()) {
+                dispose();
+                return d;
+            }
+            if (!compareAndSet(null, d)) {
+                if (get() == DisposableHelper.DISPOSED) {
+                    d.dispose();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public void run() {
+            if (parent != null) {
+                parent.delete(this);
+            }
+            if (!isDisposed()) {
+                Disposable d;
+                if (worker != null) {
+                    d = worker.schedule(actual);
+                } else {
+                    d = scheduler.scheduleDirect(lane, actual);
+                }
+                DisposableHelper.replace(this, d);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (DisposableHelper.dispose(this)) {
+                if (parent != null) {
+                    parent.delete(this);
+                }
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return DisposableHelper.isDisposed(get());
+        }
+    }
+}
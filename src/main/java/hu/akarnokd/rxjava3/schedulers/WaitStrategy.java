@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * Determines how an event-loop thread waits when it has run out of work.
+ * <p>
+ * The loop calls {@link #idle(int, long)} repeatedly, with an increasing round number,
+ * until new work arrives; producers unpark the loop thread when it signalled that it is
+ * waiting, therefore a strategy may park the current thread without missing work.
+ * @since 3.0.0
+ */
+public abstract class WaitStrategy {
+
+    /**
+     * Called by the event-loop thread when it found no work to do.
+     * @param round the number of consecutive idle rounds before this one, starting from zero
+     * @param maxWaitNanos the maximum time to wait in nanoseconds because a timed task
+     *                     is due by then, {@link Long#MAX_VALUE} if there is no such task
+     */
+    public abstract void idle(int round, long maxWaitNanos);
+
+    /**
+     * Returns a wait strategy that keeps spinning without ever giving up the CPU,
+     * offering the lowest latency at the cost of burning a core.
+     * @return the WaitStrategy instance
+     */
+    public static WaitStrategy busySpin() {
+        return BusySpinHolder.INSTANCE;
+    }
+
+    /**
+     * Returns a wait strategy that yields the thread in each round,
+     * letting other threads run on the core but never parking.
+     * @return the WaitStrategy instance
+     */
+    public static WaitStrategy yielding() {
+        return YieldingHolder.INSTANCE;
+    }
+
+    /**
+     * Returns a wait strategy that parks the thread for at most the given
+     * time in each round, i.e., it checks for new work periodically even
+     * if nobody unparks it.
+     * @param time the maximum park time, positive
+     * @param unit the time unit
+     * @return the new WaitStrategy instance
+     */
+    public static WaitStrategy timedPark(long time, TimeUnit unit) {
+        ObjectHelper.requireNonNull(unit, "unit is null");
+        if (time <= 0L) {
+            throw new IllegalArgumentException("time > 0 required but it was " + time);
+        }
+        return new TimedParkWaitStrategy(unit.toNanos(time));
+    }
+
+    /**
+     * Returns a wait strategy that spins for the given number of rounds,
+     * then yields the thread for the given number of rounds and then parks
+     * the thread until new work arrives.
+     * @param spinRounds the number of rounds to spin, non-negative
+     * @param yieldRounds the number of rounds to yield, non-negative
+     * @return the new WaitStrategy instance
+     */
+    public static WaitStrategy spinThenPark(int spinRounds, int yieldRounds) {
+        if (spinRounds < 0) {
+            throw new IllegalArgumentException("spinRounds >= 0 required but it was " + spinRounds);
+        }
+        if (yieldRounds < 0) {
+            throw new IllegalArgumentException("yieldRounds >= 0 required but it was " + yieldRounds);
+        }
+        return new SpinThenParkWaitStrategy(spinRounds, yieldRounds);
+    }
+
+    /**
+     * Returns a wait strategy that parks the thread right away until new work arrives.
+     * @return the WaitStrategy instance
+     */
+    public static WaitStrategy park() {
+        return ParkHolder.INSTANCE;
+    }
+
+    static void parkAtMost(long maxWaitNanos) {
+        if (maxWaitNanos == Long.MAX_VALUE) {
+            LockSupport.park();
+        } else
+        if (maxWaitNanos > 0L) {
+            LockSupport.parkNanos(maxWaitNanos);
+        }
+    }
+
+    static final class ParkHolder {
+        static final WaitStrategy INSTANCE = new SpinThenParkWaitStrategy(0, 0);
+    }
+
+    static final class BusySpinHolder {
+        static final WaitStrategy INSTANCE = new BusySpinWaitStrategy();
+    }
+
+    static final class YieldingHolder {
+        static final WaitStrategy INSTANCE = new YieldingWaitStrategy();
+    }
+
+    static final class BusySpinWaitStrategy extends WaitStrategy {
+
+        @Override
+        public void idle(int round, long maxWaitNanos) {
+            // deliberately no-op, the caller loops right back
+        }
+    }
+
+    static final class YieldingWaitStrategy extends WaitStrategy {
+
+        @Override
+        public void idle(int round, long maxWaitNanos) {
+            Thread.yield();
+        }
+    }
+
+    static final class TimedParkWaitStrategy extends WaitStrategy {
+
+        final long parkNanos;
+
+        TimedParkWaitStrategy(long parkNanos) {
+            this.parkNanos = parkNanos;
+        }
+
+        @Override
+        public void idle(int round, long maxWaitNanos) {
+            parkAtMost(Math.min(parkNanos, maxWaitNanos));
+        }
+    }
+
+    static final class SpinThenParkWaitStrategy extends WaitStrategy {
+
+        final int spinRounds;
+
+        final int yieldRounds;
+
+        SpinThenParkWaitStrategy(int spinRounds, int yieldRounds) {
+            this.spinRounds = spinRounds;
+            this.yieldRounds = yieldRounds;
+        }
+
+        @Override
+        public void idle(int round, long maxWaitNanos) {
+            if (round < spinRounds) {
+                return;
+            }
+            if (round - spinRounds < yieldRounds) {
+                Thread.yield();
+                return;
+            }
+            parkAtMost(maxWaitNanos);
+        }
+    }
+}
@@ -17,7 +17,15 @@
 /**
  * Special scheduler implementations, such as
  * {@link hu.akarnokd.rxjava3.schedulers.BlockingScheduler BlockingScheduler},
- * {@link hu.akarnokd.rxjava3.schedulers.ParallelScheduler ParallelScheduler} and
- * {@link hu.akarnokd.rxjava3.schedulers.SharedScheduler SharedScheduler}.
+ * {@link hu.akarnokd.rxjava3.schedulers.ElasticParallelScheduler ElasticParallelScheduler},
+ * {@link hu.akarnokd.rxjava3.schedulers.KeyedScheduler KeyedScheduler},
+ * {@link hu.akarnokd.rxjava3.schedulers.ParallelScheduler ParallelScheduler},
+ * {@link hu.akarnokd.rxjava3.schedulers.SelectorScheduler SelectorScheduler},
+ * {@link hu.akarnokd.rxjava3.schedulers.SpinningScheduler SpinningScheduler} and
+ * {@link hu.akarnokd.rxjava3.schedulers.SharedScheduler SharedScheduler}, and the
+ * {@link hu.akarnokd.rxjava3.schedulers.TimingWheel TimingWheel} they can use for
+ * their delayed tasks and the
+ * {@link hu.akarnokd.rxjava3.schedulers.SchedulerInstrumentation SchedulerInstrumentation}
+ * to record their task statistics.
  */
 package hu.akarnokd.rxjava3.schedulers;
\ No newline at end of file
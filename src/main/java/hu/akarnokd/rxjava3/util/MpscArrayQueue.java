@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.util;
+
+import java.util.concurrent.atomic.*;
+
+import io.reactivex.internal.functions.ObjectHelper;
+import io.reactivex.internal.fuseable.SimplePlainQueue;
+
+/**
+ * A bounded, array-backed multi-producer single-consumer queue.
+ * <p>
+ * Producers claim a slot by incrementing the producer index and then
+ * publish the element into it; the single consumer frees the slot
+ * before advancing the consumer index, which the producers check
+ * against the capacity.
+ *
+ * @param <T> the value type
+ * @since 3.0.0
+ */
+public final class MpscArrayQueue<T> extends AtomicReferenceArray<T>
+implements SimplePlainQueue<T> {
+
+    private static final long serialVersionUID = 5296796413542425741L;
+
+    final int mask;
+
+    final AtomicLong producerIndex;
+
+    final AtomicLong consumerIndex;
+
+    /**
+     * Constructs an empty queue with the given capacity rounded up to the
+     * next power of 2.
+     * @param capacity the capacity, positive
+     */
+    public MpscArrayQueue(int capacity) {
+        super(roundToPowerOfTwo(capacity));
+        this.mask = length() - 1;
+        this.producerIndex = new AtomicLong();
+        this.consumerIndex = new AtomicLong();
+    }
+
+    static int roundToPowerOfTwo(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity in (0, 2^30] required but it was " + capacity);
+        }
+        return capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Returns the actual capacity of this queue.
+     * @return the capacity
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public boolean offer(T value) {
+        ObjectHelper.requireNonNull(value, "value is null");
+        final AtomicLong pi = producerIndex;
+        final long cap = mask + 1;
+        for (;;) {
+            long p = pi.get();
+            if (p - consumerIndex.get() >= cap) {
+                return false;
+            }
+            if (pi.compareAndSet(p, p + 1)) {
+                lazySet((int)p & mask, value);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Offers two elements atomically, i.e., either both are enqueued next
+     * to each other or neither if there is not enough room for both.
+     * @param v1 the first element
+     * @param v2 the second element
+     * @return true if both elements were enqueued
+     */
+    @Override
+    public boolean offer(T v1, T v2) {
+        ObjectHelper.requireNonNull(v1, "v1 is null");
+        ObjectHelper.requireNonNull(v2, "v2 is null");
+        final AtomicLong pi = producerIndex;
+        final long cap = mask + 1;
+        for (;;) {
+            long p = pi.get();
+            if (p - consumerIndex.get() > cap - 2) {
+                return false;
+            }
+            if (pi.compareAndSet(p, p + 2)) {
+                lazySet((int)(p + 1) & mask, v2);
+                lazySet((int)p & mask, v1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the oldest element or null if the queue is empty;
+     * must be called from the single consumer thread only.
+     * @return the oldest element or null
+     */
+    @Override
+    public T poll() {
+        final AtomicLong ci = consumerIndex;
+        long c = ci.get();
+        int offset = (int)c & mask;
+        T v = get(offset);
+        if (v == null) {
+            if (c == producerIndex.get()) {
+                return null;
+            }
+            // a producer has claimed the slot but hasn't published into it yet
+            do {
+                v = get(offset);
+            } while (v == null);
+        }
+        lazySet(offset, null);
+        ci.lazySet(c + 1);
+        return v;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return consumerIndex.get() == producerIndex.get();
+    }
+
+    /**
+     * Returns the approximate number of elements in this queue.
+     * @return the approximate number of elements
+     */
+    public int size() {
+        for (;;) {
+            long c = consumerIndex.get();
+            long p = producerIndex.get();
+            if (c == consumerIndex.get()) {
+                return (int)(p - c);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) { }
+    }
+}
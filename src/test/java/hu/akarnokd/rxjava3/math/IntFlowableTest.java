@@ -0,0 +1,426 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.math;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.*;
+
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+
+import hu.akarnokd.rxjava3.functions.*;
+import io.reactivex.Flowable;
+import io.reactivex.functions.LongConsumer;
+
+public class IntFlowableTest {
+
+    static final IntPredicate EVEN = new IntPredicate() {
+        @Override
+        public boolean test(int value) {
+            return value % 2 == 0;
+        }
+    };
+
+    static class IntTestSubscriber implements IntSubscriber {
+
+        final long initialRequest;
+
+        final List<Integer> values = new ArrayList<Integer>();
+
+        final List<Throwable> errors = new ArrayList<Throwable>();
+
+        int completions;
+
+        Subscription upstream;
+
+        IntTestSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            upstream = s;
+            if (initialRequest != 0L) {
+                s.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNextInt(int value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            errors.add(t);
+        }
+
+        @Override
+        public void onComplete() {
+            completions++;
+        }
+    }
+
+    @Test
+    public void range() {
+        IntFlowable.range(1, 5)
+        .toFlowable()
+        .test()
+        .assertResult(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void rangeEmpty() {
+        IntFlowable.range(1, 0)
+        .toFlowable()
+        .test()
+        .assertResult();
+    }
+
+    @Test
+    public void rangeEdge() {
+        IntFlowable.range(Integer.MAX_VALUE - 1, 2)
+        .toFlowable()
+        .test()
+        .assertResult(Integer.MAX_VALUE - 1, Integer.MAX_VALUE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeOverflow() {
+        IntFlowable.range(Integer.MAX_VALUE, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeNegativeCount() {
+        IntFlowable.range(1, -1);
+    }
+
+    @Test
+    public void rangeBackpressured() {
+        IntTestSubscriber ts = new IntTestSubscriber(0L);
+
+        IntFlowable.range(1, 5).subscribe(ts);
+
+        assertTrue(ts.values.isEmpty());
+
+        ts.upstream.request(2);
+
+        assertEquals(Arrays.asList(1, 2), ts.values);
+        assertEquals(0, ts.completions);
+
+        ts.upstream.request(3);
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), ts.values);
+        assertEquals(1, ts.completions);
+    }
+
+    @Test
+    public void rangeCancel() {
+        IntTestSubscriber ts = new IntTestSubscriber(0L) {
+            @Override
+            public void onNextInt(int value) {
+                super.onNextInt(value);
+                if (value == 3) {
+                    upstream.cancel();
+                }
+            }
+        };
+
+        IntFlowable.range(1, 5).subscribe(ts);
+
+        ts.upstream.request(Long.MAX_VALUE);
+
+        assertEquals(Arrays.asList(1, 2, 3), ts.values);
+        assertEquals(0, ts.completions);
+    }
+
+    @Test
+    public void fromArray() {
+        IntFlowable.fromArray(3, 1, 2)
+        .toFlowable()
+        .test()
+        .assertResult(3, 1, 2);
+    }
+
+    @Test
+    public void fromArrayBackpressured() {
+        IntFlowable.fromArray(3, 1, 2)
+        .toFlowable()
+        .test(1)
+        .assertValuesOnly(3)
+        .requestMore(2)
+        .assertResult(3, 1, 2);
+    }
+
+    @Test
+    public void fromArrayEmpty() {
+        IntFlowable.fromArray()
+        .toFlowable()
+        .test()
+        .assertResult();
+    }
+
+    @Test
+    public void fromPublisher() {
+        IntFlowable.fromPublisher(Flowable.range(1, 5))
+        .map(new IntUnaryOperator() {
+            @Override
+            public int apply(int value) {
+                return value * 10;
+            }
+        })
+        .toFlowable()
+        .test()
+        .assertResult(10, 20, 30, 40, 50);
+    }
+
+    @Test
+    public void fromPublisherIdentity() {
+        IntFlowable f = IntFlowable.range(1, 5);
+
+        assertSame(f, IntFlowable.fromPublisher(f));
+    }
+
+    @Test
+    public void fromPublisherError() {
+        IntFlowable.fromPublisher(Flowable.<Integer>error(new IOException()))
+        .toFlowable()
+        .test()
+        .assertFailure(IOException.class);
+    }
+
+    @Test
+    public void map() {
+        IntFlowable.range(1, 5)
+        .map(new IntUnaryOperator() {
+            @Override
+            public int apply(int value) {
+                return value + 1;
+            }
+        })
+        .toFlowable()
+        .test()
+        .assertResult(2, 3, 4, 5, 6);
+    }
+
+    @Test
+    public void mapCrash() {
+        IntFlowable.range(1, 5)
+        .map(new IntUnaryOperator() {
+            @Override
+            public int apply(int value) {
+                if (value == 3) {
+                    throw new IllegalStateException();
+                }
+                return value;
+            }
+        })
+        .toFlowable()
+        .test()
+        .assertFailure(IllegalStateException.class, 1, 2);
+    }
+
+    @Test
+    public void filter() {
+        IntFlowable.range(1, 10)
+        .filter(EVEN)
+        .toFlowable()
+        .test()
+        .assertResult(2, 4, 6, 8, 10);
+    }
+
+    @Test
+    public void filterBackpressured() {
+        IntFlowable.fromArray(1, 2, 3, 4, 5, 6)
+        .filter(EVEN)
+        .toFlowable()
+        .test(1)
+        .assertValuesOnly(2)
+        .requestMore(1)
+        .assertValuesOnly(2, 4)
+        .requestMore(1)
+        .assertResult(2, 4, 6);
+    }
+
+    @Test
+    public void filterMapConditional() {
+        IntTestSubscriber ts = new IntTestSubscriber(0L);
+
+        IntFlowable.range(1, 10)
+        .filter(EVEN)
+        .map(new IntUnaryOperator() {
+            @Override
+            public int apply(int value) {
+                return -value;
+            }
+        })
+        .filter(new IntPredicate() {
+            @Override
+            public boolean test(int value) {
+                return value < -4;
+            }
+        })
+        .subscribe(ts);
+
+        ts.upstream.request(2);
+
+        assertEquals(Arrays.asList(-6, -8), ts.values);
+        assertEquals(0, ts.completions);
+
+        ts.upstream.request(1);
+
+        assertEquals(Arrays.asList(-6, -8, -10), ts.values);
+        assertEquals(1, ts.completions);
+    }
+
+    @Test
+    public void filterOnNonConditionalUpstream() {
+        final List<Long> requests = new ArrayList<Long>();
+
+        IntFlowable.fromPublisher(Flowable.range(1, 6)
+                .doOnRequest(new LongConsumer() {
+                    @Override
+                    public void accept(long n) throws Exception {
+                        requests.add(n);
+                    }
+                }))
+        .filter(EVEN)
+        .toFlowable()
+        .test(2)
+        .assertValuesOnly(2, 4);
+
+        // the dropped odd values are replenished one by one
+        assertEquals(Arrays.asList(2L, 1L, 1L), requests);
+    }
+
+    @Test
+    public void sum() {
+        IntFlowable.range(1, 100)
+        .sum()
+        .test()
+        .assertResult(5050);
+    }
+
+    @Test
+    public void sumEmpty() {
+        IntFlowable.range(1, 0)
+        .sum()
+        .test()
+        .assertResult();
+    }
+
+    @Test
+    public void sumBackpressured() {
+        IntFlowable.range(1, 3)
+        .sum()
+        .test(0)
+        .assertEmpty()
+        .requestMore(1)
+        .assertResult(6);
+    }
+
+    @Test
+    public void minMax() {
+        IntFlowable.fromArray(3, -5, 7, 1)
+        .min()
+        .test()
+        .assertResult(-5);
+
+        IntFlowable.fromArray(3, -5, 7, 1)
+        .max()
+        .test()
+        .assertResult(7);
+
+        IntFlowable.fromArray(Integer.MIN_VALUE)
+        .max()
+        .test()
+        .assertResult(Integer.MIN_VALUE);
+
+        IntFlowable.fromArray()
+        .min()
+        .test()
+        .assertResult();
+    }
+
+    @Test
+    public void average() {
+        IntFlowable.range(1, 4)
+        .average()
+        .test()
+        .assertResult(2.5);
+
+        IntFlowable.fromArray(Integer.MAX_VALUE, Integer.MAX_VALUE)
+        .average()
+        .test()
+        .assertResult((double)Integer.MAX_VALUE);
+
+        IntFlowable.fromArray()
+        .average()
+        .test()
+        .assertResult();
+    }
+
+    @Test
+    public void aggregateError() {
+        IntFlowable.fromPublisher(Flowable.just(1).concatWith(Flowable.<Integer>error(new IOException())))
+        .sum()
+        .test()
+        .assertFailure(IOException.class);
+    }
+
+    @Test
+    public void aggregateCancel() {
+        final boolean[] cancelled = { false };
+
+        IntFlowable f = new IntFlowable() {
+            @Override
+            protected void subscribeActual(IntSubscriber s) {
+                s.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                        cancelled[0] = true;
+                    }
+                });
+            }
+        };
+
+        f.max().test().cancel();
+
+        assertTrue(cancelled[0]);
+    }
+
+    @Test
+    public void longRange() {
+        IntFlowable.range(0, 1000000)
+        .filter(EVEN)
+        .map(new IntUnaryOperator() {
+            @Override
+            public int apply(int value) {
+                return value >> 1;
+            }
+        })
+        .max()
+        .test()
+        .assertResult(499999);
+    }
+}
@@ -18,6 +18,8 @@ package hu.akarnokd.rxjava3.math;
 
 import static hu.akarnokd.rxjava3.math.MathFlowable.*;
 
+import static org.junit.Assert.*;
+
 import org.junit.Test;
 
 import hu.akarnokd.rxjava3.test.BaseTest;
@@ -180,4 +182,33 @@ public class MathFlowableTest extends BaseTest {
     public void emptyAverageDouble() {
         assertResult(averageDouble(doubleEmpty()));
     }
+
+    @Test
+    public void normalStats() {
+        Statistics st = stats(flow(2, 4, 4, 4, 5, 5, 7, 9)).blockingSingle();
+
+        assertEquals(8, st.count());
+        assertEquals(40D, st.sum(), 0D);
+        assertEquals(2D, st.min(), 0D);
+        assertEquals(9D, st.max(), 0D);
+        assertEquals(5D, st.mean(), 0D);
+        assertEquals(4D, st.variance(), 1e-12);
+        assertEquals(2D, st.standardDeviation(), 1e-12);
+        assertEquals(32D / 7, st.sampleVariance(), 1e-12);
+    }
+
+    @Test
+    public void singleStats() {
+        Statistics st = stats(flow(1.5D)).blockingSingle();
+
+        assertEquals(1, st.count());
+        assertEquals(1.5D, st.mean(), 0D);
+        assertEquals(0D, st.variance(), 0D);
+        assertTrue(Double.isNaN(st.sampleVariance()));
+    }
+
+    @Test
+    public void emptyStats() {
+        stats(intEmpty()).test().assertResult();
+    }
 }
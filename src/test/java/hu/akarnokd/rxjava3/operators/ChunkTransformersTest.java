@@ -0,0 +1,362 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import hu.akarnokd.rxjava3.functions.*;
+import io.reactivex.Flowable;
+import io.reactivex.functions.*;
+import io.reactivex.functions.Function;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.TestSubscriber;
+
+public class ChunkTransformersTest {
+
+    static int[] intChunk(int start, int count) {
+        int[] a = new int[count];
+        for (int i = 0; i < count; i++) {
+            a[i] = start + i;
+        }
+        return a;
+    }
+
+    @Test
+    public void mapChunk() {
+        TestSubscriber<String[]> ts = Flowable.just(new Integer[] { 1, 2 }, new Integer[] { }, new Integer[] { 3 })
+        .compose(ChunkTransformers.mapChunk(new Function<Integer, String>() {
+            @Override
+            public String apply(Integer v) throws Exception {
+                return "" + (v * 10);
+            }
+        }, String.class))
+        .test()
+        .assertValueCount(3)
+        .assertNoErrors()
+        .assertComplete();
+
+        assertArrayEquals(new String[] { "10", "20" }, ts.values().get(0));
+        assertArrayEquals(new String[] { }, ts.values().get(1));
+        assertArrayEquals(new String[] { "30" }, ts.values().get(2));
+        assertEquals(String[].class, ts.values().get(0).getClass());
+    }
+
+    @Test
+    public void mapChunkError() {
+        Flowable.just(new Integer[] { 1, 2 })
+        .compose(ChunkTransformers.mapChunk(new Function<Integer, String>() {
+            @Override
+            public String apply(Integer v) throws Exception {
+                throw new IOException();
+            }
+        }, String.class))
+        .test()
+        .assertFailure(IOException.class);
+    }
+
+    @Test
+    public void filterChunk() {
+        Integer[] allEven = { 2, 4 };
+
+        TestSubscriber<Integer[]> ts = Flowable.just(new Integer[] { 1, 2, 3, 4, 5 }, new Integer[] { 1, 3 }, allEven, new Integer[] { 6, 7 })
+        .compose(ChunkTransformers.filterChunk(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer v) throws Exception {
+                return v % 2 == 0;
+            }
+        }))
+        .test()
+        .assertValueCount(3)
+        .assertNoErrors()
+        .assertComplete();
+
+        assertArrayEquals(new Integer[] { 2, 4 }, ts.values().get(0));
+        assertSame(allEven, ts.values().get(1));
+        assertArrayEquals(new Integer[] { 6 }, ts.values().get(2));
+    }
+
+    @Test
+    public void filterChunkBackpressured() {
+        TestSubscriber<int[]> ts = Flowable.just(intChunk(1, 3), intChunk(1, 1), intChunk(10, 3))
+        .compose(ChunkTransformers.filterChunkInt(new IntPredicate() {
+            @Override
+            public boolean test(int v) {
+                return v > 1;
+            }
+        }))
+        .test(1);
+
+        ts.assertValueCount(1).assertNotComplete();
+
+        assertArrayEquals(new int[] { 2, 3 }, ts.values().get(0));
+
+        ts.requestMore(1);
+
+        ts.assertValueCount(2).assertNoErrors().assertComplete();
+
+        assertArrayEquals(new int[] { 10, 11, 12 }, ts.values().get(1));
+    }
+
+    @Test
+    public void reduceChunk() {
+        Flowable.just(new String[] { "a", "b" }, new String[] { }, new String[] { "c" })
+        .compose(ChunkTransformers.reduceChunk(new Supplier<StringBuilder>() {
+            @Override
+            public StringBuilder get() throws Exception {
+                return new StringBuilder();
+            }
+        }, new BiFunction<StringBuilder, String, StringBuilder>() {
+            @Override
+            public StringBuilder apply(StringBuilder a, String b) throws Exception {
+                return a.append(b);
+            }
+        }))
+        .map(new Function<StringBuilder, String>() {
+            @Override
+            public String apply(StringBuilder v) throws Exception {
+                return v.toString();
+            }
+        })
+        .test()
+        .assertResult("abc");
+    }
+
+    @Test
+    public void flattenChunks() {
+        Flowable.just(new Integer[] { 1, 2 }, new Integer[] { }, new Integer[] { 3, 4, 5 })
+        .compose(ChunkTransformers.<Integer>flattenChunks())
+        .test()
+        .assertResult(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void flattenChunksBackpressured() {
+        final List<Long> requests = new ArrayList<Long>();
+
+        TestSubscriber<Integer> ts = Flowable.range(0, 10)
+        .map(new Function<Integer, int[]>() {
+            @Override
+            public int[] apply(Integer v) throws Exception {
+                return intChunk(v * 3, 3);
+            }
+        })
+        .doOnRequest(new LongConsumer() {
+            @Override
+            public void accept(long n) throws Exception {
+                requests.add(n);
+            }
+        })
+        .compose(ChunkTransformers.flattenChunksInt(4))
+        .test(0);
+
+        assertEquals(Arrays.asList(4L), requests);
+
+        ts.requestMore(5);
+
+        ts.assertValuesOnly(0, 1, 2, 3, 4);
+
+        ts.requestMore(5);
+
+        ts.assertValuesOnly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+
+        // 3 chunks fully consumed, replenished in one batch
+        assertEquals(Arrays.asList(4L, 3L), requests);
+
+        ts.requestMore(Long.MAX_VALUE);
+
+        ts.assertValueCount(30).assertNoErrors().assertComplete();
+
+        for (int i = 0; i < 30; i++) {
+            assertEquals(i, ts.values().get(i).intValue());
+        }
+    }
+
+    @Test
+    public void flattenChunksEmptyTailCompletesWithoutRequest() {
+        PublishProcessor<int[]> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = pp
+        .compose(ChunkTransformers.flattenChunksInt())
+        .test(1);
+
+        pp.onNext(new int[] { 1 });
+        pp.onNext(new int[0]);
+        pp.onNext(new int[0]);
+        pp.onComplete();
+
+        ts.assertResult(1);
+    }
+
+    @Test
+    public void flattenChunksNonEmptyTailWaitsForRequest() {
+        PublishProcessor<int[]> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = pp
+        .compose(ChunkTransformers.flattenChunksInt())
+        .test(1);
+
+        pp.onNext(new int[] { 1 });
+        pp.onNext(new int[0]);
+        pp.onNext(new int[] { 2 });
+        pp.onComplete();
+
+        ts.assertValuesOnly(1)
+        .requestMore(1)
+        .assertResult(1, 2);
+    }
+
+    @Test
+    public void flattenChunksError() {
+        Flowable.just(new long[] { 1L, 2L })
+        .concatWith(Flowable.<long[]>error(new IOException()))
+        .compose(ChunkTransformers.flattenChunksLong())
+        .test()
+        .assertFailure(IOException.class, 1L, 2L);
+    }
+
+    @Test
+    public void flattenChunksCancel() {
+        PublishProcessor<double[]> pp = PublishProcessor.create();
+
+        TestSubscriber<Double> ts = pp
+        .compose(ChunkTransformers.flattenChunksDouble())
+        .take(3)
+        .test();
+
+        pp.onNext(new double[] { 1.0, 2.0 });
+        pp.onNext(new double[] { 3.0, 4.0 });
+
+        assertFalse(pp.hasSubscribers());
+
+        ts.assertResult(1.0, 2.0, 3.0);
+    }
+
+    @Test
+    public void flattenChunksAsync() {
+        TestSubscriber<Integer> ts = Flowable.range(0, 1000)
+        .map(new Function<Integer, int[]>() {
+            @Override
+            public int[] apply(Integer v) throws Exception {
+                return intChunk(v * 100, 100);
+            }
+        })
+        .subscribeOn(Schedulers.computation())
+        .compose(ChunkTransformers.flattenChunksInt())
+        .observeOn(Schedulers.single())
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(100000)
+        .assertNoErrors()
+        .assertComplete();
+
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(i, ts.values().get(i).intValue());
+        }
+    }
+
+    @Test
+    public void longPipeline() {
+        Flowable.rangeLong(1, 10000)
+        .compose(FlowableTransformers.microBatchLong(256, 1, TimeUnit.MINUTES))
+        .compose(ChunkTransformers.mapChunkLong(new LongUnaryOperator() {
+            @Override
+            public long apply(long v) {
+                return v * 2;
+            }
+        }))
+        .compose(ChunkTransformers.filterChunkLong(new LongPredicate() {
+            @Override
+            public boolean test(long v) {
+                return v % 4 == 0;
+            }
+        }))
+        .compose(ChunkTransformers.reduceChunkLong(0L, new LongBinaryOperator() {
+            @Override
+            public long apply(long a, long b) {
+                return a + b;
+            }
+        }))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertResult(50010000L);
+    }
+
+    @Test
+    public void intAndDoubleChunks() {
+        TestSubscriber<int[]> ts = Flowable.just(intChunk(1, 3))
+        .compose(ChunkTransformers.mapChunkInt(new IntUnaryOperator() {
+            @Override
+            public int apply(int v) {
+                return -v;
+            }
+        }))
+        .test()
+        .assertValueCount(1);
+
+        assertArrayEquals(new int[] { -1, -2, -3 }, ts.values().get(0));
+
+        Flowable.just(intChunk(1, 4), new int[0])
+        .compose(ChunkTransformers.reduceChunkInt(1, new IntBinaryOperator() {
+            @Override
+            public int apply(int a, int b) {
+                return a * b;
+            }
+        }))
+        .test()
+        .assertResult(24);
+
+        TestSubscriber<double[]> ts2 = Flowable.just(new double[] { 0.5, 1.5, -1 })
+        .compose(ChunkTransformers.mapChunkDouble(new DoubleUnaryOperator() {
+            @Override
+            public double apply(double v) {
+                return v * 2;
+            }
+        }))
+        .compose(ChunkTransformers.filterChunkDouble(new DoublePredicate() {
+            @Override
+            public boolean test(double v) {
+                return v > 0;
+            }
+        }))
+        .test()
+        .assertValueCount(1);
+
+        assertArrayEquals(new double[] { 1.0, 3.0 }, ts2.values().get(0), 0.0);
+
+        Flowable.<double[]>empty()
+        .compose(ChunkTransformers.reduceChunkDouble(0.5, new DoubleBinaryOperator() {
+            @Override
+            public double apply(double a, double b) {
+                return a + b;
+            }
+        }))
+        .test()
+        .assertResult(0.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefetchNonPositive() {
+        ChunkTransformers.flattenChunks(0);
+    }
+}
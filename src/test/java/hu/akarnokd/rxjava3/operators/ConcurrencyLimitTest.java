@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ConcurrencyLimitTest {
+
+    static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void aimdIncreasesWhenBusy() {
+        ConcurrencyLimit limit = ConcurrencyLimit.aimd(4, 1, 6, 0.5, 100, TimeUnit.MILLISECONDS);
+
+        assertEquals(4, limit.getLimit());
+
+        limit.onSample(10 * MS, 1);
+
+        assertEquals(4, limit.getLimit());
+
+        limit.onSample(10 * MS, 2);
+
+        assertEquals(5, limit.getLimit());
+
+        limit.onSample(10 * MS, 5);
+        limit.onSample(10 * MS, 5);
+        limit.onSample(10 * MS, 5);
+
+        assertEquals(6, limit.getLimit());
+    }
+
+    @Test
+    public void aimdBacksOffWhenSlow() {
+        ConcurrencyLimit limit = ConcurrencyLimit.aimd(16, 2, 32, 0.5, 100, TimeUnit.MILLISECONDS);
+
+        limit.onSample(200 * MS, 16);
+
+        assertEquals(8, limit.getLimit());
+
+        limit.onSample(200 * MS, 8);
+        limit.onSample(200 * MS, 4);
+        limit.onSample(200 * MS, 2);
+
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void initialLimitClamped() {
+        assertEquals(10, ConcurrencyLimit.aimd(100, 1, 10, 0.9, 1, TimeUnit.SECONDS).getLimit());
+        assertEquals(5, ConcurrencyLimit.gradient(1, 5, 10).getLimit());
+
+        ConcurrencyLimit limit = ConcurrencyLimit.gradient(1, 5, 10);
+        assertEquals(5, limit.getMinLimit());
+        assertEquals(10, limit.getMaxLimit());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void minAboveMax() {
+        ConcurrencyLimit.gradient(1, 5, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void minNotPositive() {
+        ConcurrencyLimit.gradient(1, 0, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void aimdBadRatio() {
+        ConcurrencyLimit.aimd(1, 1, 4, 1.0, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void gradientGrowsWithSteadyLatency() {
+        ConcurrencyLimit limit = ConcurrencyLimit.gradient(10, 1, 100);
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(10 * MS, limit.getLimit());
+        }
+
+        assertTrue("" + limit.getLimit(), limit.getLimit() > 20);
+    }
+
+    @Test
+    public void gradientShrinksWhenLatencyGrows() {
+        ConcurrencyLimit limit = ConcurrencyLimit.gradient(50, 1, 100);
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(10 * MS, limit.getLimit());
+        }
+
+        int before = limit.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(100 * MS, limit.getLimit());
+        }
+
+        assertTrue(before + " -> " + limit.getLimit(), limit.getLimit() < before / 2);
+    }
+
+    @Test
+    public void gradientIgnoresUnderusedLimit() {
+        ConcurrencyLimit limit = ConcurrencyLimit.gradient(50, 1, 100);
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(10 * MS, 2);
+        }
+
+        assertEquals(50, limit.getLimit());
+    }
+
+    @Test
+    public void customLimit() {
+        ConcurrencyLimit limit = new ConcurrencyLimit(1, 1, 3) {
+            @Override
+            protected int computeLimit(int currentLimit, long rttNanos, int inFlight) {
+                return currentLimit + 2;
+            }
+        };
+
+        limit.onSample(1, 1);
+
+        assertEquals(3, limit.getLimit());
+
+        limit.onSample(1, 1);
+
+        assertEquals(3, limit.getLimit());
+    }
+}
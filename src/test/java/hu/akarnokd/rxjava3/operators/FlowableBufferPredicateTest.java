@@ -19,6 +19,8 @@ package hu.akarnokd.rxjava3.operators;
 import java.io.IOException;
 import java.util.*;
 
+import static org.junit.Assert.*;
+
 import org.junit.Test;
 import org.reactivestreams.Subscriber;
 
@@ -497,4 +499,196 @@ public class FlowableBufferPredicateTest {
                 Arrays.asList(1, 2)
         );
     }
+
+    static final Predicate<Integer> IS_SEPARATOR = new Predicate<Integer>() {
+        @Override
+        public boolean test(Integer v) throws Exception {
+            return v == -1;
+        }
+    };
+
+    static final Predicate<Integer> NOT_SEPARATOR = new Predicate<Integer>() {
+        @Override
+        public boolean test(Integer v) throws Exception {
+            return v != -1;
+        }
+    };
+
+    static Supplier<List<Integer>> listSupplier() {
+        return new Supplier<List<Integer>>() {
+            @Override
+            public List<Integer> get() throws Exception {
+                return new ArrayList<Integer>();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void whileMaxSize() {
+        Flowable.fromArray(1, 2, 3, -1, 4, -1, -1, 5, 6, 7, 8)
+        .compose(FlowableTransformers.bufferWhile(NOT_SEPARATOR, 3, listSupplier()))
+        .test()
+        .assertResult(
+                Arrays.asList(1, 2, 3),
+                Arrays.asList(-1, 4),
+                Arrays.asList(-1),
+                Arrays.asList(-1, 5, 6),
+                Arrays.asList(7, 8)
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void whileMaxSizeNoEmptyBuffer() {
+        Flowable.just(-1, 1, 2, -1)
+        .compose(FlowableTransformers.bufferWhile(NOT_SEPARATOR, 2, listSupplier()))
+        .test()
+        .assertResult(
+                Arrays.asList(-1, 1),
+                Arrays.asList(2),
+                Arrays.asList(-1)
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void untilMaxSize() {
+        Flowable.just(1, 2, 3, 4, -1, 5, -1, 6)
+        .compose(FlowableTransformers.bufferUntil(IS_SEPARATOR, 3, listSupplier()))
+        .test()
+        .assertResult(
+                Arrays.asList(1, 2, 3),
+                Arrays.asList(4, -1),
+                Arrays.asList(5, -1),
+                Arrays.asList(6)
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void untilMaxSizeExact() {
+        Flowable.just(1, 2, 3, 4)
+        .compose(FlowableTransformers.bufferUntil(IS_SEPARATOR, 2, listSupplier()))
+        .test()
+        .assertResult(
+                Arrays.asList(1, 2),
+                Arrays.asList(3, 4)
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void splitMaxSize() {
+        Flowable.just(-1, 1, 2, 3, -1, -1, 4, 5, -1)
+        .compose(FlowableTransformers.bufferSplit(IS_SEPARATOR, 2, listSupplier()))
+        .test()
+        .assertResult(
+                Arrays.asList(1, 2),
+                Arrays.asList(3),
+                Arrays.asList(4, 5)
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void splitMaxSizeBackpressured() {
+        Flowable.just(1, 2, 3, -1, 4)
+        .compose(FlowableTransformers.bufferSplit(IS_SEPARATOR, 2, listSupplier()))
+        .test(1)
+        .assertValuesOnly(Arrays.asList(1, 2))
+        .requestMore(1)
+        .assertValuesOnly(Arrays.asList(1, 2), Arrays.asList(3))
+        .requestMore(1)
+        .assertResult(Arrays.asList(1, 2), Arrays.asList(3), Arrays.asList(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxSizeNonPositive() {
+        FlowableTransformers.bufferUntil(IS_SEPARATOR, 0, listSupplier());
+    }
+
+    @Test
+    public void pooledBuffersReused() {
+        final BufferPool<List<Integer>> pool = BufferPool.arrayList(4, 2);
+        final List<List<Integer>> seen = new ArrayList<List<Integer>>();
+        final List<List<Integer>> contents = new ArrayList<List<Integer>>();
+
+        Flowable.just(1, 2, -1, 3, -1, 4, 5, 6)
+        .compose(FlowableTransformers.bufferSplit(IS_SEPARATOR, 2, pool))
+        .subscribe(new Consumer<List<Integer>>() {
+            @Override
+            public void accept(List<Integer> list) throws Exception {
+                seen.add(list);
+                contents.add(new ArrayList<Integer>(list));
+                pool.release(list);
+            }
+        });
+
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3), Arrays.asList(4, 5), Arrays.asList(6)), contents);
+        // each buffer was released before the next one was requested
+        for (List<Integer> list : seen) {
+            assertSame(seen.get(0), list);
+        }
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void pooledBufferRecycledOnEmptyComplete() {
+        BufferPool<List<Integer>> pool = BufferPool.arrayList(4, 2);
+
+        Flowable.just(1, -1)
+        .compose(FlowableTransformers.bufferSplit(IS_SEPARATOR, 4, pool))
+        .test()
+        .assertResult(Arrays.asList(1));
+
+        // the emitted buffer is still owned by the consumer, the unused one returned
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void pooledBufferRecycledOnError() throws Throwable {
+        BufferPool<List<Integer>> pool = BufferPool.arrayList(4, 2);
+
+        Flowable.just(1, 2).concatWith(Flowable.<Integer>error(new IOException()))
+        .compose(FlowableTransformers.bufferUntil(IS_SEPARATOR, 4, pool))
+        .test()
+        .assertFailure(IOException.class);
+
+        assertEquals(1, pool.size());
+        assertTrue(pool.get().isEmpty());
+    }
+
+    @Test
+    public void poolBounded() throws Throwable {
+        BufferPool<List<Integer>> pool = BufferPool.arrayList(4, 2);
+
+        List<Integer> a = pool.get();
+        List<Integer> b = pool.get();
+        List<Integer> c = pool.get();
+
+        assertNotSame(a, b);
+        assertNotSame(b, c);
+
+        a.add(1);
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+
+        assertEquals(2, pool.size());
+        assertTrue(a.isEmpty());
+
+        List<Integer> d = pool.get();
+        List<Integer> e = pool.get();
+
+        assertTrue(d == a || d == b);
+        assertTrue(e == a || e == b);
+        assertNotSame(d, e);
+        assertEquals(0, pool.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolNonPositive() {
+        BufferPool.arrayList(4, 0);
+    }
 }
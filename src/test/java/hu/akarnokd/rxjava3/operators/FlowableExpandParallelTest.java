@@ -0,0 +1,434 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+
+import io.reactivex.Flowable;
+import io.reactivex.functions.*;
+import io.reactivex.functions.Function;
+import io.reactivex.internal.functions.Functions;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.TestSubscriber;
+
+public class FlowableExpandParallelTest {
+
+    Function<Integer, Publisher<Integer>> countDown = new Function<Integer, Publisher<Integer>>() {
+        @Override
+        public Publisher<Integer> apply(Integer v) throws Exception {
+            return v == 0 ? Flowable.<Integer>empty() : Flowable.just(v - 1);
+        }
+    };
+
+    /** Node v has the children v * 4 + 1 .. v * 4 + 4 below 1365, a full 4-ary tree of depth 5. */
+    Function<Integer, Publisher<Integer>> tree = new Function<Integer, Publisher<Integer>>() {
+        @Override
+        public Publisher<Integer> apply(Integer v) throws Exception {
+            int first = v * 4 + 1;
+            if (first >= 1365) {
+                return Flowable.empty();
+            }
+            return Flowable.range(first, 4);
+        }
+    };
+
+    /** Node v links to (v + 1) % 10 and (v * 2) % 10. */
+    Function<Integer, Publisher<Integer>> graph = new Function<Integer, Publisher<Integer>>() {
+        @Override
+        public Publisher<Integer> apply(Integer v) throws Exception {
+            return Flowable.just((v + 1) % 10, (v * 2) % 10);
+        }
+    };
+
+    static void assertAllNodes(List<Integer> values, int count) {
+        assertEquals(count, values.size());
+        BitSet seen = new BitSet();
+        for (Integer v : values) {
+            assertFalse("Duplicate " + v, seen.get(v));
+            seen.set(v);
+        }
+        assertEquals(count, seen.cardinality());
+    }
+
+    @Test
+    public void recursiveCountdown() {
+        for (ExpandStrategy strategy : ExpandStrategy.values()) {
+            Flowable.just(10)
+            .compose(FlowableTransformers.<Integer>expandParallel(countDown, strategy, 4, 16))
+            .test()
+            .withTag(strategy.toString())
+            .assertResult(10, 9, 8, 7, 6, 5, 4, 3, 2, 1, 0);
+        }
+    }
+
+    @Test
+    public void fullTree() {
+        for (ExpandStrategy strategy : ExpandStrategy.values()) {
+            for (int maxConcurrency : new int[] { 1, 2, 4, 16 }) {
+                for (int capacity : new int[] { 1, 2, 7, 128 }) {
+                    TestSubscriber<Integer> ts = Flowable.just(0)
+                    .compose(FlowableTransformers.<Integer>expandParallel(tree, strategy, maxConcurrency, capacity))
+                    .test()
+                    .withTag(strategy + ", " + maxConcurrency + ", " + capacity)
+                    .assertNoErrors()
+                    .assertComplete();
+
+                    assertAllNodes(ts.values(), 1365);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void depthFirstOrderMatchesExpand() {
+        List<Integer> expected = Flowable.just(0)
+                .compose(FlowableTransformers.<Integer>expand(tree, ExpandStrategy.DEPTH_FIRST))
+                .toList()
+                .blockingGet();
+
+        Flowable.just(0)
+        .compose(FlowableTransformers.<Integer>expandParallel(tree, ExpandStrategy.DEPTH_FIRST, 1, 1))
+        .test()
+        .assertValueSequence(expected)
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @Test
+    public void breadthFirstLevels() {
+        TestSubscriber<Integer> ts = Flowable.just(0)
+        .compose(FlowableTransformers.<Integer>expandParallel(tree, ExpandStrategy.BREADTH_FIRST, 1, 1024))
+        .test()
+        .assertNoErrors()
+        .assertComplete();
+
+        List<Integer> values = ts.values();
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(i, values.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void boundedRequests() {
+        final AtomicLong requested = new AtomicLong();
+
+        TestSubscriber<Integer> ts = Flowable.range(1, 1000000)
+        .doOnRequest(new LongConsumer() {
+            @Override
+            public void accept(long n) throws Exception {
+                requested.addAndGet(n);
+            }
+        })
+        .compose(FlowableTransformers.<Integer>expandParallel(countDown, ExpandStrategy.BREADTH_FIRST, 4, 32))
+        .test(0L);
+
+        assertTrue("" + requested.get(), requested.get() <= 32);
+
+        ts.requestMore(100);
+
+        ts.assertValueCount(100);
+
+        assertTrue("" + requested.get(), requested.get() <= 132);
+
+        ts.cancel();
+    }
+
+    @Test
+    public void backpressured() {
+        TestSubscriber<Integer> ts = Flowable.just(0)
+        .compose(FlowableTransformers.<Integer>expandParallel(tree, ExpandStrategy.DEPTH_FIRST, 4, 16))
+        .test(0L);
+
+        ts.assertEmpty();
+
+        ts.requestMore(1);
+
+        ts.assertValuesOnly(0);
+
+        ts.requestMore(1364);
+
+        ts.assertNoErrors().assertComplete();
+
+        assertAllNodes(ts.values(), 1365);
+    }
+
+    @Test
+    public void parallelScheduler() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        TestSubscriber<Integer> ts = Flowable.just(0)
+        .compose(FlowableTransformers.<Integer>expandParallel(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(final Integer v) throws Exception {
+                return Flowable.fromCallable(new Callable<Publisher<Integer>>() {
+                    @Override
+                    public Publisher<Integer> call() throws Exception {
+                        int r = running.incrementAndGet();
+                        for (;;) {
+                            int m = maxRunning.get();
+                            if (m >= r || maxRunning.compareAndSet(m, r)) {
+                                break;
+                            }
+                        }
+                        Thread.sleep(5);
+                        running.decrementAndGet();
+                        int first = v * 4 + 1;
+                        return first >= 1365 ? Flowable.<Integer>empty() : Flowable.range(first, 4);
+                    }
+                })
+                .flatMap(Functions.<Publisher<Integer>>identity());
+            }
+        }, ExpandStrategy.BREADTH_FIRST, 4, 64, Schedulers.io()))
+        .test()
+        .awaitDone(10, TimeUnit.SECONDS)
+        .assertNoErrors()
+        .assertComplete();
+
+        assertAllNodes(ts.values(), 1365);
+
+        assertTrue("" + maxRunning.get(), maxRunning.get() > 1);
+        assertTrue("" + maxRunning.get(), maxRunning.get() <= 5);
+    }
+
+    @Test
+    public void sourceError() {
+        for (ExpandStrategy strategy : ExpandStrategy.values()) {
+            Flowable.<Integer>error(new IOException())
+            .compose(FlowableTransformers.<Integer>expandParallel(countDown, strategy, 2, 16))
+            .test()
+            .withTag(strategy.toString())
+            .assertFailure(IOException.class);
+        }
+    }
+
+    @Test
+    public void innerError() {
+        Flowable.just(1)
+        .compose(FlowableTransformers.<Integer>expandParallel(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return Flowable.error(new IOException());
+            }
+        }, ExpandStrategy.DEPTH_FIRST, 2, 16))
+        .test()
+        .assertFailure(IOException.class, 1);
+    }
+
+    @Test
+    public void expanderCrash() {
+        final PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = pp
+        .compose(FlowableTransformers.<Integer>expandParallel(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                throw new IOException();
+            }
+        }, ExpandStrategy.DEPTH_FIRST, 2, 16))
+        .test();
+
+        pp.onNext(1);
+
+        ts.assertFailure(IOException.class, 1);
+
+        assertFalse(pp.hasSubscribers());
+    }
+
+    @Test
+    public void cancel() {
+        final PublishProcessor<Integer> pp = PublishProcessor.create();
+        final PublishProcessor<Integer> inner = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = pp
+        .compose(FlowableTransformers.<Integer>expandParallel(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return inner;
+            }
+        }, ExpandStrategy.BREADTH_FIRST, 2, 16))
+        .test();
+
+        pp.onNext(1);
+
+        assertTrue(inner.hasSubscribers());
+
+        ts.cancel();
+
+        assertFalse(pp.hasSubscribers());
+        assertFalse(inner.hasSubscribers());
+    }
+
+    @Test
+    public void distinctGraph() {
+        for (ExpandStrategy strategy : ExpandStrategy.values()) {
+            for (boolean approximate : new boolean[] { false, true }) {
+                TestSubscriber<Integer> ts = Flowable.just(1)
+                .compose(FlowableTransformers.<Integer>expandDistinct(graph, Functions.<Integer>identity(),
+                        strategy, Integer.MAX_VALUE, 100, approximate))
+                .test()
+                .withTag(strategy + ", " + approximate)
+                .assertNoErrors()
+                .assertComplete();
+
+                assertAllNodes(ts.values(), 10);
+            }
+        }
+    }
+
+    @Test
+    public void distinctSharedChildrenExpandedOnce() {
+        final AtomicInteger expansions = new AtomicInteger();
+
+        // every node v < 50 links to both v + 1 and v + 2
+        Flowable.just(0)
+        .compose(FlowableTransformers.<Integer>expandDistinct(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                expansions.getAndIncrement();
+                return v >= 50 ? Flowable.<Integer>empty() : Flowable.just(v + 1, v + 2);
+            }
+        }, Functions.<Integer>identity(), ExpandStrategy.BREADTH_FIRST, Integer.MAX_VALUE, 1000, false))
+        .test()
+        .assertValueCount(52)
+        .assertNoErrors()
+        .assertComplete();
+
+        assertEquals(52, expansions.get());
+    }
+
+    @Test
+    public void maxDepth() {
+        Flowable.just(0)
+        .compose(FlowableTransformers.<Integer>expandDistinct(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return Flowable.just(v + 1);
+            }
+        }, Functions.<Integer>identity(), ExpandStrategy.DEPTH_FIRST, 5, 100, false))
+        .test()
+        .assertResult(0, 1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void evictedKeysBoundedByDepth() {
+        TestSubscriber<Integer> ts = Flowable.just(1)
+        .compose(FlowableTransformers.<Integer>expandDistinct(graph, Functions.<Integer>identity(),
+                ExpandStrategy.DEPTH_FIRST, 12, 2, false))
+        .test()
+        .assertNoErrors()
+        .assertComplete();
+
+        assertTrue(ts.values().size() >= 10);
+    }
+
+    @Test
+    public void keySelectorCrash() {
+        Flowable.just(1)
+        .compose(FlowableTransformers.<Integer>expandDistinct(graph, new Function<Integer, Object>() {
+            @Override
+            public Object apply(Integer v) throws Exception {
+                throw new IOException();
+            }
+        }, ExpandStrategy.DEPTH_FIRST, 10, 10, false))
+        .test()
+        .assertFailure(IOException.class);
+    }
+
+    @Test
+    public void keySelectorCrashStopsOtherSources() {
+        final PublishProcessor<Integer> pp0 = PublishProcessor.create();
+        final PublishProcessor<Integer> pp1 = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = Flowable.just(0, 1)
+        .compose(new FlowableExpandParallel<Integer>(null, new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return v == 0 ? pp0 : v == 1 ? pp1 : Flowable.<Integer>empty();
+            }
+        }, ExpandStrategy.BREADTH_FIRST, 2, 16, null, new Function<Integer, Object>() {
+            @Override
+            public Object apply(Integer v) throws Exception {
+                if (v == 10) {
+                    throw new IOException();
+                }
+                return v;
+            }
+        }, 100, false, Integer.MAX_VALUE))
+        .test(2);
+
+        ts.assertValuesOnly(0, 1);
+
+        assertTrue(pp0.hasSubscribers());
+        assertTrue(pp1.hasSubscribers());
+
+        // both sources have an item ready when the downstream requests
+        pp0.onNext(10);
+        pp1.onNext(20);
+
+        ts.requestMore(10);
+
+        ts.assertFailure(IOException.class, 0, 1);
+
+        assertFalse(pp0.hasSubscribers());
+        assertFalse(pp1.hasSubscribers());
+    }
+
+    @Test
+    public void bloomVisitedSet() {
+        FlowableExpandParallel.BloomVisitedSet set = new FlowableExpandParallel.BloomVisitedSet(1000);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (!set.add(i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue("" + falsePositives, falsePositives < 30);
+
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(set.add(i));
+        }
+    }
+
+    @Test
+    public void lruVisitedSet() {
+        FlowableExpandParallel.LruVisitedSet set = new FlowableExpandParallel.LruVisitedSet(2);
+
+        assertTrue(set.add(1));
+        assertTrue(set.add(2));
+        assertFalse(set.add(1));
+        assertTrue(set.add(3));
+        assertTrue(set.add(2));
+        assertFalse(set.add(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeMaxDepth() {
+        FlowableTransformers.expandDistinct(graph, Functions.<Integer>identity(), ExpandStrategy.DEPTH_FIRST, -1, 10, false);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.reactivestreams.*;
+
+import io.reactivex.Flowable;
+import io.reactivex.functions.*;
+import io.reactivex.functions.Function;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.TestSubscriber;
+
+public class FlowableFlatMapAdaptiveTest {
+
+    static ConcurrencyLimit fixed(int n) {
+        return new ConcurrencyLimit(n, 1, n) {
+            @Override
+            protected int computeLimit(int currentLimit, long rttNanos, int inFlight) {
+                return currentLimit;
+            }
+        };
+    }
+
+    @Test(timeout = 10000)
+    public void normal() {
+        for (final int n : new int[] { 0, 1, 2, 10, 100, 1000 }) {
+            Flowable.range(1, 1000)
+            .compose(FlowableTransformers.flatMapAdaptive(new Function<Integer, Publisher<Integer>>() {
+                @Override
+                public Publisher<Integer> apply(Integer v) throws Exception {
+                    return Flowable.range(v * 1000, n);
+                }
+            }, ConcurrencyLimit.gradient(4, 1, 32)))
+            .test()
+            .assertValueCount(n * 1000)
+            .assertNoErrors()
+            .assertComplete();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void normalHiddenBreadthFirst() {
+        for (final int n : new int[] { 0, 1, 2, 10, 100 }) {
+            Flowable.range(1, 1000)
+            .compose(FlowableTransformers.flatMapAdaptive(new Function<Integer, Publisher<Integer>>() {
+                @Override
+                public Publisher<Integer> apply(Integer v) throws Exception {
+                    return Flowable.range(v * 1000, n).hide();
+                }
+            }, ConcurrencyLimit.aimd(4, 1, 32, 0.9, 1, TimeUnit.SECONDS), 16, false))
+            .test()
+            .assertValueCount(n * 1000)
+            .assertNoErrors()
+            .assertComplete();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void async() {
+        Flowable.range(1, 1000)
+        .compose(FlowableTransformers.flatMapAdaptive(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return Flowable.range(v * 1000, 10).subscribeOn(Schedulers.computation());
+            }
+        }, ConcurrencyLimit.gradient(4, 1, 64)))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(10000)
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @Test(timeout = 10000)
+    public void neverAboveLimit() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        Flowable.range(1, 200)
+        .compose(FlowableTransformers.flatMapAdaptive(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return Flowable.just(v)
+                        .delay(1, TimeUnit.MILLISECONDS)
+                        .doOnSubscribe(new Consumer<Subscription>() {
+                            @Override
+                            public void accept(Subscription s) throws Exception {
+                                int c = running.incrementAndGet();
+                                for (;;) {
+                                    int m = maxRunning.get();
+                                    if (c <= m || maxRunning.compareAndSet(m, c)) {
+                                        break;
+                                    }
+                                }
+                            }
+                        })
+                        .doOnComplete(new Action() {
+                            @Override
+                            public void run() throws Exception {
+                                running.decrementAndGet();
+                            }
+                        });
+            }
+        }, fixed(5)))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(200)
+        .assertNoErrors()
+        .assertComplete();
+
+        assertTrue("" + maxRunning.get(), maxRunning.get() <= 5);
+        assertTrue("" + maxRunning.get(), maxRunning.get() > 1);
+    }
+
+    @Test
+    public void limitGrowsAndShrinks() {
+        final int[] next = { 1 };
+        ConcurrencyLimit limit = new ConcurrencyLimit(1, 1, 8) {
+            @Override
+            protected int computeLimit(int currentLimit, long rttNanos, int inFlight) {
+                return next[0];
+            }
+        };
+
+        final List<PublishProcessor<Integer>> inners = new ArrayList<PublishProcessor<Integer>>();
+
+        TestSubscriber<Integer> ts = Flowable.range(0, 100)
+        .compose(FlowableTransformers.flatMapAdaptive(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                PublishProcessor<Integer> pp = PublishProcessor.create();
+                inners.add(pp);
+                return pp;
+            }
+        }, limit))
+        .test();
+
+        assertEquals(1, inners.size());
+
+        next[0] = 4;
+        inners.get(0).onNext(0);
+        inners.get(0).onComplete();
+
+        assertEquals(4, limit.getLimit());
+        assertEquals(5, inners.size());
+
+        next[0] = 2;
+        inners.get(1).onComplete();
+
+        assertEquals(2, limit.getLimit());
+        // shrinking doesn't cancel the running inners, just doesn't replenish
+        assertEquals(5, inners.size());
+
+        inners.get(2).onComplete();
+        assertEquals(5, inners.size());
+
+        inners.get(3).onComplete();
+        assertEquals(6, inners.size());
+
+        ts.assertValuesOnly(0);
+    }
+
+    @Test
+    public void innerError() {
+        Flowable.range(1, 5)
+        .compose(FlowableTransformers.flatMapAdaptive(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                if (v == 3) {
+                    return Flowable.error(new IOException());
+                }
+                return Flowable.just(v).hide();
+            }
+        }, fixed(2)))
+        .test()
+        .assertFailure(IOException.class, 1, 2);
+    }
+
+    @Test
+    public void cancel() {
+        final List<PublishProcessor<Integer>> inners = new ArrayList<PublishProcessor<Integer>>();
+        PublishProcessor<Integer> main = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = main
+        .compose(FlowableTransformers.flatMapAdaptive(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                PublishProcessor<Integer> pp = PublishProcessor.create();
+                inners.add(pp);
+                return pp;
+            }
+        }, fixed(3)))
+        .test();
+
+        main.onNext(1);
+        main.onNext(2);
+
+        ts.cancel();
+
+        assertFalse(main.hasSubscribers());
+        assertFalse(inners.get(0).hasSubscribers());
+        assertFalse(inners.get(1).hasSubscribers());
+    }
+}
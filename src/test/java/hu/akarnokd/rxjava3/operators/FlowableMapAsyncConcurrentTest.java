@@ -0,0 +1,307 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+
+import io.reactivex.Flowable;
+import io.reactivex.functions.*;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.TestSubscriber;
+
+public class FlowableMapAsyncConcurrentTest {
+
+    @Test
+    public void normal() {
+        Flowable.range(1, 10)
+        .compose(FlowableTransformers.mapAsync(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return v % 2 == 0 ? Flowable.just(v) : Flowable.<Integer>empty();
+            }
+        }, 4, 16))
+        .test()
+        .assertResult(2, 4, 6, 8, 10);
+    }
+
+    @Test
+    public void normalHidden() {
+        Flowable.range(1, 10)
+        .compose(FlowableTransformers.mapAsync(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return (v % 2 == 0 ? Flowable.range(v, 2) : Flowable.<Integer>empty()).hide();
+            }
+        }, 4, 16))
+        .test()
+        .assertResult(2, 4, 6, 8, 10);
+    }
+
+    @Test
+    public void combiner() {
+        Flowable.range(1, 5)
+        .compose(FlowableTransformers.mapAsync(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return Flowable.just(v * 10).hide();
+            }
+        }, new BiFunction<Integer, Integer, String>() {
+            @Override
+            public String apply(Integer a, Integer b) throws Exception {
+                return a + ":" + b;
+            }
+        }, 2, 16))
+        .test()
+        .assertResult("1:10", "2:20", "3:30", "4:40", "5:50");
+    }
+
+    @Test
+    public void outOfOrderCompletionKeepsOrder() {
+        Flowable.range(1, 50)
+        .compose(FlowableTransformers.mapAsync(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return Flowable.just(v).delay(50 - v, TimeUnit.MILLISECONDS);
+            }
+        }, 8, 16))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(50)
+        .assertNoErrors()
+        .assertComplete()
+        .assertValueSequence(sequence(1, 50));
+    }
+
+    static List<Integer> sequence(int start, int count) {
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            list.add(start + i);
+        }
+        return list;
+    }
+
+    @Test
+    public void runsConcurrently() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        Flowable.range(1, 40)
+        .compose(FlowableTransformers.mapAsync(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(final Integer v) throws Exception {
+                return Flowable.fromCallable(new java.util.concurrent.Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        int c = running.incrementAndGet();
+                        for (;;) {
+                            int m = maxRunning.get();
+                            if (c <= m || maxRunning.compareAndSet(m, c)) {
+                                break;
+                            }
+                        }
+                        Thread.sleep(20);
+                        running.decrementAndGet();
+                        return v;
+                    }
+                }).subscribeOn(Schedulers.io());
+            }
+        }, 8, 16))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueSequence(sequence(1, 40))
+        .assertNoErrors()
+        .assertComplete();
+
+        assertTrue("" + maxRunning.get(), maxRunning.get() > 1);
+        assertTrue("" + maxRunning.get(), maxRunning.get() <= 8);
+    }
+
+    @Test
+    public void boundedInFlight() {
+        final List<PublishProcessor<Integer>> inners = new ArrayList<PublishProcessor<Integer>>();
+
+        TestSubscriber<Integer> ts = Flowable.range(1, 10)
+        .compose(FlowableTransformers.mapAsync(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                PublishProcessor<Integer> pp = PublishProcessor.create();
+                inners.add(pp);
+                return pp;
+            }
+        }, 3, 16))
+        .test();
+
+        assertEquals(3, inners.size());
+
+        // the later results wait for the first one
+        inners.get(2).onNext(3);
+        inners.get(1).onNext(2);
+
+        ts.assertEmpty();
+        assertEquals(3, inners.size());
+
+        inners.get(0).onNext(1);
+
+        ts.assertValuesOnly(1, 2, 3);
+        assertEquals(6, inners.size());
+
+        // completing a slot starts the next inner
+        for (int i = 3; i < inners.size(); i++) {
+            inners.get(i).onComplete();
+        }
+
+        assertEquals(10, inners.size());
+        ts.assertResult(1, 2, 3);
+    }
+
+    @Test
+    public void backpressure() {
+        TestSubscriber<Integer> ts = Flowable.range(1, 10)
+        .compose(FlowableTransformers.mapAsync(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return Flowable.just(v).hide();
+            }
+        }, 4, 16))
+        .test(0);
+
+        ts.assertEmpty();
+
+        ts.request(3);
+
+        ts.assertValuesOnly(1, 2, 3);
+
+        ts.request(7);
+
+        ts.assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    public void cancel() {
+        final List<PublishProcessor<Integer>> inners = new ArrayList<PublishProcessor<Integer>>();
+        PublishProcessor<Integer> main = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = main
+        .compose(FlowableTransformers.mapAsync(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                PublishProcessor<Integer> pp = PublishProcessor.create();
+                inners.add(pp);
+                return pp;
+            }
+        }, 2, 16))
+        .test();
+
+        main.onNext(1);
+        main.onNext(2);
+        main.onNext(3);
+
+        assertEquals(2, inners.size());
+        assertTrue(inners.get(0).hasSubscribers());
+        assertTrue(inners.get(1).hasSubscribers());
+
+        ts.cancel();
+
+        assertFalse(main.hasSubscribers());
+        assertFalse(inners.get(0).hasSubscribers());
+        assertFalse(inners.get(1).hasSubscribers());
+    }
+
+    @Test
+    public void innerErrorDelayed() {
+        Flowable.range(1, 5)
+        .compose(FlowableTransformers.mapAsync(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                if (v == 2) {
+                    return Flowable.error(new IOException());
+                }
+                return Flowable.just(v).hide();
+            }
+        }, 2, 16))
+        .test()
+        .assertFailure(IOException.class, 1, 3, 4, 5);
+    }
+
+    @Test
+    public void mapperCrash() {
+        Flowable.range(1, 5)
+        .compose(FlowableTransformers.mapAsync(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                if (v == 3) {
+                    throw new IOException();
+                }
+                return Flowable.just(v);
+            }
+        }, 2, 16))
+        .test()
+        .assertFailure(IOException.class, 1, 2, 4, 5);
+    }
+
+    @Test
+    public void filter() {
+        Flowable.range(1, 20)
+        .compose(FlowableTransformers.filterAsync(new Function<Integer, Publisher<Boolean>>() {
+            @Override
+            public Publisher<Boolean> apply(Integer v) throws Exception {
+                return Flowable.just(v % 3 == 0).delay(20 - v, TimeUnit.MILLISECONDS);
+            }
+        }, 5, 8))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertResult(3, 6, 9, 12, 15, 18);
+    }
+
+    @Test
+    public void filterEmptyInner() {
+        Flowable.range(1, 5)
+        .compose(FlowableTransformers.filterAsync(new Function<Integer, Publisher<Boolean>>() {
+            @Override
+            public Publisher<Boolean> apply(Integer v) throws Exception {
+                return v == 2 ? Flowable.<Boolean>empty() : Flowable.just(true).hide();
+            }
+        }, 3, 8))
+        .test()
+        .assertResult(1, 3, 4, 5);
+    }
+
+    @Test
+    public void largeAsync() {
+        Flowable.range(1, 10000)
+        .compose(FlowableTransformers.mapAsync(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return Flowable.just(v).subscribeOn(Schedulers.computation());
+            }
+        }, 16, 32))
+        .test()
+        .awaitDone(10, TimeUnit.SECONDS)
+        .assertValueSequence(sequence(1, 10000))
+        .assertNoErrors()
+        .assertComplete();
+    }
+}
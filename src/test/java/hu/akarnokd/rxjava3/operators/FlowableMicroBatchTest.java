@@ -0,0 +1,250 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.reactivex.Flowable;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.*;
+import io.reactivex.subscribers.TestSubscriber;
+
+public class FlowableMicroBatchTest {
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void sizeBound() {
+        Flowable.range(1, 7)
+        .compose(FlowableTransformers.<Integer>microBatch(3, 1, TimeUnit.MINUTES))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertResult(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6), Arrays.asList(7));
+    }
+
+    @Test
+    public void empty() {
+        Flowable.<Integer>empty()
+        .compose(FlowableTransformers.<Integer>microBatch(3, 1, TimeUnit.MINUTES))
+        .test()
+        .assertResult();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void latencyBound() {
+        TestScheduler scheduler = new TestScheduler();
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<List<Integer>> ts = pp
+        .compose(FlowableTransformers.<Integer>microBatch(4, 10, TimeUnit.MILLISECONDS, scheduler))
+        .test();
+
+        // no item, no batch
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+        ts.assertEmpty();
+
+        pp.onNext(1);
+        scheduler.advanceTimeBy(5, TimeUnit.MILLISECONDS);
+        pp.onNext(2);
+        scheduler.advanceTimeBy(4, TimeUnit.MILLISECONDS);
+
+        ts.assertEmpty();
+
+        // the latency is measured from the first item of the batch
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        ts.assertValuesOnly(Arrays.asList(1, 2));
+
+        pp.onNext(3);
+        scheduler.advanceTimeBy(10, TimeUnit.MILLISECONDS);
+
+        ts.assertValuesOnly(Arrays.asList(1, 2), Arrays.asList(3));
+
+        pp.onComplete();
+
+        ts.assertResult(Arrays.asList(1, 2), Arrays.asList(3));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void sizeBoundRestartsLatency() {
+        TestScheduler scheduler = new TestScheduler();
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<List<Integer>> ts = pp
+        .compose(FlowableTransformers.<Integer>microBatch(2, 10, TimeUnit.MILLISECONDS, scheduler))
+        .test();
+
+        pp.onNext(1);
+        scheduler.advanceTimeBy(8, TimeUnit.MILLISECONDS);
+        pp.onNext(2);
+
+        ts.assertValuesOnly(Arrays.asList(1, 2));
+
+        pp.onNext(3);
+        // the timer of the first batch must not flush the second one early
+        scheduler.advanceTimeBy(5, TimeUnit.MILLISECONDS);
+
+        ts.assertValuesOnly(Arrays.asList(1, 2));
+
+        scheduler.advanceTimeBy(5, TimeUnit.MILLISECONDS);
+
+        ts.assertValuesOnly(Arrays.asList(1, 2), Arrays.asList(3));
+    }
+
+    @Test
+    public void longArrays() {
+        TestScheduler scheduler = new TestScheduler();
+        PublishProcessor<Long> pp = PublishProcessor.create();
+
+        TestSubscriber<long[]> ts = pp
+        .compose(FlowableTransformers.microBatchLong(3, 10, TimeUnit.MILLISECONDS, scheduler))
+        .test();
+
+        pp.onNext(1L);
+        pp.onNext(2L);
+        pp.onNext(3L);
+        pp.onNext(4L);
+
+        scheduler.advanceTimeBy(10, TimeUnit.MILLISECONDS);
+
+        pp.onNext(5L);
+        pp.onComplete();
+
+        ts.assertValueCount(3).assertNoErrors().assertComplete();
+
+        assertArrayEquals(new long[] { 1L, 2L, 3L }, ts.values().get(0));
+        assertArrayEquals(new long[] { 4L }, ts.values().get(1));
+        assertArrayEquals(new long[] { 5L }, ts.values().get(2));
+    }
+
+    @Test
+    public void intArrays() {
+        TestSubscriber<int[]> ts = Flowable.range(1, 5)
+        .compose(FlowableTransformers.microBatchInt(2, 1, TimeUnit.MINUTES))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(3)
+        .assertNoErrors()
+        .assertComplete();
+
+        assertArrayEquals(new int[] { 1, 2 }, ts.values().get(0));
+        assertArrayEquals(new int[] { 3, 4 }, ts.values().get(1));
+        assertArrayEquals(new int[] { 5 }, ts.values().get(2));
+    }
+
+    @Test
+    public void doubleArrays() {
+        TestSubscriber<double[]> ts = Flowable.just(1.5, 2.5, 3.5)
+        .compose(FlowableTransformers.microBatchDouble(2, 1, TimeUnit.MINUTES))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(2)
+        .assertNoErrors()
+        .assertComplete();
+
+        assertArrayEquals(new double[] { 1.5, 2.5 }, ts.values().get(0), 0.0);
+        assertArrayEquals(new double[] { 3.5 }, ts.values().get(1), 0.0);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void backpressured() {
+        TestSubscriber<List<Integer>> ts = Flowable.range(1, 5)
+        .compose(FlowableTransformers.<Integer>microBatch(2, 1, TimeUnit.MINUTES))
+        .test(0L);
+
+        ts.assertEmpty();
+
+        ts.requestMore(1);
+
+        ts.assertValuesOnly(Arrays.asList(1, 2));
+
+        ts.requestMore(1);
+
+        ts.assertValuesOnly(Arrays.asList(1, 2), Arrays.asList(3, 4));
+
+        ts.requestMore(1);
+
+        ts.assertResult(Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5));
+    }
+
+    @Test
+    public void error() {
+        Flowable.range(1, 5).concatWith(Flowable.<Integer>error(new IOException()))
+        .compose(FlowableTransformers.<Integer>microBatch(2, 1, TimeUnit.MINUTES))
+        .test(0L)
+        .assertFailure(IOException.class);
+    }
+
+    @Test
+    public void cancel() {
+        TestScheduler scheduler = new TestScheduler();
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<List<Integer>> ts = pp
+        .compose(FlowableTransformers.<Integer>microBatch(4, 10, TimeUnit.MILLISECONDS, scheduler))
+        .test();
+
+        pp.onNext(1);
+
+        ts.cancel();
+
+        assertFalse(pp.hasSubscribers());
+
+        scheduler.advanceTimeBy(10, TimeUnit.MILLISECONDS);
+
+        ts.assertEmpty();
+    }
+
+    @Test
+    public void async() {
+        TestSubscriber<long[]> ts = Flowable.rangeLong(0, 100000)
+        .subscribeOn(Schedulers.single())
+        .compose(FlowableTransformers.microBatchLong(4096, 1, TimeUnit.MILLISECONDS))
+        .observeOn(Schedulers.computation())
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertNoErrors()
+        .assertComplete();
+
+        long expected = 0;
+        for (long[] batch : ts.values()) {
+            assertTrue(batch.length > 0 && batch.length <= 4096);
+            for (long v : batch) {
+                assertEquals(expected++, v);
+            }
+        }
+        assertEquals(100000, expected);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxSizeNonPositive() {
+        FlowableTransformers.microBatchInt(0, 1, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxLatencyNonPositive() {
+        FlowableTransformers.microBatchInt(1, 0, TimeUnit.SECONDS);
+    }
+}
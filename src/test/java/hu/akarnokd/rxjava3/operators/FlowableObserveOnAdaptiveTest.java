@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import io.reactivex.Flowable;
+import io.reactivex.functions.LongConsumer;
+import io.reactivex.internal.schedulers.ImmediateThinScheduler;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.*;
+import io.reactivex.subscribers.TestSubscriber;
+
+public class FlowableObserveOnAdaptiveTest {
+
+    @Test
+    public void normal() {
+        Flowable.range(1, 10)
+        .compose(FlowableTransformers.<Integer>observeOnAdaptive(Schedulers.computation()))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    public void normalLong() {
+        TestSubscriber<Integer> ts = Flowable.range(1, 100000)
+        .compose(FlowableTransformers.<Integer>observeOnAdaptive(Schedulers.computation(), 4, 256))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(100000)
+        .assertNoErrors()
+        .assertComplete();
+
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(i + 1, ts.values().get(i).intValue());
+        }
+    }
+
+    @Test
+    public void asyncUpstream() {
+        Flowable.range(1, 10000)
+        .subscribeOn(Schedulers.computation())
+        .compose(FlowableTransformers.<Integer>observeOnAdaptive(Schedulers.single(), 2, 128))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(10000)
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @Test
+    public void take() {
+        Flowable.range(1, 10)
+        .compose(FlowableTransformers.<Integer>observeOnAdaptive(Schedulers.computation()))
+        .take(5)
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertResult(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void error() {
+        Flowable.range(1, 5).concatWith(Flowable.<Integer>error(new IOException()))
+        .compose(FlowableTransformers.<Integer>observeOnAdaptive(Schedulers.computation()))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertFailure(IOException.class, 1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void backpressured() {
+        TestScheduler scheduler = new TestScheduler();
+
+        TestSubscriber<Integer> ts = Flowable.range(1, 5)
+        .compose(FlowableTransformers.<Integer>observeOnAdaptive(scheduler, 2, 8))
+        .test(0L);
+
+        scheduler.triggerActions();
+
+        ts.assertEmpty();
+
+        ts.requestMore(1);
+        scheduler.triggerActions();
+
+        ts.assertValuesOnly(1);
+
+        ts.requestMore(3);
+        scheduler.triggerActions();
+
+        ts.assertValuesOnly(1, 2, 3, 4);
+
+        ts.requestMore(1);
+        scheduler.triggerActions();
+
+        ts.assertResult(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void cancel() {
+        TestScheduler scheduler = new TestScheduler();
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = pp
+        .compose(FlowableTransformers.<Integer>observeOnAdaptive(scheduler, 4, 16))
+        .test();
+
+        assertTrue(pp.hasSubscribers());
+
+        pp.onNext(1);
+        scheduler.triggerActions();
+
+        ts.cancel();
+
+        assertFalse(pp.hasSubscribers());
+
+        ts.assertValuesOnly(1);
+    }
+
+    @Test
+    public void growsWhenStarving() {
+        final AtomicLong requested = new AtomicLong();
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = pp
+        .doOnRequest(new LongConsumer() {
+            @Override
+            public void accept(long n) throws Exception {
+                requested.addAndGet(n);
+            }
+        })
+        .compose(FlowableTransformers.<Integer>observeOnAdaptive(ImmediateThinScheduler.INSTANCE, 4, 64))
+        .test();
+
+        assertEquals(8, requested.get());
+
+        long maxAhead = 0;
+        for (int i = 0; i < 1000; i++) {
+            pp.onNext(i);
+            long ahead = requested.get() - (i + 1);
+            assertTrue("" + ahead, ahead <= 64);
+            maxAhead = Math.max(maxAhead, ahead);
+        }
+
+        assertTrue("" + maxAhead, maxAhead >= 32);
+
+        pp.onComplete();
+
+        ts.assertValueCount(1000)
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @Test
+    public void shrinksWhenBacklogged() {
+        final AtomicLong requested = new AtomicLong();
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = pp
+        .doOnRequest(new LongConsumer() {
+            @Override
+            public void accept(long n) throws Exception {
+                requested.addAndGet(n);
+            }
+        })
+        .compose(FlowableTransformers.<Integer>observeOnAdaptive(ImmediateThinScheduler.INSTANCE, 4, 64))
+        .test(0L);
+
+        // fast consumer: the producer can't keep the buffer filled
+        ts.requestMore(500);
+
+        int emitted = 0;
+        while (emitted < 500) {
+            pp.onNext(emitted++);
+        }
+
+        assertTrue("" + (requested.get() - emitted), requested.get() - emitted >= 32);
+
+        // slow consumer: the producer fills the buffer while the consumer requests one by one
+        for (int i = 0; i < 500; i++) {
+            while (emitted < requested.get()) {
+                pp.onNext(emitted++);
+            }
+            ts.requestMore(1);
+        }
+
+        assertTrue("" + (requested.get() - ts.values().size()), requested.get() - ts.values().size() <= 8);
+
+        ts.assertValueCount(1000)
+        .assertNoErrors()
+        .assertNotComplete();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void minPrefetchNonPositive() {
+        FlowableTransformers.observeOnAdaptive(Schedulers.single(), 0, 16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxPrefetchLessThanMin() {
+        FlowableTransformers.observeOnAdaptive(Schedulers.single(), 16, 8);
+    }
+}
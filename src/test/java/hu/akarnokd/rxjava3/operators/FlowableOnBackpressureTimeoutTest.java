@@ -18,13 +18,15 @@ package hu.akarnokd.rxjava3.operators;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 import org.junit.*;
 
 import hu.akarnokd.rxjava3.test.TestHelper;
-import io.reactivex.Flowable;
+import io.reactivex.*;
+import io.reactivex.disposables.*;
 import io.reactivex.functions.Consumer;
+import io.reactivex.internal.subscriptions.BooleanSubscription;
 import io.reactivex.plugins.RxJavaPlugins;
 import io.reactivex.processors.PublishProcessor;
 import io.reactivex.schedulers.*;
@@ -313,4 +315,189 @@ public class FlowableOnBackpressureTimeoutTest implements Consumer<Object> {
 
         Assert.assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), evicted);
     }
+
+    @Test
+    public void timeoutSweepsAtDeadlines() {
+        TestScheduler scheduler = new TestScheduler();
+
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = pp
+        .compose(FlowableTransformers.<Integer>onBackpressureTimeout(10, 1000, TimeUnit.MILLISECONDS, scheduler, this))
+        .test(0);
+
+        for (int i = 1; i <= 5; i++) {
+            pp.onNext(i);
+            scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        }
+
+        Assert.assertEquals(Collections.emptyList(), evicted);
+
+        scheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(Arrays.asList(1), evicted);
+
+        scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(Arrays.asList(1, 2, 3), evicted);
+
+        ts.requestMore(1)
+        .assertValuesOnly(4);
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 5), evicted);
+
+        pp.onComplete();
+
+        ts.assertResult(4);
+    }
+
+    @Test
+    public void asyncProducerSlowConsumer() {
+        final int n = 100000;
+        final Set<Object> seen = Collections.synchronizedSet(new HashSet<Object>());
+
+        TestSubscriber<Integer> ts = Flowable.range(1, n)
+        .subscribeOn(Schedulers.computation())
+        .compose(FlowableTransformers.<Integer>onBackpressureTimeout(1000, 1, TimeUnit.MILLISECONDS, Schedulers.single(), this))
+        .observeOn(Schedulers.io(), false, 16)
+        .test();
+
+        ts.awaitDone(10, TimeUnit.SECONDS)
+        .assertNoErrors()
+        .assertComplete();
+
+        int last = 0;
+        for (Integer v : ts.values()) {
+            Assert.assertTrue(v + " after " + last, v > last);
+            last = v;
+            seen.add(v);
+        }
+        synchronized (evicted) {
+            for (Object o : evicted) {
+                Assert.assertTrue("Duplicate " + o, seen.add(o));
+            }
+        }
+        Assert.assertEquals(n, seen.size());
+    }
+
+    @Test
+    public void expiredButRequestedBeforeTheTimerIsEmitted() {
+        final TestScheduler clock = new TestScheduler();
+
+        // a timer that never gets to run, time passes only via the clock
+        Scheduler lateTimer = new Scheduler() {
+            @Override
+            public Worker createWorker() {
+                return new Worker() {
+                    @Override
+                    public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
+                        return Disposables.empty();
+                    }
+
+                    @Override
+                    public long now(TimeUnit unit) {
+                        return clock.now(unit);
+                    }
+
+                    @Override
+                    public void dispose() {
+                    }
+
+                    @Override
+                    public boolean isDisposed() {
+                        return false;
+                    }
+                };
+            }
+        };
+
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = pp
+        .compose(FlowableTransformers.<Integer>onBackpressureTimeout(10, 1, TimeUnit.SECONDS, lateTimer, this))
+        .test(0);
+
+        pp.onNext(1);
+
+        clock.advanceTimeBy(2, TimeUnit.SECONDS);
+
+        ts.requestMore(1)
+        .assertValuesOnly(1);
+
+        Assert.assertEquals(Collections.emptyList(), evicted);
+    }
+
+    @Test(timeout = 10000)
+    public void maxSizeEvictsAtOfferWhileEmitting() throws Exception {
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        final CountDownLatch inOnNext = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final TestSubscriber<Integer> ts = pp
+        .compose(FlowableTransformers.<Integer>onBackpressureTimeout(2, 1, TimeUnit.MINUTES, Schedulers.single(), this))
+        .doOnNext(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer v) throws Exception {
+                if (v == 1) {
+                    inOnNext.countDown();
+                    release.await();
+                }
+            }
+        })
+        .test(0);
+
+        pp.onNext(1);
+
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ts.requestMore(1);
+            }
+        });
+        t.start();
+
+        Assert.assertTrue(inOnNext.await(5, TimeUnit.SECONDS));
+
+        for (int i = 2; i <= 5; i++) {
+            pp.onNext(i);
+        }
+
+        // the buffer never holds more than maxSize elements, even while the downstream is busy
+        Assert.assertEquals(Arrays.asList(2, 3), evicted);
+
+        release.countDown();
+        t.join();
+
+        ts.assertValuesOnly(1)
+        .requestMore(2)
+        .assertValuesOnly(1, 4, 5);
+
+        Assert.assertEquals(Arrays.asList(2, 3), evicted);
+    }
+
+    @Test
+    public void maxSizeBoundsTheQueueWithoutRequests() {
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>(0L);
+
+        FlowableOnBackpressureTimeout.OnBackpressureTimeoutSubscriber<Integer> parent =
+                new FlowableOnBackpressureTimeout.OnBackpressureTimeoutSubscriber<Integer>(
+                        ts, 10, 1, TimeUnit.MINUTES, new TestScheduler().createWorker(), this);
+
+        parent.onSubscribe(new BooleanSubscription());
+
+        for (int i = 0; i < 1000; i++) {
+            parent.onNext(i);
+        }
+
+        Assert.assertEquals(10, parent.queue.size());
+        Assert.assertEquals(990, evicted.size());
+
+        ts.requestMore(10)
+        .assertValuesOnly(990, 991, 992, 993, 994, 995, 996, 997, 998, 999);
+
+        Assert.assertTrue(parent.queue.isEmpty());
+    }
 }
@@ -16,8 +16,11 @@
 
 package hu.akarnokd.rxjava3.operators;
 
+import static org.junit.Assert.assertTrue;
+
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
@@ -27,6 +30,7 @@ import io.reactivex.exceptions.CompositeException;
 import io.reactivex.functions.*;
 import io.reactivex.internal.functions.Functions;
 import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subscribers.TestSubscriber;
 
 public class FlowableOrderedMergeTest {
@@ -543,4 +547,248 @@ public class FlowableOrderedMergeTest {
         .test()
         .assertResult(1, 2);
     }
+
+    static List<Flowable<Integer>> randomSortedSources(int n, int count, List<Integer> all) {
+        Random rnd = new Random(n);
+        List<Flowable<Integer>> sources = new ArrayList<Flowable<Integer>>();
+        for (int i = 0; i < n; i++) {
+            List<Integer> list = new ArrayList<Integer>();
+            int c = rnd.nextInt(count + 1);
+            for (int j = 0; j < c; j++) {
+                list.add(rnd.nextInt(100000));
+            }
+            Collections.sort(list);
+            all.addAll(list);
+            sources.add(Flowable.fromIterable(list));
+        }
+        Collections.sort(all);
+        return sources;
+    }
+
+    @Test
+    public void manySources() {
+        List<Integer> expected = new ArrayList<Integer>();
+        List<Flowable<Integer>> sources = randomSortedSources(500, 20, expected);
+
+        Flowables.orderedMerge(sources, Functions.<Integer>naturalComparator())
+        .test()
+        .assertValueSequence(expected)
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @Test
+    public void manySourcesBackpressured() {
+        List<Integer> expected = new ArrayList<Integer>();
+        List<Flowable<Integer>> sources = randomSortedSources(300, 20, expected);
+
+        Flowables.orderedMerge(sources, Functions.<Integer>naturalComparator(), false, 1)
+        .rebatchRequests(3)
+        .test()
+        .assertValueSequence(expected)
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @Test
+    public void manySourcesAsync() {
+        List<Integer> expected = new ArrayList<Integer>();
+        List<Flowable<Integer>> sources = randomSortedSources(200, 50, expected);
+
+        List<Flowable<Integer>> async = new ArrayList<Flowable<Integer>>();
+        for (Flowable<Integer> f : sources) {
+            async.add(f.subscribeOn(Schedulers.computation()));
+        }
+
+        Flowables.orderedMerge(async, Functions.<Integer>naturalComparator(), false, 4)
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueSequence(expected)
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @Test
+    public void equalItemsInSourceOrder() {
+        List<Flowable<Integer>> sources = new ArrayList<Flowable<Integer>>();
+        for (int i = 0; i < 20; i++) {
+            sources.add(Flowable.just(100 + i, 200 + i));
+        }
+
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(100 + i);
+        }
+        for (int i = 0; i < 20; i++) {
+            expected.add(200 + i);
+        }
+
+        Flowables.orderedMerge(sources, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return (a / 100) - (b / 100);
+            }
+        })
+        .test()
+        .assertValueSequence(expected)
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @Test
+    public void logarithmicComparisons() {
+        final int n = 512;
+        final int count = 20;
+        List<Flowable<Integer>> sources = new ArrayList<Flowable<Integer>>();
+        for (int i = 0; i < n; i++) {
+            sources.add(Flowable.range(i * count, count));
+        }
+
+        final long[] comparisons = { 0L };
+
+        Flowables.orderedMerge(sources, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                comparisons[0]++;
+                return a.compareTo(b);
+            }
+        })
+        .test()
+        .assertValueCount(n * count)
+        .assertNoErrors()
+        .assertComplete();
+
+        // a linear scan would need about n comparisons per item
+        assertTrue("" + comparisons[0], comparisons[0] < 3L * 9 * n * count);
+    }
+
+    @Test
+    public void runsManySources() {
+        List<Integer> expected = new ArrayList<Integer>();
+        List<Flowable<Integer>> sources = randomSortedSources(500, 20, expected);
+
+        Flowables.orderedMerge(sources, Functions.<Integer>naturalComparator(), false, Flowable.bufferSize(), true)
+        .test()
+        .assertValueSequence(expected)
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @Test
+    public void runsBackpressured() {
+        List<Integer> expected = new ArrayList<Integer>();
+        List<Flowable<Integer>> sources = randomSortedSources(100, 50, expected);
+
+        Flowables.orderedMerge(sources, Functions.<Integer>naturalComparator(), false, 2, true)
+        .rebatchRequests(5)
+        .test()
+        .assertValueSequence(expected)
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @Test
+    public void runsAsync() {
+        List<Integer> expected = new ArrayList<Integer>();
+        List<Flowable<Integer>> sources = randomSortedSources(50, 200, expected);
+
+        List<Flowable<Integer>> async = new ArrayList<Flowable<Integer>>();
+        for (Flowable<Integer> f : sources) {
+            async.add(f.subscribeOn(Schedulers.computation()));
+        }
+
+        Flowables.orderedMerge(async, Functions.<Integer>naturalComparator(), false, 8, true)
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueSequence(expected)
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void runsInterleaved() {
+        Flowables.orderedMerge(Functions.<Integer>naturalComparator(), false, 1, true,
+                Flowable.just(1, 2, 3, 7, 8), Flowable.just(3, 4, 9), Flowable.just(5, 6, 10))
+        .test()
+        .assertResult(1, 2, 3, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    public void runsEqualItemsInSourceOrder() {
+        List<Flowable<Integer>> sources = new ArrayList<Flowable<Integer>>();
+        for (int i = 0; i < 5; i++) {
+            sources.add(Flowable.just(100 + i, 101 + i, 200 + i));
+        }
+
+        Flowables.orderedMerge(sources, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return (a / 100) - (b / 100);
+            }
+        }, false, Flowable.bufferSize(), true)
+        .test()
+        .assertResult(100, 101, 101, 102, 102, 103, 103, 104, 104, 105, 200, 201, 202, 203, 204);
+    }
+
+    @Test
+    public void runsPartitionedComparisons() {
+        final int n = 64;
+        final int count = 1000;
+        List<Flowable<Integer>> sources = new ArrayList<Flowable<Integer>>();
+        for (int i = 0; i < n; i++) {
+            sources.add(Flowable.range(i * count, count));
+        }
+
+        final long[] comparisons = { 0L };
+
+        Flowables.orderedMerge(sources, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                comparisons[0]++;
+                return a.compareTo(b);
+            }
+        }, false, Flowable.bufferSize(), true)
+        .test()
+        .assertValueCount(n * count)
+        .assertNoErrors()
+        .assertComplete();
+
+        // about one comparison per item while a partition is being copied
+        assertTrue("" + comparisons[0], comparisons[0] < 2L * n * count);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void runsComparatorThrows() {
+        Flowables.orderedMerge(new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                if (a == 3 || b == 3) {
+                    throw new IllegalArgumentException();
+                }
+                return a.compareTo(b);
+            }
+        }, false, Flowable.bufferSize(), true, Flowable.just(1, 2, 3), Flowable.just(5, 6))
+        .test()
+        .assertFailure(IllegalArgumentException.class, 1, 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void runsSecondErrors() {
+        Flowables.orderedMerge(Functions.<Integer>naturalComparator(), false, Flowable.bufferSize(), true,
+                Flowable.just(1, 3, 5, 7), Flowable.just(2, 4).concatWith(Flowable.<Integer>error(new IOException())))
+        .test()
+        .assertFailure(IOException.class, 1, 2, 3, 4);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void runsSecondErrorsDelayed() {
+        Flowables.orderedMerge(Functions.<Integer>naturalComparator(), true, Flowable.bufferSize(), true,
+                Flowable.just(1, 3, 5, 7), Flowable.just(2, 4).concatWith(Flowable.<Integer>error(new IOException())))
+        .test()
+        .assertFailure(IOException.class, 1, 2, 3, 4, 5, 7);
+    }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.reactivex.Flowable;
+import io.reactivex.functions.LongConsumer;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.*;
+import io.reactivex.subscribers.TestSubscriber;
+
+public class FlowableRateLimitTest {
+
+    @Test
+    public void burstThenRate() {
+        TestScheduler scheduler = new TestScheduler();
+
+        TestSubscriber<Integer> ts = Flowable.range(1, 10)
+        .compose(FlowableTransformers.<Integer>rateLimit(2, 100, TimeUnit.MILLISECONDS, 3, scheduler))
+        .test();
+
+        ts.assertValuesOnly(1, 2, 3);
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        ts.assertValuesOnly(1, 2, 3, 4, 5);
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        ts.assertValuesOnly(1, 2, 3, 4, 5, 6, 7);
+
+        scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+
+        ts.assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    public void tokensPileUpToBurst() {
+        TestScheduler scheduler = new TestScheduler();
+
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        final List<Long> requests = new ArrayList<Long>();
+
+        TestSubscriber<Integer> ts = pp
+        .doOnRequest(new LongConsumer() {
+            @Override
+            public void accept(long n) throws Exception {
+                requests.add(n);
+            }
+        })
+        .compose(FlowableTransformers.<Integer>rateLimit(1, 100, TimeUnit.MILLISECONDS, 5, scheduler))
+        .test();
+
+        assertEquals(Arrays.asList(5L), requests);
+
+        for (int i = 1; i <= 5; i++) {
+            pp.onNext(i);
+        }
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        // one refill, one request
+        assertEquals(Arrays.asList(5L, 1L), requests);
+
+        pp.onNext(6);
+
+        // idle for long, the bucket fills up only to burst
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(5L, 1L, 1L, 1L, 1L, 1L, 1L), requests);
+
+        for (int i = 7; i <= 11; i++) {
+            pp.onNext(i);
+        }
+        pp.onComplete();
+
+        ts.assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+    }
+
+    @Test
+    public void batchedRefillRequest() {
+        TestScheduler scheduler = new TestScheduler();
+
+        final List<Long> requests = new ArrayList<Long>();
+
+        TestSubscriber<Integer> ts = Flowable.range(1, 100)
+        .doOnRequest(new LongConsumer() {
+            @Override
+            public void accept(long n) throws Exception {
+                requests.add(n);
+            }
+        })
+        .compose(FlowableTransformers.<Integer>rateLimit(10, 1, TimeUnit.SECONDS, 10, scheduler))
+        .test();
+
+        ts.assertValueCount(10);
+
+        scheduler.advanceTimeBy(9, TimeUnit.SECONDS);
+
+        ts.assertValueCount(100)
+        .assertComplete();
+
+        assertEquals(Collections.nCopies(10, 10L), requests);
+    }
+
+    @Test
+    public void downstreamBackpressure() {
+        TestScheduler scheduler = new TestScheduler();
+
+        TestSubscriber<Integer> ts = Flowable.range(1, 10)
+        .compose(FlowableTransformers.<Integer>rateLimit(2, 100, TimeUnit.MILLISECONDS, 4, scheduler))
+        .test(1);
+
+        ts.assertValuesOnly(1);
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        ts.assertValuesOnly(1);
+
+        ts.request(10);
+
+        // the bucket refilled while there was no demand
+        ts.assertValuesOnly(1, 2, 3, 4, 5);
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        ts.assertValuesOnly(1, 2, 3, 4, 5, 6, 7);
+    }
+
+    @Test
+    public void error() {
+        Flowable.<Integer>error(new IOException())
+        .compose(FlowableTransformers.<Integer>rateLimit(1, 1, TimeUnit.SECONDS, 1))
+        .test()
+        .assertFailure(IOException.class);
+    }
+
+    @Test
+    public void cancel() {
+        TestScheduler scheduler = new TestScheduler();
+
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = pp
+        .compose(FlowableTransformers.<Integer>rateLimit(1, 1, TimeUnit.SECONDS, 1, scheduler))
+        .test();
+
+        assertTrue(pp.hasSubscribers());
+
+        ts.cancel();
+
+        assertFalse(pp.hasSubscribers());
+    }
+
+    @Test
+    public void realRate() {
+        long start = System.nanoTime();
+
+        Flowable.range(1, 50)
+        .compose(FlowableTransformers.<Integer>rateLimit(10, 20, TimeUnit.MILLISECONDS, 10, Schedulers.single()))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(50)
+        .assertNoErrors()
+        .assertComplete();
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("" + elapsed, elapsed >= 70);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void burstLessThanPermits() {
+        FlowableTransformers.rateLimit(10, 1, TimeUnit.SECONDS, 5);
+    }
+}
@@ -16,17 +16,19 @@
 
 package hu.akarnokd.rxjava3.operators;
 
-import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.*;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.reactivestreams.*;
 
 import hu.akarnokd.rxjava3.test.TestHelper;
 import io.reactivex.Flowable;
+import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
 import io.reactivex.internal.functions.Functions;
 import io.reactivex.internal.subscriptions.BooleanSubscription;
@@ -235,6 +237,81 @@ public class FlowableSwitchFlatMapTest {
         }
     }
 
+    @Test
+    public void innerErrorWhileAddingInnerCancelsIt() {
+        final PublishProcessor<Integer> pp = PublishProcessor.create();
+        final PublishProcessor<Integer> pp1 = PublishProcessor.create();
+        final PublishProcessor<Integer> pp2 = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = pp
+        .compose(FlowableTransformers.switchFlatMap(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                if (v == 1) {
+                    return pp1;
+                }
+                // the drain loop terminates before the new inner gets added
+                pp1.onError(new IOException());
+                return pp2;
+            }
+        }, 2))
+        .test();
+
+        pp.onNext(1);
+
+        assertTrue(pp1.hasSubscribers());
+
+        pp.onNext(2);
+
+        ts.assertFailure(IOException.class);
+
+        assertFalse(pp.hasSubscribers());
+        assertFalse(pp1.hasSubscribers());
+        assertFalse(pp2.hasSubscribers());
+    }
+
+    @Test
+    public void innerErrorNewInnerRace() {
+        final Throwable ex = new IOException();
+
+        for (int i = 0; i < 1000; i++) {
+            final PublishProcessor<Integer> pp = PublishProcessor.create();
+            final PublishProcessor<Integer> pp1 = PublishProcessor.create();
+            final PublishProcessor<Integer> pp2 = PublishProcessor.create();
+
+            TestSubscriber<Integer> ts = pp
+            .compose(FlowableTransformers.switchFlatMap(new Function<Integer, Publisher<Integer>>() {
+                @Override
+                public Publisher<Integer> apply(Integer v) throws Exception {
+                    return v == 1 ? pp1 : pp2;
+                }
+            }, 2))
+            .test();
+
+            pp.onNext(1);
+
+            Runnable r1 = new Runnable() {
+                @Override
+                public void run() {
+                    pp.onNext(2);
+                }
+            };
+            Runnable r2 = new Runnable() {
+                @Override
+                public void run() {
+                    pp1.onError(ex);
+                }
+            };
+
+            TestHelper.race(r1, r2, Schedulers.single());
+
+            ts.assertFailure(IOException.class);
+
+            assertFalse(pp1.hasSubscribers());
+            assertFalse(pp2.hasSubscribers());
+        }
+    }
+
     @Test
     public void cancel() {
         final PublishProcessor<Integer> pp1 = PublishProcessor.create();
@@ -314,4 +391,119 @@ public class FlowableSwitchFlatMapTest {
 
         assertFalse(bp.hasSubscribers());
     }
+
+    @Test
+    public void evictsOldestActive() {
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        @SuppressWarnings("unchecked")
+        final PublishProcessor<Integer>[] pss = new PublishProcessor[4];
+        for (int i = 0; i < pss.length; i++) {
+            pss[i] = PublishProcessor.create();
+        }
+
+        TestSubscriber<Integer> ts = pp
+        .compose(FlowableTransformers.switchFlatMap(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return pss[v];
+            }
+        }, 2))
+        .test();
+
+        pp.onNext(0);
+        pp.onNext(1);
+
+        pss[1].onComplete();
+
+        // the free slot is reused, the oldest stays active
+        pp.onNext(2);
+
+        assertTrue(pss[0].hasSubscribers());
+        assertTrue(pss[2].hasSubscribers());
+
+        pp.onNext(3);
+
+        assertFalse(pss[0].hasSubscribers());
+        assertTrue(pss[2].hasSubscribers());
+        assertTrue(pss[3].hasSubscribers());
+
+        pss[3].onNext(30);
+        pss[2].onNext(20);
+        pss[2].onComplete();
+        pss[3].onComplete();
+        pp.onComplete();
+
+        ts.assertResult(30, 20);
+    }
+
+    @Test
+    public void cancelCancelsAllSlots() {
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        @SuppressWarnings("unchecked")
+        final PublishProcessor<Integer>[] pss = new PublishProcessor[4];
+        for (int i = 0; i < pss.length; i++) {
+            pss[i] = PublishProcessor.create();
+        }
+
+        TestSubscriber<Integer> ts = pp
+        .compose(FlowableTransformers.switchFlatMap(new Function<Integer, Publisher<Integer>>() {
+            @Override
+            public Publisher<Integer> apply(Integer v) throws Exception {
+                return pss[v];
+            }
+        }, 4))
+        .test();
+
+        for (int i = 0; i < 4; i++) {
+            pp.onNext(i);
+        }
+
+        ts.cancel();
+
+        assertFalse(pp.hasSubscribers());
+        for (int i = 0; i < 4; i++) {
+            assertFalse(pss[i].hasSubscribers());
+        }
+    }
+
+    @Test
+    public void concurrentInnerChurn() {
+        for (int maxActive : new int[] { 1, 4, 16 }) {
+            final int n = 1000;
+            final AtomicInteger subscriptions = new AtomicInteger();
+
+            TestSubscriber<Integer> ts = Flowable.range(0, n)
+            .compose(FlowableTransformers.switchFlatMap(new Function<Integer, Publisher<Integer>>() {
+                @Override
+                public Publisher<Integer> apply(Integer v) throws Exception {
+                    return Flowable.range(v * 10, 10)
+                            .subscribeOn(Schedulers.computation())
+                            .doOnSubscribe(new Consumer<Subscription>() {
+                                @Override
+                                public void accept(Subscription s) throws Exception {
+                                    subscriptions.getAndIncrement();
+                                }
+                            });
+                }
+            }, maxActive))
+            .test();
+
+            ts.awaitDone(10, TimeUnit.SECONDS)
+            .assertNoErrors()
+            .assertComplete();
+
+            Set<Integer> seen = new HashSet<Integer>();
+            for (Integer v : ts.values()) {
+                assertTrue("Duplicate " + v, seen.add(v));
+            }
+
+            // the last maxActive inners are never evicted
+            for (int i = (n - maxActive) * 10; i < n * 10; i++) {
+                assertTrue("Missing " + i + " with maxActive " + maxActive, seen.contains(i));
+            }
+            assertEquals(n, subscriptions.get());
+        }
+    }
 }
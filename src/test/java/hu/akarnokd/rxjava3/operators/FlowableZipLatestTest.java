@@ -63,6 +63,20 @@ public class FlowableZipLatestTest {
         }
     };
 
+    Function<LatestSnapshot<Object>, String> snapshotToString = new Function<LatestSnapshot<Object>, String>() {
+        @Override
+        public String apply(LatestSnapshot<Object> a) throws Exception {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < a.size(); i++) {
+                if (i != 0) {
+                    sb.append(", ");
+                }
+                sb.append(a.get(i));
+            }
+            return sb.append("]").toString();
+        }
+    };
+
     @Test
     public void zipLatest2a() {
         Flowables.zipLatest(Flowable.just(1), Flowable.just(2), toString2)
@@ -614,4 +628,180 @@ public class FlowableZipLatestTest {
             RxJavaPlugins.reset();
         }
     }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void snapshotArray() {
+        TestScheduler scheduler = new TestScheduler();
+
+        TestSubscriber<String> ts = Flowables.zipLatestSnapshot(snapshotToString,
+                Flowable.<Object>intervalRange(1, 6, 99, 100, TimeUnit.MILLISECONDS, scheduler),
+                Flowable.<Object>intervalRange(4, 3, 200, 200, TimeUnit.MILLISECONDS, scheduler)
+        )
+        .test();
+
+        scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+
+        ts.assertValue("[2, 4]");
+
+        scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+
+        ts.assertValues("[2, 4]", "[4, 5]");
+
+        scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+
+        ts.assertResult("[2, 4]", "[4, 5]", "[6, 6]");
+    }
+
+    @Test
+    public void snapshotIterableScheduler() {
+        List<Flowable<Object>> list = new ArrayList<Flowable<Object>>();
+        list.add(Flowable.<Object>just(1, 2));
+        list.add(Flowable.<Object>just(3));
+
+        Flowables.zipLatestSnapshot(list, snapshotToString, Schedulers.single())
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertResult("[2, 3]");
+    }
+
+    @Test
+    public void snapshotIterableEmpty() {
+        Flowables.zipLatestSnapshot(Collections.<Publisher<Object>>emptyList(), snapshotToString)
+        .test()
+        .assertResult();
+    }
+
+    @Test
+    public void snapshotReused() {
+        final PublishProcessor<Integer> pp1 = PublishProcessor.create();
+        final PublishProcessor<Integer> pp2 = PublishProcessor.create();
+        final List<Object> views = new ArrayList<Object>();
+
+        @SuppressWarnings("unchecked")
+        TestSubscriber<Integer> ts = Flowables.zipLatestSnapshot(new Function<LatestSnapshot<Integer>, Integer>() {
+            @Override
+            public Integer apply(LatestSnapshot<Integer> a) throws Exception {
+                views.add(a);
+                return a.get(0) + a.get(1);
+            }
+        }, pp1, pp2)
+        .test();
+
+        pp1.onNext(1);
+        pp2.onNext(10);
+        pp1.onNext(2);
+        pp2.onNext(20);
+        pp2.onNext(30);
+        pp1.onNext(3);
+        pp1.onComplete();
+
+        ts.assertResult(11, 22, 33);
+
+        Assert.assertEquals(3, views.size());
+        Assert.assertSame(views.get(0), views.get(1));
+        Assert.assertSame(views.get(0), views.get(2));
+    }
+
+    @Test
+    public void snapshotManySources() {
+        int n = 130;
+        List<PublishProcessor<Integer>> list = new ArrayList<PublishProcessor<Integer>>();
+        for (int i = 0; i < n; i++) {
+            list.add(PublishProcessor.<Integer>create());
+        }
+
+        TestSubscriber<Integer> ts = Flowables.zipLatestSnapshot(list, new Function<LatestSnapshot<Integer>, Integer>() {
+            @Override
+            public Integer apply(LatestSnapshot<Integer> a) throws Exception {
+                int sum = 0;
+                for (int i = 0; i < a.size(); i++) {
+                    sum += a.get(i);
+                }
+                return sum;
+            }
+        })
+        .test();
+
+        for (int round = 1; round <= 3; round++) {
+            for (int i = 0; i < n; i++) {
+                ts.assertValueCount(round - 1);
+                list.get(i).onNext(round);
+            }
+        }
+
+        list.get(n - 1).onComplete();
+
+        ts.assertResult(n, 2 * n, 3 * n);
+    }
+
+    @Test
+    public void snapshotBackpressured() {
+        final PublishProcessor<Integer> pp1 = PublishProcessor.create();
+        final PublishProcessor<Integer> pp2 = PublishProcessor.create();
+
+        @SuppressWarnings("unchecked")
+        TestSubscriber<String> ts = Flowables.zipLatestSnapshot(snapshotToString, pp1, pp2)
+        .test(0L);
+
+        pp1.onNext(1);
+        pp2.onNext(2);
+        pp1.onNext(3);
+
+        ts.assertEmpty();
+
+        ts.requestMore(1);
+
+        ts.assertValuesOnly("[3, 2]");
+
+        pp2.onNext(4);
+        pp2.onComplete();
+        pp1.onNext(5);
+
+        ts.assertValuesOnly("[3, 2]");
+
+        ts.requestMore(1);
+
+        ts.assertResult("[3, 2]", "[5, 4]");
+    }
+
+    @Test
+    public void snapshotCombinerCrash() {
+        final PublishProcessor<Integer> pp1 = PublishProcessor.create();
+        final PublishProcessor<Integer> pp2 = PublishProcessor.create();
+
+        @SuppressWarnings("unchecked")
+        TestSubscriber<Object> ts = Flowables.zipLatestSnapshot(new Function<LatestSnapshot<Integer>, Object>() {
+            @Override
+            public Object apply(LatestSnapshot<Integer> a) throws Exception {
+                throw new IOException();
+            }
+        }, pp1, pp2)
+        .test();
+
+        pp1.onNext(1);
+        pp2.onNext(2);
+
+        ts.assertFailure(IOException.class);
+
+        Assert.assertFalse(pp1.hasSubscribers());
+        Assert.assertFalse(pp2.hasSubscribers());
+    }
+
+    @Test
+    public void snapshotError() {
+        final PublishProcessor<Integer> pp1 = PublishProcessor.create();
+        final PublishProcessor<Integer> pp2 = PublishProcessor.create();
+
+        @SuppressWarnings("unchecked")
+        TestSubscriber<String> ts = Flowables.zipLatestSnapshot(snapshotToString, pp1, pp2)
+        .test();
+
+        pp2.onNext(1);
+        pp1.onError(new IOException());
+
+        ts.assertFailure(IOException.class);
+
+        Assert.assertFalse(pp2.hasSubscribers());
+    }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.reactivex.*;
+import io.reactivex.functions.*;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+
+public class ObservableMapAsyncConcurrentTest {
+
+    static List<Integer> sequence(int start, int count) {
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            list.add(start + i);
+        }
+        return list;
+    }
+
+    @Test
+    public void normal() {
+        Observable.range(1, 10)
+        .compose(ObservableTransformers.mapAsync(new Function<Integer, ObservableSource<Integer>>() {
+            @Override
+            public ObservableSource<Integer> apply(Integer v) throws Exception {
+                return v % 2 == 0 ? Observable.just(v) : Observable.<Integer>empty();
+            }
+        }, 4, 16))
+        .test()
+        .assertResult(2, 4, 6, 8, 10);
+    }
+
+    @Test
+    public void combiner() {
+        Observable.range(1, 5)
+        .compose(ObservableTransformers.mapAsync(new Function<Integer, ObservableSource<Integer>>() {
+            @Override
+            public ObservableSource<Integer> apply(Integer v) throws Exception {
+                return Observable.range(v * 10, 2);
+            }
+        }, new BiFunction<Integer, Integer, String>() {
+            @Override
+            public String apply(Integer a, Integer b) throws Exception {
+                return a + ":" + b;
+            }
+        }, 2, 16))
+        .test()
+        .assertResult("1:10", "2:20", "3:30", "4:40", "5:50");
+    }
+
+    @Test
+    public void outOfOrderCompletionKeepsOrder() {
+        Observable.range(1, 50)
+        .compose(ObservableTransformers.mapAsync(new Function<Integer, ObservableSource<Integer>>() {
+            @Override
+            public ObservableSource<Integer> apply(Integer v) throws Exception {
+                return Observable.just(v).delay(50 - v, TimeUnit.MILLISECONDS);
+            }
+        }, 8, 16))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueSequence(sequence(1, 50))
+        .assertNoErrors()
+        .assertComplete();
+    }
+
+    @Test
+    public void boundedInFlight() {
+        final List<PublishSubject<Integer>> inners = new ArrayList<PublishSubject<Integer>>();
+
+        TestObserver<Integer> to = Observable.range(1, 5)
+        .compose(ObservableTransformers.mapAsync(new Function<Integer, ObservableSource<Integer>>() {
+            @Override
+            public ObservableSource<Integer> apply(Integer v) throws Exception {
+                PublishSubject<Integer> ps = PublishSubject.create();
+                inners.add(ps);
+                return ps;
+            }
+        }, 2, 16))
+        .test();
+
+        assertEquals(2, inners.size());
+
+        inners.get(1).onNext(2);
+
+        to.assertEmpty();
+        assertEquals(2, inners.size());
+
+        inners.get(0).onNext(1);
+
+        to.assertValuesOnly(1, 2);
+        assertEquals(4, inners.size());
+
+        inners.get(2).onNext(3);
+        inners.get(3).onComplete();
+        inners.get(4).onNext(5);
+
+        to.assertResult(1, 2, 3, 5);
+    }
+
+    @Test
+    public void dispose() {
+        final List<PublishSubject<Integer>> inners = new ArrayList<PublishSubject<Integer>>();
+        PublishSubject<Integer> main = PublishSubject.create();
+
+        TestObserver<Integer> to = main
+        .compose(ObservableTransformers.mapAsync(new Function<Integer, ObservableSource<Integer>>() {
+            @Override
+            public ObservableSource<Integer> apply(Integer v) throws Exception {
+                PublishSubject<Integer> ps = PublishSubject.create();
+                inners.add(ps);
+                return ps;
+            }
+        }, 2, 16))
+        .test();
+
+        main.onNext(1);
+        main.onNext(2);
+        main.onNext(3);
+
+        assertTrue(inners.get(0).hasObservers());
+        assertTrue(inners.get(1).hasObservers());
+
+        to.dispose();
+
+        assertFalse(main.hasObservers());
+        assertFalse(inners.get(0).hasObservers());
+        assertFalse(inners.get(1).hasObservers());
+    }
+
+    @Test
+    public void innerError() {
+        final List<PublishSubject<Integer>> inners = new ArrayList<PublishSubject<Integer>>();
+        PublishSubject<Integer> main = PublishSubject.create();
+
+        TestObserver<Integer> to = main
+        .compose(ObservableTransformers.mapAsync(new Function<Integer, ObservableSource<Integer>>() {
+            @Override
+            public ObservableSource<Integer> apply(Integer v) throws Exception {
+                PublishSubject<Integer> ps = PublishSubject.create();
+                inners.add(ps);
+                return ps;
+            }
+        }, 2, 16))
+        .test();
+
+        main.onNext(1);
+        main.onNext(2);
+
+        inners.get(1).onError(new IOException());
+
+        to.assertFailure(IOException.class);
+
+        assertFalse(main.hasObservers());
+        assertFalse(inners.get(0).hasObservers());
+    }
+
+    @Test
+    public void mapperCrash() {
+        Observable.range(1, 5)
+        .compose(ObservableTransformers.mapAsync(new Function<Integer, ObservableSource<Integer>>() {
+            @Override
+            public ObservableSource<Integer> apply(Integer v) throws Exception {
+                if (v == 3) {
+                    throw new IOException();
+                }
+                return Observable.just(v);
+            }
+        }, 2, 16))
+        .test()
+        .assertFailure(IOException.class, 1, 2);
+    }
+
+    @Test
+    public void filter() {
+        Observable.range(1, 20)
+        .compose(ObservableTransformers.filterAsync(new Function<Integer, ObservableSource<Boolean>>() {
+            @Override
+            public ObservableSource<Boolean> apply(Integer v) throws Exception {
+                return Observable.just(v % 3 == 0).delay(20 - v, TimeUnit.MILLISECONDS);
+            }
+        }, 5, 8))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertResult(3, 6, 9, 12, 15, 18);
+    }
+
+    @Test
+    public void largeAsync() {
+        Observable.range(1, 10000)
+        .compose(ObservableTransformers.mapAsync(new Function<Integer, ObservableSource<Integer>>() {
+            @Override
+            public ObservableSource<Integer> apply(Integer v) throws Exception {
+                return Observable.just(v).subscribeOn(Schedulers.computation());
+            }
+        }, 16, 32))
+        .test()
+        .awaitDone(10, TimeUnit.SECONDS)
+        .assertValueSequence(sequence(1, 10000))
+        .assertNoErrors()
+        .assertComplete();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.operators;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+
+public class ObservableRateLimitTest {
+
+    @Test
+    public void burstThenRate() {
+        TestScheduler scheduler = new TestScheduler();
+
+        TestObserver<Integer> to = Observable.range(1, 10)
+        .compose(ObservableTransformers.<Integer>rateLimit(2, 100, TimeUnit.MILLISECONDS, 3, scheduler))
+        .test();
+
+        to.assertValuesOnly(1, 2, 3);
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        to.assertValuesOnly(1, 2, 3, 4, 5);
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        to.assertValuesOnly(1, 2, 3, 4, 5, 6, 7);
+
+        scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+
+        to.assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    public void tokensPileUpToBurst() {
+        TestScheduler scheduler = new TestScheduler();
+
+        PublishSubject<Integer> ps = PublishSubject.create();
+
+        TestObserver<Integer> to = ps
+        .compose(ObservableTransformers.<Integer>rateLimit(1, 100, TimeUnit.MILLISECONDS, 3, scheduler))
+        .test();
+
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        for (int i = 1; i <= 5; i++) {
+            ps.onNext(i);
+        }
+
+        to.assertValuesOnly(1, 2, 3);
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        to.assertValuesOnly(1, 2, 3, 4);
+
+        ps.onComplete();
+
+        to.assertNotComplete();
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        to.assertResult(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void errorAfterBuffered() {
+        TestScheduler scheduler = new TestScheduler();
+
+        TestObserver<Integer> to = Observable.range(1, 3).concatWith(Observable.<Integer>error(new IOException()))
+        .compose(ObservableTransformers.<Integer>rateLimit(1, 100, TimeUnit.MILLISECONDS, 1, scheduler))
+        .test();
+
+        to.assertValuesOnly(1);
+
+        scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+
+        to.assertFailure(IOException.class, 1, 2, 3);
+    }
+
+    @Test
+    public void dispose() {
+        TestScheduler scheduler = new TestScheduler();
+
+        PublishSubject<Integer> ps = PublishSubject.create();
+
+        TestObserver<Integer> to = ps
+        .compose(ObservableTransformers.<Integer>rateLimit(1, 1, TimeUnit.SECONDS, 1, scheduler))
+        .test();
+
+        assertTrue(ps.hasObservers());
+
+        to.dispose();
+
+        assertFalse(ps.hasObservers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void burstLessThanPermits() {
+        ObservableTransformers.rateLimit(10, 1, TimeUnit.SECONDS, 5);
+    }
+}
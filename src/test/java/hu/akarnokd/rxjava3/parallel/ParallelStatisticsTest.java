@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.parallel;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import hu.akarnokd.rxjava3.math.*;
+import io.reactivex.Flowable;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+public class ParallelStatisticsTest {
+
+    static void assertSameStatistics(Statistics expected, Statistics actual) {
+        assertEquals(expected.count(), actual.count());
+        assertEquals(expected.sum(), actual.sum(), 1e-6);
+        assertEquals(expected.min(), actual.min(), 0D);
+        assertEquals(expected.max(), actual.max(), 0D);
+        assertEquals(expected.mean(), actual.mean(), Math.abs(expected.mean()) * 1e-12);
+        assertEquals(expected.variance(), actual.variance(), 1e-6);
+    }
+
+    @Test
+    public void perRail() {
+        List<Statistics> list = Flowable.range(1, 10)
+        .parallel(2)
+        .compose(ParallelTransformers.<Integer>stats())
+        .sequential()
+        .toList()
+        .blockingGet();
+
+        assertEquals(2, list.size());
+
+        long count = 0;
+        for (Statistics st : list) {
+            count += st.count();
+        }
+        assertEquals(10, count);
+    }
+
+    @Test
+    public void combined() {
+        Flowable<Double> source = Flowable.range(1, 100000)
+        .map(new Function<Integer, Double>() {
+            @Override
+            public Double apply(Integer v) throws Exception {
+                return 1e9 + (v % 17) * 0.25;
+            }
+        });
+
+        Statistics expected = MathFlowable.stats(source).blockingSingle();
+
+        Statistics actual = ParallelTransformers.stats(source.parallel(4).runOn(Schedulers.computation()))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(1)
+        .assertNoErrors()
+        .assertComplete()
+        .values().get(0);
+
+        assertSameStatistics(expected, actual);
+    }
+
+    @Test
+    public void combineUneven() {
+        Statistics a = MathFlowable.stats(Flowable.just(1, 2, 3)).blockingSingle();
+        Statistics b = MathFlowable.stats(Flowable.just(10, 20)).blockingSingle();
+        Statistics all = MathFlowable.stats(Flowable.just(1, 2, 3, 10, 20)).blockingSingle();
+
+        assertSameStatistics(all, a.combine(b));
+        assertSameStatistics(all, b.combine(a));
+    }
+
+    @Test
+    public void emptyRails() {
+        ParallelTransformers.stats(Flowable.just(5).parallel(4))
+        .test()
+        .assertValueCount(1)
+        .assertComplete();
+
+        ParallelTransformers.stats(Flowable.<Integer>empty().parallel(4))
+        .test()
+        .assertResult();
+    }
+
+    @Test
+    public void error() {
+        Flowable.<Integer>error(new IOException())
+        .parallel(1)
+        .compose(ParallelTransformers.<Integer>stats())
+        .sequential()
+        .test()
+        .assertFailure(IOException.class);
+    }
+
+    @Test
+    public void accumulatorStable() {
+        Statistics.Accumulator acc = new Statistics.Accumulator();
+        for (int i = 0; i < 1000; i++) {
+            acc.add(1e12 + (i & 1));
+        }
+        Statistics st = acc.toStatistics();
+
+        // the naive sum of squares approach loses all precision here
+        assertEquals(0.25D, st.variance(), 1e-6);
+        assertEquals(1e12 + 0.5, st.mean(), 1e-3);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.Test;
+
+import io.reactivex.functions.Action;
+
+public class BlockingSchedulerLowLatencyTest extends BlockingSchedulerTest {
+
+    @Override
+    protected BlockingScheduler createScheduler() {
+        return new BlockingScheduler(16, WaitStrategy.spinThenPark(100, 10));
+    }
+
+    @Test(timeout = 10000)
+    public void selfOverflowKeepsOrder() {
+        final BlockingScheduler scheduler = createScheduler();
+
+        final List<Integer> list = new ArrayList<Integer>();
+
+        scheduler.execute(new Action() {
+            @Override
+            public void run() throws Exception {
+                for (int i = 0; i < 100; i++) {
+                    final int j = i;
+                    scheduler.scheduleDirect(new Runnable() {
+                        @Override
+                        public void run() {
+                            list.add(j);
+                        }
+                    });
+                }
+                scheduler.scheduleDirect(new Runnable() {
+                    @Override
+                    public void run() {
+                        scheduler.shutdown();
+                    }
+                });
+            }
+        });
+
+        assertEquals(100, list.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, list.get(i).intValue());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void moreTasksThanCapacityBeforeExecute() {
+        final BlockingScheduler scheduler = new BlockingScheduler(16, WaitStrategy.park());
+
+        final List<Integer> list = new ArrayList<Integer>();
+
+        for (int i = 0; i < 17; i++) {
+            final int j = i;
+            scheduler.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    list.add(j);
+                }
+            });
+        }
+
+        scheduler.execute(new Action() {
+            @Override
+            public void run() throws Exception {
+                list.add(17);
+                scheduler.shutdown();
+            }
+        });
+
+        assertEquals(18, list.size());
+        for (int i = 0; i < 18; i++) {
+            assertEquals(i, list.get(i).intValue());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void timedSameDeadlineKeepsOrder() {
+        final BlockingScheduler scheduler = new BlockingScheduler(16, WaitStrategy.park());
+
+        final List<Integer> list = new ArrayList<Integer>();
+
+        scheduler.execute(new Action() {
+            @Override
+            public void run() throws Exception {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+                for (int i = 0; i < 10; i++) {
+                    final int j = i;
+                    scheduler.new TimedAction(new Action() {
+                        @Override
+                        public void run() throws Exception {
+                            list.add(j);
+                        }
+                    }, deadline).run();
+                }
+                scheduler.scheduleDirect(new Runnable() {
+                    @Override
+                    public void run() {
+                        scheduler.shutdown();
+                    }
+                }, 50, TimeUnit.MILLISECONDS);
+            }
+        });
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), list);
+    }
+
+    @Test(timeout = 10000)
+    public void timedSameDelayKeepsOrder() {
+        final BlockingScheduler scheduler = new BlockingScheduler(16, WaitStrategy.park());
+
+        final List<Integer> list = new ArrayList<Integer>();
+
+        scheduler.execute(new Action() {
+            @Override
+            public void run() throws Exception {
+                for (int i = 0; i < 10; i++) {
+                    final int j = i;
+                    scheduler.createWorker().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            list.add(j);
+                        }
+                    }, 10, TimeUnit.MILLISECONDS);
+                }
+                scheduler.scheduleDirect(new Runnable() {
+                    @Override
+                    public void run() {
+                        scheduler.shutdown();
+                    }
+                }, 50, TimeUnit.MILLISECONDS);
+            }
+        });
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), list);
+    }
+
+    @Test(timeout = 10000)
+    public void interruptedLoopStillParks() throws Exception {
+        final BlockingScheduler scheduler = new BlockingScheduler(16, WaitStrategy.park());
+
+        final Thread[] loop = { null };
+        final CountDownLatch started = new CountDownLatch(1);
+
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                scheduler.execute(new Action() {
+                    @Override
+                    public void run() throws Exception {
+                        loop[0] = Thread.currentThread();
+                        // leave the interrupt flag set for the event loop
+                        Thread.currentThread().interrupt();
+                        started.countDown();
+                    }
+                });
+            }
+        });
+        t.start();
+
+        try {
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            while (loop[0].getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+
+            assertFalse(loop[0].isInterrupted());
+
+            final CountDownLatch ran = new CountDownLatch(1);
+
+            scheduler.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    ran.countDown();
+                }
+            });
+
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+
+            while (loop[0].getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+        } finally {
+            scheduler.shutdown();
+            t.join(5000);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalSpin() {
+        WaitStrategy.spinThenPark(-1, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalYield() {
+        WaitStrategy.spinThenPark(0, -1);
+    }
+}
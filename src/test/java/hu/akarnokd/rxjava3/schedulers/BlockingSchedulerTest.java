@@ -38,11 +38,15 @@ public class BlockingSchedulerTest {
 
     TestSubscriber<Integer> ts = new TestSubscriber<Integer>();
 
+    protected BlockingScheduler createScheduler() {
+        return new BlockingScheduler();
+    }
+
     @Test(timeout = 10000)
     public void workerUntimed() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
             scheduler.execute(new Action() {
                 @Override
                 public void run() throws Exception {
@@ -72,7 +76,7 @@ public class BlockingSchedulerTest {
     public void workerTimed() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
             try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
             scheduler.execute(new Action() {
                 @Override
                 public void run() throws Exception {
@@ -102,7 +106,7 @@ public class BlockingSchedulerTest {
     public void directCrash() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
             scheduler.execute(new Action() {
                 @Override
                 public void run() throws Exception {
@@ -126,7 +130,7 @@ public class BlockingSchedulerTest {
     public void workerCrash() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
             scheduler.execute(new Action() {
                 @Override
                 public void run() throws Exception {
@@ -152,7 +156,7 @@ public class BlockingSchedulerTest {
     public void directUntimed() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
             scheduler.execute(new Action() {
                 @Override
                 public void run() throws Exception {
@@ -190,7 +194,7 @@ public class BlockingSchedulerTest {
     public void directTimed() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
             scheduler.execute(new Action() {
                 @Override
                 public void run() throws Exception {
@@ -225,7 +229,7 @@ public class BlockingSchedulerTest {
     public void cancelDirect() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
             scheduler.execute(new Action() {
                 @Override
                 public void run() throws Exception {
@@ -269,7 +273,7 @@ public class BlockingSchedulerTest {
     public void cancelDirectUntimed() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
             scheduler.execute(new Action() {
                 @Override
                 public void run() throws Exception {
@@ -313,7 +317,7 @@ public class BlockingSchedulerTest {
     public void cancelWorker() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
             scheduler.execute(new Action() {
                 @Override
                 public void run() throws Exception {
@@ -361,7 +365,7 @@ public class BlockingSchedulerTest {
     public void cancelWorkerUntimed() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
             scheduler.execute(new Action() {
                 @Override
                 public void run() throws Exception {
@@ -411,7 +415,7 @@ public class BlockingSchedulerTest {
     public void asyncShutdown() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
 
             Schedulers.single().scheduleDirect(new Runnable() {
                 @Override
@@ -435,7 +439,7 @@ public class BlockingSchedulerTest {
     public void asyncInterrupt() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
 
             Schedulers.single().scheduleDirect(new Runnable() {
                 @Override
@@ -457,7 +461,7 @@ public class BlockingSchedulerTest {
     public void asyncDispose() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
 
             scheduler.execute(new Action() {
                 @Override
@@ -496,7 +500,7 @@ public class BlockingSchedulerTest {
     public void asyncFeedInto() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
 
             final int n = 10000;
 
@@ -538,7 +542,7 @@ public class BlockingSchedulerTest {
     public void asyncFeedInto2() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
 
             final int n = 1000;
 
@@ -575,7 +579,7 @@ public class BlockingSchedulerTest {
     public void backtoSameThread() {
         List<Throwable> errors = TestHelper.trackPluginErrors();
         try {
-            final BlockingScheduler scheduler = new BlockingScheduler();
+            final BlockingScheduler scheduler = createScheduler();
 
             final Thread t0 = Thread.currentThread();
             final Thread[] t1 = { null };
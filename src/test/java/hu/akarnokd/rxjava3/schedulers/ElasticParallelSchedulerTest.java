@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.reactivex.*;
+import io.reactivex.Scheduler.Worker;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.internal.schedulers.RxThreadFactory;
+
+public class ElasticParallelSchedulerTest implements Runnable {
+
+    final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public void run() {
+        calls.getAndIncrement();
+    }
+
+    static void awaitLaneCount(ElasticParallelScheduler s, int count) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (s.laneCount() == count) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        assertEquals(count, s.laneCount());
+    }
+
+    static void awaitNoLoad(ElasticParallelScheduler s) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            long load = 0L;
+            for (ElasticParallelScheduler.ElasticLane lane : s.lanes.get()) {
+                load += lane.exec.load();
+            }
+            if (load == 0L) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("The lanes are still busy");
+    }
+
+    @Test
+    public void normal() {
+        Scheduler s = new ElasticParallelScheduler(1, 4, 10, 100, TimeUnit.MILLISECONDS);
+        try {
+            for (int i = 0; i < 100; i++) {
+                Flowable.range(1, 10).hide()
+                .observeOn(s, false, 4)
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+            }
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void normalNonTracking() {
+        Scheduler s = new ElasticParallelScheduler(2, 4, 10, 100, TimeUnit.MILLISECONDS, new RxThreadFactory("Test"), false);
+        try {
+            for (int i = 0; i < 100; i++) {
+                Flowable.range(1, 10).hide()
+                .subscribeOn(s)
+                .delay(1, TimeUnit.MILLISECONDS, s)
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+            }
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void growsAndShrinks() throws Exception {
+        ElasticParallelScheduler s = new ElasticParallelScheduler(1, 3, 10, 100, TimeUnit.MILLISECONDS);
+        try {
+            assertEquals(1, s.laneCount());
+
+            final CountDownLatch block = new CountDownLatch(1);
+            s.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        block.await();
+                    } catch (InterruptedException ex) {
+                        // ignored
+                    }
+                }
+            });
+
+            awaitLaneCount(s, 3);
+
+            block.countDown();
+
+            awaitLaneCount(s, 1);
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void workersPinTheirLanes() throws Exception {
+        ElasticParallelScheduler s = new ElasticParallelScheduler(1, 2, 10, 250, TimeUnit.MILLISECONDS);
+        try {
+            final CountDownLatch block = new CountDownLatch(1);
+            s.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        block.await();
+                    } catch (InterruptedException ex) {
+                        // ignored
+                    }
+                }
+            });
+
+            awaitLaneCount(s, 2);
+
+            block.countDown();
+
+            // the lanes are picked by their load, which drops after the blocking task returned
+            awaitNoLoad(s);
+
+            Worker w1 = s.createWorker();
+            Worker w2 = s.createWorker();
+
+            Thread.sleep(500);
+
+            assertEquals(2, s.laneCount());
+
+            final CountDownLatch cdl = new CountDownLatch(2);
+            w1.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    cdl.countDown();
+                }
+            });
+            w2.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    cdl.countDown();
+                }
+            });
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            w1.dispose();
+            w2.dispose();
+
+            awaitLaneCount(s, 1);
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdown() {
+        ElasticParallelScheduler s = new ElasticParallelScheduler(2, 4, 10, 100, TimeUnit.MILLISECONDS);
+        s.shutdown();
+
+        assertEquals(0, s.laneCount());
+
+        assertSame(Disposables.disposed(), s.scheduleDirect(this));
+        assertSame(Disposables.disposed(), s.scheduleDirect(this, 1, TimeUnit.SECONDS));
+        assertSame(Disposables.disposed(), s.schedulePeriodicallyDirect(this, 1, 1, TimeUnit.SECONDS));
+
+        Worker w = s.createWorker();
+        assertSame(Disposables.disposed(), w.schedule(this));
+        w.dispose();
+
+        s.start();
+
+        assertEquals(2, s.laneCount());
+
+        s.shutdown();
+        s.shutdown();
+
+        assertEquals(0, calls.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void minLanesPositive() {
+        new ElasticParallelScheduler(0, 4, 10, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxLanesAtLeastMin() {
+        new ElasticParallelScheduler(2, 1, 10, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void thresholdPositive() {
+        new ElasticParallelScheduler(1, 1, 0, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void keepAlivePositive() {
+        new ElasticParallelScheduler(1, 1, 10, 0, TimeUnit.MILLISECONDS);
+    }
+}
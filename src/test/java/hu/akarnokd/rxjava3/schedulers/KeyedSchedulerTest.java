@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler.Worker;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.internal.schedulers.RxThreadFactory;
+
+public class KeyedSchedulerTest implements Runnable {
+
+    final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public void run() {
+        calls.getAndIncrement();
+    }
+
+    @Test
+    public void sameKeySameThreadInOrder() throws Exception {
+        KeyedScheduler s = new KeyedScheduler(4);
+        try {
+            final Map<String, List<Integer>> values = new ConcurrentHashMap<String, List<Integer>>();
+            final Map<String, Set<String>> threads = new ConcurrentHashMap<String, Set<String>>();
+
+            int keys = 16;
+            int n = 1000;
+            final CountDownLatch cdl = new CountDownLatch(keys * n);
+
+            for (int k = 0; k < keys; k++) {
+                String key = "key" + k;
+                values.put(key, Collections.synchronizedList(new ArrayList<Integer>()));
+                threads.put(key, Collections.synchronizedSet(new HashSet<String>()));
+            }
+
+            for (int i = 0; i < n; i++) {
+                for (int k = 0; k < keys; k++) {
+                    final String key = "key" + k;
+                    final int j = i;
+                    Runnable r = new Runnable() {
+                        @Override
+                        public void run() {
+                            values.get(key).add(j);
+                            threads.get(key).add(Thread.currentThread().getName());
+                            cdl.countDown();
+                        }
+                    };
+                    if (i % 2 == 0) {
+                        s.scheduleDirect(key, r);
+                    } else {
+                        s.createWorker(key).schedule(r);
+                    }
+                }
+            }
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            Set<String> allThreads = new HashSet<String>();
+            for (int k = 0; k < keys; k++) {
+                String key = "key" + k;
+                assertEquals(1, threads.get(key).size());
+                allThreads.addAll(threads.get(key));
+                List<Integer> list = values.get(key);
+                assertEquals(n, list.size());
+                for (int i = 0; i < n; i++) {
+                    assertEquals(i, list.get(i).intValue());
+                }
+            }
+
+            assertTrue(allThreads.toString(), allThreads.size() > 1);
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void keyedDelayed() throws Exception {
+        KeyedScheduler s = new KeyedScheduler(2, new RxThreadFactory("Test"), false);
+        try {
+            final Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+            final CountDownLatch cdl = new CountDownLatch(2);
+
+            Runnable r = new Runnable() {
+                @Override
+                public void run() {
+                    threads.add(Thread.currentThread().getName());
+                    cdl.countDown();
+                }
+            };
+
+            s.scheduleDirect(1, r, 10, TimeUnit.MILLISECONDS);
+            s.createWorker(1).schedule(r, 20, TimeUnit.MILLISECONDS);
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            assertEquals(1, threads.size());
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void keyless() {
+        KeyedScheduler s = new KeyedScheduler();
+        try {
+            Flowable.range(1, 10).hide()
+            .observeOn(s)
+            .delay(10, TimeUnit.MILLISECONDS, s)
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+            s.scheduleDirect(this);
+            s.scheduleDirect(this, 10, TimeUnit.MILLISECONDS);
+            s.schedulePeriodicallyDirect(this, 10, 10, TimeUnit.MILLISECONDS).dispose();
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdownStart() throws Exception {
+        KeyedScheduler s = new KeyedScheduler(2);
+
+        s.shutdown();
+
+        assertSame(Disposables.disposed(), s.scheduleDirect("a", this));
+        assertSame(Disposables.disposed(), s.scheduleDirect("a", this, 10, TimeUnit.MILLISECONDS));
+
+        Worker w = s.createWorker("a");
+        assertSame(Disposables.disposed(), w.schedule(this));
+
+        s.start();
+
+        try {
+            s.scheduleDirect("a", this);
+            s.createWorker("a").schedule(this);
+
+            Thread.sleep(100);
+
+            assertEquals(2, calls.get());
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullKey() {
+        KeyedScheduler s = new KeyedScheduler(1);
+        try {
+            s.createWorker(null);
+        } finally {
+            s.shutdown();
+        }
+    }
+}
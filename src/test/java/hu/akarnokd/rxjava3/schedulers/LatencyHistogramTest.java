@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import hu.akarnokd.rxjava3.test.TestHelper;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void empty() {
+        LatencyHistogram.Snapshot s = new LatencyHistogram().snapshot();
+
+        assertEquals(0, s.count());
+        assertEquals(0, s.max());
+        assertEquals(0d, s.mean(), 0d);
+        assertEquals(0, s.percentile(0.5));
+        assertEquals(0, s.percentile(1));
+    }
+
+    @Test
+    public void buckets() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(-5);
+        h.record(0);
+        h.record(1);
+        h.record(2);
+        h.record(3);
+        h.record(1000);
+        h.record(Long.MAX_VALUE);
+
+        LatencyHistogram.Snapshot s = h.snapshot();
+
+        assertEquals(7, s.count());
+        assertEquals(2, s.bucketCount(0));
+        assertEquals(1, s.bucketCount(1));
+        assertEquals(2, s.bucketCount(2));
+        assertEquals(1, s.bucketCount(10));
+        assertEquals(1, s.bucketCount(63));
+        assertEquals(Long.MAX_VALUE, s.max());
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            h.record(i * 1000L);
+        }
+
+        LatencyHistogram.Snapshot s = h.snapshot();
+
+        assertEquals(100, s.count());
+        assertEquals(50500d, s.mean(), 0.001);
+        assertEquals(100000, s.max());
+
+        long p50 = s.percentile(0.5);
+        assertTrue("" + p50, p50 >= 50000 && p50 < 2 * 50000);
+        assertEquals(100000, s.percentile(1));
+        assertEquals(1023, s.percentile(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void percentileOutOfRange() {
+        new LatencyHistogram().snapshot().percentile(1.5);
+    }
+
+    @Test
+    public void merge() {
+        LatencyHistogram h1 = new LatencyHistogram();
+        h1.record(10);
+        LatencyHistogram h2 = new LatencyHistogram();
+        h2.record(1000);
+        h2.record(1000);
+
+        LatencyHistogram.Snapshot s = h1.snapshot().merge(h2.snapshot());
+
+        assertEquals(3, s.count());
+        assertEquals(1000, s.max());
+        assertEquals(1, s.bucketCount(4));
+        assertEquals(2, s.bucketCount(10));
+        assertEquals(670d, s.mean(), 0.001);
+    }
+
+    @Test
+    public void concurrentRecord() {
+        for (int i = 0; i < TestHelper.RACE_DEFAULT_LOOPS; i++) {
+            final LatencyHistogram h = new LatencyHistogram();
+
+            Runnable r1 = new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100; j++) {
+                        h.record(j);
+                    }
+                }
+            };
+
+            TestHelper.race(r1, r1);
+
+            LatencyHistogram.Snapshot s = h.snapshot();
+            assertEquals(200, s.count());
+            assertEquals(99, s.max());
+        }
+    }
+}
@@ -18,9 +18,9 @@ package hu.akarnokd.rxjava3.schedulers;
 
 import static org.junit.Assert.*;
 
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.*;
 
 import org.junit.Test;
 
@@ -413,4 +413,607 @@ public class ParallelSchedulerTest implements Runnable {
     public void illegalPriority() {
         new ParallelScheduler(2, true, -1);
     }
+
+    @Test
+    public void normalWorkStealing() {
+        Scheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), false, true);
+
+        try {
+            for (int i = 0; i < 100; i++) {
+                Flowable.range(1, 10).hide()
+                .observeOn(s, false, 4)
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+            }
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void delayedWorkStealing() {
+        Scheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), true, true);
+
+        try {
+            for (int i = 0; i < 100; i++) {
+                Flowable.range(1, 10).hide()
+                .delay(50, TimeUnit.MILLISECONDS, s)
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+            }
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdownWorkStealing() throws Exception {
+        Scheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), true, true);
+
+        shutdown(s);
+    }
+
+    @Test(timeout = 5000)
+    public void taskThrowsWorkStealing() throws Exception {
+        Scheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), false, true);
+        taskThrows(s);
+    }
+
+    @Test
+    public void cancelledTaskWorkStealing() throws Exception {
+        Scheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), true, true);
+        cancelledTask(s);
+    }
+
+    @Test
+    public void cancelledTaskWorkStealingNonTracking() throws Exception {
+        Scheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), false, true);
+        cancelledTask(s);
+    }
+
+    @Test
+    public void shutdownBackingWorkStealing() {
+        ParallelScheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), true, true);
+
+        shutdownBacking(s);
+    }
+
+    @Test(timeout = 10000)
+    public void workStealingIdleLaneSteals() throws Exception {
+        ParallelScheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), false, true);
+        try {
+            Worker w1 = s.createWorker();
+            s.createWorker().dispose();
+            Worker w3 = s.createWorker();
+
+            final CountDownLatch block = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(1);
+
+            // both workers are pinned to the first lane
+            w1.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        block.await();
+                    } catch (InterruptedException ex) {
+                        // ignored
+                    }
+                }
+            });
+
+            Thread.sleep(100);
+
+            w3.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    done.countDown();
+                }
+            });
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+
+            block.countDown();
+
+            w1.dispose();
+            w3.dispose();
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void workStealingFifo() throws Exception {
+        ParallelScheduler s = new ParallelScheduler(4, new RxThreadFactory("Test"), false, true);
+        try {
+            final List<Worker> workers = new ArrayList<Worker>();
+            final List<List<Integer>> lists = new ArrayList<List<Integer>>();
+            for (int i = 0; i < 8; i++) {
+                workers.add(s.createWorker());
+                lists.add(Collections.synchronizedList(new ArrayList<Integer>()));
+            }
+
+            final CountDownLatch cdl = new CountDownLatch(8 * 1000);
+
+            for (int j = 0; j < 1000; j++) {
+                for (int i = 0; i < 8; i++) {
+                    final List<Integer> list = lists.get(i);
+                    final int k = j;
+                    workers.get(i).schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (k % 100 == 0) {
+                                try {
+                                    Thread.sleep(1);
+                                } catch (InterruptedException ex) {
+                                    // ignored
+                                }
+                            }
+                            list.add(k);
+                            cdl.countDown();
+                        }
+                    });
+                }
+            }
+
+            assertTrue(cdl.await(10, TimeUnit.SECONDS));
+
+            for (List<Integer> list : lists) {
+                assertEquals(1000, list.size());
+                for (int j = 0; j < 1000; j++) {
+                    assertEquals(j, list.get(j).intValue());
+                }
+            }
+
+            for (Worker w : workers) {
+                w.dispose();
+            }
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void directWorkStealing() throws Exception {
+        ParallelScheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), false, true);
+        try {
+            final CountDownLatch cdl = new CountDownLatch(1);
+
+            Disposable d = s.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    cdl.countDown();
+                }
+            });
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            assertFalse(d.isDisposed());
+            d.dispose();
+            assertTrue(d.isDisposed());
+
+            s.scheduleDirect(this).dispose();
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void normalLeastLoaded() {
+        Scheduler s = new ParallelScheduler(4, new RxThreadFactory("Test"), true, false, null, true);
+
+        try {
+            for (int i = 0; i < 100; i++) {
+                Flowable.range(1, 10).hide()
+                .observeOn(s, false, 4)
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+            }
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    static void awaitLane(ParallelScheduler s, int index, long queued, int running) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ParallelScheduler.LaneMetrics m = s.laneMetrics().get(index);
+            if (m.queued() == queued && m.running() == running) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Lane " + index + " expected queued=" + queued + ", running=" + running + " but was " + s.laneMetrics().get(index));
+    }
+
+    void laneMetrics(boolean tracking, boolean workStealing) throws Exception {
+        ParallelScheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), tracking, workStealing);
+        try {
+            Worker w = s.createWorker();
+
+            final CountDownLatch block = new CountDownLatch(1);
+            w.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        block.await();
+                    } catch (InterruptedException ex) {
+                        // ignored
+                    }
+                }
+            });
+
+            List<Disposable> list = new ArrayList<Disposable>();
+            for (int i = 0; i < 10; i++) {
+                list.add(w.schedule(this));
+            }
+
+            if (!workStealing) {
+                awaitLane(s, 0, 10, 1);
+            }
+
+            // disposed tasks are released once their turn comes
+            for (int i = 0; i < 5; i++) {
+                list.get(i).dispose();
+            }
+
+            block.countDown();
+
+            awaitLane(s, 0, 0, 0);
+            awaitLane(s, 1, 0, 0);
+
+            assertEquals(5, calls.get());
+
+            w.dispose();
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void laneMetricsNonTracking() throws Exception {
+        laneMetrics(false, false);
+    }
+
+    @Test(timeout = 10000)
+    public void laneMetricsTracking() throws Exception {
+        laneMetrics(true, false);
+    }
+
+    @Test(timeout = 10000)
+    public void laneMetricsWorkStealing() throws Exception {
+        laneMetrics(true, true);
+    }
+
+    @Test(timeout = 10000)
+    public void laneMetricsDirect() throws Exception {
+        ParallelScheduler s = new ParallelScheduler(1, new RxThreadFactory("Test"), true, false);
+        try {
+            final CountDownLatch block = new CountDownLatch(1);
+            s.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        block.await();
+                    } catch (InterruptedException ex) {
+                        // ignored
+                    }
+                }
+            });
+
+            s.scheduleDirect(this).dispose();
+            s.scheduleDirect(this);
+
+            awaitLane(s, 0, 2, 1);
+
+            block.countDown();
+
+            awaitLane(s, 0, 0, 0);
+
+            assertEquals(1, calls.get());
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void laneMetricsShutdown() {
+        ParallelScheduler s = new ParallelScheduler(3, new RxThreadFactory("Test"), true, false, null, true);
+
+        assertEquals(3, s.laneMetrics().size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, s.laneMetrics().get(i).index());
+        }
+
+        s.shutdown();
+
+        assertTrue(s.laneMetrics().isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void leastLoadedAvoidsBusyLane() throws Exception {
+        ParallelScheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), true, false, null, true);
+        try {
+            final CountDownLatch block = new CountDownLatch(1);
+            final CountDownLatch blocked = new CountDownLatch(1);
+            final Set<Thread> busy = Collections.synchronizedSet(new HashSet<Thread>());
+
+            Worker w = s.createWorker();
+            w.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    busy.add(Thread.currentThread());
+                    blocked.countDown();
+                    try {
+                        block.await();
+                    } catch (InterruptedException ex) {
+                        // ignored
+                    }
+                }
+            });
+            for (int i = 0; i < 100; i++) {
+                w.schedule(this);
+            }
+
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            final CountDownLatch cdl = new CountDownLatch(20);
+            final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+
+            for (int i = 0; i < 20; i++) {
+                s.createWorker().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        threads.add(Thread.currentThread());
+                        cdl.countDown();
+                    }
+                });
+            }
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            block.countDown();
+
+            assertEquals(1, threads.size());
+            assertFalse(threads.containsAll(busy));
+
+            w.dispose();
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    void batch(boolean tracking, boolean workStealing) throws Exception {
+        ParallelScheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), tracking, workStealing);
+        try {
+            Worker w = s.createWorker();
+            final List<Integer> list = Collections.synchronizedList(new ArrayList<Integer>());
+            final CountDownLatch cdl = new CountDownLatch(1);
+
+            List<Runnable> batch = new ArrayList<Runnable>();
+            for (int i = 1; i <= 100; i++) {
+                final int j = i;
+                batch.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        list.add(j);
+                    }
+                });
+            }
+
+            w.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    list.add(0);
+                }
+            });
+            Disposable d = ((BatchWorker)w).scheduleBatch(batch);
+            w.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    list.add(101);
+                    cdl.countDown();
+                }
+            });
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            assertEquals(102, list.size());
+            for (int i = 0; i <= 101; i++) {
+                assertEquals(i, list.get(i).intValue());
+            }
+
+            assertFalse(d.isDisposed());
+            d.dispose();
+            assertTrue(d.isDisposed());
+
+            w.dispose();
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void batchNonTracking() throws Exception {
+        batch(false, false);
+    }
+
+    @Test(timeout = 10000)
+    public void batchTracking() throws Exception {
+        batch(true, false);
+    }
+
+    @Test(timeout = 10000)
+    public void batchWorkStealing() throws Exception {
+        batch(true, true);
+    }
+
+    @Test(timeout = 10000)
+    public void batchWorkStealingNonTracking() throws Exception {
+        batch(false, true);
+    }
+
+    void batchDispose(boolean tracking, boolean workStealing, final boolean disposeWorker) throws Exception {
+        ParallelScheduler s = new ParallelScheduler(1, new RxThreadFactory("Test"), tracking, workStealing);
+        try {
+            final Worker w = s.createWorker();
+            final CountDownLatch cdl = new CountDownLatch(1);
+            final Disposable[] batch = { null };
+
+            batch[0] = ((BatchWorker)w).scheduleBatch(new Runnable() {
+                @Override
+                public void run() {
+                    calls.getAndIncrement();
+                    while (batch[0] == null) {
+                        Thread.yield();
+                    }
+                    if (disposeWorker) {
+                        w.dispose();
+                    } else {
+                        batch[0].dispose();
+                    }
+                }
+            }, this, this);
+
+            s.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    cdl.countDown();
+                }
+            });
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            assertEquals(1, calls.get());
+            assertTrue(batch[0].isDisposed() || disposeWorker);
+
+            awaitLane(s, 0, 0, 0);
+
+            w.dispose();
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void batchDisposeNonTracking() throws Exception {
+        batchDispose(false, false, false);
+        calls.set(0);
+        batchDispose(false, false, true);
+    }
+
+    @Test(timeout = 10000)
+    public void batchDisposeTracking() throws Exception {
+        batchDispose(true, false, false);
+        calls.set(0);
+        batchDispose(true, false, true);
+    }
+
+    @Test(timeout = 10000)
+    public void batchDisposeWorkStealing() throws Exception {
+        batchDispose(true, true, false);
+        calls.set(0);
+        batchDispose(true, true, true);
+    }
+
+    static final class DisposableTask extends AtomicBoolean implements Runnable, Disposable {
+
+        private static final long serialVersionUID = -1786153342618349443L;
+
+        final Runnable run;
+
+        DisposableTask(Runnable run) {
+            this.run = run;
+        }
+
+        @Override
+        public void run() {
+            run.run();
+        }
+
+        @Override
+        public void dispose() {
+            set(true);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return get();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void batchDisposeSingleTask() throws Exception {
+        for (boolean[] mode : new boolean[][] { { false, false }, { true, false }, { true, true } }) {
+            ParallelScheduler s = new ParallelScheduler(1, new RxThreadFactory("Test"), mode[0], mode[1]);
+            try {
+                Worker w = s.createWorker();
+                final CountDownLatch cdl = new CountDownLatch(1);
+                final List<Integer> list = Collections.synchronizedList(new ArrayList<Integer>());
+
+                final DisposableTask second = new DisposableTask(new Runnable() {
+                    @Override
+                    public void run() {
+                        list.add(2);
+                    }
+                });
+
+                Disposable d = ((BatchWorker)w).scheduleBatch(new Runnable() {
+                    @Override
+                    public void run() {
+                        list.add(1);
+                        second.dispose();
+                    }
+                }, second, new Runnable() {
+                    @Override
+                    public void run() {
+                        list.add(3);
+                        cdl.countDown();
+                    }
+                });
+
+                assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+                assertEquals(Arrays.asList(1, 3), list);
+                assertFalse(d.isDisposed());
+
+                w.dispose();
+            } finally {
+                s.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void batchRejected() {
+        for (boolean tracking : new boolean[] { false, true }) {
+            for (boolean workStealing : new boolean[] { false, true }) {
+                ParallelScheduler s = new ParallelScheduler(1, new RxThreadFactory("Test"), tracking, workStealing);
+                BatchWorker w = (BatchWorker)s.createWorker();
+
+                assertSame(Disposables.disposed(), w.scheduleBatch());
+                assertSame(Disposables.disposed(), w.scheduleBatch(new ArrayList<Runnable>()));
+
+                s.shutdown();
+
+                assertSame(Disposables.disposed(), w.scheduleBatch(this, this));
+
+                ((Worker)w).dispose();
+
+                assertSame(Disposables.disposed(), w.scheduleBatch(this, this));
+                assertEquals(0, calls.get());
+            }
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void batchNullTask() {
+        ParallelScheduler s = new ParallelScheduler(1, new RxThreadFactory("Test"), true, false);
+        try {
+            ((BatchWorker)s.createWorker()).scheduleBatch(this, null);
+        } finally {
+            s.shutdown();
+        }
+    }
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.junit.Test;
+
+import io.reactivex.*;
+import io.reactivex.Scheduler.Worker;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.functions.Action;
+import io.reactivex.internal.schedulers.RxThreadFactory;
+import io.reactivex.schedulers.Schedulers;
+
+public class SchedulerInstrumentationTest {
+
+    static final Runnable SLEEP = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException ex) {
+                // ignored
+            }
+        }
+    };
+
+    static void awaitCount(SchedulerInstrumentation si, long count) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (si.aggregate().runTime().count() >= count) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Expected " + count + " runs but was " + si.aggregate());
+    }
+
+    @Test
+    public void empty() {
+        SchedulerInstrumentation si = new SchedulerInstrumentation();
+
+        assertTrue(si.snapshot().isEmpty());
+
+        SchedulerInstrumentation.LaneSnapshot a = si.aggregate();
+        assertEquals(-1, a.index());
+        assertEquals(0, a.queueWait().count());
+        assertEquals(0, a.runTime().count());
+        assertEquals(0, a.rejections());
+    }
+
+    @Test(timeout = 10000)
+    public void parallel() throws Exception {
+        SchedulerInstrumentation si = new SchedulerInstrumentation();
+        ParallelScheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), true, false, null, false, si);
+        try {
+            Worker w = s.createWorker();
+
+            for (int i = 0; i < 5; i++) {
+                w.schedule(SLEEP);
+            }
+            w.schedule(SLEEP, 10, TimeUnit.MILLISECONDS);
+
+            awaitCount(si, 6);
+
+            List<SchedulerInstrumentation.LaneSnapshot> lanes = si.snapshot();
+            assertEquals(2, lanes.size());
+
+            SchedulerInstrumentation.LaneSnapshot lane = lanes.get(0);
+            assertEquals(0, lane.index());
+            assertEquals(6, lane.runTime().count());
+            assertEquals(6, lane.queueWait().count());
+            assertTrue(lane.toString(), lane.runTime().max() >= TimeUnit.MILLISECONDS.toNanos(9));
+            // the last immediate task waited for the four before it
+            assertTrue(lane.toString(), lane.queueWait().max() >= TimeUnit.MILLISECONDS.toNanos(30));
+
+            assertEquals(0, lanes.get(1).runTime().count());
+
+            w.dispose();
+        } finally {
+            s.shutdown();
+        }
+
+        assertSame(Disposables.disposed(), s.scheduleDirect(SLEEP));
+        assertEquals(1, si.aggregate().rejections());
+
+        s.start();
+        try {
+            // the lane recorders survive the restart
+            assertEquals(2, si.snapshot().size());
+            assertEquals(6, si.aggregate().runTime().count());
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void parallelWorkStealing() throws Exception {
+        SchedulerInstrumentation si = new SchedulerInstrumentation();
+        ParallelScheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), true, true, null, false, si);
+        try {
+            Flowable.range(1, 1000)
+            .observeOn(s)
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertValueCount(1000)
+            .assertComplete();
+
+            // the run time is recorded after the task has signalled the consumer
+            awaitCount(si, 1);
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shared() throws Exception {
+        SchedulerInstrumentation si = new SchedulerInstrumentation();
+        SharedScheduler s = new SharedScheduler(Schedulers.single(), null, si);
+
+        Worker w = s.createWorker();
+        w.schedule(SLEEP);
+        w.schedule(SLEEP, 10, TimeUnit.MILLISECONDS);
+        s.scheduleDirect(SLEEP);
+        s.scheduleDirect(SLEEP, 1, TimeUnit.MILLISECONDS);
+
+        awaitCount(si, 4);
+
+        assertEquals(1, si.snapshot().size());
+        assertEquals(4, si.snapshot().get(0).queueWait().count());
+
+        w.dispose();
+        s.shutdown();
+
+        assertSame(Disposables.disposed(), s.scheduleDirect(SLEEP));
+        assertSame(Disposables.disposed(), s.createWorker().schedule(SLEEP));
+        assertEquals(2, si.aggregate().rejections());
+    }
+
+    @Test(timeout = 10000)
+    public void sharedWithTimer() throws Exception {
+        TimingWheel tw = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        try {
+            SchedulerInstrumentation si = new SchedulerInstrumentation();
+            SharedScheduler s = new SharedScheduler(Schedulers.single(), tw, si);
+
+            s.scheduleDirect(SLEEP, 5, TimeUnit.MILLISECONDS);
+            s.createWorker().schedule(SLEEP, 5, TimeUnit.MILLISECONDS);
+
+            awaitCount(si, 2);
+
+            s.shutdown();
+        } finally {
+            tw.shutdown();
+        }
+    }
+
+    void blocking(final BlockingScheduler s, final SchedulerInstrumentation si) throws Exception {
+        s.execute(new Action() {
+            @Override
+            public void run() throws Exception {
+                final Worker w = s.createWorker();
+                w.schedule(SLEEP);
+                s.scheduleDirect(SLEEP);
+                w.schedule(SLEEP, 5, TimeUnit.MILLISECONDS);
+                w.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        w.dispose();
+                        s.shutdown();
+                    }
+                }, 50, TimeUnit.MILLISECONDS);
+            }
+        });
+
+        SchedulerInstrumentation.LaneSnapshot lane = si.snapshot().get(0);
+        assertEquals(4, lane.runTime().count());
+        assertEquals(4, lane.queueWait().count());
+        // the direct task waited for the worker task
+        assertTrue(lane.toString(), lane.queueWait().max() >= TimeUnit.MILLISECONDS.toNanos(9));
+
+        assertSame(Disposables.disposed(), s.scheduleDirect(SLEEP));
+        assertSame(Disposables.disposed(), s.createWorker().schedule(SLEEP));
+        assertEquals(2, si.aggregate().rejections());
+    }
+
+    @Test(timeout = 10000)
+    public void blocking() throws Exception {
+        SchedulerInstrumentation si = new SchedulerInstrumentation();
+        blocking(new BlockingScheduler(si), si);
+    }
+
+    @Test(timeout = 10000)
+    public void blockingLowLatency() throws Exception {
+        SchedulerInstrumentation si = new SchedulerInstrumentation();
+        blocking(new BlockingScheduler(16, WaitStrategy.park(), si), si);
+    }
+}
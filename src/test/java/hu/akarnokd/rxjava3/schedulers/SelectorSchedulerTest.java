@@ -0,0 +1,434 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+
+import io.reactivex.*;
+import io.reactivex.Scheduler.Worker;
+import io.reactivex.disposables.*;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subscribers.TestSubscriber;
+
+public class SelectorSchedulerTest implements Runnable {
+
+    final AtomicInteger calls = new AtomicInteger();
+
+    SelectorScheduler scheduler;
+
+    ServerSocketChannel server;
+
+    final List<SocketChannel> channels = new ArrayList<SocketChannel>();
+
+    @Override
+    public void run() {
+        calls.getAndIncrement();
+    }
+
+    @Before
+    public void before() throws IOException {
+        scheduler = new SelectorScheduler(2);
+        server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @After
+    public void after() throws IOException {
+        scheduler.shutdown();
+        for (SocketChannel ch : channels) {
+            ch.close();
+        }
+        server.close();
+    }
+
+    SocketChannel connect() throws IOException {
+        SocketChannel ch = SocketChannel.open(server.socket().getLocalSocketAddress());
+        channels.add(ch);
+        return ch;
+    }
+
+    SocketChannel acceptBlocking() throws IOException {
+        server.configureBlocking(true);
+        SocketChannel ch = server.accept();
+        channels.add(ch);
+        return ch;
+    }
+
+    static ByteBuffer bytes(int start, int count) {
+        ByteBuffer b = ByteBuffer.allocate(count);
+        for (int i = 0; i < count; i++) {
+            b.put((byte)(start + i));
+        }
+        b.flip();
+        return b;
+    }
+
+    static byte[] readFully(SocketChannel ch, int count) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(count);
+        while (b.hasRemaining()) {
+            if (ch.read(b) < 0) {
+                break;
+            }
+        }
+        return Arrays.copyOf(b.array(), b.position());
+    }
+
+    static int total(List<ByteBuffer> list) {
+        int n = 0;
+        for (ByteBuffer b : list) {
+            n += b.remaining();
+        }
+        return n;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidParallelism() {
+        new SelectorScheduler(0);
+    }
+
+    @Test
+    public void scheduleDirect() throws Exception {
+        final CountDownLatch cdl = new CountDownLatch(2);
+        scheduler.scheduleDirect(new Runnable() {
+            @Override
+            public void run() {
+                cdl.countDown();
+            }
+        });
+        scheduler.scheduleDirect(new Runnable() {
+            @Override
+            public void run() {
+                cdl.countDown();
+            }
+        }, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(cdl.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void observeOn() {
+        for (int i = 0; i < 100; i++) {
+            Flowable.range(1, 1000).hide()
+            .observeOn(scheduler)
+            .delay(0, TimeUnit.MILLISECONDS, scheduler)
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertValueCount(1000)
+            .assertNoErrors()
+            .assertComplete();
+        }
+    }
+
+    @Test
+    public void timedOrder() {
+        Flowable.range(1, 5)
+        .concatMap(new Function<Integer, Flowable<Integer>>() {
+            @Override
+            public Flowable<Integer> apply(Integer v) throws Exception {
+                return Flowable.just(v).delay(10 - v, TimeUnit.MILLISECONDS, scheduler);
+            }
+        })
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertResult(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void workerDispose() throws Exception {
+        Worker w = scheduler.createWorker();
+        try {
+            Disposable d = w.schedule(this, 50, TimeUnit.MILLISECONDS);
+            w.dispose();
+            assertTrue(w.isDisposed());
+            assertFalse(d.isDisposed());
+
+            Thread.sleep(150);
+
+            assertEquals(0, calls.get());
+            assertSame(Disposables.disposed(), w.schedule(this));
+        } finally {
+            w.dispose();
+        }
+    }
+
+    @Test
+    public void shutdownRejects() {
+        scheduler.shutdown();
+
+        assertSame(Disposables.disposed(), scheduler.scheduleDirect(this));
+        assertSame(Disposables.disposed(), scheduler.createWorker().schedule(this));
+
+        scheduler.start();
+
+        final CountDownLatch cdl = new CountDownLatch(1);
+        scheduler.scheduleDirect(new Runnable() {
+            @Override
+            public void run() {
+                cdl.countDown();
+            }
+        });
+        try {
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException ex) {
+            fail(ex.toString());
+        }
+    }
+
+    @Test
+    public void shutdownChannelOperators() throws Exception {
+        scheduler.shutdown();
+
+        scheduler.accept(server)
+        .test()
+        .assertFailure(RejectedExecutionException.class);
+
+        SocketChannel ch = connect();
+
+        scheduler.read(ch, 16)
+        .test()
+        .assertFailure(RejectedExecutionException.class);
+
+        scheduler.write(ch, Flowable.just(bytes(0, 1)))
+        .test()
+        .assertFailure(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void accept() throws Exception {
+        TestSubscriber<SocketChannel> ts = scheduler.accept(server).test(0);
+
+        connect();
+        connect();
+
+        Thread.sleep(100);
+
+        ts.assertEmpty();
+
+        ts.request(1);
+
+        ts.awaitCount(1);
+        ts.assertValueCount(1);
+
+        ts.request(2);
+
+        ts.awaitCount(2);
+        ts.assertValueCount(2);
+
+        connect();
+
+        ts.awaitCount(3);
+        ts.assertValueCount(3)
+        .assertNoErrors()
+        .assertNotComplete();
+
+        for (SocketChannel ch : ts.values()) {
+            channels.add(ch);
+        }
+
+        ts.cancel();
+    }
+
+    @Test
+    public void readBackpressured() throws Exception {
+        SocketChannel client = connect();
+        SocketChannel ch = acceptBlocking();
+
+        TestSubscriber<ByteBuffer> ts = scheduler.read(ch, 4).test(0);
+
+        client.write(bytes(0, 10));
+
+        Thread.sleep(100);
+
+        ts.assertEmpty();
+
+        ts.request(1);
+
+        ts.awaitCount(1);
+        ts.assertValueCount(1);
+        assertEquals(4, ts.values().get(0).remaining());
+
+        ts.request(Long.MAX_VALUE);
+
+        client.close();
+
+        ts.awaitDone(5, TimeUnit.SECONDS)
+        .assertNoErrors()
+        .assertComplete();
+
+        assertEquals(10, total(ts.values()));
+        byte[] all = new byte[10];
+        int i = 0;
+        for (ByteBuffer b : ts.values()) {
+            while (b.hasRemaining()) {
+                all[i++] = b.get();
+            }
+        }
+        assertArrayEquals(bytes(0, 10).array(), all);
+    }
+
+    @Test
+    public void readCancel() throws Exception {
+        SocketChannel client = connect();
+        SocketChannel ch = acceptBlocking();
+
+        TestSubscriber<ByteBuffer> ts = scheduler.read(ch, 16).take(1).test();
+
+        client.write(bytes(0, 5));
+
+        ts.awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(1)
+        .assertNoErrors()
+        .assertComplete();
+
+        // the channel can be read again by a new reader
+        client.write(bytes(5, 5));
+
+        TestSubscriber<ByteBuffer> ts2 = scheduler.read(ch, 16).test();
+
+        client.close();
+
+        ts2.awaitDone(5, TimeUnit.SECONDS)
+        .assertNoErrors()
+        .assertComplete();
+
+        assertEquals(5, total(ts2.values()));
+    }
+
+    @Test
+    public void sameReaderTwice() throws Exception {
+        connect();
+        SocketChannel ch = acceptBlocking();
+
+        TestSubscriber<ByteBuffer> ts1 = scheduler.read(ch, 16).test();
+
+        scheduler.read(ch, 16)
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertFailure(IllegalStateException.class);
+
+        ts1.assertEmpty();
+        ts1.cancel();
+    }
+
+    @Test
+    public void writeLarge() throws Exception {
+        SocketChannel client = connect();
+        SocketChannel ch = acceptBlocking();
+
+        int n = 1024;
+        int size = 4096;
+        List<ByteBuffer> list = new ArrayList<ByteBuffer>();
+        for (int i = 0; i < n; i++) {
+            list.add(bytes(i, size));
+        }
+
+        TestObserver<Void> to = scheduler.write(ch, Flowable.fromIterable(list)).test();
+
+        byte[] received = readFully(client, n * size);
+
+        to.awaitDone(5, TimeUnit.SECONDS)
+        .assertResult();
+
+        assertEquals(n * size, received.length);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < size; j++) {
+                assertEquals((byte)(i + j), received[i * size + j]);
+            }
+        }
+    }
+
+    @Test
+    public void writeError() throws Exception {
+        connect();
+        SocketChannel ch = acceptBlocking();
+
+        scheduler.write(ch, Flowable.<ByteBuffer>error(new IOException()))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertFailure(IOException.class);
+    }
+
+    @Test
+    public void writeDispose() throws Exception {
+        connect();
+        SocketChannel ch = acceptBlocking();
+
+        TestObserver<Void> to = scheduler.write(ch, Flowable.<ByteBuffer>never()).test();
+
+        Thread.sleep(50);
+
+        to.dispose();
+
+        // a new writer can take over after the dispose took effect
+        Thread.sleep(50);
+
+        scheduler.write(ch, Flowable.just(bytes(0, 1)))
+        .test()
+        .awaitDone(5, TimeUnit.SECONDS)
+        .assertResult();
+    }
+
+    @Test
+    public void echo() throws Exception {
+        Disposable d = scheduler.accept(server)
+        .flatMapCompletable(new Function<SocketChannel, Completable>() {
+            @Override
+            public Completable apply(SocketChannel ch) throws Exception {
+                return scheduler.write(ch, scheduler.read(ch, 64));
+            }
+        })
+        .subscribe();
+
+        for (int k = 0; k < 3; k++) {
+            SocketChannel client = connect();
+
+            client.write(bytes(k, 1000));
+
+            byte[] received = readFully(client, 1000);
+
+            assertArrayEquals(bytes(k, 1000).array(), received);
+        }
+
+        d.dispose();
+    }
+
+    @Test
+    public void shutdownSignalsActiveReaders() throws Exception {
+        connect();
+        SocketChannel ch = acceptBlocking();
+
+        TestSubscriber<ByteBuffer> ts = scheduler.read(ch, 16).test();
+
+        Thread.sleep(50);
+
+        scheduler.shutdown();
+
+        ts.awaitDone(5, TimeUnit.SECONDS)
+        .assertFailure(RejectedExecutionException.class);
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import hu.akarnokd.rxjava3.test.TestHelper;
+import io.reactivex.*;
+import io.reactivex.Scheduler.Worker;
+import io.reactivex.disposables.*;
+import io.reactivex.internal.schedulers.RxThreadFactory;
+import io.reactivex.plugins.RxJavaPlugins;
+
+public class SpinningSchedulerTest implements Runnable {
+
+    final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public void run() {
+        calls.getAndIncrement();
+    }
+
+    static List<WaitStrategy> strategies() {
+        return Arrays.asList(
+                WaitStrategy.busySpin(),
+                WaitStrategy.yielding(),
+                WaitStrategy.spinThenPark(100, 10),
+                WaitStrategy.park(),
+                WaitStrategy.timedPark(1, TimeUnit.MILLISECONDS)
+        );
+    }
+
+    @Test
+    public void observeOn() {
+        for (WaitStrategy ws : strategies()) {
+            Scheduler s = new SpinningScheduler(2, 16, ws);
+            try {
+                for (int i = 0; i < 100; i++) {
+                    Flowable.range(1, 1000).hide()
+                    .observeOn(s)
+                    .observeOn(s)
+                    .test()
+                    .awaitDone(5, TimeUnit.SECONDS)
+                    .assertValueCount(1000)
+                    .assertNoErrors()
+                    .assertComplete();
+                }
+            } finally {
+                s.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void delayed() {
+        for (WaitStrategy ws : strategies()) {
+            Scheduler s = new SpinningScheduler(2, 16, ws);
+            try {
+                Flowable.range(1, 10).hide()
+                .delay(10, TimeUnit.MILLISECONDS, s)
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+                Flowable.interval(1, TimeUnit.MILLISECONDS, s)
+                .take(10)
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertResult(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+            } finally {
+                s.shutdown();
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void workerFifoFromManyThreads() throws Exception {
+        SpinningScheduler s = new SpinningScheduler(1, 4, WaitStrategy.spinThenPark(100, 10));
+        try {
+            final Worker w = s.createWorker();
+            final List<Integer> list = new ArrayList<Integer>();
+            final CountDownLatch cdl = new CountDownLatch(1);
+
+            Runnable r = new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        final int j = i;
+                        w.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                list.add(j);
+                            }
+                        });
+                    }
+                }
+            };
+
+            TestHelper.race(r, r);
+
+            w.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    cdl.countDown();
+                }
+            });
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            assertEquals(2000, list.size());
+
+            w.dispose();
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void selfOverflowKeepsOrder() throws Exception {
+        SpinningScheduler s = new SpinningScheduler(1, 16, WaitStrategy.park());
+        try {
+            final Worker w = s.createWorker();
+            final List<Integer> list = new ArrayList<Integer>();
+            final CountDownLatch cdl = new CountDownLatch(1);
+
+            w.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100; i++) {
+                        final int j = i;
+                        w.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                list.add(j);
+                            }
+                        });
+                    }
+                    w.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            cdl.countDown();
+                        }
+                    });
+                }
+            });
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            assertEquals(100, list.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, list.get(i).intValue());
+            }
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void timedSameDeadlineKeepsOrder() throws Exception {
+        SpinningScheduler s = new SpinningScheduler(1, 16, WaitStrategy.park());
+        try {
+            final Worker w = s.createWorker();
+            final List<Integer> list = Collections.synchronizedList(new ArrayList<Integer>());
+            final CountDownLatch cdl = new CountDownLatch(1);
+
+            w.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10; i++) {
+                        final int j = i;
+                        w.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                list.add(j);
+                                if (j == 9) {
+                                    cdl.countDown();
+                                }
+                            }
+                        }, 10, TimeUnit.MILLISECONDS);
+                    }
+                }
+            });
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), list);
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void disposeTasks() throws Exception {
+        SpinningScheduler s = new SpinningScheduler(1, 16, WaitStrategy.park());
+        try {
+            final CountDownLatch block = new CountDownLatch(1);
+            final CountDownLatch cdl = new CountDownLatch(1);
+
+            Worker w = s.createWorker();
+            w.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        block.await();
+                    } catch (InterruptedException ex) {
+                        // ignored
+                    }
+                }
+            });
+
+            Disposable d = w.schedule(this);
+            assertFalse(d.isDisposed());
+            d.dispose();
+            assertTrue(d.isDisposed());
+
+            s.scheduleDirect(this).dispose();
+            s.scheduleDirect(this, 1, TimeUnit.MILLISECONDS).dispose();
+
+            Worker w2 = s.createWorker();
+            w2.schedule(this);
+            w2.schedule(this, 1, TimeUnit.MILLISECONDS);
+            w2.dispose();
+            assertTrue(w2.isDisposed());
+            assertSame(Disposables.disposed(), w2.schedule(this));
+
+            s.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    cdl.countDown();
+                }
+            }, 10, TimeUnit.MILLISECONDS);
+
+            block.countDown();
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            assertEquals(0, calls.get());
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void interruptedLoopStillParks() throws Exception {
+        SpinningScheduler s = new SpinningScheduler(1, 16, WaitStrategy.park());
+        try {
+            final Thread[] loop = { null };
+            final CountDownLatch started = new CountDownLatch(1);
+
+            s.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    loop[0] = Thread.currentThread();
+                    // leave the interrupt flag set for the event loop
+                    Thread.currentThread().interrupt();
+                    started.countDown();
+                }
+            });
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            while (loop[0].getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+
+            assertFalse(loop[0].isInterrupted());
+
+            final CountDownLatch ran = new CountDownLatch(1);
+
+            s.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    ran.countDown();
+                }
+            });
+
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void fullRingProducerWaits() throws Exception {
+        final SpinningScheduler s = new SpinningScheduler(1, 4, WaitStrategy.park());
+        try {
+            final CountDownLatch block = new CountDownLatch(1);
+            final CountDownLatch cdl = new CountDownLatch(100);
+
+            s.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        block.await();
+                    } catch (InterruptedException ex) {
+                        // ignored
+                    }
+                }
+            });
+
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100; i++) {
+                        s.scheduleDirect(new Runnable() {
+                            @Override
+                            public void run() {
+                                cdl.countDown();
+                            }
+                        });
+                    }
+                }
+            });
+            t.start();
+
+            Thread.sleep(50);
+
+            block.countDown();
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            t.join();
+        } finally {
+            s.shutdown();
+        }
+    }
+
+    @Test
+    public void taskThrows() throws Exception {
+        List<Throwable> errors = TestHelper.trackPluginErrors();
+        SpinningScheduler s = new SpinningScheduler(1, 16, WaitStrategy.park());
+        try {
+            final CountDownLatch cdl = new CountDownLatch(1);
+            s.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    throw new IllegalArgumentException();
+                }
+            });
+            s.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    cdl.countDown();
+                }
+            });
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            TestHelper.assertError(errors, 0, IllegalArgumentException.class);
+        } finally {
+            s.shutdown();
+            RxJavaPlugins.reset();
+        }
+    }
+
+    @Test
+    public void shutdown() {
+        SpinningScheduler s = new SpinningScheduler(2, 16, WaitStrategy.busySpin(), new RxThreadFactory("Test"));
+        Worker w = s.createWorker();
+
+        s.shutdown();
+        s.shutdown();
+
+        assertSame(Disposables.disposed(), s.scheduleDirect(this));
+        assertSame(Disposables.disposed(), s.scheduleDirect(this, 1, TimeUnit.SECONDS));
+        assertSame(Disposables.disposed(), w.schedule(this));
+        assertSame(Disposables.disposed(), s.createWorker().schedule(this));
+
+        s.start();
+        s.start();
+
+        try {
+            Flowable.just(1)
+            .subscribeOn(s)
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertResult(1);
+        } finally {
+            s.shutdown();
+        }
+        assertEquals(0, calls.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parallelismPositive() {
+        new SpinningScheduler(0, 16, WaitStrategy.park());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityPositive() {
+        new SpinningScheduler(1, 0, WaitStrategy.park());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void timedParkPositive() {
+        WaitStrategy.timedPark(0, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.schedulers;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import hu.akarnokd.rxjava3.test.*;
+import io.reactivex.*;
+import io.reactivex.Scheduler.Worker;
+import io.reactivex.disposables.*;
+import io.reactivex.internal.schedulers.RxThreadFactory;
+import io.reactivex.schedulers.Schedulers;
+
+public class TimingWheelTest implements Runnable {
+
+    final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public void run() {
+        calls.getAndIncrement();
+    }
+
+    @Test(timeout = 5000)
+    public void fires() throws Exception {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        try {
+            final CountDownLatch cdl = new CountDownLatch(1);
+            long before = System.nanoTime();
+
+            Disposable d = wheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    cdl.countDown();
+                }
+            }, 50, TimeUnit.MILLISECONDS);
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            assertTrue(System.nanoTime() - before >= TimeUnit.MILLISECONDS.toNanos(50));
+
+            assertTrue(d.isDisposed());
+        } finally {
+            wheel.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelled() throws Exception {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        try {
+            Disposable d = wheel.schedule(this, 50, TimeUnit.MILLISECONDS);
+
+            assertFalse(d.isDisposed());
+
+            d.dispose();
+
+            assertTrue(d.isDisposed());
+
+            Thread.sleep(200);
+
+            assertEquals(0, calls.get());
+        } finally {
+            wheel.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void manyTimeoutsMultipleRounds() throws Exception {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS, 16, new RxThreadFactory("Test"));
+        try {
+            int n = 10000;
+            final CountDownLatch cdl = new CountDownLatch(n / 2);
+            Runnable r = new Runnable() {
+                @Override
+                public void run() {
+                    cdl.countDown();
+                }
+            };
+            for (int i = 0; i < n; i++) {
+                Disposable d = wheel.schedule(r, i % 100, TimeUnit.MILLISECONDS);
+                if (i % 2 == 1) {
+                    d.dispose();
+                }
+            }
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+        } finally {
+            wheel.shutdown();
+        }
+    }
+
+    @Test
+    public void taskThrows() throws Exception {
+        List<Throwable> errors = TestHelper.trackPluginErrors();
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        try {
+            wheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    throw new TestException();
+                }
+            }, 1, TimeUnit.MILLISECONDS);
+
+            wheel.schedule(this, 10, TimeUnit.MILLISECONDS);
+
+            Thread.sleep(200);
+
+            assertEquals(1, calls.get());
+            TestHelper.assertUndeliverable(errors, 0, TestException.class);
+        } finally {
+            wheel.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdownStart() throws Exception {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+
+        Disposable d = wheel.schedule(this, 1, TimeUnit.DAYS);
+
+        wheel.shutdown();
+        wheel.shutdown();
+
+        Thread.sleep(100);
+
+        assertTrue(d.isDisposed());
+
+        assertSame(Disposables.disposed(), wheel.schedule(this, 1, TimeUnit.MILLISECONDS));
+
+        wheel.start();
+        wheel.start();
+
+        try {
+            wheel.schedule(this, 1, TimeUnit.MILLISECONDS);
+
+            Thread.sleep(100);
+
+            assertEquals(1, calls.get());
+        } finally {
+            wheel.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalTick() {
+        new TimingWheel(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalWheelSize() {
+        new TimingWheel(1, TimeUnit.MILLISECONDS, 0, new RxThreadFactory("Test"));
+    }
+
+    @Test
+    public void parallelScheduler() {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        try {
+            for (boolean tracking : new boolean[] { false, true }) {
+                for (boolean stealing : new boolean[] { false, true }) {
+                    Scheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), tracking, stealing, wheel);
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            Flowable.range(1, 10).hide()
+                            .delay(10, TimeUnit.MILLISECONDS, s)
+                            .test()
+                            .awaitDone(5, TimeUnit.SECONDS)
+                            .assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+                        }
+                    } finally {
+                        s.shutdown();
+                    }
+                }
+            }
+        } finally {
+            wheel.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelSchedulerCancel() throws Exception {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        try {
+            for (boolean tracking : new boolean[] { false, true }) {
+                for (boolean stealing : new boolean[] { false, true }) {
+                    Scheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), tracking, stealing, wheel);
+                    try {
+                        Worker w = s.createWorker();
+
+                        w.schedule(this, 50, TimeUnit.MILLISECONDS).dispose();
+
+                        w.schedule(this, 50, TimeUnit.MILLISECONDS);
+
+                        w.dispose();
+
+                        s.scheduleDirect(this, 50, TimeUnit.MILLISECONDS).dispose();
+                    } finally {
+                        s.shutdown();
+                    }
+                }
+            }
+
+            Thread.sleep(200);
+
+            assertEquals(0, calls.get());
+        } finally {
+            wheel.shutdown();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void parallelSchedulerDirect() throws Exception {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        Scheduler s = new ParallelScheduler(2, new RxThreadFactory("Test"), true, false, wheel);
+        try {
+            s.scheduleDirect(this, 10, TimeUnit.MILLISECONDS);
+
+            Disposable d = s.schedulePeriodicallyDirect(this, 10, 10, TimeUnit.MILLISECONDS);
+
+            while (calls.get() < 5) {
+                Thread.sleep(10);
+            }
+
+            d.dispose();
+        } finally {
+            s.shutdown();
+            wheel.shutdown();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void parallelSchedulerDirectKeepsLane() throws Exception {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        ParallelScheduler s = new ParallelScheduler(4, new RxThreadFactory("Test"), false, false, wheel);
+        try {
+            final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+            final CountDownLatch cdl = new CountDownLatch(20);
+
+            ScheduledExecutorService lane = s.lane("key");
+
+            for (int i = 0; i < 20; i++) {
+                s.scheduleDirect(lane, new Runnable() {
+                    @Override
+                    public void run() {
+                        threads.add(Thread.currentThread());
+                        cdl.countDown();
+                    }
+                }, 10, TimeUnit.MILLISECONDS);
+            }
+
+            assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            assertEquals(1, threads.size());
+        } finally {
+            s.shutdown();
+            wheel.shutdown();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void sharedScheduler() throws Exception {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        SharedScheduler s = new SharedScheduler(Schedulers.single(), wheel);
+        try {
+            for (int i = 0; i < 50; i++) {
+                Flowable.range(1, 10).hide()
+                .delay(10, TimeUnit.MILLISECONDS, s)
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+            }
+
+            s.scheduleDirect(this, 10, TimeUnit.MILLISECONDS);
+
+            Disposable d = s.schedulePeriodicallyDirect(this, 10, 10, TimeUnit.MILLISECONDS);
+
+            while (calls.get() < 5) {
+                Thread.sleep(10);
+            }
+
+            d.dispose();
+
+            Worker w = s.createWorker();
+            w.schedule(this, 1, TimeUnit.DAYS);
+            w.dispose();
+        } finally {
+            s.shutdown();
+            wheel.shutdown();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016-2019 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.rxjava3.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import hu.akarnokd.rxjava3.test.TestHelper;
+import io.reactivex.schedulers.Schedulers;
+
+public class MpscArrayQueueTest {
+
+    @Test
+    public void offerPoll() {
+        MpscArrayQueue<Integer> q = new MpscArrayQueue<Integer>(3);
+
+        assertEquals(4, q.capacity());
+        assertTrue(q.isEmpty());
+        assertNull(q.poll());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(q.offer(i));
+        }
+        assertFalse(q.offer(4));
+        assertEquals(4, q.size());
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, q.poll().intValue());
+        }
+        assertTrue(q.isEmpty());
+
+        q.offer(1);
+        q.clear();
+        assertTrue(q.isEmpty());
+        assertEquals(0, q.size());
+    }
+
+    @Test
+    public void offerTwo() {
+        MpscArrayQueue<Integer> q = new MpscArrayQueue<Integer>(4);
+
+        assertTrue(q.offer(0));
+        assertTrue(q.offer(1, 2));
+        assertFalse(q.offer(3, 4));
+        assertEquals(3, q.size());
+
+        assertEquals(0, q.poll().intValue());
+        assertTrue(q.offer(3, 4));
+        assertFalse(q.offer(5));
+
+        for (int i = 1; i < 5; i++) {
+            assertEquals(i, q.poll().intValue());
+        }
+        assertNull(q.poll());
+
+        assertFalse(new MpscArrayQueue<Integer>(1).offer(1, 2));
+    }
+
+    @Test
+    public void concurrentOfferTwo() {
+        for (int k = 0; k < 10; k++) {
+            final MpscArrayQueue<Integer> q = new MpscArrayQueue<Integer>(16);
+
+            Runnable r = new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i += 2) {
+                        while (!q.offer(i, i + 1)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+
+            final int[] count = { 0 };
+            final boolean[] paired = { true };
+            Runnable c = new Runnable() {
+                @Override
+                public void run() {
+                    while (count[0] != 2000) {
+                        Integer v = q.poll();
+                        if (v != null) {
+                            if (v % 2 == 0) {
+                                Integer w;
+                                while ((w = q.poll()) == null) {
+                                    Thread.yield();
+                                }
+                                if (w != v + 1) {
+                                    paired[0] = false;
+                                }
+                                count[0]++;
+                            } else {
+                                paired[0] = false;
+                            }
+                            count[0]++;
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+
+            Thread t = new Thread(c);
+            t.start();
+
+            TestHelper.race(r, r, Schedulers.single());
+
+            try {
+                t.join(5000);
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+
+            assertEquals(2000, count[0]);
+            assertTrue(paired[0]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalCapacity() {
+        new MpscArrayQueue<Integer>(0);
+    }
+
+    @Test
+    public void concurrentProducers() {
+        for (int k = 0; k < 100; k++) {
+            final MpscArrayQueue<Integer> q = new MpscArrayQueue<Integer>(16);
+
+            Runnable r = new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        while (!q.offer(i)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+
+            final int[] sum = { 0 };
+            final int[] count = { 0 };
+            Runnable c = new Runnable() {
+                @Override
+                public void run() {
+                    while (count[0] != 2000) {
+                        Integer v = q.poll();
+                        if (v != null) {
+                            sum[0] += v;
+                            count[0]++;
+                        }
+                    }
+                }
+            };
+
+            Thread t = new Thread(c);
+            t.start();
+
+            TestHelper.race(r, r, Schedulers.single());
+
+            try {
+                t.join(5000);
+            } catch (InterruptedException ex) {
+                throw new AssertionError(ex);
+            }
+
+            assertEquals(2000, count[0]);
+            assertEquals(2 * 999 * 1000 / 2, sum[0]);
+        }
+    }
+}